@@ -18,6 +18,7 @@ package juzu;
 
 import juzu.impl.common.Formatting;
 import juzu.io.ChunkBuffer;
+import juzu.io.EventStream;
 import juzu.io.Stream;
 import juzu.io.Streamable;
 import juzu.io.UndeclaredIOException;
@@ -741,6 +742,13 @@ public abstract class Response {
     return new Content(code, content);
   }
 
+  public static Content events(EventStream stream) {
+    return new Content(200, stream).
+        withMimeType("text/event-stream").
+        withCharset(Charset.forName("UTF-8")).
+        withHeader("Cache-Control", "no-cache");
+  }
+
   public static Error error(Throwable t) {
     return new Error(t);
   }
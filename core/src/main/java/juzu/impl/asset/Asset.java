@@ -51,6 +51,12 @@ public class Asset {
   /** . */
   private final Integer maxAge;
 
+  /** The content hash of the asset uri. */
+  private final String hash;
+
+  /** The content hash of the asset minified uri. */
+  private final String minifiedHash;
+
   /**
    * Create an asset.
    *
@@ -60,6 +66,22 @@ public class Asset {
    * @param maxAge the asset max age
    */
   public Asset(String id, String type, Boolean header, AssetLocation location, String uri, String minifiedURI, Integer maxAge) {
+    this(id, type, header, location, uri, minifiedURI, maxAge, null, null);
+  }
+
+  /**
+   * Create an asset with content hashes.
+   *
+   * @param id the asset id
+   * @param location the asset location
+   * @param uri the asset uri
+   * @param maxAge the asset max age
+   * @param hash the content hash of the uri
+   * @param minifiedHash the content hash of the minified uri
+   */
+  public Asset(String id, String type, Boolean header, AssetLocation location, String uri, String minifiedURI, Integer maxAge, String hash, String minifiedHash) {
+    this.hash = hash;
+    this.minifiedHash = minifiedHash;
     this.id = id;
     this.type = type;
     this.location = location;
@@ -97,6 +119,44 @@ public class Asset {
     return minifiedURI != null && prod ? minifiedURI : uri;
   }
 
+  /**
+   * Resolve the asset uri, the fingerprinted uri contains the content hash of the asset when it is known.
+   *
+   * @param prod true when the minified uri should be used
+   * @param fingerprint true when the fingerprinted uri should be used
+   * @return the uri
+   */
+  public String resolveURI(boolean prod, boolean fingerprint) {
+    boolean minified = minifiedURI != null && prod;
+    String resolved = minified ? minifiedURI : uri;
+    String resolvedHash = minified ? minifiedHash : hash;
+    return fingerprint && resolvedHash != null ? fingerprint(resolved, resolvedHash) : resolved;
+  }
+
+  /**
+   * Insert a hash in the file name of an uri, before the file extension.
+   *
+   * @param uri the uri
+   * @param hash the hash
+   * @return the fingerprinted uri
+   */
+  public static String fingerprint(String uri, String hash) {
+    int pos = uri.lastIndexOf('.');
+    if (pos > uri.lastIndexOf('/')) {
+      return uri.substring(0, pos) + "." + hash + uri.substring(pos);
+    } else {
+      return uri + "." + hash;
+    }
+  }
+
+  public String getHash() {
+    return hash;
+  }
+
+  public String getMinifiedHash() {
+    return minifiedHash;
+  }
+
   public Integer getMaxAge() {
     return maxAge;
   }
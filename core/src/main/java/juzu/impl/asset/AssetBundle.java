@@ -0,0 +1,84 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.asset;
+
+import juzu.impl.common.Tools;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * A bundle of assets served as a single resource.
+ *
+ * @author Julien Viet
+ */
+public class AssetBundle {
+
+  /** The separator inserted between bundled scripts. */
+  private static final byte[] SCRIPT_SEPARATOR = "\n;\n".getBytes(Tools.UTF_8);
+
+  /** The separator inserted between bundled stylesheets. */
+  private static final byte[] STYLESHEET_SEPARATOR = "\n".getBytes(Tools.UTF_8);
+
+  /**
+   * Concatenate the content of bundled assets.
+   *
+   * @param type the asset type
+   * @param contents the asset contents
+   * @return the bundle content
+   */
+  public static byte[] concat(String type, Iterable<byte[]> contents) {
+    byte[] separator = "stylesheet".equals(type) ? STYLESHEET_SEPARATOR : SCRIPT_SEPARATOR;
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    boolean first = true;
+    for (byte[] content : contents) {
+      if (first) {
+        first = false;
+      } else {
+        buffer.write(separator, 0, separator.length);
+      }
+      buffer.write(content, 0, content.length);
+    }
+    return buffer.toByteArray();
+  }
+
+  /** The asset representing the bundle. */
+  final Asset asset;
+
+  /** The bundle content. */
+  final byte[] content;
+
+  /** The bundle content hash. */
+  final String hash;
+
+  AssetBundle(Asset asset, byte[] content, String hash) {
+    this.asset = asset;
+    this.content = content;
+    this.hash = hash;
+  }
+
+  public Asset getAsset() {
+    return asset;
+  }
+
+  public byte[] getContent() {
+    return content;
+  }
+
+  public String getHash() {
+    return hash;
+  }
+}
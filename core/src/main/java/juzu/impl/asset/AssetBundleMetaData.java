@@ -0,0 +1,68 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.asset;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Describes a bundle declared at build time.
+ *
+ * @author Julien Viet
+ */
+public class AssetBundleMetaData {
+
+  /** The bundle id. */
+  final String id;
+
+  /** The bundle value. */
+  final String value;
+
+  /** The bundle minified value. */
+  final String minified;
+
+  /** The bundled asset ids. */
+  final List<String> assets;
+
+  public AssetBundleMetaData(String id, String value, String minified, List<String> assets) {
+    this.id = id;
+    this.value = value;
+    this.minified = minified;
+    this.assets = Collections.unmodifiableList(assets);
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public String getValue() {
+    return value;
+  }
+
+  public String getMinified() {
+    return minified;
+  }
+
+  public List<String> getAssets() {
+    return assets;
+  }
+
+  @Override
+  public String toString() {
+    return "AssetBundleMetaData[id=" + id + ",value=" + value + ",assets=" + assets + "]";
+  }
+}
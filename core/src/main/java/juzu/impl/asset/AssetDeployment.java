@@ -20,6 +20,8 @@ import juzu.impl.common.Tools;
 
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -30,6 +32,9 @@ public class AssetDeployment {
   /** The assets for this deployment. */
   final ArrayList<AssetNode> assets = new ArrayList<AssetNode>();
 
+  /** The declared bundles for this deployment. */
+  final ArrayList<BundleNode> bundles = new ArrayList<BundleNode>();
+
   /** . */
   private final AssetManager manager;
 
@@ -82,7 +87,64 @@ public class AssetDeployment {
       Integer maxAge,
       URL resource,
       Set<String> dependencies) throws NullPointerException, IllegalArgumentException {
-    assets.add(new AssetNode(id, type, location, value, header, minifiedValue, maxAge, resource, dependencies));
+    return addAsset(id, type, location, value, header, minifiedValue, maxAge, resource, null, null, dependencies);
+  }
+
+  /**
+   * Attempt to add an asset with the content hashes computed at build time, the hashes are used for
+   * serving the asset under a fingerprinted url.
+   *
+   * @param id the asset id
+   * @param type the asset type
+   * @param location the asset location
+   * @param value the asset value
+   * @param header the header setting
+   * @param minifiedValue the header minified value
+   * @param maxAge the asset max age
+   * @param resource the asset resource
+   * @param hash the content hash of the asset value
+   * @param minifiedHash the content hash of the asset minified value
+   * @param dependencies the asset dependencies
+   * @throws NullPointerException     if the metaData argument is nul
+   * @throws IllegalArgumentException if the metaData does not have an id set
+   */
+  public AssetDeployment addAsset(
+      String id,
+      String type,
+      AssetLocation location,
+      String value,
+      Boolean header,
+      String minifiedValue,
+      Integer maxAge,
+      URL resource,
+      String hash,
+      String minifiedHash,
+      Set<String> dependencies) throws NullPointerException, IllegalArgumentException {
+    assets.add(new AssetNode(id, type, location, value, header, minifiedValue, maxAge, resource, hash, minifiedHash, dependencies));
+    return this;
+  }
+
+  /**
+   * Add a bundle declared at build time, the bundle is used when a page bundles exactly the same assets.
+   *
+   * @param id the bundle id
+   * @param assets the bundled asset ids
+   * @param resource the bundle resource
+   * @param minifiedResource the bundle minified resource
+   * @throws NullPointerException if the assets or the resource argument is null
+   */
+  public AssetDeployment addBundle(
+      String id,
+      List<String> assets,
+      URL resource,
+      URL minifiedResource) throws NullPointerException {
+    if (assets == null) {
+      throw new NullPointerException("No null assets accepted");
+    }
+    if (resource == null) {
+      throw new NullPointerException("No null resource accepted");
+    }
+    bundles.add(new BundleNode(id, Collections.unmodifiableList(new ArrayList<String>(assets)), resource, minifiedResource));
     return this;
   }
 
@@ -16,29 +16,41 @@
 
 package juzu.impl.asset;
 
+import juzu.asset.AssetLocation;
 import juzu.impl.common.Tools;
 import juzu.impl.plugin.application.Application;
 import juzu.impl.resource.ResourceResolver;
 
 import javax.inject.Inject;
+import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
 public class AssetManager {
 
-  /** . */
-  private HashMap<String, AssetNode> assets = new HashMap<String, AssetNode>();
+  /** The maximum number of resolutions cached per snapshot. */
+  private static final int MAX_RESOLUTIONS = 256;
+
+  /** The prefix of the module content wrapped by an AMD named define. */
+  private static final String NAMED_DEFINE = "\ndefine('";
 
-  /** Graph saying which assets depends on which asset. */
-  private AssetGraph graph = new AssetGraph();
+  /** The current snapshot, replaced as a whole on each deployment change. */
+  private volatile Snapshot snapshot = new Snapshot(
+      new HashMap<String, AssetNode>(),
+      new AssetGraph(),
+      new HashMap<List<String>, BundleNode>());
 
   /** . */
   protected final String prefix;
@@ -61,11 +73,13 @@ public class AssetManager {
     return new AssetDeployment(this);
   }
 
-  boolean deploy(AssetDeployment deployment) {
+  synchronized boolean deploy(AssetDeployment deployment) {
 
     // Clone the state
-    AssetGraph graphClone = new AssetGraph(graph);
-    HashMap<String, AssetNode> assetsClone = new HashMap<String, AssetNode>(assets);
+    Snapshot current = snapshot;
+    AssetGraph graphClone = new AssetGraph(current.graph);
+    HashMap<String, AssetNode> assetsClone = new HashMap<String, AssetNode>(current.assets);
+    HashMap<List<String>, BundleNode> bundlesClone = new HashMap<List<String>, BundleNode>(current.declared);
     for (AssetNode asset : deployment.assets) {
       // Check it was not previously deployed
       if (!assetsClone.keySet().contains(asset.id)) {
@@ -88,24 +102,35 @@ public class AssetManager {
       }
     }
 
+    for (BundleNode bundle : deployment.bundles) {
+      bundlesClone.put(bundle.assets, bundle);
+    }
+
     // Everything went fine we updated the manager
-    assets = assetsClone;
-    graph = graphClone;
+    snapshot = new Snapshot(assetsClone, graphClone, bundlesClone);
     return true;
   }
 
-  void undeploy(AssetDeployment deployment) {
+  synchronized void undeploy(AssetDeployment deployment) {
+    Snapshot current = snapshot;
+    AssetGraph graphClone = new AssetGraph(current.graph);
+    HashMap<String, AssetNode> assetsClone = new HashMap<String, AssetNode>(current.assets);
     for (AssetNode asset : deployment.assets) {
-      for (AssetNode deployed : assets.values()) {
+      for (AssetNode deployed : assetsClone.values()) {
         if (deployed.iDependOn.contains(asset.id)) {
-          graph.unregister(asset.id, deployed.id);
+          graphClone.unregister(asset.id, deployed.id);
         }
         if (asset.iDependOn.contains(deployed.id)) {
-          graph.unregister(deployed.id, asset.id);
+          graphClone.unregister(deployed.id, asset.id);
         }
       }
-      assets.remove(asset.id);
+      assetsClone.remove(asset.id);
     }
+    HashMap<List<String>, BundleNode> bundlesClone = new HashMap<List<String>, BundleNode>(current.declared);
+    for (BundleNode bundle : deployment.bundles) {
+      bundlesClone.remove(bundle.assets);
+    }
+    snapshot = new Snapshot(assetsClone, graphClone, bundlesClone);
   }
 
   /**
@@ -115,7 +140,16 @@ public class AssetManager {
    * @return the resource
    */
   public AssetResource resolveApplicationAssetResource(String path) {
-    for (AssetNode asset : assets.values()) {
+    return resolveApplicationAssetResource(snapshot, path);
+  }
+
+  private AssetResource resolveApplicationAssetResource(Snapshot snapshot, String path) {
+    String fingerprinted = snapshot.fingerprints.get(path);
+    if (fingerprinted != null) {
+      AssetResource resource = resolveApplicationAssetResource(snapshot, fingerprinted);
+      return resource != null ? new AssetResource(resource.url, resource.maxAge, true) : null;
+    }
+    for (AssetNode asset : snapshot.assets.values()) {
       if (asset.value.equals(path) && asset.resource != null) {
         Integer maxAge = asset.asset.getMaxAge();
         return new AssetResource(asset.resource, maxAge);
@@ -137,7 +171,7 @@ public class AssetManager {
    */
   public Map<String, Asset> getAssets(String type) {
     Map<String, Asset> ret = Collections.emptyMap();
-    for (AssetNode node : assets.values()) {
+    for (AssetNode node : snapshot.assets.values()) {
       if (node.asset.getType().equals(type)) {
         if (ret.isEmpty()) {
           ret = new HashMap<String, Asset>();
@@ -159,12 +193,13 @@ public class AssetManager {
     if (id == null) {
       throw new NullPointerException("No null id accepted");
     }
-    AssetNode node = assets.get(id);
+    AssetNode node = snapshot.assets.get(id);
     return node != null ? node.asset : null;
   }
 
   /**
-   * Perform a topological sort of the provided asset script values.
+   * Perform a topological sort of the provided asset script values. The result is cached for the
+   * current deployment state, subsequent resolutions of the same ids return the same list.
    *
    * @param ids the asset ids to resolve
    * @return the resolved asset or null
@@ -180,57 +215,309 @@ public class AssetManager {
       throw new NullPointerException("No null asset ids accepted");
     }
 
-    // Compute the closure of the assets we need
-    LinkedHashMap<String, HashSet<String>> sub = new LinkedHashMap<String, HashSet<String>>();
-    for (LinkedList<String> queue = Tools.addAll(new LinkedList<String>(), ids);!queue.isEmpty();) {
-      String id = queue.removeFirst();
-      AssetNode asset = this.assets.get(id);
-      if (asset != null) {
-        sub.put(asset.id, new HashSet<String>(asset.iDependOn));
-        for (String depend : asset.iDependOn) {
-          if (!sub.containsKey(depend)) {
-            queue.addLast(depend);
-          }
+    // Duplicates do not change the resolution, only the first occurence order matters
+    List<String> key = new ArrayList<String>(Tools.addAll(new LinkedHashSet<String>(), ids));
+
+    //
+    Snapshot current = snapshot;
+    List<Asset> resolved = current.resolutions.get(key);
+    if (resolved == null) {
+      resolved = Collections.unmodifiableList(current.resolve(key));
+      if (current.resolutions.size() < MAX_RESOLUTIONS) {
+        current.resolutions.putIfAbsent(key, resolved);
+      }
+    }
+    return resolved;
+  }
+
+  /**
+   * Returns the bundle served at the specified path or null if no such bundle exists.
+   *
+   * @param path the bundle path
+   * @return the bundle
+   */
+  public AssetBundle getBundle(String path) {
+    return snapshot.bundles.get(path);
+  }
+
+  /**
+   * <p>Bundle the provided resolved assets: consecutive application assets that are rendered together
+   * are replaced by a single bundle asset. Scripts rendered in the header, scripts rendered in the footer
+   * and stylesheets of the same directory are bundled separately, module assets wrapped by a named
+   * <code>define</code> are bundled with the header scripts.</p>
+   *
+   * <p>When a bundle with the same assets was declared at build time its content is used, otherwise
+   * the bundle is computed and kept for the current deployment state.</p>
+   *
+   * @param assets the resolved assets
+   * @param minified true when the minified version of the assets should be bundled
+   * @return the bundled assets
+   */
+  public Iterable<Asset> bundleAssets(Iterable<Asset> assets, boolean minified) {
+    Snapshot current = snapshot;
+    StringBuilder key = new StringBuilder(minified ? "minified" : "");
+    for (Asset asset : assets) {
+      key.append('\n').append(asset.getId());
+    }
+    String bundlingKey = key.toString();
+    List<Asset> bundled = current.bundlings.get(bundlingKey);
+    if (bundled == null) {
+      if (current.bundlings.size() < MAX_RESOLUTIONS) {
+        bundled = Collections.unmodifiableList(bundle(current, assets, minified));
+        List<Asset> previous = current.bundlings.putIfAbsent(bundlingKey, bundled);
+        if (previous != null) {
+          bundled = previous;
         }
+      } else {
+        return assets;
       }
-      else {
-        throw new IllegalArgumentException("Cannot resolve asset " + id);
+    }
+    return bundled;
+  }
+
+  private List<Asset> bundle(Snapshot snapshot, Iterable<Asset> assets, boolean minified) {
+
+    // Group the consecutive assets rendered together
+    ArrayList<Object> items = new ArrayList<Object>();
+    HashMap<String, Run> runs = new HashMap<String, Run>();
+    for (Asset asset : assets) {
+      String category;
+      String group;
+      if (asset.isStylesheet()) {
+        String uri = asset.resolveURI(minified);
+        category = "stylesheet";
+        group = uri.substring(0, uri.lastIndexOf('/') + 1) + "*" + extension(uri);
+      } else if (asset.isScript()) {
+        category = group = Boolean.FALSE.equals(asset.getHeader()) ? "footer" : "header";
+      } else if (asset.getType().equals("module")) {
+        category = group = "module";
+      } else {
+        category = group = null;
+      }
+      byte[] content = category != null ? content(snapshot, asset, minified) : null;
+      if (content != null && category.equals("module")) {
+        if (new String(content, 0, Math.min(content.length, 256), Tools.UTF_8).startsWith(NAMED_DEFINE + asset.getId() + "'")) {
+          category = group = "header";
+        } else {
+          content = null;
+        }
+      }
+      if (content == null) {
+        if (category != null) {
+          runs.remove(category);
+        }
+        items.add(asset);
+      } else {
+        Run run = runs.get(category);
+        if (run == null || !run.group.equals(group)) {
+          runs.put(category, run = new Run(group, asset.isStylesheet() ? "stylesheet" : "script"));
+          items.add(run);
+        }
+        run.assets.add(asset);
+        run.contents.add(content);
       }
     }
 
-    // Perform the topological sort
-    LinkedList<Asset> resolved = new LinkedList<Asset>();
-    while (sub.size() > 0) {
-      boolean found = false;
-      for (Iterator<Map.Entry<String, HashSet<String>>> i = sub.entrySet().iterator();i.hasNext();) {
-        Map.Entry<String, HashSet<String>> entry = i.next();
-        if (entry.getValue().isEmpty()) {
-          i.remove();
-          AssetNode asset = this.assets.get(entry.getKey());
-          resolved.add(asset.asset);
-          Set<String> dependencies = graph.get(asset.id);
-          if (dependencies != null) {
-            for (String dependency : dependencies) {
-              HashSet<String> foo = sub.get(dependency);
-              if (foo != null) {
-                foo.remove(entry.getKey());
-              }
+    // Replace the runs by their bundle
+    ArrayList<Asset> bundled = new ArrayList<Asset>(items.size());
+    for (Object item : items) {
+      if (item instanceof Asset) {
+        bundled.add((Asset)item);
+      } else {
+        Run run = (Run)item;
+        if (run.assets.size() == 1) {
+          bundled.add(run.assets.get(0));
+        } else {
+          bundled.add(createBundle(snapshot, run, minified).asset);
+        }
+      }
+    }
+    return bundled;
+  }
+
+  private AssetBundle createBundle(Snapshot snapshot, Run run, boolean minified) {
+    List<String> ids = new ArrayList<String>(run.assets.size());
+    Integer maxAge = null;
+    for (Asset asset : run.assets) {
+      ids.add(asset.getId());
+      if (asset.getMaxAge() != null && (maxAge == null || asset.getMaxAge() < maxAge)) {
+        maxAge = asset.getMaxAge();
+      }
+    }
+    byte[] content = null;
+    BundleNode declared = snapshot.declared.get(ids);
+    if (declared != null) {
+      try {
+        content = Tools.bytes(minified && declared.minifiedResource != null ? declared.minifiedResource : declared.resource);
+      }
+      catch (IOException ignore) {
+        // Compute it instead
+      }
+    }
+    if (content == null) {
+      content = AssetBundle.concat(run.type, run.contents);
+    }
+    String hash = Long.toHexString(Tools.md5(content));
+    String path;
+    Asset first = run.assets.get(0);
+    if (run.type.equals("stylesheet")) {
+      // Stylesheets are bundled in their directory to preserve relative urls
+      String uri = first.resolveURI(minified);
+      path = uri.substring(0, uri.lastIndexOf('/') + 1) + "bundle-" + hash + extension(uri);
+    } else {
+      path = prefix + "bundle-" + hash + ".js";
+    }
+    Boolean header = Boolean.FALSE.equals(first.getHeader()) && first.isScript() ? Boolean.FALSE : null;
+    AssetBundle bundle = new AssetBundle(new Asset(path, run.type, header, AssetLocation.APPLICATION, path, null, maxAge), content, hash);
+    AssetBundle previous = snapshot.bundles.putIfAbsent(path, bundle);
+    return previous != null ? previous : bundle;
+  }
+
+  private byte[] content(Snapshot snapshot, Asset asset, boolean minified) {
+    if (asset.getLocation() == AssetLocation.APPLICATION) {
+      AssetResource resource = resolveApplicationAssetResource(snapshot, asset.resolveURI(minified));
+      if (resource != null && resource.url != null) {
+        try {
+          return Tools.bytes(resource.url);
+        }
+        catch (IOException ignore) {
+          // Not bundled
+        }
+      }
+    }
+    return null;
+  }
+
+  private static String extension(String uri) {
+    int pos = uri.lastIndexOf('.');
+    return pos > uri.lastIndexOf('/') ? uri.substring(pos) : "";
+  }
+
+  /**
+   * A run of consecutive assets bundled together.
+   */
+  private static class Run {
+
+    /** . */
+    private final String group;
+
+    /** . */
+    private final String type;
+
+    /** . */
+    private final ArrayList<Asset> assets = new ArrayList<Asset>();
+
+    /** . */
+    private final ArrayList<byte[]> contents = new ArrayList<byte[]>();
+
+    private Run(String group, String type) {
+      this.group = group;
+      this.type = type;
+    }
+  }
+
+  /**
+   * An immutable view of the deployed assets, the resolutions and bundles caches are bound to the snapshot
+   * and are discarded with it.
+   */
+  private static class Snapshot {
+
+    /** . */
+    private final HashMap<String, AssetNode> assets;
+
+    /** Graph saying which assets depends on which asset. */
+    private final AssetGraph graph;
+
+    /** The declared bundles keyed by bundled asset ids. */
+    private final HashMap<List<String>, BundleNode> declared;
+
+    /** Resolved assets keyed by requested ids. */
+    private final ConcurrentHashMap<List<String>, List<Asset>> resolutions;
+
+    /** Bundled assets keyed by resolved ids. */
+    private final ConcurrentHashMap<String, List<Asset>> bundlings;
+
+    /** Bundles keyed by path. */
+    private final ConcurrentHashMap<String, AssetBundle> bundles;
+
+    /** Asset paths keyed by fingerprinted path. */
+    private final HashMap<String, String> fingerprints;
+
+    private Snapshot(HashMap<String, AssetNode> assets, AssetGraph graph, HashMap<List<String>, BundleNode> declared) {
+      this.assets = assets;
+      this.graph = graph;
+      this.declared = declared;
+      this.resolutions = new ConcurrentHashMap<List<String>, List<Asset>>();
+      this.bundlings = new ConcurrentHashMap<String, List<Asset>>();
+      this.bundles = new ConcurrentHashMap<String, AssetBundle>();
+      this.fingerprints = new HashMap<String, String>();
+      for (AssetNode node : assets.values()) {
+        Asset asset = node.asset;
+        if (asset.getLocation() == AssetLocation.APPLICATION) {
+          if (asset.getHash() != null) {
+            fingerprints.put(Asset.fingerprint(asset.getURI(), asset.getHash()), asset.getURI());
+          }
+          if (asset.getMinifiedURI() != null && asset.getMinifiedHash() != null) {
+            fingerprints.put(Asset.fingerprint(asset.getMinifiedURI(), asset.getMinifiedHash()), asset.getMinifiedURI());
+          }
+        }
+      }
+    }
+
+    private List<Asset> resolve(Iterable<String> ids) throws IllegalArgumentException {
+
+      // Compute the closure of the assets we need
+      LinkedHashMap<String, HashSet<String>> sub = new LinkedHashMap<String, HashSet<String>>();
+      for (LinkedList<String> queue = Tools.addAll(new LinkedList<String>(), ids);!queue.isEmpty();) {
+        String id = queue.removeFirst();
+        AssetNode asset = assets.get(id);
+        if (asset != null) {
+          sub.put(asset.id, new HashSet<String>(asset.iDependOn));
+          for (String depend : asset.iDependOn) {
+            if (!sub.containsKey(depend)) {
+              queue.addLast(depend);
             }
           }
-          found = true;
-          break;
+        }
+        else {
+          throw new IllegalArgumentException("Cannot resolve asset " + id);
         }
       }
-      if (!found) {
-        StringBuilder sb = new StringBuilder("Cannot satisfy asset dependencies:\n");
-        for (Map.Entry<String, HashSet<String>> entry : sub.entrySet()) {
-          sb.append(entry.getKey()).append(" -> ").append(entry.getValue());
+
+      // Perform the topological sort
+      ArrayList<Asset> resolved = new ArrayList<Asset>(sub.size());
+      while (sub.size() > 0) {
+        boolean found = false;
+        for (Iterator<Map.Entry<String, HashSet<String>>> i = sub.entrySet().iterator();i.hasNext();) {
+          Map.Entry<String, HashSet<String>> entry = i.next();
+          if (entry.getValue().isEmpty()) {
+            i.remove();
+            AssetNode asset = assets.get(entry.getKey());
+            resolved.add(asset.asset);
+            Set<String> dependencies = graph.get(asset.id);
+            if (dependencies != null) {
+              for (String dependency : dependencies) {
+                HashSet<String> foo = sub.get(dependency);
+                if (foo != null) {
+                  foo.remove(entry.getKey());
+                }
+              }
+            }
+            found = true;
+            break;
+          }
+        }
+        if (!found) {
+          StringBuilder sb = new StringBuilder("Cannot satisfy asset dependencies:\n");
+          for (Map.Entry<String, HashSet<String>> entry : sub.entrySet()) {
+            sb.append(entry.getKey()).append(" -> ").append(entry.getValue());
+          }
+          throw new IllegalArgumentException(sb.toString());
         }
-        throw new IllegalArgumentException(sb.toString());
       }
-    }
 
-    //
-    return resolved;
+      //
+      return resolved;
+    }
   }
 }
@@ -53,7 +53,17 @@ public class AssetMetaData {
   /** . */
   final Integer maxAge;
 
+  /** The content hash of the asset value. */
+  final String hash;
+
+  /** The content hash of the asset minified value. */
+  final String minifiedHash;
+
   public AssetMetaData(String id, String type, AssetLocation location, String value, Boolean header, String minified, Integer maxAge, String... dependencies) {
+    this(id, type, location, value, header, minified, maxAge, null, null, Tools.set(dependencies));
+  }
+
+  public AssetMetaData(String id, String type, AssetLocation location, String value, Boolean header, String minified, Integer maxAge, String hash, String minifiedHash, Set<String> dependencies) {
     this.id = id;
     this.type = type;
     this.value = value;
@@ -61,7 +71,9 @@ public class AssetMetaData {
     this.minified = minified;
     this.location = location;
     this.maxAge = maxAge;
-    this.dependencies = Collections.unmodifiableSet(Tools.set(dependencies));
+    this.hash = hash;
+    this.minifiedHash = minifiedHash;
+    this.dependencies = Collections.unmodifiableSet(dependencies);
   }
 
   public String getId() {
@@ -92,6 +104,14 @@ public class AssetMetaData {
     return minified;
   }
 
+  public String getHash() {
+    return hash;
+  }
+
+  public String getMinifiedHash() {
+    return minifiedHash;
+  }
+
   public Set<String> getDependencies() {
     return dependencies;
   }
@@ -53,6 +53,10 @@ public class AssetNode {
   Set<String> iDependOn;
 
   public AssetNode(String id, String type, AssetLocation location, String value, Boolean header, String minified, Integer maxAge, URL resource, Set<String> iDependOn) {
+    this(id, type, location, value, header, minified, maxAge, resource, null, null, iDependOn);
+  }
+
+  public AssetNode(String id, String type, AssetLocation location, String value, Boolean header, String minified, Integer maxAge, URL resource, String hash, String minifiedHash, Set<String> iDependOn) {
 
     //
     this.id = id;
@@ -60,7 +64,7 @@ public class AssetNode {
     this.value = value;
     this.header = header;
     this.minified = minified;
-    this.asset = new Asset(id, type, header, location, value, minified, maxAge);
+    this.asset = new Asset(id, type, header, location, value, minified, maxAge, hash, minifiedHash);
     this.resource = resource;
     this.iDependOn = iDependOn;
   }
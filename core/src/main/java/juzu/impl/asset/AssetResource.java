@@ -28,8 +28,16 @@ public class AssetResource {
   /** . */
   public final Integer maxAge;
 
+  /** True when the resource is served under a fingerprinted url and never changes. */
+  public final boolean immutable;
+
   public AssetResource(URL url, Integer maxAge) {
+    this(url, maxAge, false);
+  }
+
+  public AssetResource(URL url, Integer maxAge, boolean immutable) {
     this.url = url;
     this.maxAge = maxAge;
+    this.immutable = immutable;
   }
 }
@@ -28,6 +28,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URL;
 import java.net.URLConnection;
 import java.util.Enumeration;
@@ -43,6 +44,9 @@ public class AssetServer {
   /** . */
   private static final ThreadLocal<AssetServer> current = new ThreadLocal<AssetServer>();
 
+  /** The max age of fingerprinted resources: their content never changes for a given url. */
+  private static final int IMMUTABLE_MAX_AGE = 31536000;
+
   public AssetServer() {
   }
 
@@ -54,16 +58,86 @@ public class AssetServer {
     runtimes.remove(assetManager);
   }
 
-  public boolean doGet(String path, ServletContext ctx, HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+  /**
+   * The exchange of an asset request, it decouples the asset server from the servlet api.
+   */
+  public interface Exchange {
+
+    String getRequestHeader(String name);
+
+    String getMimeType(String name);
+
+    URL getResource(String path) throws IOException;
+
+    void setStatus(int status);
+
+    void setHeader(String name, String value);
+
+    void setContentType(String contentType);
+
+    void setContentLength(int length);
+
+    OutputStream getOutputStream() throws IOException;
+
+  }
+
+  public boolean doGet(String path, final ServletContext ctx, final HttpServletRequest req, final HttpServletResponse resp) throws ServletException, IOException {
+    return doGet(path, new Exchange() {
+      public String getRequestHeader(String name) {
+        Enumeration<String> values = req.getHeaders(name);
+        return values.hasMoreElements() ? values.nextElement() : null;
+      }
+      public String getMimeType(String name) {
+        return ctx.getMimeType(name);
+      }
+      public URL getResource(String path) throws IOException {
+        return ctx.getResource(path);
+      }
+      public void setStatus(int status) {
+        resp.setStatus(status);
+      }
+      public void setHeader(String name, String value) {
+        resp.setHeader(name, value);
+      }
+      public void setContentType(String contentType) {
+        resp.setContentType(contentType);
+      }
+      public void setContentLength(int length) {
+        resp.setContentLength(length);
+      }
+      public OutputStream getOutputStream() throws IOException {
+        return resp.getOutputStream();
+      }
+    });
+  }
+
+  public boolean doGet(String path, Exchange exchange) throws IOException {
     if (path != null && path.length() > 0) {
       for (Map.Entry<Application, Boolean> runtime : runtimes.entrySet()) {
         Iterable<AssetManager> resolvers = runtime.getKey().resolveBeans(AssetManager.class);
         for (AssetManager resolver : resolvers) {
+          AssetBundle bundle = resolver.getBundle(path);
+          if (bundle != null) {
+            String etag = bundle.getHash();
+            if (etag.equals(exchange.getRequestHeader("If-None-Match"))) {
+              exchange.setStatus(304);
+            } else {
+              exchange.setHeader("ETag", etag);
+              setCacheControl(exchange, runtime.getValue(), bundle.getAsset().getMaxAge(), true);
+              String contentType = exchange.getMimeType(path.substring(path.lastIndexOf('/') + 1));
+              if (contentType != null) {
+                exchange.setContentType(contentType);
+              }
+              exchange.setContentLength(bundle.getContent().length);
+              exchange.getOutputStream().write(bundle.getContent());
+            }
+            return true;
+          }
           // For now we only have resource of URL type ...
           AssetResource content = resolver.resolveApplicationAssetResource(path);
           if (content == null) {
             // It could be a server resource like an image
-            URL resource = ctx.getResource(path);
+            URL resource = exchange.getResource(path);
             if (resource != null) {
               content = new AssetResource(resource, null);
             }
@@ -74,28 +148,19 @@ public class AssetServer {
             URLConnection conn = content.url.openConnection();
             lastModified = conn.getLastModified();
             String etag = Tools.etag(path, lastModified);
-            Enumeration<String> matches = req.getHeaders("If-None-Match");
-            if (matches.hasMoreElements() && matches.nextElement().equals(etag)) {
-              resp.setStatus(304);
+            if (etag.equals(exchange.getRequestHeader("If-None-Match"))) {
+              exchange.setStatus(304);
             } else {
               in = conn.getInputStream();
               int pos = path.lastIndexOf('/');
               String name = pos == -1 ? path : path.substring(pos + 1);
-              resp.setHeader("ETag", etag);
-              boolean cacheAssets = runtime.getValue();
-              if (cacheAssets) {
-                int maxAge = content.maxAge != null ? content.maxAge : 3600;
-                if (maxAge > 0) {
-                  resp.setHeader("Cache-Control", "max-age=" + maxAge);
-                }
-              } else {
-                resp.setHeader("Cache-Control", "no-cache, no-store, must-revalidate");
-              }
-              String contentType = ctx.getMimeType(name);
+              exchange.setHeader("ETag", etag);
+              setCacheControl(exchange, runtime.getValue(), content.maxAge, content.immutable);
+              String contentType = exchange.getMimeType(name);
               if (contentType != null) {
-                resp.setContentType(contentType);
+                exchange.setContentType(contentType);
               }
-              Tools.copy(in, resp.getOutputStream());
+              Tools.copy(in, exchange.getOutputStream());
             }
             return true;
           }
@@ -105,6 +170,19 @@ public class AssetServer {
     return false;
   }
 
+  private static void setCacheControl(Exchange resp, boolean cacheAssets, Integer maxAge, boolean immutable) {
+    if (cacheAssets && immutable && maxAge == null) {
+      resp.setHeader("Cache-Control", "public, max-age=" + IMMUTABLE_MAX_AGE + ", immutable");
+    } else if (cacheAssets) {
+      int value = maxAge != null ? maxAge : 3600;
+      if (value > 0) {
+        resp.setHeader("Cache-Control", "max-age=" + value);
+      }
+    } else {
+      resp.setHeader("Cache-Control", "no-cache, no-store, must-revalidate");
+    }
+  }
+
   public static String renderAssetURLById(String id) throws NullPointerException {
     Request request = Request.getCurrent();
     if (request != null) {
@@ -112,7 +190,7 @@ public class AssetServer {
       if (assetManager != null) {
         Asset asset = assetManager.getAsset(id);
         if (asset != null) {
-          String uri = asset.resolveURI(request.getRunMode().getMinifyAssets());
+          String uri = asset.resolveURI(request.getRunMode().getMinifyAssets(), request.getRunMode().getCacheAssets());
           return renderAssetURL(request, asset.getLocation(), uri);
         }
       }
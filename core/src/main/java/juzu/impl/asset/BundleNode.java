@@ -0,0 +1,47 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.asset;
+
+import java.net.URL;
+import java.util.List;
+
+/**
+ * A bundle declared at build time.
+ *
+ * @author Julien Viet
+ */
+class BundleNode {
+
+  /** . */
+  final String id;
+
+  /** The bundled asset ids. */
+  final List<String> assets;
+
+  /** . */
+  final URL resource;
+
+  /** . */
+  final URL minifiedResource;
+
+  BundleNode(String id, List<String> assets, URL resource, URL minifiedResource) {
+    this.id = id;
+    this.assets = assets;
+    this.resource = resource;
+    this.minifiedResource = minifiedResource;
+  }
+}
@@ -16,11 +16,17 @@
 
 package juzu.impl.bridge;
 
+import juzu.impl.bridge.spi.session.FileSessionStore;
+import juzu.impl.bridge.spi.session.FlashCookieCodec;
+import juzu.impl.bridge.spi.session.MemorySessionStore;
+import juzu.impl.bridge.spi.session.SessionStore;
+import juzu.impl.bridge.spi.session.StoredSessions;
 import juzu.impl.common.Logger;
 import juzu.impl.common.Name;
 import juzu.impl.inject.spi.InjectorProvider;
 import juzu.impl.common.Tools;
 
+import java.io.File;
 import java.nio.charset.Charset;
 import java.util.Collections;
 import java.util.Iterator;
@@ -40,8 +46,41 @@ public class BridgeConfig {
   /** The default request encoding charset. */
   public static final String REQUEST_ENCODING = "juzu.request_encoding";
 
+  /** The maximum size in bytes of a form body, a negative value disables the limit. */
+  public static final String FORM_MAX_SIZE = "juzu.form_max_size";
+
+  /** The maximum number of fields of a form body, a negative value disables the limit. */
+  public static final String FORM_MAX_FIELDS = "juzu.form_max_fields";
+
+  /** The maximum length in bytes of a form field name or value, a negative value disables the limit. */
+  public static final String FORM_MAX_FIELD_LENGTH = "juzu.form_max_field_length";
+
+  /** The size in bytes of the write queue of a non blocking asynchronous response, a negative value disables non blocking writes. */
+  public static final String ASYNC_WRITE_QUEUE = "juzu.async_write_queue";
+
+  /** The store of the session scoped beans: <code>memory</code>, <code>file</code>, <code>file:</code> followed by a directory or a {@link SessionStore} class name. */
+  public static final String SESSION_STORE = "juzu.session_store";
+
+  /** The storage of the flash scoped beans: <code>session</code> or <code>cookie</code>. */
+  public static final String FLASH_SCOPE = "juzu.flash_scope";
+
+  /** The maximum size in bytes of the flash cookie value, larger flash scopes are kept in the session. */
+  public static final String FLASH_COOKIE_SIZE = "juzu.flash_cookie_size";
+
+  /** The secret signing the flash cookie, a random secret is generated when it is not configured. */
+  public static final String FLASH_SECRET = "juzu.flash_secret";
+
+  /** The application start mode: <code>sequential</code> or <code>parallel</code>. */
+  public static final String START_MODE = "juzu.start_mode";
+
+  /** Warm up the application before it serves requests: <code>true</code> or <code>false</code>. */
+  public static final String WARM_UP = "juzu.warm_up";
+
+  /** The minimum interval in milliseconds between two checks for changes in live mode, zero checks on every request. */
+  public static final String REFRESH_INTERVAL = "juzu.refresh_interval";
+
   /** . */
-  public static final Set<String> NAMES = Collections.unmodifiableSet(Tools.set(INJECT, APP_NAME, REQUEST_ENCODING));
+  public static final Set<String> NAMES = Collections.unmodifiableSet(Tools.set(INJECT, APP_NAME, REQUEST_ENCODING, FORM_MAX_SIZE, FORM_MAX_FIELDS, FORM_MAX_FIELD_LENGTH, ASYNC_WRITE_QUEUE, SESSION_STORE, FLASH_SCOPE, FLASH_COOKIE_SIZE, FLASH_SECRET, START_MODE, WARM_UP, REFRESH_INTERVAL));
 
   /** . */
   public final Name name;
@@ -52,10 +91,120 @@ public class BridgeConfig {
   /** . */
   public final Charset requestEncoding;
 
+  /** . */
+  public final long formMaxSize;
+
+  /** . */
+  public final int formMaxFields;
+
+  /** . */
+  public final int formMaxFieldLength;
+
+  /** . */
+  public final int asyncWriteQueue;
+
+  /** The session store or null when the session scoped beans are kept in the http session. */
+  public final SessionStore sessionStore;
+
+  /** The stored sessions in use or null when there is no session store. */
+  public final StoredSessions storedSessions;
+
+  /** The flash cookie codec or null when the flash scoped beans are kept in the http session. */
+  public final FlashCookieCodec flashCookie;
+
+  /** True when the application services are initialized in parallel. */
+  public final boolean parallelStart;
+
+  /** True when the application is warmed up before it serves requests. */
+  public final boolean warmUp;
+
+  /** The minimum interval in milliseconds between two checks for changes in live mode. */
+  public final long refreshInterval;
+
   public BridgeConfig(Logger log, Map<String, String> config) throws Exception {
     this.name = getApplicationName(config);
     this.injectorProvider = getInjectImplementation(log, config);
     this.requestEncoding = getRequestEncoding(config);
+    this.formMaxSize = getLimit(config, FORM_MAX_SIZE, 2 * 1024 * 1024);
+    this.formMaxFields = (int)getLimit(config, FORM_MAX_FIELDS, 10000);
+    this.formMaxFieldLength = (int)getLimit(config, FORM_MAX_FIELD_LENGTH, 1024 * 1024);
+    this.asyncWriteQueue = (int)getLimit(config, ASYNC_WRITE_QUEUE, 64 * 1024);
+    this.sessionStore = getSessionStore(config);
+    this.storedSessions = sessionStore != null ? new StoredSessions(sessionStore, log) : null;
+    this.flashCookie = getFlashCookie(log, config);
+    this.parallelStart = getParallelStart(config);
+    this.warmUp = getWarmUp(config);
+    this.refreshInterval = Math.max(0, getLimit(config, REFRESH_INTERVAL, 500));
+  }
+
+  private boolean getWarmUp(Map<String, String> config) {
+    String warmUpParam = config.get(WARM_UP);
+    if (warmUpParam != null) {
+      warmUpParam = Tools.interpolate(warmUpParam, System.getProperties()).trim();
+      if ("true".equals(warmUpParam)) {
+        return true;
+      } else if (!"false".equals(warmUpParam)) {
+        throw new IllegalArgumentException("Invalid warm up " + warmUpParam);
+      }
+    }
+    return false;
+  }
+
+  private boolean getParallelStart(Map<String, String> config) {
+    String startModeParam = config.get(START_MODE);
+    if (startModeParam != null) {
+      startModeParam = Tools.interpolate(startModeParam, System.getProperties()).trim();
+      if ("parallel".equals(startModeParam)) {
+        return true;
+      } else if (!"sequential".equals(startModeParam)) {
+        throw new IllegalArgumentException("Invalid start mode " + startModeParam);
+      }
+    }
+    return false;
+  }
+
+  private FlashCookieCodec getFlashCookie(Logger log, Map<String, String> config) {
+    String flashScopeParam = config.get(FLASH_SCOPE);
+    if (flashScopeParam != null) {
+      flashScopeParam = Tools.interpolate(flashScopeParam, System.getProperties()).trim();
+      if ("cookie".equals(flashScopeParam)) {
+        String secret = config.get(FLASH_SECRET);
+        if (secret != null) {
+          secret = Tools.interpolate(secret, System.getProperties());
+        } else {
+          // Each node signs with its own secret, a cookie written by another node is discarded
+          log.warning("No " + FLASH_SECRET + " configured, the flash cookie is signed with a random secret " +
+              "and the flash scope will be lost when a request is served by another node");
+        }
+        return new FlashCookieCodec(secret, (int)getLimit(config, FLASH_COOKIE_SIZE, 3072));
+      } else if (!"session".equals(flashScopeParam)) {
+        throw new IllegalArgumentException("Invalid flash scope " + flashScopeParam);
+      }
+    }
+    return null;
+  }
+
+  private SessionStore getSessionStore(Map<String, String> config) throws Exception {
+    String sessionStoreParam = config.get(SESSION_STORE);
+    if (sessionStoreParam != null) {
+      sessionStoreParam = Tools.interpolate(sessionStoreParam, System.getProperties()).trim();
+      if ("memory".equals(sessionStoreParam)) {
+        return new MemorySessionStore();
+      } else if ("file".equals(sessionStoreParam)) {
+        String dir = "juzu-sessions";
+        if (name != null) {
+          dir += "-" + name;
+        }
+        return new FileSessionStore(new File(System.getProperty("java.io.tmpdir"), dir));
+      } else if (sessionStoreParam.startsWith("file:")) {
+        return new FileSessionStore(new File(sessionStoreParam.substring("file:".length())));
+      } else {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        return Class.forName(sessionStoreParam, true, loader).asSubclass(SessionStore.class).newInstance();
+      }
+    } else {
+      return null;
+    }
   }
 
   private Name getApplicationName(Map<String, String> config) {
@@ -97,6 +246,15 @@ public class BridgeConfig {
     }
   }
 
+  private long getLimit(Map<String, String> config, String name, long defaultValue) {
+    String limitParam = config.get(name);
+    if (limitParam != null) {
+      return Long.parseLong(Tools.interpolate(limitParam, System.getProperties()).trim());
+    } else {
+      return defaultValue;
+    }
+  }
+
   private Charset getRequestEncoding(Map<String, String> config) {
     String requestEncodingParam = config.get(REQUEST_ENCODING);
     if (requestEncodingParam != null) {
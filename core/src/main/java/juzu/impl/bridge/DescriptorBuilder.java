@@ -318,6 +318,10 @@ public class DescriptorBuilder {
     if (sourcePath != null) {
       appendContextParam(buffer, "juzu.src_path", sourcePath);
     }
+    if (runMode.isDynamic()) {
+      // A change is visible on the next request
+      appendContextParam(buffer, BridgeConfig.REFRESH_INTERVAL, "0");
+    }
     for (String listenerClass : listenersClass) {
       appendListener(buffer, listenerClass);
     }
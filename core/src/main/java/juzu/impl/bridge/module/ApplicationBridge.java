@@ -82,7 +82,8 @@ public class ApplicationBridge extends Bridge {
             injector,
             config.name,
             server,
-            resolver));
+            resolver,
+            config.parallelStart));
       }
       return application.get().refresh();
     }
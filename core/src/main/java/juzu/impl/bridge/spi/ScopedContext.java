@@ -27,6 +27,16 @@ public interface ScopedContext extends Iterable<Scoped>, Closeable {
 
   void set(Object key, Scoped scoped) throws NullPointerException;
 
+  /**
+   * Returns the monitor guarding the creation of the value of a key, the same monitor is returned to the
+   * concurrent requests sharing this context.
+   *
+   * @param key the key
+   * @return the monitor
+   * @throws NullPointerException if the key is null
+   */
+  Object getMonitor(Object key) throws NullPointerException;
+
   int size();
 
   void close();
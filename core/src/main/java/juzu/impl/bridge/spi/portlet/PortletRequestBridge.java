@@ -271,7 +271,12 @@ public abstract class PortletRequestBridge<Rq extends PortletRequest, Rs extends
         if (session != null) {
           context = (ScopedContext)session.getAttribute("juzu.flash_scope");
           if (context == null && create) {
-            session.setAttribute("juzu.flash_scope", context = new ServletScopedContext(log));
+            synchronized (ServletScopedContext.getSessionLock(session.getId())) {
+              context = (ScopedContext)session.getAttribute("juzu.flash_scope");
+              if (context == null) {
+                session.setAttribute("juzu.flash_scope", context = new ServletScopedContext(log));
+              }
+            }
           }
         } else {
           context = null;
@@ -282,7 +287,12 @@ public abstract class PortletRequestBridge<Rq extends PortletRequest, Rs extends
         if (session != null) {
           context = (ScopedContext)session.getAttribute("juzu.session_scope");
           if (context == null && create) {
-            session.setAttribute("juzu.session_scope", context = new ServletScopedContext(log));
+            synchronized (ServletScopedContext.getSessionLock(session.getId())) {
+              context = (ScopedContext)session.getAttribute("juzu.session_scope");
+              if (context == null) {
+                session.setAttribute("juzu.session_scope", context = new ServletScopedContext(log));
+              }
+            }
           }
         } else {
           context = null;
@@ -485,7 +495,7 @@ public abstract class PortletRequestBridge<Rq extends PortletRequest, Rs extends
   String getAssetURL(Asset asset) {
     StringBuilder sb = new StringBuilder();
     try {
-      renderAssetURL(asset.getLocation(), asset.resolveURI(bridge.getRunMode().getMinifyAssets()), sb);
+      renderAssetURL(asset.getLocation(), asset.resolveURI(bridge.getRunMode().getMinifyAssets(), bridge.getRunMode().getCacheAssets()), sb);
     }
     catch (IOException e) {
       // Should not happen
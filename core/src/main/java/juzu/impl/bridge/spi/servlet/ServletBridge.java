@@ -24,10 +24,10 @@ import juzu.impl.bridge.module.ApplicationBridge;
 import juzu.impl.bridge.module.ModuleContextImpl;
 import juzu.impl.bridge.provided.ProvidedBridge;
 import juzu.impl.bridge.spi.web.Handler;
-import juzu.impl.common.Completion;
+import juzu.impl.bridge.spi.web.HandlerRefresher;
 import juzu.impl.common.JUL;
-import juzu.impl.common.Tools;
 import juzu.impl.common.Logger;
+import juzu.impl.common.RunMode;
 import juzu.impl.common.SimpleMap;
 import juzu.impl.compiler.CompilationException;
 import juzu.impl.fs.spi.ReadFileSystem;
@@ -45,6 +45,7 @@ import javax.servlet.UnavailableException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.Closeable;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -56,6 +57,9 @@ public class ServletBridge extends HttpServlet {
   /** The resource bundle name. */
   public static final String BUNDLE_NAME = "juzu.resource_bundle";
 
+  /** The prefix of the servlet context attribute set to true when the servlet is ready to serve requests. */
+  public static final String READY = "juzu.ready.";
+
   /** . */
   private String path;
 
@@ -68,8 +72,8 @@ public class ServletBridge extends HttpServlet {
   /** . */
   private Bridge bridge;
 
-  /** . */
-  private Handler handler;
+  /** Publishes the snapshot, replaced as a whole when the application is refreshed. */
+  private HandlerRefresher<Snapshot> refresher;
 
   /** . */
   private String bundleName;
@@ -77,13 +81,17 @@ public class ServletBridge extends HttpServlet {
   /** . */
   private Logger servletLogger;
 
-  /** . */
-  ServletApplicationContext applicationContext;
+  /** The static resource lookups, only cached in prod mode. */
+  private ServletResources resources;
 
   Bridge getBridge() {
     return bridge;
   }
 
+  BridgeConfig getBridgeConfig() {
+    return bridgeConfig;
+  }
+
   @Override
   public void init() throws ServletException {
 
@@ -135,6 +143,15 @@ public class ServletBridge extends HttpServlet {
             return inject;
           } else if (BridgeConfig.REQUEST_ENCODING.equals(key)) {
             return servletConfig.getServletContext().getInitParameter((String)key);
+          } else if (BridgeConfig.NAMES.contains(key)) {
+            // Cascade:
+            // 1/ servlet init param
+            // 2/ servlet context init param
+            String limit = servletConfig.getInitParameter((String)key);
+            if (limit == null) {
+              limit = servletConfig.getServletContext().getInitParameter((String)key);
+            }
+            return limit;
           } else {
             return null;
           }
@@ -195,11 +212,35 @@ public class ServletBridge extends HttpServlet {
 
     //
     this.bridgeConfig = config;
-    this.handler = null;
+    this.refresher = new HandlerRefresher<Snapshot>(servletLogger, config) {
+      @Override
+      protected Bridge createBridge() throws Exception {
+        return bridge = ServletBridge.this.createBridge();
+      }
+      @Override
+      protected Snapshot createSnapshot(Handler handler) {
+        return new Snapshot(handler, new ServletApplicationContext(getServletContext().getClassLoader(), bundleName));
+      }
+      @Override
+      protected void published(Snapshot snapshot) {
+        getServletContext().setAttribute(READY + getServletName(), Boolean.TRUE);
+      }
+    };
     this.path = path;
     this.bundleName = servletConfig.getInitParameter(BUNDLE_NAME);
     this.servletLogger = servletLogger;
     this.bridgeContext = bridgeContext;
+    this.resources = bridgeContext.getRunMode() == RunMode.PROD ? new ServletResources(getServletContext()) : null;
+
+    // Start and warm up the application before the first request
+    if (config.warmUp) {
+      try {
+        refresher.refresh().release();
+      }
+      catch (Exception e) {
+        servletLogger.error("Could not warm up the application " + config.name, e);
+      }
+    }
   }
 
   static ServletException wrap(Throwable e) {
@@ -217,68 +258,48 @@ public class ServletBridge extends HttpServlet {
     return config.getInitParameter("juzu.app_name");
   }
 
-  private void refresh() throws Exception {
-    if (bridge == null) {
+  private Bridge createBridge() throws Exception {
 
-      //
-      ResourceResolver resolver = new ResourceResolver() {
-        public URL resolve(String uri) {
-          try {
-            return getServletConfig().getServletContext().getResource(uri);
-          }
-          catch (MalformedURLException e) {
-            return null;
-          }
+    //
+    ResourceResolver resolver = new ResourceResolver() {
+      public URL resolve(String uri) {
+        try {
+          return getServletConfig().getServletContext().getResource(uri);
         }
-      };
-
-      //
-      Injector injector = bridgeConfig.injectorProvider.get();
-      if (injector instanceof SpringInjector) {
-        SpringInjector springInjector = (SpringInjector)injector;
-        Object parent = getServletContext().getAttribute("org.springframework.web.context.WebApplicationContext.ROOT");
-        if (parent != null) {
-          springInjector.setParent(parent);
+        catch (MalformedURLException e) {
+          return null;
         }
       }
+    };
 
-      //
-      ModuleContextImpl module = (ModuleContextImpl)getServletContext().getAttribute("juzu.module");
-      if (module == null) {
-        getServletContext().setAttribute("juzu.module", module = new ModuleContextImpl(servletLogger, bridgeContext, resolver));
-      }
-
-      // Get asset server
-      AssetServer server = (AssetServer)getServletContext().getAttribute("asset.server");
-      if (server == null) {
-        server = new AssetServer();
-        getServletContext().setAttribute("asset.server", server);
-      }
-
-      //
-      if (injector.isProvided()) {
-        bridge = new ProvidedBridge(bridgeContext, this.bridgeConfig, server, resolver, injector);
-      } else {
-        bridge = new ApplicationBridge(module, bridgeContext, this.bridgeConfig, server, resolver, injector);
+    //
+    Injector injector = bridgeConfig.injectorProvider.get();
+    if (injector instanceof SpringInjector) {
+      SpringInjector springInjector = (SpringInjector)injector;
+      Object parent = getServletContext().getAttribute("org.springframework.web.context.WebApplicationContext.ROOT");
+      if (parent != null) {
+        springInjector.setParent(parent);
       }
     }
 
     //
-    Completion<Boolean> refresh = bridge.refresh();
-    if (refresh.isFailed()) {
-      throw refresh.getCause();
-    } else if (refresh.get()) {
-      if (handler != null) {
-        Tools.safeClose(handler);
-        handler = null;
-        applicationContext = null;
-      }
+    ModuleContextImpl module = (ModuleContextImpl)getServletContext().getAttribute("juzu.module");
+    if (module == null) {
+      getServletContext().setAttribute("juzu.module", module = new ModuleContextImpl(servletLogger, bridgeContext, resolver));
+    }
+
+    // Get asset server
+    AssetServer server = (AssetServer)getServletContext().getAttribute("asset.server");
+    if (server == null) {
+      server = new AssetServer();
+      getServletContext().setAttribute("asset.server", server);
     }
 
     //
-    if (handler == null) {
-      this.handler = new Handler(bridge);
-      this.applicationContext = new ServletApplicationContext(getServletContext().getClassLoader(), bundleName);
+    if (injector.isProvided()) {
+      return new ProvidedBridge(bridgeContext, this.bridgeConfig, server, resolver, injector);
+    } else {
+      return new ApplicationBridge(module, bridgeContext, this.bridgeConfig, server, resolver, injector);
     }
   }
 
@@ -287,20 +308,30 @@ public class ServletBridge extends HttpServlet {
 
     //
     ServletRequestContext ctx = new ServletRequestContext(
-        bridgeConfig.name,
-        bridgeConfig.requestEncoding,
+        bridgeConfig,
         req,
         resp,
         path,
         bridgeContext.getRunMode());
 
+    // A form post exceeding a limit is rejected without invoking the application
+    if (ctx.formStatus != 0) {
+      resp.sendError(ctx.formStatus);
+      return;
+    }
+
     //
     ServletWebBridge bridge = new ServletWebBridge(this, ctx);
 
     // Do we need to send a server resource ?
     if (ctx.getRequestPath().length() > 1 && !ctx.getRequestPath().startsWith("/WEB-INF/")) {
-      URL url = getServletContext().getResource(ctx.getRequestPath());
-      if (url != null) {
+      boolean exists;
+      if (resources != null) {
+        exists = resources.exists(ctx.getRequestPath());
+      } else {
+        exists = getServletContext().getResource(ctx.getRequestPath()) != null;
+      }
+      if (exists) {
         RequestDispatcher dispatcher = getServletContext().getNamedDispatcher("default");
         dispatcher.include(bridge.getRequestContext().req, bridge.getResponse());
         return;
@@ -308,8 +339,9 @@ public class ServletBridge extends HttpServlet {
     }
 
     //
+    HandlerRefresher.Lease<Snapshot> lease;
     try {
-      refresh();
+      lease = refresher.refresh();
     }
     catch (CompilationException e) {
       ctx.send(e);
@@ -321,11 +353,16 @@ public class ServletBridge extends HttpServlet {
 
     //
     try {
-      handler.handle(bridge);
+      Snapshot current = lease.get();
+      bridge.applicationContext = current.applicationContext;
+      current.handler.handle(bridge);
     }
     catch (Throwable throwable) {
       throw wrap(throwable);
     }
+    finally {
+      lease.release();
+    }
   }
 
   @Override
@@ -337,9 +374,26 @@ public class ServletBridge extends HttpServlet {
       }
     }
 */
-    if (handler != null) {
-      Tools.safeClose(handler);
-      this.handler = null;
+    refresher.close();
+    getServletContext().removeAttribute(READY + getServletName());
+  }
+
+  /** An immutable pair of a handler and its application context. */
+  private static class Snapshot implements Closeable {
+
+    /** . */
+    final Handler handler;
+
+    /** . */
+    final ServletApplicationContext applicationContext;
+
+    private Snapshot(Handler handler, ServletApplicationContext applicationContext) {
+      this.handler = handler;
+      this.applicationContext = applicationContext;
+    }
+
+    public void close() throws IOException {
+      handler.close();
     }
   }
 }
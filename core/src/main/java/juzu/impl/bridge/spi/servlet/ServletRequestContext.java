@@ -16,30 +16,38 @@
 package juzu.impl.bridge.spi.servlet;
 
 import juzu.asset.AssetLocation;
+import juzu.impl.bridge.BridgeConfig;
 import juzu.impl.bridge.spi.web.HttpStream;
 import juzu.impl.bridge.spi.web.WebRequestContext;
-import juzu.impl.common.FormURLEncodedParser;
+import juzu.impl.common.FormURLEncodedStreamParser;
 import juzu.impl.common.JUL;
 import juzu.impl.common.Lexers;
 import juzu.impl.common.Logger;
 import juzu.impl.common.Name;
 import juzu.impl.common.RunMode;
 import juzu.impl.common.Spliterator;
-import juzu.impl.common.Tools;
 import juzu.impl.io.BinaryOutputStream;
+import juzu.impl.io.NonBlockingOutputStream;
+import juzu.io.Chunk;
 import juzu.io.Stream;
 import juzu.request.RequestParameter;
 
 import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.UndeclaredThrowableException;
 import java.nio.charset.Charset;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /** @author Julien Viet */
 public class ServletRequestContext extends WebRequestContext {
@@ -47,6 +55,35 @@ public class ServletRequestContext extends WebRequestContext {
   /** The request logger. */
   static final Logger log = JUL.getLogger(ServletRequestContext.class.getName());
 
+  /** The servlet 3.1 <code>WriteListener</code> class when the container provides it. */
+  private static final Class<?> WRITE_LISTENER;
+
+  /** The servlet 3.1 <code>ServletOutputStream#setWriteListener</code> method. */
+  private static final Method SET_WRITE_LISTENER;
+
+  /** The servlet 3.1 <code>ServletOutputStream#isReady</code> method. */
+  private static final Method IS_READY;
+
+  static {
+    Class<?> writeListener;
+    Method setWriteListener;
+    Method isReady;
+    try {
+      writeListener = ServletOutputStream.class.getClassLoader().loadClass("javax.servlet.WriteListener");
+      setWriteListener = ServletOutputStream.class.getMethod("setWriteListener", writeListener);
+      isReady = ServletOutputStream.class.getMethod("isReady");
+    }
+    catch (Exception e) {
+      log.debug("Servlet non blocking io not available");
+      writeListener = null;
+      setWriteListener = null;
+      isReady = null;
+    }
+    WRITE_LISTENER = writeListener;
+    SET_WRITE_LISTENER = setWriteListener;
+    IS_READY = isReady;
+  }
+
   /** . */
   final HttpServletRequest req;
 
@@ -71,19 +108,29 @@ public class ServletRequestContext extends WebRequestContext {
   /** . */
   private final String prefix;
 
+  /** The status rejecting a form post exceeding a limit or 0. */
+  final int formStatus;
+
   /** . */
   private final RunMode runMode;
 
+  /** . */
+  private final int asyncWriteQueue;
+
   public ServletRequestContext(
-      Name application,
-      Charset defaultEncoding,
+      BridgeConfig config,
       HttpServletRequest req,
       HttpServletResponse resp,
       String path,
       RunMode runMode) {
 
+    //
+    Name application = config.name;
+    Charset defaultEncoding = config.requestEncoding;
+
     //
     Map<String, RequestParameter> requestParameters = Collections.emptyMap();
+    int formStatus = 0;
     String query = req.getQueryString();
     if (query != null) {
       for (Iterator<RequestParameter> i = Lexers.queryParser(query);i.hasNext();) {
@@ -109,16 +156,18 @@ public class ServletRequestContext extends WebRequestContext {
             }
           }
           try {
-            byte[] bytes = Tools.copy(req.getInputStream(), new ByteArrayOutputStream()).toByteArray();
-            String form = new String(bytes, charset);
-            FormURLEncodedParser parser = new FormURLEncodedParser(defaultEncoding, form, 0, form.length());
-            for (RequestParameter parameter : parser) {
+            FormURLEncodedStreamParser parser = new FormURLEncodedStreamParser(charset, config.formMaxSize, config.formMaxFields, config.formMaxFieldLength);
+            for (RequestParameter parameter : parser.parse(req.getInputStream())) {
               if (requestParameters.isEmpty()) {
                 requestParameters = new HashMap<String, RequestParameter>();
               }
               parameter.appendTo(requestParameters);
             }
           }
+          catch (FormURLEncodedStreamParser.LimitException e) {
+            log.info("Rejecting form post: " + e.getMessage());
+            formStatus = e.getStatus();
+          }
           catch (IOException e) {
             log.error("Cannot parse form post", e);
           }
@@ -137,11 +186,13 @@ public class ServletRequestContext extends WebRequestContext {
     this.defaultEncoding = defaultEncoding;
     this.requestPath = req.getRequestURI().substring(req.getContextPath().length());
     this.requestParameters = requestParameters;
+    this.formStatus = formStatus;
     this.req = req;
     this.path = path;
     this.resp = resp;
     this.prefix = prefix.toString();
     this.runMode = runMode;
+    this.asyncWriteQueue = config.asyncWriteQueue;
 
   }
 
@@ -173,6 +224,24 @@ public class ServletRequestContext extends WebRequestContext {
     }
   }
 
+  @Override
+  protected Executor getOutputExecutor() {
+    if (req.isAsyncSupported()) {
+      return new Executor() {
+        public void execute(Runnable command) {
+          try {
+            beginAsync().start(command);
+          }
+          catch (IllegalStateException e) {
+            throw new RejectedExecutionException(e);
+          }
+        }
+      };
+    } else {
+      return null;
+    }
+  }
+
   /**
    * Begin or reuse an async context from the servlet.
    *
@@ -198,6 +267,12 @@ public class ServletRequestContext extends WebRequestContext {
     /** . */
     private Stream dataStream;
 
+    /** The non blocking stream used when the response becomes asynchronous. */
+    private NonBlockingOutputStream nonBlockingStream;
+
+    /** . */
+    private boolean async;
+
     ServletStream(int status, Charset encoding) {
       super(ServletRequestContext.this, status, encoding);
     }
@@ -207,6 +282,15 @@ public class ServletRequestContext extends WebRequestContext {
       resp.setStatus(status);
     }
 
+    @Override
+    public synchronized void provide(Chunk chunk) {
+      super.provide(chunk);
+      if (async && chunk instanceof Chunk.Data && dataStream instanceof BinaryOutputStream) {
+        // Chunks provided asynchronously are pushed to the client
+        ((BinaryOutputStream)dataStream).flush();
+      }
+    }
+
     @Override
     protected Stream getDataStream(boolean create) {
       if (dataStream == null && create) {
@@ -221,13 +305,67 @@ public class ServletRequestContext extends WebRequestContext {
     }
 
     @Override
-    protected void beginAsync() {
+    protected synchronized void beginAsync() {
       ServletRequestContext.this.beginAsync();
+      async = true;
+      if (dataStream != null) {
+        ((BinaryOutputStream)dataStream).flush();
+      }
+      if (nonBlockingStream == null && asyncWriteQueue >= 0 && SET_WRITE_LISTENER != null) {
+        try {
+          final ServletOutputStream out = resp.getOutputStream();
+          final NonBlockingOutputStream stream = new NonBlockingOutputStream(encoding, asyncWriteQueue) {
+            @Override
+            protected boolean isReady() {
+              try {
+                return (Boolean)IS_READY.invoke(out);
+              }
+              catch (Exception e) {
+                throw new UndeclaredThrowableException(e);
+              }
+            }
+            @Override
+            protected void write(byte[] data) throws IOException {
+              out.write(data);
+            }
+            @Override
+            protected void completed() {
+              ServletRequestContext.this.endAsync();
+            }
+          };
+          Object listener = Proxy.newProxyInstance(WRITE_LISTENER.getClassLoader(), new Class<?>[]{WRITE_LISTENER}, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+              String name = method.getName();
+              if (name.equals("onWritePossible")) {
+                stream.writePossible();
+              } else if (name.equals("onError")) {
+                log.error("Asynchronous write failed", (Throwable)args[0]);
+                stream.failed((Throwable)args[0]);
+              } else if (name.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+              } else if (name.equals("equals")) {
+                return proxy == args[0];
+              } else if (name.equals("toString")) {
+                return "WriteListener[" + stream + "]";
+              }
+              return null;
+            }
+          });
+          SET_WRITE_LISTENER.invoke(out, listener);
+          dataStream = nonBlockingStream = stream;
+        }
+        catch (Exception e) {
+          log.error("Could not switch to non blocking io, will use blocking io instead", e);
+        }
+      }
     }
 
     @Override
     protected void endAsync() {
-      ServletRequestContext.this.endAsync();
+      if (nonBlockingStream == null) {
+        ServletRequestContext.this.endAsync();
+      }
+      // Otherwise the non blocking stream completes the async context once the queue is drained
     }
   }
 
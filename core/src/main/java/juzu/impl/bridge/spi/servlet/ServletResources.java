@@ -0,0 +1,140 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.bridge.spi.servlet;
+
+import juzu.impl.common.Tools;
+
+import javax.servlet.ServletContext;
+import java.net.MalformedURLException;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the static resource lookups of the servlet context. The cache is seeded with a listing of the web
+ * application resources: when the listing is complete it answers the lookups alone, otherwise the lookups are
+ * probed once and their outcome, positive or negative, is retained in a bounded cache.
+ *
+ * @author Julien Viet
+ */
+class ServletResources {
+
+  /** The maximum number of listed resources. */
+  static final int MAX_LISTING = 4096;
+
+  /** The maximum number of cached lookups. */
+  static final int MAX_LOOKUPS = 1024;
+
+  /** . */
+  private final ServletContext context;
+
+  /** The complete resource listing or null when the listing exceeds {@link #MAX_LISTING}. */
+  private final Set<String> listing;
+
+  /** . */
+  private final ConcurrentHashMap<String, Boolean> lookups;
+
+  ServletResources(ServletContext context) {
+    this.context = context;
+    this.listing = list(context);
+    this.lookups = new ConcurrentHashMap<String, Boolean>();
+  }
+
+  /**
+   * Returns true when the path denotes a resource of the web application. The path is normalized before
+   * the lookup, a path escaping the web application root never exists.
+   *
+   * @param path the resource path
+   * @return true if the resource exists
+   * @throws MalformedURLException when the path is malformed
+   */
+  boolean exists(String path) throws MalformedURLException {
+    path = normalize(path);
+    if (path == null || path.startsWith("/WEB-INF/") || path.equals("/WEB-INF")) {
+      return false;
+    }
+    if (listing != null) {
+      return listing.contains(path);
+    }
+    Boolean exists = lookups.get(path);
+    if (exists == null) {
+      exists = context.getResource(path) != null;
+      if (lookups.size() >= MAX_LOOKUPS) {
+        lookups.clear();
+      }
+      lookups.put(path, exists);
+    }
+    return exists;
+  }
+
+  /**
+   * Removes the empty and <code>.</code> segments of a path and resolves its <code>..</code> segments.
+   *
+   * @param path the path
+   * @return the normalized path or null when the path escapes the root
+   */
+  static String normalize(String path) {
+    LinkedList<String> segments = new LinkedList<String>();
+    for (String segment : Tools.split(path, '/')) {
+      if (segment.length() == 0 || segment.equals(".")) {
+        // Skip
+      } else if (segment.equals("..")) {
+        if (segments.isEmpty()) {
+          return null;
+        }
+        segments.removeLast();
+      } else {
+        segments.add(segment);
+      }
+    }
+    StringBuilder normalized = new StringBuilder();
+    for (String segment : segments) {
+      normalized.append('/').append(segment);
+    }
+    if (normalized.length() == 0 || (path.endsWith("/") && !segments.isEmpty())) {
+      normalized.append('/');
+    }
+    return normalized.toString();
+  }
+
+  private static Set<String> list(ServletContext context) {
+    HashSet<String> listing = new HashSet<String>();
+    LinkedList<String> directories = new LinkedList<String>();
+    directories.add("/");
+    while (directories.size() > 0) {
+      Set<String> paths = context.getResourcePaths(directories.removeFirst());
+      if (paths != null) {
+        for (String path : paths) {
+          if (path.startsWith("/WEB-INF/")) {
+            // Never served as a static resource
+            continue;
+          }
+          if (listing.size() >= MAX_LISTING) {
+            return null;
+          }
+          listing.add(path);
+          if (path.endsWith("/")) {
+            listing.add(path.substring(0, path.length() - 1));
+            directories.add(path);
+          }
+        }
+      }
+    }
+    return listing;
+  }
+}
@@ -23,8 +23,8 @@ import juzu.impl.inject.Scoped;
 import javax.servlet.http.HttpSessionBindingEvent;
 import javax.servlet.http.HttpSessionBindingListener;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * <p></p>An helper class for managing scoped entries. It implements the {@link javax.servlet.http.HttpSessionBindingListener} interface
@@ -32,12 +32,43 @@ import java.util.Iterator;
  * #valueUnbound(javax.servlet.http.HttpSessionBindingEvent)} callback.</p> <p/> <p>At the moment we do not support
  * serialization.</p>
  *
+ * <p>A session or flash context is shared by the concurrent requests of a user, the entries are kept in a concurrent
+ * map and the creation of an entry is guarded by a monitor per key.</p>
+ *
  * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
  */
 public class ServletScopedContext implements ScopedContext, HttpSessionBindingListener {
 
+  /** The number of stripes guarding the creation of the contexts stored in a session. */
+  private static final int STRIPES = 64;
+
   /** . */
-  private HashMap<Object, Scoped> state;
+  private static final Object[] locks = new Object[STRIPES];
+
+  static {
+    for (int i = 0;i < STRIPES;i++) {
+      locks[i] = new Object();
+    }
+  }
+
+  /**
+   * Returns the lock guarding the creation of the scoped contexts of a session, the lock is striped by
+   * session id so concurrent requests of a session create a context once without a global lock.
+   *
+   * @param sessionId the session id
+   * @return the lock
+   */
+  public static Object getSessionLock(String sessionId) {
+    int h = sessionId.hashCode();
+    h ^= (h >>> 16);
+    return locks[h & (STRIPES - 1)];
+  }
+
+  /** . */
+  private volatile ConcurrentHashMap<Object, Scoped> state;
+
+  /** . */
+  private volatile ConcurrentHashMap<Object, Object> monitors;
 
   /** . */
   private final Logger log;
@@ -50,6 +81,7 @@ public class ServletScopedContext implements ScopedContext, HttpSessionBindingLi
     if (key == null) {
       throw new NullPointerException("No null key accepted");
     }
+    ConcurrentHashMap<Object, Scoped> state = this.state;
     return state != null ? state.get(key) : null;
   }
 
@@ -58,23 +90,59 @@ public class ServletScopedContext implements ScopedContext, HttpSessionBindingLi
       throw new NullPointerException("No null key accepted");
     }
     if (scoped == null) {
+      ConcurrentHashMap<Object, Scoped> state = this.state;
       if (state != null) {
         state.remove(key);
       }
     }
     else {
-      if (state == null) {
-        state = new HashMap<Object, Scoped>();
+      getState().put(key, scoped);
+    }
+  }
+
+  public Object getMonitor(Object key) throws NullPointerException {
+    if (key == null) {
+      throw new NullPointerException("No null key accepted");
+    }
+    ConcurrentHashMap<Object, Object> monitors = this.monitors;
+    if (monitors == null) {
+      synchronized (this) {
+        monitors = this.monitors;
+        if (monitors == null) {
+          this.monitors = monitors = new ConcurrentHashMap<Object, Object>(8, 0.75f, 4);
+        }
+      }
+    }
+    Object monitor = monitors.get(key);
+    if (monitor == null) {
+      Object previous = monitors.putIfAbsent(key, monitor = new Object());
+      if (previous != null) {
+        monitor = previous;
       }
-      state.put(key, scoped);
     }
+    return monitor;
+  }
+
+  private ConcurrentHashMap<Object, Scoped> getState() {
+    ConcurrentHashMap<Object, Scoped> state = this.state;
+    if (state == null) {
+      synchronized (this) {
+        state = this.state;
+        if (state == null) {
+          this.state = state = new ConcurrentHashMap<Object, Scoped>(8, 0.75f, 4);
+        }
+      }
+    }
+    return state;
   }
 
   public int size() {
+    ConcurrentHashMap<Object, Scoped> state = this.state;
     return state != null ? state.size() : 0;
   }
 
   public Iterator<Scoped> iterator() {
+    ConcurrentHashMap<Object, Scoped> state = this.state;
     return state == null ? Collections.<Scoped>emptyList().iterator() : state.values().iterator();
   }
 
@@ -87,10 +155,14 @@ public class ServletScopedContext implements ScopedContext, HttpSessionBindingLi
   }
 
   public void close() {
+    ConcurrentHashMap<Object, Scoped> state = this.state;
     if (state != null && state.size() > 0) {
-      for (Iterator<Scoped> i = state.values().iterator();i.hasNext();) {
-        Scoped scoped = i.next();
-        i.remove();
+      for (Object key : state.keySet()) {
+        Scoped scoped = state.remove(key);
+        if (scoped == null) {
+          // Destroyed by a concurrent close
+          continue;
+        }
         try {
           scoped.destroy();
         }
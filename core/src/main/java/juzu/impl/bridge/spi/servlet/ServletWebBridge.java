@@ -17,6 +17,7 @@
 package juzu.impl.bridge.spi.servlet;
 
 import juzu.HttpMethod;
+import juzu.impl.bridge.spi.session.StoredSessions;
 import juzu.impl.bridge.spi.web.WebBridge;
 import juzu.impl.common.JUL;
 import juzu.impl.common.Logger;
@@ -52,6 +53,9 @@ public class ServletWebBridge extends WebBridge implements HttpContext, ClientCo
   /** . */
   private final ServletBridge servlet;
 
+  /** The application context of the runtime serving the request. */
+  ServletApplicationContext applicationContext;
+
   public ServletWebBridge(ServletBridge servlet, ServletRequestContext ctx) {
     this.ctx = ctx;
     this.method = HttpMethod.valueOf(ctx.req.getMethod());
@@ -128,7 +132,7 @@ public class ServletWebBridge extends WebBridge implements HttpContext, ClientCo
 
   @Override
   public ApplicationContext getApplicationContext() {
-    return servlet.applicationContext;
+    return applicationContext;
   }
 
   public ScopedContext getRequestScope(boolean create) {
@@ -145,7 +149,12 @@ public class ServletWebBridge extends WebBridge implements HttpContext, ClientCo
     if (session != null) {
       context = (ScopedContext)session.getAttribute("juzu.flash_scope");
       if (context == null && create) {
-        session.setAttribute("juzu.flash_scope", context = new ServletScopedContext(getLogger(ServletScopedContext.class.getName())));
+        synchronized (ServletScopedContext.getSessionLock(session.getId())) {
+          context = (ScopedContext)session.getAttribute("juzu.flash_scope");
+          if (context == null) {
+            session.setAttribute("juzu.flash_scope", context = new ServletScopedContext(getLogger(ServletScopedContext.class.getName())));
+          }
+        }
       }
     }
     return context;
@@ -157,7 +166,12 @@ public class ServletWebBridge extends WebBridge implements HttpContext, ClientCo
     if (session != null) {
       context = (ScopedContext)session.getAttribute("juzu.session_scope");
       if (context == null && create) {
-        session.setAttribute("juzu.session_scope", context = new ServletScopedContext(getLogger(ServletScopedContext.class.getName())));
+        synchronized (ServletScopedContext.getSessionLock(session.getId())) {
+          context = (ScopedContext)session.getAttribute("juzu.session_scope");
+          if (context == null) {
+            session.setAttribute("juzu.session_scope", context = new ServletScopedContext(getLogger(ServletScopedContext.class.getName())));
+          }
+        }
       }
     }
     return context;
@@ -172,6 +186,22 @@ public class ServletWebBridge extends WebBridge implements HttpContext, ClientCo
     }
   }
 
+  public String getSessionId(boolean create) {
+    HttpSession session = ctx.req.getSession(create);
+    if (session != null) {
+      StoredSessions sessions = servlet.getBridgeConfig().storedSessions;
+      if (sessions != null && session.getAttribute("juzu.session_store") == null) {
+        session.setAttribute("juzu.session_store", new SessionStoreBinding(sessions, session.getId()));
+      }
+      return session.getId();
+    }
+    return null;
+  }
+
+  public void addCookie(Cookie cookie) {
+    ctx.resp.addCookie(cookie);
+  }
+
   // ClientContext implementation
 
   public String getContentType() {
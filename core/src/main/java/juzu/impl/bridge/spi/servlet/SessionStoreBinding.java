@@ -0,0 +1,49 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.bridge.spi.servlet;
+
+import juzu.impl.bridge.spi.session.StoredSessions;
+
+import javax.servlet.http.HttpSessionBindingEvent;
+import javax.servlet.http.HttpSessionBindingListener;
+
+/**
+ * Closes the stored session and removes its state from the session store when the http session ends.
+ *
+ * @author Julien Viet
+ */
+class SessionStoreBinding implements HttpSessionBindingListener {
+
+  /** . */
+  private final StoredSessions sessions;
+
+  /** . */
+  private final String sessionId;
+
+  SessionStoreBinding(StoredSessions sessions, String sessionId) {
+    this.sessions = sessions;
+    this.sessionId = sessionId;
+  }
+
+  public void valueBound(HttpSessionBindingEvent event) {
+    // Nothing to do
+  }
+
+  public void valueUnbound(HttpSessionBindingEvent event) {
+    sessions.remove(sessionId);
+  }
+}
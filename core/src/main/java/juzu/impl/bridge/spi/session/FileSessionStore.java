@@ -0,0 +1,198 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.bridge.spi.session;
+
+import juzu.impl.common.Tools;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A session store keeping the state on the file system, each session is a directory containing a file per entry.
+ * It survives a restart and several nodes can share it with a shared file system, it can also be used as a local
+ * stand-in for a distributed cache.
+ *
+ * @author Julien Viet
+ */
+public class FileSessionStore implements SessionStore {
+
+  /** . */
+  private static final int STRIPES = 32;
+
+  /** . */
+  private final File root;
+
+  /** . */
+  private final Object[] locks;
+
+  public FileSessionStore(File root) throws IOException {
+    if (!root.exists() && !root.mkdirs()) {
+      throw new IOException("Could not create session store directory " + root.getAbsolutePath());
+    }
+    if (!root.isDirectory()) {
+      throw new IOException("Session store " + root.getAbsolutePath() + " is not a directory");
+    }
+    Object[] locks = new Object[STRIPES];
+    for (int i = 0;i < locks.length;i++) {
+      locks[i] = new Object();
+    }
+
+    //
+    this.root = root;
+    this.locks = locks;
+  }
+
+  public File getRoot() {
+    return root;
+  }
+
+  public Map<String, byte[]> load(String sessionId) throws IOException {
+    synchronized (getLock(sessionId)) {
+      File[] files = getDir(sessionId).listFiles();
+      if (files == null) {
+        return null;
+      }
+      HashMap<String, byte[]> entries = new HashMap<String, byte[]>();
+      for (File file : files) {
+        if (file.getName().endsWith(".entry")) {
+          DataInputStream in = new DataInputStream(new FileInputStream(file));
+          try {
+            String key = in.readUTF();
+            byte[] value = new byte[in.readInt()];
+            in.readFully(value);
+            entries.put(key, value);
+          }
+          finally {
+            Tools.safeClose(in);
+          }
+        }
+      }
+      return entries;
+    }
+  }
+
+  public void update(String sessionId, Map<String, byte[]> updated, Set<String> removed) throws IOException {
+    synchronized (getLock(sessionId)) {
+      File dir = getDir(sessionId);
+      for (String key : removed) {
+        File file = new File(dir, getName(key) + ".entry");
+        if (file.exists() && !file.delete()) {
+          throw new IOException("Could not delete " + file.getAbsolutePath());
+        }
+      }
+      if (updated.size() > 0) {
+        if (!dir.exists() && !dir.mkdirs()) {
+          throw new IOException("Could not create session directory " + dir.getAbsolutePath());
+        }
+        for (Map.Entry<String, byte[]> entry : updated.entrySet()) {
+          String name = getName(entry.getKey());
+          ByteArrayOutputStream buffer = new ByteArrayOutputStream(entry.getValue().length + 64);
+          DataOutputStream data = new DataOutputStream(buffer);
+          data.writeUTF(entry.getKey());
+          data.writeInt(entry.getValue().length);
+          data.write(entry.getValue());
+          data.flush();
+
+          // Write a temporary file then rename it so a reader never sees a partial entry
+          File tmp = new File(dir, name + ".tmp");
+          FileOutputStream out = new FileOutputStream(tmp);
+          try {
+            buffer.writeTo(out);
+          }
+          finally {
+            Tools.safeClose(out);
+          }
+          File file = new File(dir, name + ".entry");
+          if (!tmp.renameTo(file)) {
+            if (!file.delete() || !tmp.renameTo(file)) {
+              throw new IOException("Could not write " + file.getAbsolutePath());
+            }
+          }
+        }
+      }
+    }
+  }
+
+  public void remove(String sessionId) throws IOException {
+    synchronized (getLock(sessionId)) {
+      File dir = getDir(sessionId);
+      File[] files = dir.listFiles();
+      if (files != null) {
+        for (File file : files) {
+          file.delete();
+        }
+        if (!dir.delete()) {
+          throw new IOException("Could not delete " + dir.getAbsolutePath());
+        }
+      }
+    }
+  }
+
+  public long getSize(String sessionId) {
+    long size = 0;
+    File[] files = getDir(sessionId).listFiles();
+    if (files != null) {
+      for (File file : files) {
+        if (file.getName().endsWith(".entry")) {
+          size += file.length();
+        }
+      }
+    }
+    return size;
+  }
+
+  private Object getLock(String sessionId) {
+    int h = sessionId.hashCode();
+    h ^= (h >>> 16);
+    return locks[h & (STRIPES - 1)];
+  }
+
+  private File getDir(String sessionId) {
+    return new File(root, getName(sessionId));
+  }
+
+  /**
+   * Returns a file name for an arbitrary string: the hex encoded sha-1 digest of the string.
+   *
+   * @param s the string
+   * @return the file name
+   */
+  private static String getName(String s) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-1");
+      byte[] bytes = digest.digest(s.getBytes(Tools.UTF_8));
+      StringBuilder name = new StringBuilder(bytes.length * 2);
+      for (byte b : bytes) {
+        name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      return name.toString();
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw new AssertionError(e);
+    }
+  }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.bridge.spi.session;
+
+import juzu.impl.common.Tools;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.xml.bind.DatatypeConverter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Encodes a set of entries in a signed cookie value: the value is the url safe base64 encoding of the entries
+ * followed by the url safe base64 encoding of their HMAC-SHA256 signature.
+ *
+ * @author Julien Viet
+ */
+public class FlashCookieCodec {
+
+  /** . */
+  private static final String ALGORITHM = "HmacSHA256";
+
+  /** . */
+  private final SecretKeySpec key;
+
+  /** . */
+  private final int maxSize;
+
+  /**
+   * Create a codec.
+   *
+   * @param secret the signature secret, when it is null a random secret is generated
+   * @param maxSize the maximum size of an encoded value
+   */
+  public FlashCookieCodec(String secret, int maxSize) {
+    byte[] bytes;
+    if (secret != null) {
+      bytes = secret.getBytes(Tools.UTF_8);
+    } else {
+      bytes = new byte[32];
+      new SecureRandom().nextBytes(bytes);
+    }
+    this.key = new SecretKeySpec(bytes, ALGORITHM);
+    this.maxSize = maxSize;
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * Encode the entries.
+   *
+   * @param entries the entries
+   * @return the encoded value or null when it exceeds the maximum size
+   */
+  public String encode(Map<String, byte[]> entries) {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    try {
+      DataOutputStream out = new DataOutputStream(buffer);
+      out.writeInt(entries.size());
+      for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+        out.writeUTF(entry.getKey());
+        out.writeInt(entry.getValue().length);
+        out.write(entry.getValue());
+      }
+      out.flush();
+    }
+    catch (IOException e) {
+      throw new AssertionError(e);
+    }
+    byte[] payload = buffer.toByteArray();
+
+    // Base64 expands by 4/3, check the size before encoding
+    if ((payload.length + 32 + 4) * 4 / 3 + 1 > maxSize) {
+      return null;
+    }
+    String value = toBase64(payload) + "." + toBase64(sign(payload));
+    return value.length() <= maxSize ? value : null;
+  }
+
+  /**
+   * Decode a value.
+   *
+   * @param value the value
+   * @return the entries or null when the value is not valid
+   */
+  public Map<String, byte[]> decode(String value) {
+    int pos = value.indexOf('.');
+    if (pos == -1 || value.length() > maxSize) {
+      return null;
+    }
+    byte[] payload;
+    byte[] signature;
+    try {
+      payload = fromBase64(value.substring(0, pos));
+      signature = fromBase64(value.substring(pos + 1));
+    }
+    catch (IllegalArgumentException e) {
+      return null;
+    }
+    if (!MessageDigest.isEqual(signature, sign(payload))) {
+      return null;
+    }
+    try {
+      DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+      int size = in.readInt();
+      HashMap<String, byte[]> entries = new HashMap<String, byte[]>();
+      while (size-- > 0) {
+        String key = in.readUTF();
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        entries.put(key, bytes);
+      }
+      return entries;
+    }
+    catch (IOException e) {
+      return null;
+    }
+  }
+
+  private byte[] sign(byte[] payload) {
+    try {
+      Mac mac = Mac.getInstance(ALGORITHM);
+      mac.init(key);
+      return mac.doFinal(payload);
+    }
+    catch (GeneralSecurityException e) {
+      throw new UnsupportedOperationException("Cannot sign flash cookie", e);
+    }
+  }
+
+  private static String toBase64(byte[] bytes) {
+    String s = DatatypeConverter.printBase64Binary(bytes);
+    int end = s.length();
+    while (end > 0 && s.charAt(end - 1) == '=') {
+      end--;
+    }
+    return s.substring(0, end).replace('+', '-').replace('/', '_');
+  }
+
+  private static byte[] fromBase64(String s) {
+    StringBuilder sb = new StringBuilder(s.length() + 2);
+    sb.append(s.replace('-', '+').replace('_', '/'));
+    while (sb.length() % 4 != 0) {
+      sb.append('=');
+    }
+    return DatatypeConverter.parseBase64Binary(sb.toString());
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.bridge.spi.session;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A session store keeping the state in memory.
+ *
+ * @author Julien Viet
+ */
+public class MemorySessionStore implements SessionStore {
+
+  /** . */
+  private final ConcurrentHashMap<String, Map<String, byte[]>> sessions = new ConcurrentHashMap<String, Map<String, byte[]>>();
+
+  public Map<String, byte[]> load(String sessionId) {
+    Map<String, byte[]> entries = sessions.get(sessionId);
+    if (entries != null) {
+      synchronized (entries) {
+        return new HashMap<String, byte[]>(entries);
+      }
+    }
+    return null;
+  }
+
+  public void update(String sessionId, Map<String, byte[]> updated, Set<String> removed) {
+    Map<String, byte[]> entries = sessions.get(sessionId);
+    if (entries == null) {
+      if (updated.isEmpty()) {
+        return;
+      }
+      Map<String, byte[]> previous = sessions.putIfAbsent(sessionId, entries = new HashMap<String, byte[]>());
+      if (previous != null) {
+        entries = previous;
+      }
+    }
+    synchronized (entries) {
+      entries.keySet().removeAll(removed);
+      entries.putAll(updated);
+    }
+  }
+
+  public void remove(String sessionId) {
+    sessions.remove(sessionId);
+  }
+
+  public long getSize(String sessionId) {
+    Map<String, byte[]> entries = sessions.get(sessionId);
+    long size = 0;
+    if (entries != null) {
+      synchronized (entries) {
+        for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+          size += entry.getKey().length() + entry.getValue().length;
+        }
+      }
+    }
+    return size;
+  }
+
+  /**
+   * @return the ids of the stored sessions
+   */
+  public Set<String> getSessionIds() {
+    return Collections.unmodifiableSet(sessions.keySet());
+  }
+}
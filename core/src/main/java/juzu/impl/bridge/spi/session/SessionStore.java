@@ -0,0 +1,72 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.bridge.spi.session;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Stores the serialized state of the session scoped beans outside of the http session, allowing a session to
+ * survive a restart or to be served by several nodes. The state of a session is a set of entries, each entry
+ * holds the serialized form of a bean.
+ *
+ * <p>The concurrent requests of a session on the same node share the same bean instances, each request writes back
+ * the entries that changed when it completes. The store merges the updates per entry: the last written entry wins
+ * and the entries that were not updated or removed by a request are left untouched, so concurrent requests of several
+ * nodes lose no update unless they change the same bean.</p>
+ *
+ * @author Julien Viet
+ */
+public interface SessionStore {
+
+  /**
+   * Load the entries of a session.
+   *
+   * @param sessionId the session id
+   * @return the entries or null when the session has no state
+   * @throws IOException any io exception
+   */
+  Map<String, byte[]> load(String sessionId) throws IOException;
+
+  /**
+   * Update the entries of a session, the entries that are not updated or removed are left untouched.
+   *
+   * @param sessionId the session id
+   * @param updated the updated entries
+   * @param removed the removed entries
+   * @throws IOException any io exception
+   */
+  void update(String sessionId, Map<String, byte[]> updated, Set<String> removed) throws IOException;
+
+  /**
+   * Remove the state of a session.
+   *
+   * @param sessionId the session id
+   * @throws IOException any io exception
+   */
+  void remove(String sessionId) throws IOException;
+
+  /**
+   * Returns the size of the state of a session.
+   *
+   * @param sessionId the session id
+   * @return the size in bytes
+   */
+  long getSize(String sessionId);
+
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.bridge.spi.session;
+
+import juzu.impl.bridge.spi.ScopedContext;
+import juzu.impl.common.Logger;
+import juzu.impl.common.Tools;
+import juzu.impl.inject.Scoped;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A scoped context backed by a {@link SessionStore}. The context lives as long as requests of the session are in
+ * progress on this node, these requests share it through {@link StoredSessions}: the entries are loaded from the
+ * store and unserialized on their first access, the {@link #flush()} method writes back the entries whose serialized
+ * form has changed and removes the entries that were removed.
+ *
+ * @author Julien Viet
+ */
+public class StoredScopedContext implements ScopedContext {
+
+  /** . */
+  private final String sessionId;
+
+  /** . */
+  private final SessionStore store;
+
+  /** . */
+  private final ClassLoader classLoader;
+
+  /** . */
+  private final Logger log;
+
+  /** The serialized entries loaded from the store. */
+  private Map<String, byte[]> loaded;
+
+  /** The entries used during the request. */
+  private final HashMap<String, Scoped> entries = new HashMap<String, Scoped>();
+
+  /** . */
+  private final HashSet<String> removed = new HashSet<String>();
+
+  /** . */
+  private final HashMap<String, Object> monitors = new HashMap<String, Object>();
+
+  /** . */
+  private boolean closed;
+
+  /** The number of requests using the context, guarded by the {@link StoredSessions} lock. */
+  int references;
+
+  public StoredScopedContext(String sessionId, SessionStore store, ClassLoader classLoader, Logger log) {
+    this.sessionId = sessionId;
+    this.store = store;
+    this.classLoader = classLoader;
+    this.log = log;
+  }
+
+  public String getSessionId() {
+    return sessionId;
+  }
+
+  public ClassLoader getClassLoader() {
+    return classLoader;
+  }
+
+  public synchronized Scoped get(Object key) throws NullPointerException {
+    if (key == null) {
+      throw new NullPointerException("No null key accepted");
+    }
+    String id = key.toString();
+    Scoped scoped = entries.get(id);
+    if (scoped == null && !removed.contains(id)) {
+      byte[] bytes = getLoaded().get(id);
+      if (bytes != null) {
+        try {
+          scoped = new StoredScoped(Tools.unserialize(classLoader, Object.class, new ByteArrayInputStream(bytes)));
+          entries.put(id, scoped);
+        }
+        catch (Exception e) {
+          // The class may have changed, the bean will be created again
+          log.info("Could not restore session entry " + id + " of session " + sessionId, e);
+          removed.add(id);
+        }
+      }
+    }
+    return scoped;
+  }
+
+  public synchronized void set(Object key, Scoped scoped) throws NullPointerException {
+    if (key == null) {
+      throw new NullPointerException("No null key accepted");
+    }
+    String id = key.toString();
+    if (scoped == null) {
+      entries.remove(id);
+      removed.add(id);
+    } else {
+      entries.put(id, scoped);
+      removed.remove(id);
+    }
+  }
+
+  public synchronized Object getMonitor(Object key) throws NullPointerException {
+    if (key == null) {
+      throw new NullPointerException("No null key accepted");
+    }
+    String id = key.toString();
+    Object monitor = monitors.get(id);
+    if (monitor == null) {
+      monitors.put(id, monitor = new Object());
+    }
+    return monitor;
+  }
+
+  public synchronized int size() {
+    HashSet<String> ids = new HashSet<String>(getLoaded().keySet());
+    ids.removeAll(removed);
+    ids.addAll(entries.keySet());
+    return ids.size();
+  }
+
+  public synchronized Iterator<Scoped> iterator() {
+    List<Scoped> list = new ArrayList<Scoped>();
+    HashSet<String> ids = new HashSet<String>(getLoaded().keySet());
+    ids.addAll(entries.keySet());
+    for (String id : ids) {
+      Scoped scoped = get(id);
+      if (scoped != null) {
+        list.add(scoped);
+      }
+    }
+    return list.iterator();
+  }
+
+  /**
+   * Write back the changed entries to the store.
+   */
+  public synchronized void flush() {
+    if (closed) {
+      return;
+    }
+    Map<String, byte[]> updated = Collections.emptyMap();
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+    for (Map.Entry<String, Scoped> entry : entries.entrySet()) {
+      Object value = entry.getValue().get();
+      if (value instanceof Serializable) {
+        buffer.reset();
+        try {
+          ObjectOutputStream out = new ObjectOutputStream(buffer);
+          out.writeObject(value);
+          out.close();
+        }
+        catch (IOException e) {
+          log.error("Could not serialize session entry " + entry.getKey() + " of session " + sessionId, e);
+          continue;
+        }
+        byte[] bytes = buffer.toByteArray();
+        if (!Arrays.equals(bytes, getLoaded().get(entry.getKey()))) {
+          if (updated.isEmpty()) {
+            updated = new HashMap<String, byte[]>();
+          }
+          updated.put(entry.getKey(), bytes);
+        }
+      } else if (value != null) {
+        log.error("Session entry " + entry.getKey() + " of session " + sessionId + " is not serializable and cannot be stored");
+      }
+    }
+    removed.retainAll(getLoaded().keySet());
+    if (updated.size() > 0 || removed.size() > 0) {
+      try {
+        store.update(sessionId, updated, removed);
+      }
+      catch (IOException e) {
+        log.error("Could not store session " + sessionId, e);
+      }
+    }
+
+    // Track the changes from the stored state
+    if (updated.size() > 0 || removed.size() > 0) {
+      HashMap<String, byte[]> state = new HashMap<String, byte[]>(getLoaded());
+      state.keySet().removeAll(removed);
+      state.putAll(updated);
+      loaded = state;
+      removed.clear();
+    }
+  }
+
+  /**
+   * Destroy the entries and remove the session state from the store.
+   */
+  public synchronized void close() {
+    if (!closed) {
+      closed = true;
+      for (Scoped scoped : entries.values()) {
+        try {
+          scoped.destroy();
+        }
+        catch (Throwable t) {
+          log.info("Error when destroying object", t);
+        }
+      }
+      entries.clear();
+      try {
+        store.remove(sessionId);
+      }
+      catch (IOException e) {
+        log.error("Could not remove session " + sessionId, e);
+      }
+    }
+  }
+
+  private Map<String, byte[]> getLoaded() {
+    if (loaded == null) {
+      Map<String, byte[]> state = null;
+      try {
+        state = store.load(sessionId);
+      }
+      catch (IOException e) {
+        log.error("Could not load session " + sessionId, e);
+      }
+      loaded = state != null ? state : Collections.<String, byte[]>emptyMap();
+    }
+    return loaded;
+  }
+
+  /**
+   * A value restored from the store, the value was created by another request and its destruction is not
+   * managed anymore.
+   */
+  private static class StoredScoped implements Scoped {
+
+    /** . */
+    private final Object value;
+
+    private StoredScoped(Object value) {
+      this.value = value;
+    }
+
+    public Object get() {
+      return value;
+    }
+
+    public void destroy() {
+    }
+  }
+}
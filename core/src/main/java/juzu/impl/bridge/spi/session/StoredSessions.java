@@ -0,0 +1,116 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.bridge.spi.session;
+
+import juzu.impl.common.Logger;
+
+import java.io.IOException;
+import java.util.HashMap;
+
+/**
+ * Shares the {@link StoredScopedContext} of a session between the concurrent requests of this node: a context is
+ * acquired by each request using the session scope and released once the request is handled, the release writes back
+ * the changed entries and the context is discarded after its last request. A request coming after that loads the
+ * session again from the store, so the changes made by other nodes become visible.
+ *
+ * @author Julien Viet
+ */
+public class StoredSessions {
+
+  /** . */
+  private final SessionStore store;
+
+  /** . */
+  private final Logger log;
+
+  /** The contexts used by the requests in progress. */
+  private final HashMap<String, StoredScopedContext> contexts = new HashMap<String, StoredScopedContext>();
+
+  public StoredSessions(SessionStore store, Logger log) {
+    this.store = store;
+    this.log = log;
+  }
+
+  public SessionStore getStore() {
+    return store;
+  }
+
+  /**
+   * Acquire the context of a session, the context must be released by the request. The context in use by other
+   * requests is shared unless it was created by another class loader of the application, in which case the request
+   * gets its own context.
+   *
+   * @param sessionId the session id
+   * @param classLoader the application class loader
+   * @return the context
+   */
+  public synchronized StoredScopedContext acquire(String sessionId, ClassLoader classLoader) {
+    StoredScopedContext context = contexts.get(sessionId);
+    if (context == null || context.getClassLoader() != classLoader) {
+      context = new StoredScopedContext(sessionId, store, classLoader, log);
+      if (!contexts.containsKey(sessionId)) {
+        contexts.put(sessionId, context);
+      }
+    }
+    context.references++;
+    return context;
+  }
+
+  /**
+   * Write back the changed entries of a context and release it.
+   *
+   * @param context the context
+   */
+  public void release(StoredScopedContext context) {
+    context.flush();
+    synchronized (this) {
+      if (--context.references == 0 && contexts.get(context.getSessionId()) == context) {
+        contexts.remove(context.getSessionId());
+      }
+    }
+  }
+
+  /**
+   * Ends a session: the context in use is closed, destroying the beans it created, and the session state is
+   * removed from the store.
+   *
+   * @param sessionId the session id
+   */
+  public void remove(String sessionId) {
+    StoredScopedContext context;
+    synchronized (this) {
+      context = contexts.remove(sessionId);
+    }
+    if (context != null) {
+      context.close();
+    } else {
+      try {
+        store.remove(sessionId);
+      }
+      catch (IOException e) {
+        log.error("Could not remove session " + sessionId, e);
+      }
+    }
+  }
+
+  /**
+   * @return the number of contexts in use
+   */
+  public synchronized int size() {
+    return contexts.size();
+  }
+}
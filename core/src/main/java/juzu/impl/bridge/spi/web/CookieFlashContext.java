@@ -0,0 +1,319 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.bridge.spi.web;
+
+import juzu.impl.bridge.spi.ScopedContext;
+import juzu.impl.bridge.spi.session.FlashCookieCodec;
+import juzu.impl.common.Logger;
+import juzu.impl.common.Tools;
+import juzu.impl.inject.Scoped;
+
+import javax.servlet.http.Cookie;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A flash scope serialized in a signed cookie instead of the http session. The entries set during a request are
+ * written in the cookie before the response is sent and restored by the next request, the cookie is cleared once
+ * the flash scope is closed. When the entries cannot be serialized or exceed the cookie size, they are stored in
+ * the flash scope of the http session instead.
+ *
+ * @author Julien Viet
+ */
+class CookieFlashContext implements ScopedContext {
+
+  /** . */
+  static final String COOKIE_NAME = "JUZUFLASH";
+
+  /** . */
+  private final WebBridge http;
+
+  /** . */
+  private final FlashCookieCodec codec;
+
+  /** . */
+  private final ClassLoader classLoader;
+
+  /** . */
+  private final Logger log;
+
+  /** The cookie value sent by the client or null. */
+  private final String value;
+
+  /** The serialized entries restored from the cookie. */
+  private Map<String, byte[]> restored;
+
+  /** The entries used during the request. */
+  private final HashMap<String, Scoped> entries = new HashMap<String, Scoped>();
+
+  /** The keys of the entries used during the request. */
+  private final HashMap<String, Object> keys = new HashMap<String, Object>();
+
+  /** . */
+  private final HashSet<String> removed = new HashSet<String>();
+
+  /** . */
+  private final HashMap<String, Object> monitors = new HashMap<String, Object>();
+
+  /** . */
+  private boolean modified;
+
+  /** . */
+  private boolean closed;
+
+  CookieFlashContext(WebBridge http, FlashCookieCodec codec, ClassLoader classLoader, String value) {
+    this.http = http;
+    this.codec = codec;
+    this.classLoader = classLoader;
+    this.log = http.getLogger(CookieFlashContext.class.getName());
+    this.value = value;
+  }
+
+  /**
+   * Returns the value of the flash cookie sent by the client.
+   *
+   * @param http the http bridge
+   * @return the cookie value or null
+   */
+  static String getCookieValue(WebBridge http) {
+    Cookie[] cookies = http.getHttpContext().getCookies();
+    if (cookies != null) {
+      for (Cookie cookie : cookies) {
+        if (COOKIE_NAME.equals(cookie.getName())) {
+          return cookie.getValue();
+        }
+      }
+    }
+    return null;
+  }
+
+  public synchronized Scoped get(Object key) throws NullPointerException {
+    if (key == null) {
+      throw new NullPointerException("No null key accepted");
+    }
+    String id = key.toString();
+    Scoped scoped = entries.get(id);
+    if (scoped == null && !removed.contains(id)) {
+      byte[] bytes = getRestored().get(id);
+      if (bytes != null) {
+        try {
+          scoped = new RestoredScoped(Tools.unserialize(classLoader, Object.class, new ByteArrayInputStream(bytes)));
+          entries.put(id, scoped);
+          keys.put(id, key);
+        }
+        catch (Exception e) {
+          log.info("Could not restore flash entry " + id, e);
+          removed.add(id);
+        }
+      } else {
+        ScopedContext session = http.getFlashScope(false);
+        if (session != null) {
+          scoped = session.get(key);
+        }
+      }
+    }
+    return scoped;
+  }
+
+  public synchronized void set(Object key, Scoped scoped) throws NullPointerException {
+    if (key == null) {
+      throw new NullPointerException("No null key accepted");
+    }
+    String id = key.toString();
+    if (scoped == null) {
+      entries.remove(id);
+      keys.remove(id);
+      removed.add(id);
+      ScopedContext session = http.getFlashScope(false);
+      if (session != null) {
+        session.set(key, null);
+      }
+    } else {
+      entries.put(id, scoped);
+      keys.put(id, key);
+      removed.remove(id);
+    }
+    modified = true;
+  }
+
+  public synchronized Object getMonitor(Object key) throws NullPointerException {
+    if (key == null) {
+      throw new NullPointerException("No null key accepted");
+    }
+    String id = key.toString();
+    Object monitor = monitors.get(id);
+    if (monitor == null) {
+      monitors.put(id, monitor = new Object());
+    }
+    return monitor;
+  }
+
+  public synchronized int size() {
+    HashSet<String> ids = new HashSet<String>(getRestored().keySet());
+    ids.removeAll(removed);
+    ids.addAll(entries.keySet());
+    ScopedContext session = http.getFlashScope(false);
+    return ids.size() + (session != null ? session.size() : 0);
+  }
+
+  public synchronized Iterator<Scoped> iterator() {
+    List<Scoped> list = new ArrayList<Scoped>();
+    HashSet<String> ids = new HashSet<String>(getRestored().keySet());
+    ids.addAll(entries.keySet());
+    for (String id : ids) {
+      Scoped scoped = get(id);
+      if (scoped != null) {
+        list.add(scoped);
+      }
+    }
+    ScopedContext session = http.getFlashScope(false);
+    if (session != null) {
+      for (Scoped scoped : session) {
+        list.add(scoped);
+      }
+    }
+    return list.iterator();
+  }
+
+  /**
+   * Write the flash cookie, this must be called before the response is sent: when the context is closed the
+   * cookie is cleared, when entries were set they are written in the cookie or moved to the flash scope of the
+   * http session when they do not fit in the cookie.
+   */
+  synchronized void flush() {
+    if (closed) {
+      if (value != null) {
+        addCookie("", 0);
+      }
+    } else if (modified) {
+      HashMap<String, byte[]> pending = new HashMap<String, byte[]>(getRestored());
+      pending.keySet().removeAll(removed);
+      pending.keySet().removeAll(entries.keySet());
+      HashMap<String, byte[]> payload = new HashMap<String, byte[]>(pending);
+      String encoded = serialize(payload) ? codec.encode(payload) : null;
+      if (encoded == null) {
+        ScopedContext session = http.getFlashScope(true);
+        for (Map.Entry<String, Scoped> entry : entries.entrySet()) {
+          session.set(keys.get(entry.getKey()), entry.getValue());
+        }
+        log.trace("Flash scope does not fit in a cookie, using the http session instead");
+        encoded = pending.size() > 0 ? codec.encode(pending) : null;
+      }
+      if (encoded != null) {
+        addCookie(encoded, -1);
+      } else if (value != null) {
+        addCookie("", 0);
+      }
+    }
+  }
+
+  public synchronized void close() {
+    if (!closed) {
+      closed = true;
+      for (Scoped scoped : entries.values()) {
+        try {
+          scoped.destroy();
+        }
+        catch (Throwable t) {
+          log.info("Error when destroying object", t);
+        }
+      }
+      entries.clear();
+      ScopedContext session = http.getFlashScope(false);
+      if (session != null) {
+        Tools.safeClose(session);
+      }
+    }
+  }
+
+  private boolean serialize(Map<String, byte[]> payload) {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+    for (Map.Entry<String, Scoped> entry : entries.entrySet()) {
+      Object value = entry.getValue().get();
+      if (value instanceof Serializable) {
+        buffer.reset();
+        try {
+          ObjectOutputStream out = new ObjectOutputStream(buffer);
+          out.writeObject(value);
+          out.close();
+        }
+        catch (IOException e) {
+          log.trace("Could not serialize flash entry " + entry.getKey(), e);
+          return false;
+        }
+        payload.put(entry.getKey(), buffer.toByteArray());
+      } else if (value != null) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void addCookie(String value, int maxAge) {
+    Cookie cookie = new Cookie(COOKIE_NAME, value);
+    String path = http.getHttpContext().getContextPath();
+    cookie.setPath(path == null || path.length() == 0 ? "/" : path);
+    cookie.setMaxAge(maxAge);
+    cookie.setHttpOnly(true);
+    http.addCookie(cookie);
+  }
+
+  private Map<String, byte[]> getRestored() {
+    if (restored == null) {
+      Map<String, byte[]> state = null;
+      if (value != null && value.length() > 0) {
+        state = codec.decode(value);
+        if (state == null) {
+          log.info("Discarding invalid flash cookie");
+        }
+      }
+      restored = state != null ? state : Collections.<String, byte[]>emptyMap();
+    }
+    return restored;
+  }
+
+  /**
+   * A value restored from the cookie, the value was created by a previous request and its destruction is not
+   * managed anymore.
+   */
+  private static class RestoredScoped implements Scoped {
+
+    /** . */
+    private final Object value;
+
+    private RestoredScoped(Object value) {
+      this.value = value;
+    }
+
+    public Object get() {
+      return value;
+    }
+
+    public void destroy() {
+    }
+  }
+}
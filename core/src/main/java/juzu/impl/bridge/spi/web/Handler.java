@@ -25,6 +25,7 @@ import juzu.impl.plugin.controller.ControllerService;
 import juzu.impl.plugin.router.RouteDescriptor;
 import juzu.impl.plugin.router.RouterDescriptor;
 import juzu.impl.plugin.router.RouterService;
+import juzu.impl.plugin.template.TemplateService;
 import juzu.impl.request.ControllerHandler;
 import juzu.request.RequestParameter;
 import juzu.impl.router.PathParam;
@@ -40,6 +41,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 /** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
 public class Handler implements Closeable {
@@ -92,6 +94,25 @@ public class Handler implements Closeable {
     this.root = root;
   }
 
+  /**
+   * Warm up the application before it serves requests: the router is built by the constructor, the warm up
+   * initializes the templates in parallel and resolves the tag handlers.
+   *
+   * @throws Exception any exception raised by the warm up
+   */
+  public void warmUp() throws Exception {
+    TemplateService templates = bridge.getApplication().resolveBean(TemplateService.class);
+    if (templates != null) {
+      ForkJoinPool pool = new ForkJoinPool();
+      try {
+        templates.warmUp(pool);
+      }
+      finally {
+        pool.shutdown();
+      }
+    }
+  }
+
   public RouteDescriptor getMethods(Route route) {
     return backwardRoutes.get(route);
   }
@@ -212,13 +233,21 @@ public class Handler implements Closeable {
       }
 
       //
-      requestBridge.invoke();
+      try {
+        requestBridge.invoke();
 
-      //
-      if (requestBridge.send()) {
-        // ok
-      } else {
-        throw new UnsupportedOperationException("Not yet handled by " + requestBridge.getClass().getSimpleName() + ": " + requestBridge.response);
+        //
+        requestBridge.flushFlash();
+
+        //
+        if (requestBridge.send()) {
+          // ok
+        } else {
+          throw new UnsupportedOperationException("Not yet handled by " + requestBridge.getClass().getSimpleName() + ": " + requestBridge.response);
+        }
+      }
+      finally {
+        requestBridge.releaseSession();
       }
     }
   }
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.bridge.spi.web;
+
+import juzu.impl.bridge.Bridge;
+import juzu.impl.bridge.BridgeConfig;
+import juzu.impl.common.Completion;
+import juzu.impl.common.Logger;
+import juzu.impl.common.Tools;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Publishes the handler of a bridge as an immutable snapshot replaced as a whole when the application is refreshed.
+ * A request leases the snapshot it is served with, a replaced snapshot is closed once its last lease is released so
+ * the requests in progress complete with the previous snapshot.
+ *
+ * @param <S> the snapshot type
+ * @author Julien Viet
+ */
+public abstract class HandlerRefresher<S extends Closeable> {
+
+  /**
+   * The lease of a snapshot by a request, it must be released once by the request when it is handled.
+   *
+   * @param <S> the snapshot type
+   */
+  public static final class Lease<S extends Closeable> {
+
+    /** . */
+    private final Published<S> published;
+
+    /** . */
+    private boolean released;
+
+    private Lease(Published<S> published) {
+      this.published = published;
+    }
+
+    /**
+     * @return the leased snapshot
+     */
+    public S get() {
+      return published.snapshot;
+    }
+
+    /**
+     * Release the snapshot, it is closed when it was replaced and this lease was the last one.
+     */
+    public void release() {
+      if (!released) {
+        released = true;
+        published.release();
+      }
+    }
+  }
+
+  /** A published snapshot and its reference count, the publication holding a reference until it is replaced. */
+  private static class Published<S extends Closeable> {
+
+    /** . */
+    private final S snapshot;
+
+    /** . */
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    private Published(S snapshot) {
+      this.snapshot = snapshot;
+    }
+
+    /**
+     * @return a lease or null when the snapshot was replaced and closed
+     */
+    private Lease<S> acquire() {
+      while (true) {
+        int count = references.get();
+        if (count == 0) {
+          return null;
+        } else if (references.compareAndSet(count, count + 1)) {
+          return new Lease<S>(this);
+        }
+      }
+    }
+
+    private void release() {
+      if (references.decrementAndGet() == 0) {
+        Tools.safeClose(snapshot);
+      }
+    }
+  }
+
+  /** . */
+  private final Logger log;
+
+  /** . */
+  private final BridgeConfig config;
+
+  /** Created by the first refresh with the refresh lock held, published before the first snapshot. */
+  private volatile Bridge bridge;
+
+  /** The published snapshot, only replaced with the refresh lock held. */
+  private volatile Published<S> published;
+
+  /** The time before which the live mode does not check for changes. */
+  private volatile long nextCheck;
+
+  /** Serializes the refresh operations. */
+  private final ReentrantLock refreshLock = new ReentrantLock();
+
+  protected HandlerRefresher(Logger log, BridgeConfig config) {
+    this.log = log;
+    this.config = config;
+  }
+
+  /**
+   * Create the bridge, this is called once by the first refresh.
+   *
+   * @return the bridge
+   * @throws Exception any exception preventing the bridge creation
+   */
+  protected abstract Bridge createBridge() throws Exception;
+
+  /**
+   * Create the handler of a refreshed bridge.
+   *
+   * @param bridge the bridge
+   * @return the handler
+   * @throws Exception any exception preventing the handler creation
+   */
+  protected Handler createHandler(Bridge bridge) throws Exception {
+    return new Handler(bridge);
+  }
+
+  /**
+   * Create the snapshot of a new handler.
+   *
+   * @param handler the handler
+   * @return the snapshot
+   */
+  protected abstract S createSnapshot(Handler handler);
+
+  /**
+   * Callback after a snapshot is published.
+   *
+   * @param snapshot the published snapshot
+   */
+  protected void published(S snapshot) {
+  }
+
+  /**
+   * @return the published snapshot or null
+   */
+  public final S getSnapshot() {
+    Published<S> current = published;
+    return current != null ? current.snapshot : null;
+  }
+
+  /**
+   * Returns a lease on the snapshot serving the current request. Once the application is started, a static run mode
+   * leases the published snapshot without locking since nothing can change. The live mode checks for changes at most
+   * once per refresh interval and unless another request is already doing it, otherwise the published snapshot is
+   * leased.
+   *
+   * @return the lease
+   * @throws Exception any exception preventing the application to start
+   */
+  public final Lease<S> refresh() throws Exception {
+    while (true) {
+      Published<S> current = published;
+      if (current != null && (bridge.getRunMode().isStatic() || System.currentTimeMillis() < nextCheck || !refreshLock.tryLock())) {
+        Lease<S> lease = current.acquire();
+        if (lease != null) {
+          return lease;
+        }
+        // The snapshot was replaced meanwhile
+      } else {
+        if (current == null) {
+          refreshLock.lock();
+        }
+        try {
+          return doRefresh();
+        }
+        finally {
+          refreshLock.unlock();
+        }
+      }
+    }
+  }
+
+  private Lease<S> doRefresh() throws Exception {
+    if (bridge == null) {
+      bridge = createBridge();
+    }
+
+    //
+    Completion<Boolean> refresh = bridge.refresh();
+    if (refresh.isFailed()) {
+      throw refresh.getCause();
+    }
+
+    //
+    Published<S> current = published;
+    if (current == null || refresh.get()) {
+      Handler handler = createHandler(bridge);
+      if (config.warmUp) {
+        long time = System.currentTimeMillis();
+        handler.warmUp();
+        log.info("Warmed up " + config.name + " in " + (System.currentTimeMillis() - time) + "ms");
+      }
+      Published<S> next = new Published<S>(createSnapshot(handler));
+      published = next;
+      published(next.snapshot);
+      if (current != null) {
+        current.release();
+      }
+    }
+    nextCheck = System.currentTimeMillis() + config.refreshInterval;
+
+    // Cannot fail since the publication reference is only released with the lock held
+    return published.acquire();
+  }
+
+  /**
+   * Unpublish the snapshot, it is closed once the requests in progress release it.
+   */
+  public final void close() {
+    refreshLock.lock();
+    try {
+      Published<S> current = published;
+      if (current != null) {
+        published = null;
+        current.release();
+      }
+    }
+    finally {
+      refreshLock.unlock();
+    }
+  }
+}
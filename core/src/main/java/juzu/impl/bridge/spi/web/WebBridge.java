@@ -24,6 +24,7 @@ import juzu.request.HttpContext;
 import juzu.request.SecurityContext;
 import juzu.request.UserContext;
 
+import javax.servlet.http.Cookie;
 import java.io.IOException;
 import java.util.concurrent.RejectedExecutionException;
 
@@ -50,6 +51,22 @@ public abstract class WebBridge {
 
   public abstract void purgeSession();
 
+  /**
+   * Returns the id of the current session, the bridge removes the session state of the configured
+   * {@link juzu.impl.bridge.spi.session.SessionStore} when the session ends.
+   *
+   * @param create true if the session should be created
+   * @return the session id or null when there is no session
+   */
+  public abstract String getSessionId(boolean create);
+
+  /**
+   * Add a cookie to the response, the cookie must be added before the response is sent.
+   *
+   * @param cookie the cookie
+   */
+  public abstract void addCookie(Cookie cookie);
+
   //
 
   public abstract HttpContext getHttpContext();
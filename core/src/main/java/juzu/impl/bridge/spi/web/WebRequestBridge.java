@@ -36,6 +36,9 @@ import juzu.impl.common.MimeType;
 import juzu.impl.common.MethodHandle;
 import juzu.impl.plugin.controller.ControllerService;
 import juzu.impl.bridge.spi.ScopedContext;
+import juzu.impl.bridge.spi.session.FlashCookieCodec;
+import juzu.impl.bridge.spi.session.StoredScopedContext;
+import juzu.impl.bridge.spi.session.StoredSessions;
 import juzu.impl.request.Request;
 import juzu.impl.bridge.spi.RequestBridge;
 import juzu.impl.common.Tools;
@@ -85,6 +88,12 @@ public abstract class WebRequestBridge implements RequestBridge, WindowContext {
   /** . */
   protected Response response;
 
+  /** The session scope of the session store, when a store is configured. */
+  private StoredScopedContext storedSession;
+
+  /** The flash scope of the flash cookie, when the flash cookie is configured. */
+  private CookieFlashContext cookieFlash;
+
   WebRequestBridge(
       Bridge bridge,
       juzu.impl.bridge.spi.web.Handler handler,
@@ -186,10 +195,20 @@ public abstract class WebRequestBridge implements RequestBridge, WindowContext {
         context = http.getRequestScope(create);
         break;
       case FLASH:
-        context = http.getFlashScope(create);
+        FlashCookieCodec codec = bridge.getConfig().flashCookie;
+        if (codec != null) {
+          context = getCookieFlash(codec, create);
+        } else {
+          context = http.getFlashScope(create);
+        }
         break;
       case SESSION:
-        context = http.getSessionScope(create);
+        StoredSessions sessions = bridge.getConfig().storedSessions;
+        if (sessions != null) {
+          context = getStoredSession(sessions, create);
+        } else {
+          context = http.getSessionScope(create);
+        }
         break;
       default:
         throw new UnsupportedOperationException("Unsupported scope " + scope);
@@ -197,6 +216,26 @@ public abstract class WebRequestBridge implements RequestBridge, WindowContext {
     return context;
   }
 
+  private synchronized StoredScopedContext getStoredSession(StoredSessions sessions, boolean create) {
+    if (storedSession == null) {
+      String sessionId = http.getSessionId(create);
+      if (sessionId != null) {
+        storedSession = sessions.acquire(sessionId, bridge.getApplication().getClassLoader());
+      }
+    }
+    return storedSession;
+  }
+
+  private synchronized ScopedContext getCookieFlash(FlashCookieCodec codec, boolean create) {
+    if (cookieFlash == null) {
+      String value = CookieFlashContext.getCookieValue(http);
+      if (value != null || create || http.getFlashScope(false) != null) {
+        cookieFlash = new CookieFlashContext(http, codec, bridge.getApplication().getClassLoader(), value);
+      }
+    }
+    return cookieFlash;
+  }
+
   public final DispatchBridge createDispatch(Phase phase, final MethodHandle target, final Map<String, ResponseParameter> parameters) {
     ControllerHandler handler = bridge.getApplication().resolveBean(ControllerService.class).getDescriptor().getMethodByHandle(target);
 
@@ -290,6 +329,33 @@ public abstract class WebRequestBridge implements RequestBridge, WindowContext {
   public void close() {
   }
 
+  /**
+   * Write back the session scope to the session store once the response is sent and release it.
+   */
+  void releaseSession() {
+    StoredScopedContext session;
+    synchronized (this) {
+      session = storedSession;
+      storedSession = null;
+    }
+    if (session != null) {
+      bridge.getConfig().storedSessions.release(session);
+    }
+  }
+
+  /**
+   * Write the flash cookie before the response is sent.
+   */
+  void flushFlash() {
+    CookieFlashContext flash;
+    synchronized (this) {
+      flash = cookieFlash;
+    }
+    if (flash != null) {
+      flash.flush();
+    }
+  }
+
   void invoke() throws Exception {
     try {
       bridge.getApplication().resolveBean(ControllerService.class).invoke(this);
@@ -321,8 +387,13 @@ public abstract class WebRequestBridge implements RequestBridge, WindowContext {
           rp.put(requestParameter.getName(), requestParameter);
         }
         WebViewBridge requestBridge = new WebViewBridge(bridge, handler, http, desc, rp);
-        requestBridge.invoke();
-        return requestBridge.send();
+        try {
+          requestBridge.invoke();
+          return requestBridge.send();
+        }
+        finally {
+          requestBridge.releaseSession();
+        }
       } else {
         String url = update.with(MimeType.PLAIN).with(update.getProperties()).toString();
         Iterable<Map.Entry<String, String[]>> headers = view.getProperties().getValues(PropertyType.HEADER);
@@ -24,11 +24,14 @@ import juzu.impl.common.RunMode;
 import juzu.impl.compiler.CompilationException;
 import juzu.impl.io.SafeStream;
 import juzu.impl.plugin.asset.AssetService;
+import juzu.io.ChunkBuffer;
+import juzu.io.Streamable;
 import juzu.request.RequestParameter;
 
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 /** @author Julien Viet */
 public abstract class WebRequestContext {
@@ -51,14 +54,20 @@ public abstract class WebRequestContext {
 
       //
       AssetManager assetManager;
+      boolean bundleAssets;
+      boolean preloadAssets;
       if (assetPlugin != null) {
         assetManager = assetPlugin.getAssetManager();
+        bundleAssets = assetPlugin.getBundleAssets();
+        preloadAssets = assetPlugin.getPreloadAssets();
       } else {
         assetManager = null;
+        bundleAssets = false;
+        preloadAssets = false;
       }
       
       //
-      stream = new WebStream((HttpStream)stream, assetManager, getRunMode().getMinifyAssets(), phase) {
+      stream = new WebStream((HttpStream)stream, assetManager, getRunMode().getMinifyAssets(), bundleAssets, getRunMode().getCacheAssets(), preloadAssets, phase) {
         @Override
         public String renderAssetURL(AssetLocation location, String uri) {
           try {
@@ -76,12 +85,27 @@ public abstract class WebRequestContext {
 
     //
     try {
-      response.streamable().send(new SafeStream(stream));
+      Streamable streamable = response.streamable();
+      if (streamable instanceof ChunkBuffer) {
+        ((ChunkBuffer)streamable).send(new SafeStream(stream), getOutputExecutor());
+      } else {
+        streamable.send(new SafeStream(stream));
+      }
     } finally {
       stream.end();
     }
   }
 
+  /**
+   * Returns the executor writing the chunks a response produces asynchronously, so the producers of the
+   * chunks do not perform the response io.
+   *
+   * @return the executor or null when the producers write the chunks
+   */
+  protected Executor getOutputExecutor() {
+    return null;
+  }
+
   public abstract RunMode getRunMode();
 
   public abstract Map<String, RequestParameter> getParameters();
@@ -29,6 +29,7 @@ import juzu.io.Stream;
 import org.w3c.dom.Element;
 
 import java.io.IOException;
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
@@ -65,15 +66,27 @@ public abstract class WebStream implements AsyncStream {
 
   /** . */
   private final boolean minifyAssets;
+
+  /** . */
+  private final boolean bundleAssets;
+
+  /** Render asset urls containing the asset content hash. */
+  private final boolean fingerprintAssets;
+
+  /** Announce the page assets with preload headers. */
+  private final boolean preloadAssets;
   
   /** . */
   private final Phase phase;
 
-  public WebStream(HttpStream stream, AssetManager assetManager, boolean minifyAssets, Phase phase) {
+  public WebStream(HttpStream stream, AssetManager assetManager, boolean minifyAssets, boolean bundleAssets, boolean fingerprintAssets, boolean preloadAssets, Phase phase) {
     this.stream = stream;
     this.assetManager = assetManager;
     this.page = new Page();
     this.minifyAssets = minifyAssets;
+    this.bundleAssets = bundleAssets;
+    this.fingerprintAssets = fingerprintAssets;
+    this.preloadAssets = preloadAssets;
     this.phase = phase;
   }
 
@@ -99,12 +112,17 @@ public abstract class WebStream implements AsyncStream {
       } else if (chunk instanceof Chunk.Data) {
         try {
           if (page.assets.size() > 0 && assetManager != null) {
-            Iterable<Asset> resolvedAssets =  assetManager.resolveAssets(page.assets);
-            Tools.addAll(page.resolvedAssets, resolvedAssets);
+            page.resolvedAssets = assetManager.resolveAssets(page.assets);
+            if (bundleAssets) {
+              page.resolvedAssets = assetManager.bundleAssets(page.resolvedAssets, minifyAssets);
+            }
           }
           status = STREAMING;
           if (!Phase.RESOURCE.equals(phase)) {
-            page.sendHeader(stream);            
+            if (preloadAssets) {
+              page.sendPreload(stream);
+            }
+            page.sendHeader(stream);
           }
         }
         catch (IllegalArgumentException e) {
@@ -183,7 +201,7 @@ public abstract class WebStream implements AsyncStream {
     private final LinkedList<Element> headerTags = new LinkedList<Element>();
 
     /** . */
-    private final LinkedList<Asset> resolvedAssets = new LinkedList<Asset>();
+    private Iterable<Asset> resolvedAssets = Collections.emptyList();
 
     void clear() {
       this.title = null;
@@ -192,6 +210,35 @@ public abstract class WebStream implements AsyncStream {
       this.headerTags.clear();
     }
 
+    /**
+     * Provide a <code>Link</code> header announcing the resolved assets, it must be sent before the first
+     * data chunk so the http stream still buffers the headers.
+     */
+    void sendPreload(HttpStream stream) {
+      StringBuilder buffer = new StringBuilder();
+      for (Asset asset : resolvedAssets) {
+        String as;
+        if (asset.isStylesheet()) {
+          as = "style";
+        } else if (asset.isScript() || asset.getType().equals("module")) {
+          // AMD modules are loaded as classic scripts by the module loader
+          as = "script";
+        } else {
+          continue;
+        }
+        if (buffer.length() > 0) {
+          buffer.append(", ");
+        }
+        String uri = asset.resolveURI(minifyAssets, fingerprintAssets);
+        buffer.append('<').append(renderAssetURL(asset.getLocation(), uri)).append(">; rel=preload; as=").append(as);
+      }
+      if (buffer.length() > 0) {
+        stream.provide(new Chunk.Property<Map.Entry<String, String[]>>(
+            new AbstractMap.SimpleEntry<String, String[]>("Link", new String[]{buffer.toString()}),
+            PropertyType.HEADER));
+      }
+    }
+
     void sendHeader(HttpStream stream) {
       stream.provide(Chunk.create(
           "<!DOCTYPE html>\n" +
@@ -225,7 +272,7 @@ public abstract class WebStream implements AsyncStream {
       }
       for (Asset asset : resolvedAssets) {
         if (asset.isStylesheet()) {
-          String uri = asset.resolveURI(minifyAssets);
+          String uri = asset.resolveURI(minifyAssets, fingerprintAssets);
           int pos = uri.lastIndexOf('.');
           String ext = pos == -1 ? "css" : uri.substring(pos + 1);
           String url = renderAssetURL(asset.getLocation(), uri);
@@ -250,7 +297,7 @@ public abstract class WebStream implements AsyncStream {
       }
       for (Asset asset : resolvedAssets) {
         if (asset.isScript() && !Boolean.FALSE.equals(asset.getHeader())) {
-          String uri = asset.resolveURI(minifyAssets);
+          String uri = asset.resolveURI(minifyAssets, fingerprintAssets);
           String url = renderAssetURL(asset.getLocation(), uri);
           stream.provide(Chunk.create("<script type=\"text/javascript\" src=\""));
           stream.provide(Chunk.create(url));
@@ -276,7 +323,7 @@ public abstract class WebStream implements AsyncStream {
     void sendFooter(Stream stream) {
       for (Asset asset : resolvedAssets) {
         if (asset.isScript() && Boolean.FALSE.equals(asset.getHeader())) {
-          String uri = asset.resolveURI(minifyAssets);
+          String uri = asset.resolveURI(minifyAssets, fingerprintAssets);
           String url = renderAssetURL(asset.getLocation(), uri);
           stream.provide(Chunk.create("<script type=\"text/javascript\" src=\""));
           stream.provide(Chunk.create(url));
@@ -296,7 +343,7 @@ public abstract class WebStream implements AsyncStream {
       for (Iterator<Asset> i = modules.iterator(); i.hasNext();) {
         Asset module = i.next();
         buffer.append("\"").append(module.getId()).append("\":\"");
-        String uri = module.resolveURI(minifyAssets);
+        String uri = module.resolveURI(minifyAssets, fingerprintAssets);
         uri = uri.substring(0, uri.lastIndexOf(".js"));
         buffer.append(renderAssetURL(module.getLocation(), uri));
         buffer.append("\"");
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.common;
+
+import juzu.request.RequestParameter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Decodes an <code>application/x-www-form-urlencoded</code> body directly from its bytes: the name and value
+ * of each field are percent decoded into byte buffers reused across fields and converted to strings once.
+ * The parser enforces limits on the body size, the number of fields and the length of a field, a negative
+ * limit disables the corresponding check.
+ *
+ * @author Julien Viet
+ */
+public class FormURLEncodedStreamParser {
+
+  /**
+   * Signals a form exceeding a limit, the request should be rejected with the status of the exception.
+   */
+  public static class LimitException extends IOException {
+
+    /** The http status. */
+    private final int status;
+
+    public LimitException(int status, String message) {
+      super(message);
+      this.status = status;
+    }
+
+    /**
+     * @return the http status: 413 when the body or a field is too large, 400 when the form has too many fields
+     */
+    public int getStatus() {
+      return status;
+    }
+  }
+
+
+  /** . */
+  private static final int NAME = 0;
+
+  /** . */
+  private static final int VALUE = 1;
+
+  /** . */
+  private final Charset encoding;
+
+  /** . */
+  private final long maxSize;
+
+  /** . */
+  private final int maxFields;
+
+  /** . */
+  private final int maxFieldLength;
+
+  /** The decoded bytes of the current name or value. */
+  private byte[] decoded = new byte[64];
+
+  /** . */
+  private int decodedLength;
+
+  /** The raw bytes of the current value. */
+  private byte[] raw = new byte[64];
+
+  /** . */
+  private int rawLength;
+
+  public FormURLEncodedStreamParser(Charset encoding, long maxSize, int maxFields, int maxFieldLength) {
+    this.encoding = encoding;
+    this.maxSize = maxSize;
+    this.maxFields = maxFields;
+    this.maxFieldLength = maxFieldLength;
+  }
+
+  /**
+   * Parse a form body.
+   *
+   * @param in the body stream
+   * @return the parsed parameters
+   * @throws LimitException when a limit is exceeded
+   * @throws IOException any io exception
+   */
+  public List<RequestParameter> parse(InputStream in) throws IOException {
+    ArrayList<RequestParameter> parameters = new ArrayList<RequestParameter>();
+    byte[] buffer = new byte[512];
+    long size = 0;
+    int state = NAME;
+    String name = null;
+    boolean malformed = false;
+    int escape = -1;
+    int escaped = 0;
+    int fieldLength = 0;
+    decodedLength = 0;
+    rawLength = 0;
+    while (true) {
+      int len = in.read(buffer);
+      if (len == -1) {
+        break;
+      }
+      size += len;
+      if (maxSize >= 0 && size > maxSize) {
+        throw new LimitException(413, "Form body exceeds " + maxSize + " bytes");
+      }
+      for (int i = 0;i < len;i++) {
+        byte b = buffer[i];
+        if (b == '&') {
+          add(parameters, state, name, malformed || escape != -1);
+          state = NAME;
+          name = null;
+          malformed = false;
+          escape = -1;
+          fieldLength = 0;
+        } else {
+          if (state == NAME) {
+            if (b == '=') {
+              name = malformed || escape != -1 ? null : new String(decoded, 0, decodedLength, encoding);
+              malformed |= escape != -1;
+              escape = -1;
+              state = VALUE;
+              decodedLength = 0;
+              fieldLength = 0;
+              continue;
+            }
+          } else {
+            appendRaw(b);
+          }
+          if (maxFieldLength >= 0 && ++fieldLength > maxFieldLength) {
+            throw new LimitException(413, "Form field exceeds " + maxFieldLength + " bytes");
+          }
+          if (escape != -1) {
+            int digit = hex(b);
+            if (digit == -1) {
+              malformed = true;
+              escape = -1;
+            } else if (escape == 0) {
+              escaped = digit;
+              escape = 1;
+            } else {
+              appendDecoded((byte)(escaped * 0x10 + digit));
+              escape = -1;
+            }
+          } else if (b == '%') {
+            escape = 0;
+          } else if (b == '+') {
+            appendDecoded((byte)' ');
+          } else {
+            appendDecoded(b);
+          }
+        }
+      }
+    }
+    add(parameters, state, name, malformed || escape != -1);
+    return parameters;
+  }
+
+  private void add(List<RequestParameter> parameters, int state, String name, boolean malformed) throws IOException {
+    if (!malformed) {
+      RequestParameter parameter = null;
+      if (state == NAME) {
+        if (decodedLength > 0) {
+          parameter = RequestParameter.create(new String(decoded, 0, decodedLength, encoding), "");
+        }
+      } else if (name != null && name.length() > 0) {
+        parameter = RequestParameter.create(
+            name,
+            new String(raw, 0, rawLength, encoding),
+            new String(decoded, 0, decodedLength, encoding));
+      }
+      if (parameter != null) {
+        if (maxFields >= 0 && parameters.size() >= maxFields) {
+          throw new LimitException(400, "Form exceeds " + maxFields + " fields");
+        }
+        parameters.add(parameter);
+      }
+    }
+    decodedLength = 0;
+    rawLength = 0;
+  }
+
+  private void appendDecoded(byte b) {
+    if (decodedLength == decoded.length) {
+      decoded = Arrays.copyOf(decoded, decoded.length * 2);
+    }
+    decoded[decodedLength++] = b;
+  }
+
+  private void appendRaw(byte b) {
+    if (rawLength == raw.length) {
+      raw = Arrays.copyOf(raw, raw.length * 2);
+    }
+    raw[rawLength++] = b;
+  }
+
+  private static int hex(byte b) {
+    if (b >= '0' && b <= '9') {
+      return b - '0';
+    } else if (b >= 'A' && b <= 'F') {
+      return b + 10 - 'A';
+    } else if (b >= 'a' && b <= 'f') {
+      return b + 10 - 'a';
+    } else {
+      return -1;
+    }
+  }
+}
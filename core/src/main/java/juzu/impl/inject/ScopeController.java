@@ -83,6 +83,26 @@ public class ScopeController {
     ctx.setContextualValue(scope, key, scoped);
   }
 
+  /**
+   * Returns the monitor guarding the creation of a scoped object, a scope implementation creates an object
+   * while holding the monitor so concurrent requests sharing the scope create it once.
+   *
+   * @param scope the scope
+   * @param key   the key
+   * @return the monitor
+   * @throws IllegalStateException if the scope is not active
+   */
+  public Object getMonitor(Scope scope, Object key) throws IllegalStateException {
+    ScopingContext ctx = currentContext.get();
+    if (ctx == null) {
+      throw new IllegalStateException("Context not active");
+    }
+    if (!ctx.isActive(scope)) {
+      throw new IllegalStateException("Context not active");
+    }
+    return ctx.getContextualMonitor(scope, key);
+  }
+
   /**
    * Tells if a scope is active or not.
    *
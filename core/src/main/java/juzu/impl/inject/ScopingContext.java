@@ -25,6 +25,8 @@ public interface ScopingContext {
 
   void setContextualValue(Scope scope, Object key, Scoped value);
 
+  Object getContextualMonitor(Scope scope, Object key);
+
   boolean isActive(Scope scope);
 
 }
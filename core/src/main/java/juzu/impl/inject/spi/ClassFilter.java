@@ -0,0 +1,40 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.inject.spi;
+
+import juzu.Handler;
+
+/**
+ * Filters the classes discovered by an injector. A class is filtered from its name, so an injector scanning a file
+ * system can refuse a class before loading it.
+ *
+ * @author Julien Viet
+ */
+public abstract class ClassFilter implements Handler<Class<?>, Boolean> {
+
+  /**
+   * Returns true when the class should be managed by the injector.
+   *
+   * @param className the class binary name
+   * @return true when the class is accepted
+   */
+  public abstract boolean accept(String className);
+
+  public final Boolean handle(Class<?> argument) {
+    return accept(argument.getName());
+  }
+}
@@ -22,10 +22,14 @@ import java.io.Closeable;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
 
 /** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
 public abstract class InjectionContext<B, C> implements Closeable {
 
+  /** The instances of the singleton beans resolved by type, they are discarded with the context when the application is refreshed. */
+  private final ConcurrentHashMap<Class<?>, Object> singletons = new ConcurrentHashMap<Class<?>, Object>();
+
   public abstract ScopeController getScopeController();
 
   /**
@@ -70,6 +74,17 @@ public abstract class InjectionContext<B, C> implements Closeable {
    */
   public abstract Object getInstance(B bean, C context) throws InvocationTargetException;
 
+  /**
+   * Returns true when the bean is a singleton, the instance of a singleton bean resolved by
+   * {@link #resolveInstance(Class)} is cached by the context.
+   *
+   * @param bean the bean
+   * @return true when the bean is a singleton
+   */
+  protected boolean isSingleton(B bean) {
+    return false;
+  }
+
   /**
    * Close the manager. The implementation should care bout shutting down the existing bean in particular the
    * singleton beans that are managed outside of an explicit scope.
@@ -140,9 +155,20 @@ public abstract class InjectionContext<B, C> implements Closeable {
   }
 
   public final <T> T resolveInstance(Class<T> beanType) {
+    Object singleton = singletons.get(beanType);
+    if (singleton != null) {
+      return beanType.cast(singleton);
+    }
     try {
-      BeanLifeCycle<T> pluginLifeCycle = get(beanType);
-      return pluginLifeCycle != null ? pluginLifeCycle.get() : null;
+      B bean = resolveBean(beanType);
+      if (bean == null) {
+        return null;
+      }
+      T instance = new BeanLifeCycleImpl<B, C, T>(beanType, this, bean).get();
+      if (instance != null && isSingleton(bean)) {
+        singletons.putIfAbsent(beanType, instance);
+      }
+      return instance;
     }
     catch (InvocationTargetException e) {
       // log.log("Could not retrieve bean of type " + beanType, e.getCause());
@@ -18,6 +18,7 @@ package juzu.impl.inject.spi.cdi;
 
 import juzu.Scope;
 import juzu.impl.inject.ScopeController;
+import juzu.impl.inject.Scoped;
 
 import javax.enterprise.context.ContextNotActiveException;
 import javax.enterprise.context.spi.Context;
@@ -49,15 +50,18 @@ final class ContextImpl implements Context {
 
   public <T> T get(Contextual<T> contextual, CreationalContext<T> creationalContext) {
     try {
-      CDIScoped<T> scoped = (CDIScoped<T>)controller.get(scope, contextual);
-      if (scoped == null) {
-        if (creationalContext != null) {
-          T object = contextual.create(creationalContext);
-          scoped = new CDIScoped<T>(contextual, creationalContext, object);
-          controller.put(scope, contextual, scoped);
+      Scoped scoped = controller.get(scope, contextual);
+      if (scoped == null && creationalContext != null) {
+        synchronized (controller.getMonitor(scope, contextual)) {
+          scoped = controller.get(scope, contextual);
+          if (scoped == null) {
+            T object = contextual.create(creationalContext);
+            scoped = new CDIScoped<T>(contextual, creationalContext, object);
+            controller.put(scope, contextual, scoped);
+          }
         }
       }
-      return scoped != null ? scoped.object : null;
+      return scoped != null ? (T)scoped.get() : null;
     }
     catch (IllegalStateException e) {
       throw new ContextNotActiveException("Context not active for scope=" + scope + " contextual=" + contextual, e);
@@ -19,6 +19,7 @@ package juzu.impl.inject.spi.cdi.weld;
 import juzu.impl.common.Tools;
 import juzu.impl.fs.Visitor;
 import juzu.impl.fs.spi.ReadFileSystem;
+import juzu.impl.inject.spi.ClassFilter;
 import org.jboss.weld.bootstrap.api.ServiceRegistry;
 import org.jboss.weld.bootstrap.api.helpers.SimpleServiceRegistry;
 import org.jboss.weld.bootstrap.spi.BeanDeploymentArchive;
@@ -62,6 +63,7 @@ class BeanDeploymentArchiveImpl implements BeanDeploymentArchive {
     ArrayList<URL> xmlURLs = new ArrayList<URL>();
     final StringBuilder buffer = new StringBuilder();
     final ArrayList<String> beanClasses = new ArrayList<String>();
+    final ClassFilter filter = owner.filter;
     for (final ReadFileSystem fileSystem : fileSystems) {
       fileSystem.traverse(new Visitor.Default() {
         @Override
@@ -77,7 +79,7 @@ class BeanDeploymentArchiveImpl implements BeanDeploymentArchive {
             buffer.append(name, 0, len);
             String fqn = buffer.toString();
             buffer.setLength(buffer.length() - len);
-            if (!fqn.startsWith("juzu.impl.inject.spi.guice.") && !fqn.startsWith("juzu.impl.inject.spi.spring.")) {
+            if (!fqn.startsWith("juzu.impl.inject.spi.guice.") && !fqn.startsWith("juzu.impl.inject.spi.spring.") && (filter == null || filter.accept(fqn))) {
               beanClasses.add(fqn);
             }
           }
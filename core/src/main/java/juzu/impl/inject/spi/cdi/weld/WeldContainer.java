@@ -18,6 +18,7 @@ package juzu.impl.inject.spi.cdi.weld;
 
 import juzu.Scope;
 import juzu.impl.inject.ScopeController;
+import juzu.impl.inject.spi.ClassFilter;
 import juzu.impl.fs.spi.ReadFileSystem;
 import juzu.impl.inject.spi.cdi.Container;
 import org.jboss.weld.bootstrap.WeldBootstrap;
@@ -45,6 +46,9 @@ public class WeldContainer extends Container {
   /** . */
   final Bootstrap bootstrap;
 
+  /** . */
+  final ClassFilter filter;
+
   /** . */
   private BeanManager manager;
 
@@ -89,11 +93,12 @@ public class WeldContainer extends Container {
     manager = bootstrap.getManager(bda);
   }
 
-  public WeldContainer(ClassLoader classLoader, ScopeController scopeController, Set<Scope> scopes) {
+  public WeldContainer(ClassLoader classLoader, ScopeController scopeController, Set<Scope> scopes, ClassFilter filter) {
     super(scopeController, scopes);
 
     //
     this.classLoader = classLoader;
+    this.filter = filter;
     this.bootstrap = new WeldBootstrap();
   }
 
@@ -17,6 +17,7 @@ package juzu.impl.inject.spi.cdi.weld;
 
 import juzu.Handler;
 import juzu.impl.fs.spi.ReadFileSystem;
+import juzu.impl.inject.spi.ClassFilter;
 import juzu.impl.inject.spi.InjectionContext;
 import juzu.impl.inject.spi.Injector;
 import juzu.impl.inject.spi.InjectorProvider;
@@ -69,7 +70,9 @@ public class WeldInjector extends CDIInjector {
 
   @Override
   public InjectionContext<?, ?> create(Handler<Class<?>, Boolean> filter) throws Exception {
-    final Container container = new WeldContainer(classLoader, scopeController, scopes);
+    // Classes refused by their name are not loaded by the container
+    ClassFilter classFilter = filter instanceof ClassFilter ? (ClassFilter)filter : null;
+    final Container container = new WeldContainer(classLoader, scopeController, scopes, classFilter);
     for (ReadFileSystem<?> fs : fileSystems) {
       container.addFileSystem(fs);
     }
@@ -22,6 +22,7 @@ import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.google.inject.Key;
 import com.google.inject.ProvisionException;
+import com.google.inject.Scopes;
 import com.google.inject.TypeLiteral;
 import com.google.inject.binder.LinkedBindingBuilder;
 import com.google.inject.binder.ScopedBindingBuilder;
@@ -43,11 +44,14 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
 public class GuiceContext extends InjectionContext<GuiceBean, Object> {
@@ -58,8 +62,14 @@ public class GuiceContext extends InjectionContext<GuiceBean, Object> {
   /** . */
   private final ClassLoader classLoader;
 
-  /** . */
-  private final Map<String, Key<?>> nameMap;
+  /** The beans by name. */
+  private final Map<String, GuiceBean> nameMap;
+
+  /** The beans by binding key. */
+  private final Map<Key<?>, GuiceBean> keyMap;
+
+  /** The beans by type, a bean is indexed by its bound type, the super classes and the interfaces of this type. */
+  private final Map<Class<?>, List<GuiceBean>> typeMap;
 
   /** . */
   private final ScopeController scopeController;
@@ -161,19 +171,38 @@ public class GuiceContext extends InjectionContext<GuiceBean, Object> {
     };
 
     //
-    Map<String, Key<?>> nameMap = new HashMap<String, Key<?>>();
     Injector injector = Guice.createInjector(module);
-    for (Key<?> key : injector.getBindings().keySet()) {
+
+    // Index the bindings once the injector is created
+    Map<String, GuiceBean> nameMap = new HashMap<String, GuiceBean>();
+    Map<Key<?>, GuiceBean> keyMap = new HashMap<Key<?>, GuiceBean>();
+    Map<Class<?>, List<GuiceBean>> typeMap = new HashMap<Class<?>, List<GuiceBean>>();
+    for (Binding<?> binding : injector.getAllBindings().values()) {
+      Key<?> key = binding.getKey();
+      GuiceBean bean = new GuiceBean(binding);
+      keyMap.put(key, bean);
       Class<? extends Annotation> annotationType = key.getAnnotationType();
       if (annotationType != null && Named.class.isAssignableFrom(annotationType)) {
         Named named = (Named)key.getAnnotation();
-        nameMap.put(named.value(), key);
+        nameMap.put(named.value(), bean);
+      }
+      for (Class<?> type : getTypes(key.getTypeLiteral().getRawType())) {
+        List<GuiceBean> beans = typeMap.get(type);
+        if (beans == null) {
+          typeMap.put(type, beans = new ArrayList<GuiceBean>());
+        }
+        beans.add(bean);
       }
     }
+    for (Map.Entry<Class<?>, List<GuiceBean>> entry : typeMap.entrySet()) {
+      entry.setValue(Collections.unmodifiableList(entry.getValue()));
+    }
 
     //
     this.injector = injector;
     this.nameMap = nameMap;
+    this.keyMap = keyMap;
+    this.typeMap = typeMap;
     this.classLoader = bootstrap.classLoader;
   }
 
@@ -190,31 +219,53 @@ public class GuiceContext extends InjectionContext<GuiceBean, Object> {
     return classLoader;
   }
 
+  /**
+   * Returns the type, its super classes and its interfaces.
+   *
+   * @param type the type
+   * @return the types
+   */
+  private static Set<Class<?>> getTypes(Class<?> type) {
+    LinkedHashSet<Class<?>> types = new LinkedHashSet<Class<?>>();
+    LinkedList<Class<?>> queue = new LinkedList<Class<?>>();
+    queue.add(type);
+    while (queue.size() > 0) {
+      Class<?> current = queue.removeFirst();
+      if (types.add(current)) {
+        if (current.getSuperclass() != null) {
+          queue.add(current.getSuperclass());
+        }
+        Collections.addAll(queue, current.getInterfaces());
+      }
+    }
+    if (type.isInterface()) {
+      types.add(Object.class);
+    }
+    return types;
+  }
+
   public GuiceBean resolveBean(Class<?> type) {
-    Binding<?> binding = injector.getBinding(type);
-    return binding != null ? new GuiceBean(binding) : null;
+    GuiceBean bean = keyMap.get(Key.get(type));
+    if (bean == null) {
+      // Just in time binding
+      Binding<?> binding = injector.getBinding(type);
+      bean = binding != null ? new GuiceBean(binding) : null;
+    }
+    return bean;
   }
 
   public Iterable<GuiceBean> resolveBeans(Class<?> type) {
-    List<GuiceBean> beans = new ArrayList<GuiceBean>();
-    Map<Key<?>, Binding<?>> allBindings = injector.getAllBindings();
-    Collection<Binding<?>> bindings = allBindings.values();
-    for (Binding<?> binding : bindings) {
-      Class bindingType = binding.getKey().getTypeLiteral().getRawType();
-      if (type.isAssignableFrom(bindingType)) {
-        beans.add(new GuiceBean(binding));
-      }
-    }
-    return beans;
+    List<GuiceBean> beans = typeMap.get(type);
+    return beans != null ? beans : Collections.<GuiceBean>emptyList();
   }
 
   public GuiceBean resolveBean(String name) {
-    Key<?> key = nameMap.get(name);
-    GuiceBean bean = null;
-    if (key != null) {
-      bean = new GuiceBean(injector.getBinding(key));
-    }
-    return bean;
+    return nameMap.get(name);
+  }
+
+  @Override
+  protected boolean isSingleton(GuiceBean bean) {
+    return Scopes.isSingleton(bean.binding);
   }
 
   public Object createContext(GuiceBean bean) throws InvocationTargetException {
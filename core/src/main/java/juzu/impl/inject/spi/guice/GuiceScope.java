@@ -20,6 +20,7 @@ import com.google.inject.Key;
 import com.google.inject.Provider;
 import com.google.inject.Scope;
 import juzu.impl.inject.ScopeController;
+import juzu.impl.inject.Scoped;
 
 /**
  * Integrate guice scope.
@@ -41,12 +42,17 @@ public class GuiceScope implements Scope {
   public <T> Provider<T> scope(final Key<T> key, final Provider<T> unscoped) {
     return new Provider<T>() {
       public T get() {
-        GuiceScoped scoped = (GuiceScoped)controller.get(scope, key);
+        Scoped scoped = controller.get(scope, key);
         if (scoped == null) {
-          scoped = new GuiceScoped(unscoped.get());
-          controller.put(scope, key, scoped);
+          synchronized (controller.getMonitor(scope, key)) {
+            scoped = controller.get(scope, key);
+            if (scoped == null) {
+              scoped = new GuiceScoped(unscoped.get());
+              controller.put(scope, key, scoped);
+            }
+          }
         }
-        return (T)scoped.o;
+        return (T)scoped.get();
       }
     };
   }
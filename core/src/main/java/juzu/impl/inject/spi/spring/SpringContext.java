@@ -23,10 +23,11 @@ import juzu.impl.inject.spi.InjectorProvider;
 import juzu.impl.inject.spi.InjectionContext;
 import org.springframework.beans.BeanInstantiationException;
 import org.springframework.beans.factory.BeanCreationException;
-import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * <ul> <li>http://matthiaswessendorf.wordpress.com/2010/04/17/spring-3-0-and-jsr-330-part/</li>
@@ -48,6 +49,9 @@ public class SpringContext extends InjectionContext<String, Object> {
   /** . */
   private final ScopeController scopeController;
 
+  /** The bean names by type, the bean definitions do not change once the context is created. */
+  private final ConcurrentHashMap<Class<?>, String[]> namesByType;
+
   public SpringContext(ScopeController scopeController, DefaultListableBeanFactory factory, ClassLoader classLoader) {
     factory.registerSingleton(Tools.nextUUID(), this);
 
@@ -55,6 +59,7 @@ public class SpringContext extends InjectionContext<String, Object> {
     this.factory = factory;
     this.classLoader = classLoader;
     this.scopeController = scopeController;
+    this.namesByType = new ConcurrentHashMap<Class<?>, String[]>();
   }
 
   @Override
@@ -70,8 +75,27 @@ public class SpringContext extends InjectionContext<String, Object> {
     return classLoader;
   }
 
+  /**
+   * Returns the names of the beans of the specified type, the names are resolved from the bean definitions
+   * without instantiating any bean and are cached.
+   *
+   * @param type the bean type
+   * @return the bean names
+   */
+  private String[] getBeanNames(Class<?> type) {
+    String[] names = namesByType.get(type);
+    if (names == null) {
+      names = factory.getBeanNamesForType(type, true, false);
+      String[] previous = namesByType.putIfAbsent(type, names);
+      if (previous != null) {
+        names = previous;
+      }
+    }
+    return names;
+  }
+
   public String resolveBean(Class<?> type) {
-    String[] names = factory.getBeanNamesForType(type);
+    String[] names = getBeanNames(type);
     switch (names.length) {
       case 0:
         return null;
@@ -83,13 +107,7 @@ public class SpringContext extends InjectionContext<String, Object> {
   }
 
   public String resolveBean(String name) {
-    try {
-      factory.getBean(name);
-      return name;
-    }
-    catch (NoSuchBeanDefinitionException e) {
-      return null;
-    }
+    return factory.containsBean(name) ? name : null;
   }
 
 /*
@@ -105,7 +123,12 @@ public class SpringContext extends InjectionContext<String, Object> {
 */
 
   public Iterable<String> resolveBeans(Class<?> type) {
-    return factory.getBeansOfType(type).keySet();
+    return Arrays.asList(getBeanNames(type));
+  }
+
+  @Override
+  protected boolean isSingleton(String bean) {
+    return factory.isSingleton(bean);
   }
 
   public Object createContext(String bean) throws InvocationTargetException {
@@ -17,6 +17,7 @@
 package juzu.impl.inject.spi.spring;
 
 import juzu.impl.inject.ScopeController;
+import juzu.impl.inject.Scoped;
 import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.factory.config.Scope;
 import org.springframework.beans.factory.support.DefaultListableBeanFactory;
@@ -40,30 +41,36 @@ class SpringScope implements Scope {
   }
 
   public Object get(String name, ObjectFactory<?> objectFactory) {
-    SpringScoped scoped = (SpringScoped)controller.get(scope, name);
-    if (scoped == null) {
-      // We register first the scoped object
-      // as creating the object from the factory
-      // will make a call in the method registerDestructionCallback
-      scoped = new SpringScoped(factory, name);
-      controller.put(scope, name, scoped);
+    Scoped scoped = controller.get(scope, name);
+    if (scoped == null || scoped.get() == null) {
+      synchronized (controller.getMonitor(scope, name)) {
+        scoped = controller.get(scope, name);
+        if (scoped == null) {
+          // We register first the scoped object
+          // as creating the object from the factory
+          // will make a call in the method registerDestructionCallback
+          SpringScoped created = new SpringScoped(factory, name);
+          controller.put(scope, name, created);
 
-      // Create the object, it will likely create a registerDestructionCallback invocation
-      // to set the callback when the object will need to be destroyed
-      scoped.o = objectFactory.getObject();
+          // Create the object, it will likely create a registerDestructionCallback invocation
+          // to set the callback when the object will need to be destroyed
+          created.o = objectFactory.getObject();
+          scoped = created;
+        }
+      }
     }
-    return scoped.o;
+    return scoped.get();
   }
 
   public Object remove(String name) {
-    SpringScoped scoped = (SpringScoped)controller.get(scope, name);
-    return scoped != null ? scoped.o : null;
+    Scoped scoped = controller.get(scope, name);
+    return scoped != null ? scoped.get() : null;
   }
 
   public void registerDestructionCallback(String name, Runnable callback) {
-    SpringScoped scoped = (SpringScoped)controller.get(scope, name);
-    if (scoped != null) {
-      scoped.destructionCallback = callback;
+    Scoped scoped = controller.get(scope, name);
+    if (scoped instanceof SpringScoped) {
+      ((SpringScoped)scoped).destructionCallback = callback;
     }
   }
 
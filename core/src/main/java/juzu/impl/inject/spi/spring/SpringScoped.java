@@ -29,10 +29,10 @@ class SpringScoped implements Scoped {
   final String bean;
 
   /** . */
-  Object o;
+  volatile Object o;
 
   /** . */
-  Runnable destructionCallback;
+  volatile Runnable destructionCallback;
 
   SpringScoped(DefaultListableBeanFactory factory, String bean) {
     this.factory = factory;
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.io;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+
+/**
+ * A binary stream writing to a non blocking channel. The data is appended to a bounded queue that is drained
+ * when the channel is ready to accept more data. When the queue is full the producer blocks until the channel
+ * drains it, which provides backpressure to the producer instead of pinning a thread on a slow consumer.
+ *
+ * @author Julien Viet
+ */
+public abstract class NonBlockingOutputStream extends BinaryStream {
+
+  /** . */
+  private final Object lock = new Object();
+
+  /** . */
+  private final ArrayDeque<byte[]> queue = new ArrayDeque<byte[]>();
+
+  /** The maximum amount of bytes queued. */
+  private final int capacity;
+
+  /** The amount of bytes queued. */
+  private int queued;
+
+  /** . */
+  private boolean closed;
+
+  /** . */
+  private boolean completed;
+
+  /** . */
+  private Throwable failure;
+
+  protected NonBlockingOutputStream(Charset charset, int capacity) {
+    super(charset);
+
+    //
+    this.capacity = capacity;
+  }
+
+  /**
+   * Returns true when the channel accepts a write without blocking, when false is returned the
+   * channel must later call {@link #writePossible()}.
+   *
+   * @return the channel readiness
+   */
+  protected abstract boolean isReady();
+
+  /**
+   * Write to the channel, this is called only after {@link #isReady()} returned true.
+   *
+   * @param data the data
+   * @throws IOException any io exception
+   */
+  protected abstract void write(byte[] data) throws IOException;
+
+  /**
+   * Signals the stream is closed and all the data has been written or the stream failed.
+   */
+  protected abstract void completed();
+
+  /**
+   * @return the amount of bytes queued
+   */
+  public int getQueued() {
+    synchronized (lock) {
+      return queued;
+    }
+  }
+
+  @Override
+  public void append(byte[] data) throws IOException {
+    append(data, 0, data.length);
+  }
+
+  @Override
+  public void append(byte[] data, int off, int len) throws IOException {
+    if (len > 0) {
+      byte[] copy = new byte[len];
+      System.arraycopy(data, off, copy, 0, len);
+      synchronized (lock) {
+        if (closed) {
+          throw new IOException("Stream closed");
+        }
+        // A chunk larger than the capacity is accepted when the queue is empty
+        while (failure == null && queued > 0 && queued + len > capacity) {
+          try {
+            lock.wait();
+          }
+          catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the queue to drain");
+          }
+        }
+        if (failure != null) {
+          throw new IOException(failure);
+        }
+        queue.addLast(copy);
+        queued += len;
+        drain();
+      }
+    }
+  }
+
+  /**
+   * Signals the channel is ready to accept more data.
+   */
+  public void writePossible() {
+    synchronized (lock) {
+      drain();
+    }
+  }
+
+  /**
+   * Signals the channel failed, the producers are released and the stream completes.
+   *
+   * @param t the failure
+   */
+  public void failed(Throwable t) {
+    synchronized (lock) {
+      if (failure == null) {
+        failure = t;
+        queue.clear();
+        queued = 0;
+        lock.notifyAll();
+        complete();
+      }
+    }
+  }
+
+  public void close() {
+    synchronized (lock) {
+      if (!closed) {
+        closed = true;
+        drain();
+      }
+    }
+  }
+
+  private void drain() {
+    if (failure != null) {
+      return;
+    }
+    while (queue.size() > 0) {
+      if (!isReady()) {
+        return;
+      }
+      byte[] data = queue.removeFirst();
+      queued -= data.length;
+      lock.notifyAll();
+      try {
+        write(data);
+      }
+      catch (IOException e) {
+        failed(e);
+        return;
+      }
+    }
+    if (closed && isReady()) {
+      complete();
+    }
+  }
+
+  private void complete() {
+    if (!completed) {
+      completed = true;
+      completed();
+    }
+  }
+}
@@ -50,6 +50,14 @@ public class ModuleAsset extends Asset {
     this.dependencyMappings = dependencyMappings;
   }
 
+  /**
+   * @return true when the module is wrapped by a named define
+   */
+  @Override
+  public boolean isBundleable() {
+    return dependencyMappings != null || adapter != null;
+  }
+
   @Override
   public InputStream open(String source, URLConnection resource) throws IOException {
 
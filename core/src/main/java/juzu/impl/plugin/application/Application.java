@@ -17,9 +17,8 @@
 package juzu.impl.plugin.application;
 
 import juzu.Scope;
-import juzu.Handler;
 import juzu.impl.common.JSON;
-import juzu.impl.common.Tools;
+import juzu.impl.fs.spi.ReadFileSystem;
 import juzu.impl.inject.BeanDescriptor;
 import juzu.impl.inject.spi.Injector;
 import juzu.impl.plugin.Service;
@@ -32,12 +31,18 @@ import juzu.impl.resource.ResourceResolver;
 import javax.inject.Singleton;
 import java.lang.reflect.InvocationTargetException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.ServiceLoader;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
 @Singleton
@@ -61,16 +66,40 @@ public class Application implements ResourceResolver {
   /** . */
   private final ClassLoader classLoader;
 
+  /** The module classes or null. */
+  private final ReadFileSystem<?> classes;
+
+  /** The start duration in milliseconds of each service and of the injector. */
+  private Map<String, Long> startTimeline;
+
   public Application(Injector injector, ApplicationDescriptor descriptor, ResourceResolver resourceResolver) {
+    this(injector, descriptor, resourceResolver, null);
+  }
+
+  public Application(Injector injector, ApplicationDescriptor descriptor, ResourceResolver resourceResolver, ReadFileSystem<?> classes) {
+    this.classes = classes;
     this.classLoader = descriptor.getApplicationLoader();
     this.injectionContext = null;
     this.descriptor = descriptor;
     this.injector = injector;
     this.resourceResolver = resourceResolver;
     this.plugins = Collections.emptyMap();
+    this.startTimeline = Collections.emptyMap();
   }
 
   public void start() throws Exception {
+    start(null);
+  }
+
+  /**
+   * Start the application, when an executor is provided the services are initialized concurrently on this
+   * executor: the initialization of a service only depends on its own configuration, the dependencies between
+   * services are resolved later by the injector.
+   *
+   * @param executor the executor or null for a sequential start
+   * @throws Exception any exception preventing the application to start
+   */
+  public void start(ExecutorService executor) throws Exception {
 
     final ResourceResolver applicationResolver = new ResourceResolver() {
       public URL resolve(String uri) {
@@ -105,9 +134,9 @@ public class Application implements ResourceResolver {
     }
 
     //
-    HashMap<String, ServiceDescriptor> pluginDescriptors = new HashMap<String, ServiceDescriptor>();
+    final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+    ArrayList<ServiceInit> inits = new ArrayList<ServiceInit>(configs.size());
     for (final Map.Entry<ApplicationService, JSON> entry : configs.entrySet()) {
-      ApplicationService plugin = entry.getKey();
       ServiceContext pluginContext = new ServiceContext() {
         public JSON getConfig() {
           return entry.getValue();
@@ -122,10 +151,35 @@ public class Application implements ResourceResolver {
           return applicationResolver;
         }
       };
-      plugin.setApplication(descriptor);
-      ServiceDescriptor pluginDescriptor = plugin.init(pluginContext);
-      if (pluginDescriptor != null) {
-        pluginDescriptors.put(plugin.getName(), pluginDescriptor);
+      inits.add(new ServiceInit(entry.getKey(), pluginContext, contextClassLoader));
+    }
+    if (executor != null) {
+      for (Future<ServiceDescriptor> future : executor.invokeAll(inits)) {
+        try {
+          future.get();
+        }
+        catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          if (cause instanceof Exception) {
+            throw (Exception)cause;
+          } else {
+            throw (Error)cause;
+          }
+        }
+      }
+    } else {
+      for (ServiceInit init : inits) {
+        init.call();
+      }
+    }
+
+    //
+    LinkedHashMap<String, Long> startTimeline = new LinkedHashMap<String, Long>();
+    HashMap<String, ServiceDescriptor> pluginDescriptors = new HashMap<String, ServiceDescriptor>();
+    for (ServiceInit init : inits) {
+      startTimeline.put(init.plugin.getName(), init.time);
+      if (init.descriptor != null) {
+        pluginDescriptors.put(init.plugin.getName(), init.descriptor);
       }
     }
 
@@ -164,44 +218,16 @@ public class Application implements ResourceResolver {
       injector.addScope(scope);
     }
 
-    // Filter the classes:
-    // any class beginning with juzu. is refused
-    // any class prefixed with the application package is accepted
-    // any other application class is refused (i.e a class having an ancestor package annotated with @Application)
-    Handler<Class<?>, Boolean> filter = new Handler<Class<?>, Boolean>() {
-      HashSet<String> blackList = new HashSet<String>();
-      public Boolean handle(Class<?> argument) {
-        if (argument.getName().startsWith("juzu.")) {
-          return false;
-        } else if (argument.getPackage().getName().startsWith(descriptor.getPackageName())) {
-          return true;
-        } else {
-          for (String currentPkg = argument.getPackage().getName();currentPkg != null;currentPkg = Tools.parentPackageOf(currentPkg)) {
-            if (blackList.contains(currentPkg)) {
-              return false;
-            } else {
-              try {
-                Class<?> packageClass = classLoader.loadClass(currentPkg + ".package-info");
-                juzu.Application ann = packageClass.getAnnotation(juzu.Application.class);
-                if (ann != null) {
-                  blackList.add(currentPkg);
-                  return false;
-                }
-              }
-              catch (ClassNotFoundException e) {
-                // Skip it
-              }
-            }
-          }
-          return true;
-        }
-      }
-    };
+    // Filter the classes
+    ApplicationClassFilter filter = new ApplicationClassFilter(descriptor.getPackageName(), classLoader, classes);
 
     //
     try {
+      long time = System.currentTimeMillis();
       this.injectionContext = injector.create(filter);
+      startTimeline.put("injector", System.currentTimeMillis() - time);
       this.plugins = plugins;
+      this.startTimeline = Collections.unmodifiableMap(startTimeline);
     }
     catch (Exception e) {
       throw new UnsupportedOperationException("handle me gracefully", e);
@@ -212,6 +238,15 @@ public class Application implements ResourceResolver {
     return descriptor.getName();
   }
 
+  /**
+   * Returns the start duration in milliseconds of each service followed by the duration of the injector creation.
+   *
+   * @return the start timeline
+   */
+  public Map<String, Long> getStartTimeline() {
+    return startTimeline;
+  }
+
   public ClassLoader getClassLoader() {
     return injectionContext.getClassLoader();
   }
@@ -254,4 +289,44 @@ public class Application implements ResourceResolver {
       return null;
     }
   }
+
+  /** The initialization of a service. */
+  private class ServiceInit implements Callable<ServiceDescriptor> {
+
+    /** . */
+    final ApplicationService plugin;
+
+    /** . */
+    final ServiceContext context;
+
+    /** . */
+    final ClassLoader contextClassLoader;
+
+    /** . */
+    ServiceDescriptor descriptor;
+
+    /** . */
+    long time;
+
+    ServiceInit(ApplicationService plugin, ServiceContext context, ClassLoader contextClassLoader) {
+      this.plugin = plugin;
+      this.context = context;
+      this.contextClassLoader = contextClassLoader;
+    }
+
+    public ServiceDescriptor call() throws Exception {
+      Thread thread = Thread.currentThread();
+      ClassLoader previous = thread.getContextClassLoader();
+      long time = System.currentTimeMillis();
+      thread.setContextClassLoader(contextClassLoader);
+      try {
+        plugin.setApplication(Application.this.descriptor);
+        return descriptor = plugin.init(context);
+      }
+      finally {
+        thread.setContextClassLoader(previous);
+        this.time = System.currentTimeMillis() - time;
+      }
+    }
+  }
 }
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.plugin.application;
+
+import juzu.impl.common.JSON;
+import juzu.impl.common.Resource;
+import juzu.impl.common.Timestamped;
+import juzu.impl.common.Tools;
+import juzu.impl.fs.spi.ReadFileSystem;
+import juzu.impl.inject.spi.ClassFilter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Filters the classes of an application:
+ * <ul>
+ *   <li>any class beginning with juzu. is refused</li>
+ *   <li>any class prefixed with the application package is accepted</li>
+ *   <li>any other application class is refused (i.e a class having an ancestor package annotated with @Application)</li>
+ * </ul>
+ *
+ * <p>The packages of the module classes are resolved from the application packages listed in the module descriptor
+ * emitted by the annotation processor: the classes are filtered by name without being loaded. The other packages
+ * are resolved by loading their <code>package-info</code> class.</p>
+ *
+ * @author Julien Viet
+ */
+class ApplicationClassFilter extends ClassFilter {
+
+  /** . */
+  private final String packageName;
+
+  /** . */
+  private final ClassLoader classLoader;
+
+  /** The module classes or null. */
+  private final ReadFileSystem<?> classes;
+
+  /** The application packages of the module classes. */
+  private final Set<String> applicationPackages;
+
+  /** The resolved packages: true for an application package. */
+  private final ConcurrentHashMap<String, Boolean> packages = new ConcurrentHashMap<String, Boolean>();
+
+  ApplicationClassFilter(String packageName, ClassLoader classLoader, ReadFileSystem<?> classes) {
+    this.packageName = packageName;
+    this.classLoader = classLoader;
+    this.classes = classes;
+    this.applicationPackages = getApplicationPackages(classes);
+  }
+
+  /**
+   * Read the application packages from the module descriptor.
+   *
+   * @param classes the module classes
+   * @return the application packages or null when the module has no descriptor
+   */
+  private static Set<String> getApplicationPackages(ReadFileSystem<?> classes) {
+    if (classes != null) {
+      try {
+        Timestamped<Resource> descriptor = classes.getResource(Arrays.asList("juzu", "config.json"));
+        if (descriptor != null) {
+          JSON config = (JSON)JSON.parse(descriptor.getObject().getCharSequence().toString());
+          JSON applications = config.getJSON("application");
+          return applications != null ? new HashSet<String>(applications.names()) : Collections.<String>emptySet();
+        }
+      }
+      catch (IOException ignore) {
+        // Resolve packages from the class loader
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public boolean accept(String className) {
+    if (className.startsWith("juzu.")) {
+      return false;
+    }
+    int index = className.lastIndexOf('.');
+    String pkg = index == -1 ? "" : className.substring(0, index);
+    if (pkg.startsWith(packageName)) {
+      return true;
+    } else {
+      for (String currentPkg = pkg;currentPkg != null;currentPkg = Tools.parentPackageOf(currentPkg)) {
+        if (isApplicationPackage(currentPkg)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  private boolean isApplicationPackage(String pkg) {
+    Boolean application = packages.get(pkg);
+    if (application == null) {
+      if (applicationPackages != null && (applicationPackages.contains(pkg) || isModulePackage(pkg))) {
+        application = applicationPackages.contains(pkg);
+      } else {
+        try {
+          Class<?> packageClass = classLoader.loadClass(pkg + ".package-info");
+          application = packageClass.getAnnotation(juzu.Application.class) != null;
+        }
+        catch (ClassNotFoundException e) {
+          application = false;
+        }
+      }
+      packages.put(pkg, application);
+    }
+    return application;
+  }
+
+  private boolean isModulePackage(String pkg) {
+    try {
+      return pkg.length() > 0 && classes.getPath(Tools.split(pkg, '.')) != null;
+    }
+    catch (IOException e) {
+      return false;
+    }
+  }
+}
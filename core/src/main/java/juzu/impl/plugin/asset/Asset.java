@@ -164,15 +164,34 @@ public class Asset implements Serializable {
     return sources;
   }
 
+  /**
+   * @return the minified value of this asset or null when the asset has no minified version
+   */
+  public String getMinifiedValue() {
+    if (minified != null) {
+      return minified;
+    } else if (minifiersTypes.size() > 0) {
+      return getMinifiedSource();
+    } else {
+      return null;
+    }
+  }
+
+  /**
+   * @return true when the asset content can be concatenated with other assets of the same type
+   */
+  public boolean isBundleable() {
+    return true;
+  }
+
   public JSON getJSON() {
     JSON json = new JSON().
         set("value", key.value).
         set("location", key.location.toString()).
         set("type", type);
-    if (minified != null) {
-      json.set("minified", minified);
-    } else if (minifiersTypes.size() > 0) {
-      json.set("minified", getMinifiedSource());
+    String minifiedValue = getMinifiedValue();
+    if (minifiedValue != null) {
+      json.set("minified", minifiedValue);
     }
     if (maxAge != null) {
       json.set("max-age", maxAge);
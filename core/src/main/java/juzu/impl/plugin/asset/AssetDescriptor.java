@@ -17,6 +17,7 @@
 package juzu.impl.plugin.asset;
 
 import juzu.Scope;
+import juzu.impl.asset.AssetBundleMetaData;
 import juzu.impl.asset.AssetManager;
 import juzu.impl.asset.AssetMetaData;
 import juzu.impl.plugin.ServiceDescriptor;
@@ -33,14 +34,38 @@ public class AssetDescriptor extends ServiceDescriptor {
   /** . */
   private final List<AssetMetaData> assets;
 
-  AssetDescriptor(List<AssetMetaData> assets) {
+  /** . */
+  private final boolean bundling;
+
+  /** . */
+  private final List<AssetBundleMetaData> bundles;
+
+  /** . */
+  private final boolean preload;
+
+  AssetDescriptor(List<AssetMetaData> assets, boolean bundling, List<AssetBundleMetaData> bundles, boolean preload) {
     this.assets = assets;
+    this.bundling = bundling;
+    this.bundles = bundles;
+    this.preload = preload;
   }
 
   public List<AssetMetaData> getAssets() {
     return assets;
   }
 
+  public boolean getBundling() {
+    return bundling;
+  }
+
+  public List<AssetBundleMetaData> getBundles() {
+    return bundles;
+  }
+
+  public boolean getPreload() {
+    return preload;
+  }
+
   @Override
   public Iterable<BeanDescriptor> getBeans() {
     return Tools.list(
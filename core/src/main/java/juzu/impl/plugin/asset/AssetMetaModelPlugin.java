@@ -17,6 +17,7 @@
 package juzu.impl.plugin.asset;
 
 import juzu.asset.AssetLocation;
+import juzu.impl.asset.AssetBundle;
 import juzu.impl.common.Name;
 import juzu.impl.common.Tools;
 import juzu.impl.compiler.CompilationException;
@@ -28,6 +29,8 @@ import juzu.impl.metamodel.AnnotationKey;
 import juzu.impl.metamodel.AnnotationState;
 import juzu.impl.common.JSON;
 import juzu.impl.compiler.ProcessingContext;
+import juzu.plugin.asset.Bundles;
+import juzu.plugin.asset.Preload;
 import juzu.plugin.asset.Scripts;
 import juzu.plugin.asset.Stylesheets;
 
@@ -41,10 +44,12 @@ import java.lang.annotation.Annotation;
 import java.net.URL;
 import java.net.URLConnection;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -61,6 +66,9 @@ public class AssetMetaModelPlugin extends ApplicationMetaModelPlugin {
   /** . */
   public static final MessageCode CANNOT_PROCESS_ASSET = new MessageCode("CANNOT_PROCESS_ASSET", "The asset id %1$s cannot be processed: %2d");
 
+  /** . */
+  public static final MessageCode INVALID_ASSET_BUNDLE = new MessageCode("INVALID_ASSET_BUNDLE", "The asset bundle %1$s cannot bundle the asset %2$s: %3$s");
+
   /** . */
   private static final Set<Class<? extends java.lang.annotation.Annotation>> ANNOTATIONS;
 
@@ -68,6 +76,8 @@ public class AssetMetaModelPlugin extends ApplicationMetaModelPlugin {
     HashSet<Class<? extends Annotation>> tmp = new HashSet<Class<? extends Annotation>>();
     tmp.add(Scripts.class);
     tmp.add(Stylesheets.class);
+    tmp.add(Bundles.class);
+    tmp.add(Preload.class);
     ANNOTATIONS = Collections.unmodifiableSet(tmp);
   }
 
@@ -89,9 +99,22 @@ public class AssetMetaModelPlugin extends ApplicationMetaModelPlugin {
   public void processAnnotationAdded(ApplicationMetaModel metaModel, AnnotationKey key, AnnotationState added) {
     if (metaModel.getHandle().equals(key.getElement())) {
       AssetsMetaModel assetsMetaModel = metaModel.getChild(AssetsMetaModel.KEY);
+      String identifier = key.getType().getIdentifier();
+      if (identifier.equals(Bundles.class.getSimpleName())) {
+        assetsMetaModel.setBundling(true);
+        List<AnnotationState> bundles = (List<AnnotationState>)added.get("value");
+        if (bundles != null) {
+          for (AnnotationState bundle : bundles) {
+            assetsMetaModel.addBundle((String)bundle.get("id"), (List<String>)bundle.get("value"));
+          }
+        }
+        return;
+      } else if (identifier.equals(Preload.class.getSimpleName())) {
+        assetsMetaModel.setPreload(true);
+        return;
+      }
       Integer maxAge = (Integer)added.get("maxAge");
       String type;
-      String identifier = key.getType().getIdentifier();
       if (identifier.equals(Scripts.class.getSimpleName())) {
         type = "script";
       } else {
@@ -108,6 +131,13 @@ public class AssetMetaModelPlugin extends ApplicationMetaModelPlugin {
   public void processAnnotationRemoved(ApplicationMetaModel metaModel, AnnotationKey key, AnnotationState removed) {
     if (metaModel.getHandle().equals(key.getElement())) {
       AssetsMetaModel assetsMetaModel = metaModel.getChild(AssetsMetaModel.KEY);
+      if (key.getType().getIdentifier().equals(Bundles.class.getSimpleName())) {
+        assetsMetaModel.setBundling(false);
+        return;
+      } else if (key.getType().getIdentifier().equals(Preload.class.getSimpleName())) {
+        assetsMetaModel.setPreload(false);
+        return;
+      }
       for (Asset asset : getAssets(null, removed, null, null)) {
         assetsMetaModel.removeAsset(asset);
       }
@@ -157,6 +187,42 @@ public class AssetMetaModelPlugin extends ApplicationMetaModelPlugin {
       }
     }
 
+    // Check the declared bundles and collect the bundled sources
+    LinkedHashMap<String, List<Asset>> bundles = new LinkedHashMap<String, List<Asset>>();
+    HashSet<String> bundled = new HashSet<String>();
+    for (Map.Entry<String, List<String>> bundle : assetMetaMode.getBundles().entrySet()) {
+      ArrayList<Asset> members = new ArrayList<Asset>();
+      for (String id : bundle.getValue()) {
+        Asset member = null;
+        for (Asset asset : assetMetaMode.getAssets()) {
+          if (asset.id.equals(id)) {
+            member = asset;
+          }
+        }
+        if (member == null) {
+          throw INVALID_ASSET_BUNDLE.failure(bundle.getKey(), id, "not found");
+        } else if (!member.isApplication() || member.key.value.startsWith("/")) {
+          throw INVALID_ASSET_BUNDLE.failure(bundle.getKey(), id, "not a relative application asset");
+        } else if (!member.isBundleable()) {
+          throw INVALID_ASSET_BUNDLE.failure(bundle.getKey(), id, "cannot be concatenated");
+        } else if (members.size() > 0) {
+          Asset first = members.get(0);
+          if (first.type.equals("stylesheet") != member.type.equals("stylesheet")) {
+            throw INVALID_ASSET_BUNDLE.failure(bundle.getKey(), id, "scripts and stylesheets cannot be mixed");
+          } else if (member.type.equals("stylesheet") && !directoryOf(first.key.value).equals(directoryOf(member.key.value))) {
+            throw INVALID_ASSET_BUNDLE.failure(bundle.getKey(), id, "stylesheets must belong to the same directory");
+          }
+        }
+        members.add(member);
+        bundled.add(member.key.value);
+        String minifiedValue = member.getMinifiedValue();
+        if (minifiedValue != null) {
+          bundled.add(minifiedValue);
+        }
+      }
+      bundles.put(bundle.getKey(), members);
+    }
+
     //
     Name qn = metaModel.getHandle().getPackageName().append("assets");
     if(!context.isCopyFromSourcesExternallyManaged()) {
@@ -186,6 +252,8 @@ public class AssetMetaModelPlugin extends ApplicationMetaModelPlugin {
       bilta.putAll(assetMetaMode.getResources());
 
       // Process all resources
+      HashMap<String, byte[]> contents = new HashMap<String, byte[]>();
+      assetMetaMode.getHashes().clear();
       for (Map.Entry<String, URL> entry : bilta.entrySet()) {
         InputStream in = null;
         OutputStream out = null;
@@ -203,9 +271,13 @@ public class AssetMetaModelPlugin extends ApplicationMetaModelPlugin {
               in = conn.getInputStream();
             }
             out = dst.openOutputStream();
-            Tools.copy(in, out);
+            byte[] content = Tools.bytes(in);
+            out.write(content);
+            process(assetMetaMode, entry.getKey(), content, bundled, contents);
           } else {
             context.info("Found up to date related asset in class output for " + src);
+            in = dst.openInputStream();
+            process(assetMetaMode, entry.getKey(), Tools.bytes(in), bundled, contents);
           }
         }
         catch (IOException e) {
@@ -216,9 +288,86 @@ public class AssetMetaModelPlugin extends ApplicationMetaModelPlugin {
           Tools.safeClose(out);
         }
       }
+
+      // Concatenate the declared bundles
+      for (Map.Entry<String, List<Asset>> bundle : bundles.entrySet()) {
+        List<Asset> members = bundle.getValue();
+        String type = members.get(0).type.equals("stylesheet") ? "stylesheet" : "script";
+        ArrayList<byte[]> values = new ArrayList<byte[]>();
+        ArrayList<byte[]> minifiedValues = new ArrayList<byte[]>();
+        boolean minified = false;
+        for (Asset member : members) {
+          String minifiedValue = member.getMinifiedValue();
+          values.add(contents.get(member.key.value));
+          minifiedValues.add(contents.get(minifiedValue != null ? minifiedValue : member.key.value));
+          minified |= minifiedValue != null;
+        }
+        writeBundle(metaModel, qn, getBundleValue(bundle.getKey(), members, false), AssetBundle.concat(type, values));
+        if (minified) {
+          writeBundle(metaModel, qn, getBundleValue(bundle.getKey(), members, true), AssetBundle.concat(type, minifiedValues));
+        }
+      }
+    }
+  }
+
+  /**
+   * Record the content hash of a copied asset and retain its content when it is bundled.
+   */
+  private static void process(AssetsMetaModel assetMetaMode, String value, byte[] content, Set<String> bundled, Map<String, byte[]> contents) {
+    assetMetaMode.getHashes().put(value, Long.toHexString(Tools.md5(content)));
+    if (bundled.contains(value)) {
+      contents.put(value, content);
+    }
+  }
+
+  private void writeBundle(ApplicationMetaModel metaModel, Name qn, String value, byte[] content) {
+    ProcessingContext context = metaModel.getProcessingContext();
+    InputStream in = null;
+    OutputStream out = null;
+    try {
+      FileObject dst = context.getResource(StandardLocation.CLASS_OUTPUT, qn, value);
+      if (dst != null) {
+        in = dst.openInputStream();
+        if (Arrays.equals(content, Tools.bytes(in))) {
+          context.info("Found up to date bundle in class output for " + value);
+          return;
+        }
+      }
+      dst = context.createResource(StandardLocation.CLASS_OUTPUT, qn, value, context.get(metaModel.getHandle()));
+      context.info("Writing bundle to class output " + dst.toUri());
+      out = dst.openOutputStream();
+      out.write(content);
+    }
+    catch (IOException e) {
+      throw CANNOT_PROCESS_ASSET.failure(value, e.getMessage());
+    }
+    finally {
+      Tools.safeClose(in);
+      Tools.safeClose(out);
+    }
+  }
+
+  /**
+   * Returns the value of a declared bundle: stylesheet bundles are stored in the directory of their
+   * stylesheets so relative urls remain valid.
+   */
+  private static String getBundleValue(String id, List<Asset> members, boolean minified) {
+    Asset first = members.get(0);
+    String suffix = minified ? "-min" : "";
+    if (first.type.equals("stylesheet")) {
+      String value = first.key.value;
+      int pos = value.lastIndexOf('.');
+      String ext = pos > value.lastIndexOf('/') ? value.substring(pos) : ".css";
+      return directoryOf(value) + id + suffix + ext;
+    } else {
+      return "bundles/" + id + suffix + ".js";
     }
   }
 
+  private static String directoryOf(String value) {
+    return value.substring(0, value.lastIndexOf('/') + 1);
+  }
+
   @Override
   public JSON getDescriptor(ApplicationMetaModel application) {
     AssetsMetaModel assetsMetaModel = application.getChild(AssetsMetaModel.KEY);
@@ -226,12 +375,52 @@ public class AssetMetaModelPlugin extends ApplicationMetaModelPlugin {
     if (assetsIterator.hasNext()) {
       JSON descriptor = new JSON();
       JSON assets = new JSON();
+      Map<String, String> hashes = assetsMetaModel.getHashes();
       while (assetsIterator.hasNext()) {
         Asset asset = assetsIterator.next();
-        assets.set(asset.id, asset.getJSON());
+        JSON json = asset.getJSON();
+        String hash = hashes.get(asset.key.value);
+        if (hash != null) {
+          json.set("hash", hash);
+        }
+        String minifiedValue = asset.getMinifiedValue();
+        String minifiedHash = minifiedValue != null ? hashes.get(minifiedValue) : null;
+        if (minifiedHash != null) {
+          json.set("minified-hash", minifiedHash);
+        }
+        assets.set(asset.id, json);
       }
       descriptor.set("assets", assets);
       descriptor.set("package", "assets");
+      if (assetsMetaModel.getPreload()) {
+        descriptor.set("preload", true);
+      }
+      if (assetsMetaModel.getBundling()) {
+        descriptor.set("bundling", true);
+        if (assetsMetaModel.getBundles().size() > 0) {
+          JSON bundles = new JSON();
+          for (Map.Entry<String, List<String>> entry : assetsMetaModel.getBundles().entrySet()) {
+            ArrayList<Asset> members = new ArrayList<Asset>();
+            boolean minified = false;
+            for (String id : entry.getValue()) {
+              for (Asset asset : assetsMetaModel.getAssets()) {
+                if (asset.id.equals(id)) {
+                  members.add(asset);
+                  minified |= asset.getMinifiedValue() != null;
+                }
+              }
+            }
+            JSON bundle = new JSON().
+                set("value", getBundleValue(entry.getKey(), members, false)).
+                set("assets", entry.getValue());
+            if (minified) {
+              bundle.set("minified", getBundleValue(entry.getKey(), members, true));
+            }
+            bundles.set(entry.getKey(), bundle);
+          }
+          descriptor.set("bundles", bundles);
+        }
+      }
       return descriptor;
     } else {
       return null;
@@ -19,6 +19,7 @@ package juzu.impl.plugin.asset;
 import juzu.PropertyType;
 import juzu.Response;
 import juzu.asset.AssetLocation;
+import juzu.impl.asset.AssetBundleMetaData;
 import juzu.impl.asset.AssetDeployment;
 import juzu.impl.common.Name;
 import juzu.impl.common.Tools;
@@ -43,6 +44,7 @@ import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Method;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
@@ -89,15 +91,24 @@ public class AssetService extends ApplicationService implements RequestFilter<St
     JSON config = context.getConfig();
     String assetsPath;
     List<AssetMetaData> assets;
+    boolean bundling;
+    List<AssetBundleMetaData> bundles;
+    boolean preload;
     if (config != null) {
       String packageName = config.getString("package");
       assets = load(packageName, config.getJSON("assets"));
+      bundling = Boolean.TRUE.equals(config.getBoolean("bundling"));
+      bundles = loadBundles(packageName, config.getJSON("bundles"));
+      preload = Boolean.TRUE.equals(config.getBoolean("preload"));
       assetsPath = "/" + Name.parse(application.getPackageName()).append(packageName).toString().replace('.', '/') + "/";
     } else {
       assets = Collections.emptyList();
+      bundling = false;
+      bundles = Collections.emptyList();
+      preload = false;
       assetsPath = null;
     }
-    this.descriptor = new AssetDescriptor(assets);
+    this.descriptor = new AssetDescriptor(assets, bundling, bundles, preload);
     this.context = context;
     this.assetsPath = assetsPath;
     return descriptor;
@@ -144,7 +155,9 @@ public class AssetService extends ApplicationService implements RequestFilter<St
           header,
           minified,
           maxAge,
-          asset.getArray("depends", String.class)
+          asset.getString("hash"),
+          asset.getString("minified-hash"),
+          Tools.set(asset.getArray("depends", String.class))
         );
         abc.add(descriptor);
       }
@@ -152,9 +165,45 @@ public class AssetService extends ApplicationService implements RequestFilter<St
     return abc;
   }
 
+  private List<AssetBundleMetaData> loadBundles(String packageName, JSON bundles) throws Exception {
+    List<AssetBundleMetaData> abc = Collections.emptyList();
+    if (bundles != null && bundles.getSize() > 0) {
+      abc = new ArrayList<AssetBundleMetaData>();
+      String base = "/" + application.getPackageName().replace('.', '/') + "/" + packageName.replace('.', '/') + "/";
+      for (String id : bundles.names()) {
+        JSON bundle = bundles.getJSON(id);
+        String minified = bundle.getString("minified");
+        abc.add(new AssetBundleMetaData(
+            id,
+            base + bundle.getString("value"),
+            minified != null ? base + minified : null,
+            Arrays.asList(bundle.getArray("assets", String.class))));
+      }
+    }
+    return abc;
+  }
+
+  /**
+   * Returns true when the assets of a page should be bundled.
+   *
+   * @return the bundling mode
+   */
+  public boolean getBundleAssets() {
+    return descriptor.getBundling();
+  }
+
+  /**
+   * Returns true when the assets of a page should be announced with preload headers.
+   *
+   * @return the preload mode
+   */
+  public boolean getPreloadAssets() {
+    return descriptor.getPreload();
+  }
+
   @PostConstruct
   public void start() throws Exception {
-    this.assets = process(descriptor.getAssets());
+    this.assets = process(descriptor.getAssets(), descriptor.getBundles());
   }
 
   public URL resolve(AssetLocation location, String path) {
@@ -168,7 +217,7 @@ public class AssetService extends ApplicationService implements RequestFilter<St
     }
   }
 
-  private LinkedHashMap<String, Chunk.Property<String>> process(List<AssetMetaData> data) throws Exception {
+  private LinkedHashMap<String, Chunk.Property<String>> process(List<AssetMetaData> data, List<AssetBundleMetaData> bundles) throws Exception {
     LinkedHashMap<String, Chunk.Property<String>> assets = new LinkedHashMap<String, Chunk.Property<String>>();
     AssetDeployment deployment = assetManager.createDeployment();
     for (AssetMetaData script : data) {
@@ -207,10 +256,19 @@ public class AssetService extends ApplicationService implements RequestFilter<St
 
 
       //
-      deployment.addAsset(script.getId(), script.getType(), script.getLocation(), a[0], script.getHeader(), a[1], script.getMaxAge(), resources[0], script.getDependencies());
+      deployment.addAsset(script.getId(), script.getType(), script.getLocation(), a[0], script.getHeader(), a[1], script.getMaxAge(), resources[0], script.getHash(), script.getMinifiedHash(), script.getDependencies());
       assets.put(script.getId(), new Chunk.Property<String>(script.getId(), PropertyType.ASSET));
     }
 
+    // Declared bundles are not produced when assets are copied externally, those bundles are computed on first use
+    for (AssetBundleMetaData bundle : bundles) {
+      URL resource = resolve(AssetLocation.APPLICATION, bundle.getValue());
+      if (resource != null) {
+        URL minifiedResource = bundle.getMinified() != null ? resolve(AssetLocation.APPLICATION, bundle.getMinified()) : null;
+        deployment.addBundle(bundle.getId(), bundle.getAssets(), resource, minifiedResource);
+      }
+    }
+
     // Should be true
     deployment.deploy();
 
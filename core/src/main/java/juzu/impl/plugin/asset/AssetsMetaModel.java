@@ -35,6 +35,8 @@ import java.net.URL;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 
@@ -59,6 +61,18 @@ public class AssetsMetaModel extends MetaModelObject implements MethodInvocation
   /** . */
   private final ElementHandle.Package pkg;
 
+  /** . */
+  private boolean bundling;
+
+  /** . */
+  private boolean preload;
+
+  /** The declared bundles. */
+  private final LinkedHashMap<String, List<String>> bundles = new LinkedHashMap<String, List<String>>();
+
+  /** The content hashes of the copied assets keyed by value. */
+  private final HashMap<String, String> hashes = new HashMap<String, String>();
+
   public AssetsMetaModel(ElementHandle.Package pkg) {
     this.pkg = pkg;
   }
@@ -148,6 +162,48 @@ public class AssetsMetaModel extends MetaModelObject implements MethodInvocation
     }
   }
 
+  /**
+   * Enable or disable asset bundling, disabling asset bundling removes the declared bundles.
+   *
+   * @param bundling the bundling mode
+   */
+  public void setBundling(boolean bundling) {
+    this.bundling = bundling;
+    if (!bundling) {
+      bundles.clear();
+    }
+  }
+
+  public boolean getBundling() {
+    return bundling;
+  }
+
+  public void setPreload(boolean preload) {
+    this.preload = preload;
+  }
+
+  public boolean getPreload() {
+    return preload;
+  }
+
+  public void addBundle(String id, List<String> assets) {
+    bundles.put(id, assets);
+  }
+
+  public Map<String, List<String>> getBundles() {
+    return bundles;
+  }
+
+  /**
+   * Returns the content hashes computed when the assets are copied to the class output, the map is empty
+   * when assets are copied externally.
+   *
+   * @return the hashes keyed by asset value
+   */
+  public Map<String, String> getHashes() {
+    return hashes;
+  }
+
   public Map<String, URL> getResources() {
     return resources;
   }
@@ -26,7 +26,15 @@ import juzu.impl.common.Path;
 import juzu.template.TagHandler;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
 public class TemplateService extends ApplicationService {
@@ -78,6 +86,64 @@ public class TemplateService extends ApplicationService {
     return tag;
   }
 
+  /**
+   * Initialize the stubs of the application templates and resolve the application tag handlers, so the first
+   * requests don't pay for it. The stubs are initialized concurrently when an executor is provided.
+   *
+   * @param executor the executor or null
+   * @throws Exception any exception raised by a template initialization
+   */
+  public void warmUp(ExecutorService executor) throws Exception {
+    List<Callable<TemplateStub>> inits = new ArrayList<Callable<TemplateStub>>();
+    for (final TemplateDescriptor template : descriptor.getTemplates()) {
+      inits.add(new Callable<TemplateStub>() {
+        public TemplateStub call() throws Exception {
+          TemplateStub stub = template.getStub();
+          stub.init();
+          return stub;
+        }
+      });
+    }
+    for (String tag : descriptor.getTags()) {
+      resolveTag(tag);
+    }
+    if (executor != null) {
+      for (Future<TemplateStub> future : executor.invokeAll(inits)) {
+        try {
+          future.get();
+        }
+        catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          if (cause instanceof Exception) {
+            throw (Exception)cause;
+          } else {
+            throw (Error)cause;
+          }
+        }
+      }
+    } else {
+      for (Callable<TemplateStub> init : inits) {
+        init.call();
+      }
+    }
+  }
+
+  /**
+   * Returns the initialization time in milliseconds of the initialized application templates.
+   *
+   * @return the initialization times keyed by template path
+   */
+  public Map<String, Long> getInitializationTimes() {
+    LinkedHashMap<String, Long> times = new LinkedHashMap<String, Long>();
+    for (TemplateDescriptor template : descriptor.getTemplates()) {
+      long time = template.getStub().getInitializationTime();
+      if (time >= 0) {
+        times.put(template.getPath(), time);
+      }
+    }
+    return times;
+  }
+
   public TemplateStub resolveTemplateStub(String path) {
     return resolveTemplateStub(juzu.impl.common.Path.parse(path));
   }
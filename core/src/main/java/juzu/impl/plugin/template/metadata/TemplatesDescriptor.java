@@ -37,6 +37,9 @@ public class TemplatesDescriptor extends ServiceDescriptor {
   /** . */
   private final List<TemplateDescriptor> templates;
 
+  /** The class names of the application tag handlers. */
+  private final List<String> tags;
+
   /** . */
   final Name pkg;
 
@@ -72,6 +75,7 @@ public class TemplatesDescriptor extends ServiceDescriptor {
     }
 
     //
+    this.tags = Arrays.asList(config.getArray("tags", String.class));
     this.templates = templates;
     this.pkg = pkg;
     this.beans = beans;
@@ -85,6 +89,10 @@ public class TemplatesDescriptor extends ServiceDescriptor {
     return templates;
   }
 
+  public List<String> getTags() {
+    return tags;
+  }
+
   public Name getPackage() {
     return pkg;
   }
@@ -293,6 +293,14 @@ public class TemplateMetaModelPlugin extends ApplicationMetaModelPlugin {
       }
     }
     config.map("templates", templates);
+    LinkedHashSet<String> tags = new LinkedHashSet<String>();
+    for (TagMetaModel tag : application.getChild(TagContainerMetaModel.KEY).getChildren(TagMetaModel.class)) {
+      TemplateMetaModel template = tag.getChild(TemplateMetaModel.KEY);
+      if (template != null) {
+        tags.add(template.getPath().getName().toString());
+      }
+    }
+    config.map("tags", tags);
     config.set("package", metaModel.getQN().toString());
     return config;
   }
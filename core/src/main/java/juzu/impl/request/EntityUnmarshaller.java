@@ -19,6 +19,7 @@ import juzu.request.ClientContext;
 import juzu.request.RequestParameter;
 
 import java.io.IOException;
+import java.lang.reflect.AnnotatedElement;
 import java.util.Map;
 
 /**
@@ -57,5 +58,25 @@ public abstract class EntityUnmarshaller {
       Iterable<Map.Entry<ContextualParameter, Object>> contextualArguments,
       Map<String, RequestParameter> parameterArguments) throws IOException;
 
+  /**
+   * Unmarshall the entity for a specific handler, the handler annotations can configure the unmarshalling.
+   * The default implementation delegates to {@link #unmarshall(String, ClientContext, Iterable, Map)}.
+   *
+   * @param mediaType the request media type
+   * @param handler the handler annotations
+   * @param context the client context for reading the entity
+   * @param contextualArguments the contextual arguments
+   * @param parameterArguments the contextual parameters
+   * @throws IOException anything preventing the read operation to succeed
+   */
+  public void unmarshall(
+      String mediaType,
+      AnnotatedElement handler,
+      ClientContext context,
+      Iterable<Map.Entry<ContextualParameter, Object>> contextualArguments,
+      Map<String, RequestParameter> parameterArguments) throws IOException {
+    unmarshall(mediaType, context, contextualArguments, parameterArguments);
+  }
+
 }
 // end::class[]
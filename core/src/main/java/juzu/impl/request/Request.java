@@ -170,6 +170,10 @@ public class Request implements ScopingContext {
     }
   }
 
+  public final Object getContextualMonitor(Scope scope, Object key) {
+    return bridge.getScopedContext(scope, true).getMonitor(key);
+  }
+
   public boolean isActive(Scope scope) {
     return true;
   }
@@ -141,7 +141,7 @@ public abstract class Stage {
               for (EntityUnmarshaller reader : Tools.loadService(EntityUnmarshaller.class, request.controllerPlugin.getApplication().getClassLoader())) {
                 try {
                   if (reader.accept(mediaType)) {
-                    reader.unmarshall(mediaType, clientContext, contextualArguments.entrySet(), parameterArguments);
+                    reader.unmarshall(mediaType, request.handler.getMethod(), clientContext, contextualArguments.entrySet(), parameterArguments);
                     break;
                   }
                 }
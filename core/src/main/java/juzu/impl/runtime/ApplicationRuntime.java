@@ -34,6 +34,8 @@ import juzu.impl.resource.ResourceResolver;
 
 import java.io.Closeable;
 import java.lang.reflect.InvocationTargetException;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * The application life cycle.
@@ -78,6 +80,9 @@ public class ApplicationRuntime<P, R> implements Closeable {
   /** . */
   private final RunMode runMode;
 
+  /** Configuration: initialize the application services in parallel. */
+  private final boolean parallelStart;
+
   public ApplicationRuntime(
       Logger log,
       RunMode runMode,
@@ -86,6 +91,18 @@ public class ApplicationRuntime<P, R> implements Closeable {
       Name name,
       AssetServer assetServer,
       ResourceResolver resourceResolver) {
+    this(log, runMode, moduleLifeCycle, injectorProvider, name, assetServer, resourceResolver, false);
+  }
+
+  public ApplicationRuntime(
+      Logger log,
+      RunMode runMode,
+      ModuleRuntime<?> moduleLifeCycle,
+      Injector injectorProvider,
+      Name name,
+      AssetServer assetServer,
+      ResourceResolver resourceResolver,
+      boolean parallelStart) {
 
     //
     this.log = log;
@@ -95,6 +112,7 @@ public class ApplicationRuntime<P, R> implements Closeable {
     this.assetServer = assetServer;
     this.resourceResolver = resourceResolver;
     this.runMode = runMode;
+    this.parallelStart = parallelStart;
   }
 
   public Name getName() {
@@ -155,12 +173,34 @@ public class ApplicationRuntime<P, R> implements Closeable {
 
     //
     log.info("Starting " + descriptor.getName());
-    Application application = new Application(injector, descriptor, resourceResolver);
-    application.start();
+    Application application = new Application(injector, descriptor, resourceResolver, classes);
+    long time = System.currentTimeMillis();
+    if (parallelStart) {
+      ForkJoinPool pool = new ForkJoinPool();
+      try {
+        application.start(pool);
+      }
+      finally {
+        pool.shutdown();
+      }
+    } else {
+      application.start();
+    }
     InjectionContext<?, ?> injectionContext = application.getInjectionContext();
 
     //
+    long assetTime = System.currentTimeMillis();
     AssetService assetPlugin = injectionContext.get(AssetService.class).get();
+    assetTime = System.currentTimeMillis() - assetTime;
+    time = System.currentTimeMillis() - time;
+
+    // Startup timeline
+    StringBuilder timeline = new StringBuilder();
+    for (Map.Entry<String, Long> entry : application.getStartTimeline().entrySet()) {
+      timeline.append(entry.getKey()).append(' ').append(entry.getValue()).append("ms, ");
+    }
+    timeline.append("assets ").append(assetTime).append("ms");
+    log.info("Started " + descriptor.getName() + " in " + time + "ms (" + timeline + ")");
 
     //
     if (assetServer != null) {
@@ -31,6 +31,7 @@ public class ParamTag extends ExtendedTagHandler {
   @Override
   public void process(ProcessPhase phase, ASTNode.Tag tag, TemplateModel t) {
     String parameterName = tag.getArgs().get("name");
-    t.addParameter(parameterName);
+    String parameterType = tag.getArgs().get("type");
+    t.addParameter(parameterName, parameterType);
   }
 }
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.template.spi;
+
+import java.text.DateFormat;
+import java.text.MessageFormat;
+import java.text.NumberFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The formatters used by templates for a locale. The JDK formats are not thread safe, so they are cached
+ * per thread and shared by all the renders performed by a thread.
+ *
+ * @author Julien Viet
+ */
+public final class TemplateFormats {
+
+  /** The locales having formatters, they bound the cache since the requested locales are provided by the client. */
+  private static final Set<Locale> available = new HashSet<Locale>(Arrays.asList(DateFormat.getAvailableLocales()));
+
+  /** . */
+  private static final ConcurrentHashMap<Locale, TemplateFormats> cache = new ConcurrentHashMap<Locale, TemplateFormats>();
+
+  /**
+   * Returns the formats for the specified locale. The formats are cached by the most specific available locale
+   * matching the locale, a locale matching no available locale gets formats that are not cached.
+   *
+   * @param locale the locale
+   * @return the formats
+   * @throws NullPointerException if the locale is null
+   */
+  public static TemplateFormats get(Locale locale) throws NullPointerException {
+    if (locale == null) {
+      throw new NullPointerException("No null locale accepted");
+    }
+    Locale key = normalize(locale);
+    if (key == null) {
+      return new TemplateFormats(locale);
+    }
+    TemplateFormats formats = cache.get(key);
+    if (formats == null) {
+      formats = new TemplateFormats(key);
+      TemplateFormats existing = cache.putIfAbsent(key, formats);
+      if (existing != null) {
+        formats = existing;
+      }
+    }
+    return formats;
+  }
+
+  private static Locale normalize(Locale locale) {
+    if (available.contains(locale)) {
+      return locale;
+    }
+    Locale country = new Locale(locale.getLanguage(), locale.getCountry());
+    if (available.contains(country)) {
+      return country;
+    }
+    Locale language = new Locale(locale.getLanguage());
+    if (available.contains(language)) {
+      return language;
+    }
+    return null;
+  }
+
+  /** . */
+  private final Locale locale;
+
+  /** . */
+  private final ThreadLocal<DateFormat> dateFormat = new ThreadLocal<DateFormat>() {
+    @Override
+    protected DateFormat initialValue() {
+      return DateFormat.getDateInstance(DateFormat.MEDIUM, locale);
+    }
+  };
+
+  /** . */
+  private final ThreadLocal<NumberFormat> numberFormat = new ThreadLocal<NumberFormat>() {
+    @Override
+    protected NumberFormat initialValue() {
+      return NumberFormat.getInstance(locale);
+    }
+  };
+
+  /** The message formats keyed by pattern. */
+  private final ThreadLocal<HashMap<String, MessageFormat>> messageFormats = new ThreadLocal<HashMap<String, MessageFormat>>() {
+    @Override
+    protected HashMap<String, MessageFormat> initialValue() {
+      return new HashMap<String, MessageFormat>();
+    }
+  };
+
+  private TemplateFormats(Locale locale) {
+    this.locale = locale;
+  }
+
+  public Locale getLocale() {
+    return locale;
+  }
+
+  /**
+   * Format a date with the medium style of the locale.
+   *
+   * @param date the date to format
+   * @return the formatted date
+   */
+  public String formatDate(Date date) {
+    return dateFormat.get().format(date);
+  }
+
+  /**
+   * Format a number with the default number format of the locale.
+   *
+   * @param number the number to format
+   * @return the formatted number
+   */
+  public String formatNumber(Number number) {
+    return numberFormat.get().format(number);
+  }
+
+  /**
+   * Format a message pattern with the {@link MessageFormat} syntax.
+   *
+   * @param pattern the message pattern
+   * @param arguments the message arguments
+   * @return the formatted message
+   * @throws IllegalArgumentException if the pattern is not valid
+   */
+  public String formatMessage(String pattern, Object... arguments) throws IllegalArgumentException {
+    HashMap<String, MessageFormat> formats = messageFormats.get();
+    MessageFormat format = formats.get(pattern);
+    if (format == null) {
+      formats.put(pattern, format = new MessageFormat(pattern, locale));
+    }
+    return format.format(arguments);
+  }
+
+  /**
+   * Converts a value printed by a template: dates are formatted, any other value is returned unchanged.
+   *
+   * @param value the value
+   * @return the converted value
+   */
+  public Object format(Object value) {
+    if (value instanceof Date) {
+      return formatDate((Date)value);
+    }
+    else {
+      return value;
+    }
+  }
+}
@@ -19,6 +19,7 @@ package juzu.impl.template.spi;
 import juzu.impl.common.Path;
 
 import java.io.Serializable;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 
 /**
@@ -38,6 +39,12 @@ public class TemplateModel<M extends Serializable> implements Serializable {
   /** . */
   private final LinkedHashSet<String> parameters;
 
+  /** The declared parameter types, a parameter declared without type has no entry. */
+  private final HashMap<String, String> parameterTypes;
+
+  /** True when the template requests a statically compiled script. */
+  private boolean compileStatic;
+
   /** The last modified date. */
   private final long lastModified;
 
@@ -51,6 +58,8 @@ public class TemplateModel<M extends Serializable> implements Serializable {
       long md5) {
     this.model = model;
     this.parameters = new LinkedHashSet<String>();
+    this.parameterTypes = new HashMap<String, String>();
+    this.compileStatic = false;
     this.lastModified = lastModified;
     this.path = path;
     this.md5 = md5;
@@ -79,4 +88,29 @@ public class TemplateModel<M extends Serializable> implements Serializable {
   public void addParameter(String parameterName) {
     parameters.add(parameterName);
   }
+
+  public void addParameter(String parameterName, String parameterType) {
+    parameters.add(parameterName);
+    if (parameterType != null) {
+      parameterTypes.put(parameterName, parameterType);
+    }
+  }
+
+  /**
+   * Returns the declared type of a parameter.
+   *
+   * @param parameterName the parameter name
+   * @return the parameter type or null when the parameter is not typed
+   */
+  public String getParameterType(String parameterName) {
+    return parameterTypes.get(parameterName);
+  }
+
+  public boolean getCompileStatic() {
+    return compileStatic;
+  }
+
+  public void setCompileStatic(boolean compileStatic) {
+    this.compileStatic = compileStatic;
+  }
 }
@@ -20,7 +20,11 @@ import juzu.template.TemplateExecutionException;
 import juzu.template.TemplateRenderContext;
 
 import java.io.IOException;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * The stub for a template.
@@ -29,23 +33,14 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 public abstract class TemplateStub {
 
-  /** . */
-  private static final int CONSTRUCTED = 0;
-
-  /** . */
-  private static final int INITIALIZING = 1;
-
-  /** . */
-  private static final int INITIALIZED = 2;
-
   /** . */
   protected final ClassLoader loader;
 
   /** . */
   protected final String id;
 
-  /** . */
-  private final AtomicInteger status;
+  /** The current initialization, null when the stub is not initialized or when the last initialization failed. */
+  private final AtomicReference<FutureTask<Long>> initialization;
 
   protected TemplateStub(ClassLoader loader, String id) {
 
@@ -57,7 +52,7 @@ public abstract class TemplateStub {
     }
 
     this.id = id;
-    this.status = new AtomicInteger(CONSTRUCTED);
+    this.initialization = new AtomicReference<FutureTask<Long>>();
     this.loader = loader;
   }
 
@@ -66,27 +61,57 @@ public abstract class TemplateStub {
   }
 
   /**
-   * Initialize the stub.
+   * Returns the duration in milliseconds of the stub initialization or -1 when the stub is not initialized.
+   *
+   * @return the initialization time
+   */
+  public long getInitializationTime() {
+    FutureTask<Long> current = initialization.get();
+    if (current != null && current.isDone()) {
+      try {
+        return current.get();
+      }
+      catch (Exception ignore) {
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Initialize the stub. When another thread is initializing the stub, the current thread waits for the end of
+   * this initialization and its failure is rethrown to all the waiting threads, a later invocation retries
+   * the initialization.
    */
   public final void init() throws NullPointerException {
     while (true) {
-      switch (status.get()) {
-        case CONSTRUCTED:
-          if (status.compareAndSet(CONSTRUCTED, INITIALIZING)) {
-            int next = CONSTRUCTED;
-            try {
-              doInit(loader);
-              next = INITIALIZED;
-            }
-            finally {
-              status.set(next);
-            }
+      FutureTask<Long> current = initialization.get();
+      if (current == null) {
+        FutureTask<Long> next = new FutureTask<Long>(new Callable<Long>() {
+          public Long call() {
+            long time = System.currentTimeMillis();
+            doInit(loader);
+            return System.currentTimeMillis() - time;
           }
-          break;
-        case INITIALIZING:
-          break;
-        default:
-          return;
+        });
+        if (initialization.compareAndSet(null, next)) {
+          next.run();
+          current = next;
+        } else {
+          continue;
+        }
+      }
+      Throwable failure = await(current);
+      if (failure == null) {
+        return;
+      } else {
+        initialization.compareAndSet(current, null);
+        if (failure instanceof RuntimeException) {
+          throw (RuntimeException)failure;
+        } else if (failure instanceof Error) {
+          throw (Error)failure;
+        } else {
+          throw new UndeclaredThrowableException(failure);
+        }
       }
     }
   }
@@ -100,16 +125,42 @@ public abstract class TemplateStub {
    * @throws IllegalStateException if the stub is not initialized
    */
   public final void render(TemplateRenderContext renderContext) throws TemplateExecutionException, IOException, IllegalStateException {
-    while (true) {
-      switch (status.get()) {
-        case INITIALIZING:
-          // Wait
-          break;
-        case INITIALIZED:
-          doRender(renderContext);
-          return;
-        default:
-          throw new IllegalStateException("Template stub is not initialized " + status.get());
+    FutureTask<Long> current = initialization.get();
+    if (current == null) {
+      throw new IllegalStateException("Template stub is not initialized");
+    }
+    Throwable failure = await(current);
+    if (failure != null) {
+      throw new IllegalStateException("Template stub is not initialized", failure);
+    }
+    doRender(renderContext);
+  }
+
+  /**
+   * Wait until the initialization is done, the interrupted status of the current thread is preserved.
+   *
+   * @param initialization the initialization
+   * @return the initialization failure or null
+   */
+  private static Throwable await(FutureTask<Long> initialization) {
+    boolean interrupted = false;
+    try {
+      while (true) {
+        try {
+          initialization.get();
+          return null;
+        }
+        catch (InterruptedException e) {
+          interrupted = true;
+        }
+        catch (ExecutionException e) {
+          return e.getCause();
+        }
+      }
+    }
+    finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
       }
     }
   }
@@ -17,6 +17,9 @@
 package juzu.impl.template.spi.juzu.dialect.gtmpl;
 
 import groovy.lang.Binding;
+import groovy.lang.Closure;
+import groovy.lang.MissingMethodException;
+import groovy.lang.MissingPropertyException;
 import juzu.template.TemplateRenderContext;
 
 import java.lang.reflect.InvocationTargetException;
@@ -26,26 +29,40 @@ import java.lang.reflect.UndeclaredThrowableException;
 class BindingImpl extends Binding {
 
   /** . */
-  private GroovyPrinter printer;
-
-  /** . */
-  private TemplateRenderContext renderContext;
+  private final TemplateRenderContext renderContext;
 
   public BindingImpl(TemplateRenderContext renderContext) {
     super(renderContext.getAttributes());
 
     //
-    this.printer = new GroovyPrinter(renderContext);
     this.renderContext = renderContext;
   }
 
+  @Override
+  public Object invokeMethod(String name, Object args) {
+    try {
+      return super.invokeMethod(name, args);
+    }
+    catch (MissingMethodException mme) {
+      // Call a closure variable like a script does
+      Object value;
+      try {
+        value = getVariable(name);
+      }
+      catch (MissingPropertyException ignore) {
+        throw mme;
+      }
+      if (value instanceof Closure) {
+        return ((Closure)value).call((Object[])args);
+      }
+      throw mme;
+    }
+  }
+
   @Override
   public Object getVariable(String name) {
     Object value;
-    if ("out".equals(name)) {
-      value = printer;
-    }
-    else if ("renderContext".equals(name)) {
+    if ("renderContext".equals(name)) {
       value = renderContext;
     }
     else {
@@ -19,13 +19,13 @@ package juzu.impl.template.spi.juzu.dialect.gtmpl;
 import groovy.lang.GString;
 import groovy.lang.GroovyInterceptable;
 import groovy.lang.GroovyObjectSupport;
+import juzu.impl.template.spi.TemplateFormats;
 import juzu.io.Chunk;
 import juzu.template.TemplateRenderContext;
+import org.codehaus.groovy.runtime.GStringImpl;
 import org.codehaus.groovy.runtime.InvokerInvocationException;
 
 import java.io.IOException;
-import java.text.DateFormat;
-import java.util.Date;
 import java.util.Locale;
 
 /** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
@@ -34,6 +34,9 @@ public class GroovyPrinter extends GroovyObjectSupport implements GroovyIntercep
   /** . */
   final TemplateRenderContext renderContext;
 
+  /** The formats of the render locale, resolved on first use. */
+  private TemplateFormats formats;
+
   public GroovyPrinter(TemplateRenderContext renderContext) throws NullPointerException {
     if (renderContext == null) {
       throw new NullPointerException("No null render context accepted");
@@ -92,15 +95,18 @@ public class GroovyPrinter extends GroovyObjectSupport implements GroovyIntercep
    * @return the formatted object
    */
   private Object format(Object o) {
-    if (o instanceof Date) {
-      Locale locale = renderContext.getLocale();
-      if (locale != null) {
-        DateFormat dateFormat = DateFormat.getDateInstance(DateFormat.MEDIUM, locale);
-        o = dateFormat.format((Date)o);
-      }
-    } else if (o instanceof MessageKey) {
+    if (o instanceof MessageKey) {
       MessageKey key = (MessageKey)o;
       o = renderContext.resolveMessage(key);
+    } else if (o != null) {
+      if (formats == null) {
+        Locale locale = renderContext.getLocale();
+        if (locale == null) {
+          return o;
+        }
+        formats = TemplateFormats.get(locale);
+      }
+      o = formats.format(o);
     }
 
     //
@@ -122,12 +128,23 @@ public class GroovyPrinter extends GroovyObjectSupport implements GroovyIntercep
 
   public final void print(Object o) throws IOException {
     if (o instanceof GString) {
+      // The values are formatted in a copy as the GString may be printed again
       GString gs = (GString)o;
       Object[] values = gs.getValues();
+      Object[] formatted = null;
       for (int i = 0;i < values.length;i++) {
-        values[i] = format(values[i]);
+        Object value = format(values[i]);
+        if (value != values[i]) {
+          if (formatted == null) {
+            formatted = values.clone();
+          }
+          formatted[i] = value;
+        }
+      }
+      if (formatted != null) {
+        gs = new GStringImpl(formatted, gs.getStrings());
       }
-      renderContext.getPrinter().provide(Chunk.create(o.toString()));
+      renderContext.getPrinter().provide(Chunk.create(gs.toString()));
     }
     else {
       renderContext.getPrinter().provide(Chunk.create(toString(o)));
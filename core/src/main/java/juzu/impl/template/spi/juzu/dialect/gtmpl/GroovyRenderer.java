@@ -0,0 +1,51 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package juzu.impl.template.spi.juzu.dialect.gtmpl;
+
+import groovy.lang.Closure;
+import juzu.template.TemplateRenderContext;
+
+/**
+ * The class generated for a Groovy template. A single instance renders the template: it holds no state, each
+ * render provides its printer and its render context.
+ *
+ * @author Julien Viet
+ */
+public abstract class GroovyRenderer {
+
+  /**
+   * Render the template.
+   *
+   * @param out the printer
+   * @param renderContext the render context
+   */
+  public abstract void render(GroovyPrinter out, TemplateRenderContext renderContext);
+
+  /**
+   * Evaluate the body of a dynamic template: the variables and the methods that are not resolved by the body
+   * are resolved against the beans and the attributes of the render context.
+   *
+   * @param renderContext the render context
+   * @param body the template body
+   */
+  protected final void evaluate(TemplateRenderContext renderContext, Closure body) {
+    body.setResolveStrategy(Closure.DELEGATE_FIRST);
+    body.setDelegate(new BindingImpl(renderContext));
+    body.call();
+  }
+}
@@ -22,6 +22,7 @@ import juzu.impl.template.spi.juzu.ast.SectionType;
 import juzu.impl.common.Location;
 import juzu.impl.common.Tools;
 import juzu.template.TagHandler;
+import juzu.template.TemplateRenderContext;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -70,19 +71,42 @@ public class GroovyTemplateEmitter extends DialectTemplateEmitter {
   /** . */
   private final Name constants;
 
+  /** The renderer class simple name. */
+  private final String renderer;
+
+  /** The typed parameters of a statically compiled script or null for a dynamic script. */
+  private final Map<String, String> staticParameters;
+
   public GroovyTemplateEmitter() {
     this(null);
   }
 
   public GroovyTemplateEmitter(Name name) {
+    this(name, null);
+  }
+
+  /**
+   * Create an emitter, the template is rendered by the <code>render</code> method of a {@link GroovyRenderer}
+   * subclass. When the static parameters are provided the script is compiled statically: the render method
+   * is <code>@CompileStatic</code> and declares a typed local variable for each parameter, a parameter without
+   * type is declared as an <code>Object</code>.
+   *
+   * @param name the template name
+   * @param staticParameters the typed parameters of a static script or null
+   */
+  public GroovyTemplateEmitter(Name name, Map<String, String> staticParameters) {
+    String prefix = staticParameters != null ? "S" : "C";
     if (name != null) {
       pkg = name.getParent();
-      String id = "C" + name.getIdentifier();
+      String id = prefix + name.getIdentifier();
       constants = pkg.append(id);
+      renderer = name.getIdentifier() + (staticParameters != null ? "_static" : "_");
     } else {
       pkg = null;
-      constants = Name.parse("Constants");
+      constants = Name.parse(staticParameters != null ? "StaticConstants" : "Constants");
+      renderer = staticParameters != null ? "StaticTemplate" : "Template";
     }
+    this.staticParameters = staticParameters;
   }
 
   @Override
@@ -165,10 +189,11 @@ public class GroovyTemplateEmitter extends DialectTemplateEmitter {
 
   public GroovyTemplateStub build(String templateId) {
     final String script = toString();
+    final String suffix = staticParameters != null ? "_static" : "_";
     return new GroovyTemplateStub(Thread.currentThread().getContextClassLoader(), templateId) {
       @Override
-      public String getScript(ClassLoader loader, String fqn) {
-        return script;
+      public String getScript(ClassLoader loader, String fqn, String ext) {
+        return fqn.endsWith(suffix) ? script : null;
       }
     };
   }
@@ -179,10 +204,35 @@ public class GroovyTemplateEmitter extends DialectTemplateEmitter {
       out.append("package ").append(pkg).append(";\n");
       lineNumber++;
     }
+    out.append("public class ").append(renderer).append(" extends ").append(GroovyRenderer.class.getName()).append(" {");
+    if (staticParameters != null) {
+      out.append("@groovy.transform.CompileStatic ");
+    }
+    out.append("public void render(").
+        append(GroovyPrinter.class.getName()).append(" out,").
+        append(TemplateRenderContext.class.getName()).append(" renderContext) {");
+    if (staticParameters != null) {
+      for (Map.Entry<String, String> parameter : staticParameters.entrySet()) {
+        String type = parameter.getValue() != null ? parameter.getValue() : "Object";
+        out.append(type).append(' ').append(parameter.getKey()).append(" = (").append(type).
+            append(")renderContext.getAttribute('").append(parameter.getKey()).append("');");
+      }
+    }
+    else {
+      // The print methods of a closure print to the console, the local closures print to the template instead
+      out.append("evaluate(renderContext, {def print = out.&print;def println = out.&println;");
+    }
+    out.append(sep);
+    lineNumber++;
   }
 
   @Override
   public void close() {
+    out.append(sep);
+    if (staticParameters == null) {
+      out.append("});");
+    }
+    out.append("}}").append(sep);
   }
 
   public void openScriptlet(Location beginPosition) {
@@ -271,7 +321,7 @@ public class GroovyTemplateEmitter extends DialectTemplateEmitter {
     int count = closureCountStack[closureCountIndex--];
 
     out.append("; } as juzu.template.Renderable;");
-    out.append("out.renderContext.renderTag('").append(className).append("',closure").append(count).append(",");
+    out.append("renderContext.renderTag('").append(className).append("',closure").append(count).append(",");
     if (args == null || args.isEmpty()) {
       out.append("null");
     }
@@ -26,10 +26,18 @@ import juzu.impl.template.spi.juzu.ast.ASTNode;
 import juzu.impl.template.spi.juzu.compiler.EmitPhase;
 
 import java.io.IOException;
+import java.util.LinkedHashMap;
 
 /** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
 public class GroovyTemplateProvider extends DialectTemplateProvider {
 
+  /**
+   * The extension of the statically compiled script. It is not <code>groovy</code> so a build precompiling the
+   * <code>groovy</code> files with a Groovy version that cannot compile it statically skips it, the script is compiled
+   * when the template is loaded instead.
+   */
+  public static final String STATIC_EXTENSION = "sgroovy";
+
   @Override
   public Class<? extends TemplateStub> getTemplateStubType() {
     return GroovyTemplateStub.class;
@@ -46,7 +54,17 @@ public class GroovyTemplateProvider extends DialectTemplateProvider {
     EmitPhase tcc = new EmitPhase(context);
     tcc.emit(emitter, templateModel.getModel());
     Path.Absolute path = templateModel.getPath();
-    path = path.as(path.getRawName() + "_", "groovy");
-    context.createResource(path, emitter.toString());
+    context.createResource(path.as(path.getRawName() + "_", "groovy"), emitter.toString());
+
+    // The statically compiled script, the dynamic script remains the fallback when it cannot be type checked
+    if (templateModel.getCompileStatic()) {
+      LinkedHashMap<String, String> parameters = new LinkedHashMap<String, String>();
+      for (String parameter : templateModel.getParameters()) {
+        parameters.put(parameter, templateModel.getParameterType(parameter));
+      }
+      GroovyTemplateEmitter staticEmitter = new GroovyTemplateEmitter(templateModel.getPath().getName(), parameters);
+      new EmitPhase(context).emit(staticEmitter, templateModel.getModel());
+      context.createResource(path.as(path.getRawName() + "_static", STATIC_EXTENSION), staticEmitter.toString());
+    }
   }
 }
@@ -16,15 +16,14 @@
 
 package juzu.impl.template.spi.juzu.dialect.gtmpl;
 
-import groovy.lang.Binding;
 import groovy.lang.GroovyClassLoader;
 import groovy.lang.GroovyCodeSource;
-import groovy.lang.Script;
+import juzu.impl.common.JUL;
+import juzu.impl.common.Logger;
 import juzu.impl.template.spi.TemplateStub;
 import juzu.template.TemplateExecutionException;
 import juzu.template.TemplateRenderContext;
 import org.codehaus.groovy.control.CompilerConfiguration;
-import org.codehaus.groovy.runtime.InvokerHelper;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -36,46 +35,61 @@ import java.util.HashMap;
 /** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
 public class GroovyTemplateStub extends TemplateStub {
 
+  /** . */
+  private static final Logger log = JUL.getLogger(GroovyTemplateStub.class.getName());
+
   /** . */
   private Class<?> scriptClass;
 
   /** . */
   private HashMap<Integer, Foo> locationTable;
 
+  /** The renderer instance shared by all renders. */
+  private GroovyRenderer renderer;
+
+  /** True when the script is statically compiled. */
+  private boolean compileStatic;
+
   public GroovyTemplateStub(ClassLoader loader, String templateId) {
     super(loader, templateId);
 
     //
     this.scriptClass = null;
+    this.renderer = null;
     this.locationTable = null;
+    this.compileStatic = false;
   }
 
   @Override
   public void doInit(ClassLoader loader) {
 
-    // The class fqn
-    String fqn = id + "_";
-
-    // Load from class loader first
-    try {
-      scriptClass = loader.loadClass(fqn);
-    }
-    catch (ClassNotFoundException ignore) {
-    }
-    catch (NoClassDefFoundError ignore) {
+    // The statically compiled script provided when the template requests it, we fall back to the
+    // dynamic script when it is not present or when it cannot be type checked
+    Class<?> scriptClass = loadClass(loader, id + "_static");
+    if (scriptClass == null) {
+      String script = getScript(loader, id + "_static", GroovyTemplateProvider.STATIC_EXTENSION);
+      if (script != null) {
+        try {
+          scriptClass = parseClass(loader, script);
+        }
+        catch (Exception e) {
+          log.warning("Could not statically compile template " + id + ", falling back to dynamic compilation", e);
+        }
+      }
     }
+    boolean compileStatic = scriptClass != null;
 
-    // Compile class
+    // The dynamic script
     if (scriptClass == null) {
-      CompilerConfiguration config = new CompilerConfiguration();
-      String script = getScript(loader, fqn);
-      GroovyCodeSource gcs = new GroovyCodeSource(new String(script.getBytes()), "myscript", "/groovy/shell");
-      GroovyClassLoader gcl = new GroovyClassLoader(loader, config);
-      try {
-        scriptClass = gcl.parseClass(gcs, false);
-      }
-      catch (Exception e) {
-        throw new UnsupportedOperationException("handle me gracefully", e);
+      String fqn = id + "_";
+      scriptClass = loadClass(loader, fqn);
+      if (scriptClass == null) {
+        try {
+          scriptClass = parseClass(loader, getScript(loader, fqn));
+        }
+        catch (Exception e) {
+          throw new UnsupportedOperationException("handle me gracefully", e);
+        }
       }
     }
 
@@ -91,18 +105,63 @@ public class GroovyTemplateStub extends TemplateStub {
         prefix = "";
         simpleName = id;
       }
-      String constantsName = prefix + "C" + simpleName;
+      String constantsName = prefix + (compileStatic ? "S" : "C") + simpleName;
       Class<?> constants = scriptClass.getClassLoader().loadClass(constantsName);
       locationTable = (HashMap<Integer, Foo>)constants.getField("TABLE").get(null);
     }
     catch (Exception e) {
       throw new UnsupportedOperationException("Handle me gracefully", e);
     }
+
+    // The renderer is stateless and created once
+    GroovyRenderer renderer;
+    try {
+      renderer = (GroovyRenderer)scriptClass.newInstance();
+    }
+    catch (Exception e) {
+      throw new UnsupportedOperationException("Handle me gracefully", e);
+    }
+
+    //
+    this.scriptClass = scriptClass;
+    this.renderer = renderer;
+    this.compileStatic = compileStatic;
+  }
+
+  private static Class<?> loadClass(ClassLoader loader, String fqn) {
+    try {
+      return loader.loadClass(fqn);
+    }
+    catch (ClassNotFoundException ignore) {
+    }
+    catch (NoClassDefFoundError ignore) {
+    }
+    return null;
+  }
+
+  private static Class<?> parseClass(ClassLoader loader, String script) throws Exception {
+    CompilerConfiguration config = new CompilerConfiguration();
+    GroovyCodeSource gcs = new GroovyCodeSource(new String(script.getBytes()), "myscript", "/groovy/shell");
+    GroovyClassLoader gcl = new GroovyClassLoader(loader, config);
+    return gcl.parseClass(gcs, false);
+  }
+
+  /**
+   * Returns true when the template is rendered by a statically compiled script.
+   *
+   * @return the compile static status
+   */
+  public boolean getCompileStatic() {
+    return compileStatic;
   }
 
   public String getScript(ClassLoader loader, String fqn) {
+    return getScript(loader, fqn, "groovy");
+  }
+
+  public String getScript(ClassLoader loader, String fqn, String ext) {
     try {
-      String path = fqn.replace('.', '/') + ".groovy";
+      String path = fqn.replace('.', '/') + "." + ext;
       URL url = loader.getResource(path);
       if (url != null) {
         byte[] buffer = new byte[256];
@@ -129,14 +188,8 @@ public class GroovyTemplateStub extends TemplateStub {
 
   @Override
   public void doRender(TemplateRenderContext renderContext) throws TemplateExecutionException, IOException {
-    Binding binding = new BindingImpl(renderContext);
-
-    //
-    Script script = InvokerHelper.createScript(scriptClass, binding);
-
-    //
     try {
-      script.run();
+      renderer.render(new GroovyPrinter(renderContext), renderContext);
     }
     catch (Exception e) {
       if (e instanceof IOException) {
@@ -163,7 +216,9 @@ public class GroovyTemplateStub extends TemplateStub {
     // Try to find the groovy script lines
     for (int i = 0;i < trace.length;i++) {
       StackTraceElement element = trace[i];
-      if (element.getClassName().equals(scriptClass.getName())) {
+      // The template body and the tag bodies are closures of the renderer class
+      String className = element.getClassName();
+      if (className.equals(scriptClass.getName()) || className.startsWith(scriptClass.getName() + "$")) {
         int lineNumber = element.getLineNumber();
         Foo item = locationTable.get(lineNumber);
         int templateLineNumber;
@@ -16,41 +16,84 @@
 package juzu.io;
 
 import java.io.IOException;
-import java.util.LinkedList;
-
-/** @author Julien Viet */
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>A buffer of chunks decoupling the producers of chunks from the consumer stream. Producers append chunks to a
+ * lock free queue, the queue is drained to the consumer by a single drainer at a time. When the consumer is sent with
+ * an executor, the producers only enqueue chunks and the drain runs on the executor, so a producer never performs
+ * the consumer io. Otherwise the thread appending a chunk drains the queue unless another thread is already draining
+ * it, in which case it returns immediately.</p>
+ *
+ * <p>When a maximum size is configured, the producers block once the number of buffered chunks exceeds this size
+ * until the drainer catches up. The bound applies only when a consumer is attached, before that the chunks are
+ * buffered until the buffer is sent.</p>
+ *
+ * @author Julien Viet
+ */
 public class ChunkBuffer implements Streamable, Appendable {
 
-
   /** . */
-  private static final int STATUS_BUFFERING = 0;
+  private final ConcurrentLinkedQueue<Chunk> queue = new ConcurrentLinkedQueue<Chunk>();
 
-  /** . */
-  private static final int STATUS_PROVIDING = 1;
+  /** The number of buffered chunks. */
+  private final AtomicInteger size = new AtomicInteger();
+
+  /** The drainer work in progress counter. */
+  private final AtomicInteger wip = new AtomicInteger();
 
   /** . */
-  private static final int STATUS_CLOSED = 2;
+  private final AtomicBoolean consumed = new AtomicBoolean();
+
+  /** The producers waiting for the buffer to drain. */
+  private final AtomicInteger waiters = new AtomicInteger();
 
   /** . */
-  private final LinkedList<Chunk> queue = new LinkedList<Chunk>();
+  private final Object full = new Object();
 
   /** . */
-  private Stream consumer = null;
+  private volatile Stream consumer = null;
+
+  /** The executor draining the queue or null when the producers drain it. */
+  private volatile Executor executor = null;
 
   /** . */
-  private int status = STATUS_BUFFERING;
+  private final Runnable drainTask = new Runnable() {
+    public void run() {
+      drainLoop();
+    }
+  };
+
+  /** The closed bit and the number of appends in progress, a closed buffer with no append in progress is quiescent. */
+  private final AtomicInteger state = new AtomicInteger();
+
+  /** Only accessed by the drainer. */
+  private boolean consumerClosed = false;
 
   /** . */
-  private final Object lock = new Object();
+  private static final int CLOSED = 1 << 30;
 
   /** . */
-  private Thread.UncaughtExceptionHandler errorHandler;
+  private final Thread.UncaughtExceptionHandler errorHandler;
+
+  /** The maximum number of buffered chunks, a non positive value means no limit. */
+  private final int maxSize;
 
   public ChunkBuffer() {
+    this(null, 0);
   }
 
   public ChunkBuffer(Thread.UncaughtExceptionHandler errorHandler) {
+    this(errorHandler, 0);
+  }
+
+  public ChunkBuffer(Thread.UncaughtExceptionHandler errorHandler, int maxSize) {
     this.errorHandler = errorHandler;
+    this.maxSize = maxSize;
   }
 
   public Appendable append(CharSequence csq) throws IOException {
@@ -73,80 +116,136 @@ public class ChunkBuffer implements Streamable, Appendable {
   }
 
   public ChunkBuffer append(Chunk chunk) {
-    synchronized (lock) {
-      switch (status) {
-        case STATUS_CLOSED:
-          throw new IllegalArgumentException("Already closed");
-        case STATUS_BUFFERING:
-          queue.add(chunk);
-          break;
-        case STATUS_PROVIDING:
-          consumer.provide(chunk);
-          break;
+    // Register the append so that close cannot complete the consumer before the chunk is queued
+    while (true) {
+      int current = state.get();
+      if ((current & CLOSED) != 0) {
+        throw new IllegalArgumentException("Already closed");
+      }
+      if (state.compareAndSet(current, current + 1)) {
+        break;
+      }
+    }
+    try {
+      queue.add(chunk);
+      size.incrementAndGet();
+    }
+    finally {
+      state.decrementAndGet();
+    }
+    if (consumer != null) {
+      schedule();
+      if (maxSize > 0 && size.get() > maxSize) {
+        awaitDrain();
       }
     }
     return this;
   }
 
   public void send(Stream stream) {
+    send(stream, null);
+  }
 
-    //
-    synchronized (lock) {
-      if (this.consumer != null) {
-        throw new IllegalStateException("Already consumed");
-      } else {
-        this.consumer = stream;
-      }
+  /**
+   * Send the chunks to the stream: the chunks buffered so far are drained by the current thread, the chunks appended
+   * later are drained by the executor.
+   *
+   * @param stream the stream
+   * @param executor the executor draining the chunks appended later or null to let the producers drain them
+   * @throws IllegalStateException when the buffer was already consumed
+   */
+  public void send(Stream stream, Executor executor) throws IllegalStateException {
+    if (!consumed.compareAndSet(false, true)) {
+      throw new IllegalStateException("Already consumed");
     }
+    this.executor = executor;
+    consumer = stream;
+    drain();
+  }
 
-    //
-    boolean close;
+  public ChunkBuffer close() {
     while (true) {
-      Chunk chunk;
-      synchronized (lock) {
-        if (queue.isEmpty()) {
-          if (status == STATUS_CLOSED) {
-            close = true;
-          } else {
-            status = STATUS_PROVIDING;
-            close = false;
-          }
-          break;
-        } else {
-          chunk = queue.removeFirst();
-        }
+      int current = state.get();
+      if ((current & CLOSED) != 0 || state.compareAndSet(current, current | CLOSED)) {
+        break;
+      }
+    }
+    if (consumer != null) {
+      schedule();
+    }
+    return this;
+  }
+
+  /**
+   * Drain the queue with the executor when there is one, otherwise with the current thread.
+   */
+  private void schedule() {
+    Executor executor = this.executor;
+    if (executor == null) {
+      drain();
+    } else if (wip.getAndIncrement() == 0) {
+      try {
+        executor.execute(drainTask);
+      }
+      catch (RejectedExecutionException e) {
+        drainLoop();
       }
-      stream.provide(chunk);
     }
+  }
 
-    //
-    if (close) {
-      stream.close(errorHandler);
+  private void drain() {
+    if (consumer != null && wip.getAndIncrement() == 0) {
+      drainLoop();
     }
   }
 
-  public ChunkBuffer close() {
-    Stream stream;
-    synchronized (lock) {
-      switch (status) {
-        case STATUS_CLOSED:
-          stream = null;
-          break;
-        case STATUS_PROVIDING:
-          stream = this.consumer;
-          status = STATUS_CLOSED;
-          break;
-        case STATUS_BUFFERING:
-          stream = null;
-          status = STATUS_CLOSED;
-          break;
-        default:
-          throw new UnsupportedOperationException();
+  /**
+   * Drain the queue, the caller has incremented the work in progress counter from zero.
+   */
+  private void drainLoop() {
+    Stream stream = consumer;
+    int missed = 1;
+    do {
+      // Snapshot the state before polling: when it is quiescent every chunk is already queued
+      boolean quiescent = state.get() == CLOSED;
+      for (Chunk chunk = queue.poll();chunk != null;chunk = queue.poll()) {
+        size.decrementAndGet();
+        signalDrained();
+        if (!consumerClosed) {
+          stream.provide(chunk);
+        }
+      }
+      if (quiescent && !consumerClosed && queue.isEmpty()) {
+        consumerClosed = true;
+        stream.close(errorHandler);
+        signalDrained();
+      }
+      missed = wip.addAndGet(-missed);
+    } while (missed != 0);
+  }
+
+  private void signalDrained() {
+    if (waiters.get() > 0) {
+      synchronized (full) {
+        full.notifyAll();
       }
     }
-    if (stream != null) {
-      stream.close(errorHandler);
+  }
+
+  private void awaitDrain() {
+    synchronized (full) {
+      waiters.incrementAndGet();
+      try {
+        while (size.get() > maxSize && (state.get() & CLOSED) == 0) {
+          full.wait();
+        }
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      finally {
+        waiters.decrementAndGet();
+      }
     }
-    return this;
   }
 }
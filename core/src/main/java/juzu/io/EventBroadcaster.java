@@ -0,0 +1,202 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.io;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Publish server-sent events to many connected clients. An event is encoded once and the same frame is queued in
+ * the bounded buffer of each connected {@link EventStream}, a slow client is evicted when its buffer is full and is
+ * removed from the broadcaster.</p>
+ *
+ * <p>The broadcaster sends periodic heartbeats to keep the connections open and closes the connections older than the
+ * configured lifetime, the browser reconnects automatically. The lifetime bounds the resources retained by clients
+ * that disconnected without being detected.</p>
+ *
+ * @author Julien Viet
+ */
+public class EventBroadcaster implements Closeable {
+
+  /** The default capacity of a client buffer. */
+  public static final int DEFAULT_CAPACITY = 64;
+
+  /** The default heartbeat period in milliseconds. */
+  public static final long DEFAULT_HEARTBEAT = 15 * 1000;
+
+  /** The default connection lifetime in milliseconds. */
+  public static final long DEFAULT_LIFETIME = 5 * 60 * 1000;
+
+  /** . */
+  private final ScheduledExecutorService executor;
+
+  /** . */
+  private final boolean ownExecutor;
+
+  /** . */
+  private final int capacity;
+
+  /** . */
+  private final long lifetime;
+
+  /** . */
+  private final Set<EventStream> streams = Collections.newSetFromMap(new ConcurrentHashMap<EventStream, Boolean>());
+
+  /**
+   * Create a broadcaster with the default configuration and its own executor.
+   */
+  public EventBroadcaster() {
+    this(createExecutor(), true, DEFAULT_CAPACITY, DEFAULT_HEARTBEAT, DEFAULT_LIFETIME);
+  }
+
+  /**
+   * Create a broadcaster.
+   *
+   * @param executor the executor draining the client buffers and sending the heartbeats
+   * @param capacity the maximum number of pending events of a client before it is evicted
+   * @param heartbeat the heartbeat period in milliseconds, a non positive value disables heartbeats
+   * @param lifetime the maximum lifetime of a connection in milliseconds, a non positive value disables it
+   */
+  public EventBroadcaster(ScheduledExecutorService executor, int capacity, long heartbeat, long lifetime) {
+    this(executor, false, capacity, heartbeat, lifetime);
+  }
+
+  private EventBroadcaster(ScheduledExecutorService executor, boolean ownExecutor, int capacity, long heartbeat, long lifetime) {
+    if (executor == null) {
+      throw new NullPointerException("No null executor accepted");
+    }
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Invalid capacity " + capacity);
+    }
+
+    //
+    this.executor = executor;
+    this.ownExecutor = ownExecutor;
+    this.capacity = capacity;
+    this.lifetime = lifetime;
+
+    //
+    if (heartbeat > 0) {
+      executor.scheduleAtFixedRate(new Runnable() {
+        public void run() {
+          heartbeat();
+        }
+      }, heartbeat, heartbeat, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private static ScheduledExecutorService createExecutor() {
+    final AtomicInteger count = new AtomicInteger();
+    return Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, "juzu-events-" + count.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+
+  /**
+   * Connect a new client.
+   *
+   * @return the client event stream
+   */
+  public EventStream connect() {
+    EventStream stream = new EventStream(executor, capacity);
+    streams.add(stream);
+    return stream;
+  }
+
+  /**
+   * @return the number of connected clients
+   */
+  public int getSize() {
+    return streams.size();
+  }
+
+  /**
+   * Publish an event with data only to all the clients.
+   *
+   * @param data the event data
+   */
+  public void publish(String data) {
+    publish(null, null, data);
+  }
+
+  /**
+   * Publish a named event to all the clients.
+   *
+   * @param event the event name
+   * @param data the event data
+   */
+  public void publish(String event, String data) {
+    publish(null, event, data);
+  }
+
+  /**
+   * Publish an event to all the clients.
+   *
+   * @param id the optional event id
+   * @param event the optional event name
+   * @param data the event data
+   */
+  public void publish(String id, String event, String data) {
+    Chunk frame = Chunk.create(EventStream.format(id, event, data).getBytes(EventStream.UTF_8));
+    for (Iterator<EventStream> i = streams.iterator();i.hasNext();) {
+      if (!i.next().publish(frame)) {
+        i.remove();
+      }
+    }
+  }
+
+  /**
+   * Send an heartbeat to all the clients and close the clients older than the lifetime.
+   */
+  public void heartbeat() {
+    long limit = lifetime > 0 ? System.currentTimeMillis() - lifetime : Long.MIN_VALUE;
+    for (Iterator<EventStream> i = streams.iterator();i.hasNext();) {
+      EventStream stream = i.next();
+      if (stream.getCreationTime() < limit) {
+        stream.close();
+        i.remove();
+      } else if (!stream.heartbeat()) {
+        i.remove();
+      }
+    }
+  }
+
+  /**
+   * Close all the clients and release the executor when it is owned by the broadcaster.
+   */
+  public void close() {
+    for (Iterator<EventStream> i = streams.iterator();i.hasNext();) {
+      i.next().close();
+      i.remove();
+    }
+    if (ownExecutor) {
+      executor.shutdown();
+    }
+  }
+}
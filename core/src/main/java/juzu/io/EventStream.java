@@ -0,0 +1,280 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.io;
+
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
+/**
+ * <p>A server-sent event stream to a single client. Events are formatted according to the
+ * <code>text/event-stream</code> format and queued in a bounded buffer, the buffer is drained to the client by a task
+ * executed by the provided executor so the caller publishing an event never writes to the client.</p>
+ *
+ * <p>When the buffer is full the client is considered as a slow consumer and it is evicted: the pending events are
+ * discarded and the stream is closed, the client can reconnect and resume with the <code>Last-Event-ID</code>
+ * header.</p>
+ *
+ * <p>An event stream is sent with the {@link juzu.Response#events(EventStream)} response, it can be connected to an
+ * {@link EventBroadcaster} to publish the same events to many clients.</p>
+ *
+ * @author Julien Viet
+ */
+public class EventStream implements Streamable {
+
+  /** . */
+  static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  /** The heartbeat frame, a comment. */
+  private static final Chunk HEARTBEAT = Chunk.create(":\n\n".getBytes(UTF_8));
+
+  /**
+   * Format an event frame.
+   *
+   * @param id the optional event id
+   * @param event the optional event name
+   * @param data the event data
+   * @return the formatted frame
+   * @throws NullPointerException if the data is null
+   * @throws IllegalArgumentException if the id or the event name contains a line break
+   */
+  public static String format(String id, String event, String data) throws NullPointerException, IllegalArgumentException {
+    if (data == null) {
+      throw new NullPointerException("No null data accepted");
+    }
+    StringBuilder sb = new StringBuilder(data.length() + 16);
+    if (id != null) {
+      sb.append("id: ").append(checkField(id)).append('\n');
+    }
+    if (event != null) {
+      sb.append("event: ").append(checkField(event)).append('\n');
+    }
+    int from = 0;
+    int len = data.length();
+    for (int i = 0;i <= len;i++) {
+      char c = i < len ? data.charAt(i) : '\n';
+      if (c == '\r' || c == '\n') {
+        sb.append("data: ").append(data, from, i).append('\n');
+        if (c == '\r' && i + 1 < len && data.charAt(i + 1) == '\n') {
+          i++;
+        }
+        from = i + 1;
+      }
+    }
+    return sb.append('\n').toString();
+  }
+
+  private static String checkField(String value) {
+    if (value.indexOf('\n') != -1 || value.indexOf('\r') != -1) {
+      throw new IllegalArgumentException("Line breaks are not allowed in field " + value);
+    }
+    return value;
+  }
+
+  /** . */
+  private final Object lock = new Object();
+
+  /** . */
+  private final Executor executor;
+
+  /** . */
+  private final int capacity;
+
+  /** . */
+  private final ArrayDeque<Chunk> queue = new ArrayDeque<Chunk>();
+
+  /** . */
+  private final long creationTime;
+
+  /** . */
+  private Stream consumer;
+
+  /** True when a drain task is scheduled or running. */
+  private boolean draining;
+
+  /** True when no more events are accepted. */
+  private boolean closed;
+
+  /** True when the consumer is closed. */
+  private boolean done;
+
+  /** . */
+  private final Runnable drain = new Runnable() {
+    public void run() {
+      while (true) {
+        Chunk chunk;
+        synchronized (lock) {
+          if (queue.isEmpty()) {
+            draining = false;
+            if (closed && !done) {
+              done = true;
+              chunk = null;
+            } else {
+              return;
+            }
+          } else {
+            chunk = queue.removeFirst();
+          }
+        }
+        if (chunk != null) {
+          consumer.provide(chunk);
+        } else {
+          consumer.close(null);
+          return;
+        }
+      }
+    }
+  };
+
+  /**
+   * Create a new event stream.
+   *
+   * @param executor the executor draining the events to the client
+   * @param capacity the maximum number of pending events before the client is evicted
+   * @throws NullPointerException if the executor is null
+   * @throws IllegalArgumentException if the capacity is not positive
+   */
+  public EventStream(Executor executor, int capacity) throws NullPointerException, IllegalArgumentException {
+    if (executor == null) {
+      throw new NullPointerException("No null executor accepted");
+    }
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Invalid capacity " + capacity);
+    }
+    this.executor = executor;
+    this.capacity = capacity;
+    this.creationTime = System.currentTimeMillis();
+  }
+
+  /**
+   * Publish an event with data only.
+   *
+   * @param data the event data
+   * @return true if the event was queued, false if the stream is closed or the client was evicted
+   */
+  public boolean publish(String data) {
+    return publish(null, null, data);
+  }
+
+  /**
+   * Publish a named event.
+   *
+   * @param event the event name
+   * @param data the event data
+   * @return true if the event was queued, false if the stream is closed or the client was evicted
+   */
+  public boolean publish(String event, String data) {
+    return publish(null, event, data);
+  }
+
+  /**
+   * Publish an event.
+   *
+   * @param id the optional event id
+   * @param event the optional event name
+   * @param data the event data
+   * @return true if the event was queued, false if the stream is closed or the client was evicted
+   */
+  public boolean publish(String id, String event, String data) {
+    return publish(Chunk.create(format(id, event, data).getBytes(UTF_8)));
+  }
+
+  /**
+   * Send an heartbeat to the client, an heartbeat is a comment that keeps the connection alive.
+   *
+   * @return true if the heartbeat was queued, false if the stream is closed or the client was evicted
+   */
+  public boolean heartbeat() {
+    return publish(HEARTBEAT);
+  }
+
+  /**
+   * Publish an encoded frame, the frame is shared by the streams of a broadcaster.
+   *
+   * @param frame the frame
+   * @return true if the frame was queued
+   */
+  boolean publish(Chunk frame) {
+    synchronized (lock) {
+      if (closed) {
+        return false;
+      }
+      if (queue.size() >= capacity) {
+        // Slow consumer
+        queue.clear();
+        closed = true;
+        drain();
+        return false;
+      }
+      queue.addLast(frame);
+      drain();
+      return true;
+    }
+  }
+
+  /**
+   * @return the time at which this stream was created
+   */
+  public long getCreationTime() {
+    return creationTime;
+  }
+
+  /**
+   * @return true when the stream does not accept events anymore
+   */
+  public boolean isClosed() {
+    synchronized (lock) {
+      return closed;
+    }
+  }
+
+  /**
+   * Close the stream, the pending events are sent to the client before the stream is closed.
+   */
+  public void close() {
+    synchronized (lock) {
+      if (!closed) {
+        closed = true;
+        drain();
+      }
+    }
+  }
+
+  public void send(Stream stream) throws IllegalStateException {
+    synchronized (lock) {
+      if (consumer != null) {
+        throw new IllegalStateException("Already consumed");
+      }
+      consumer = stream;
+    }
+
+    // Commit the response with an initial comment so the client is connected immediately
+    stream.provide(HEARTBEAT);
+
+    //
+    synchronized (lock) {
+      drain();
+    }
+  }
+
+  private void drain() {
+    if (consumer != null && !draining && !done) {
+      draining = true;
+      executor.execute(drain);
+    }
+  }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.plugin.asset;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * A bundle declaration, the bundle concatenates the declared assets in the declaration order.
+ *
+ * @author Julien Viet
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({})
+public @interface Bundle {
+
+  /**
+   * @return the bundle id
+   */
+  String id();
+
+  /**
+   * @return the ids of the bundled assets, they must be application assets of the same type
+   */
+  String[] value();
+
+}
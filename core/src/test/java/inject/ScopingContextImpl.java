@@ -42,6 +42,10 @@ public class ScopingContextImpl implements ScopingContext {
     }
   }
 
+  public Object getContextualMonitor(Scope scope, Object key) {
+    return this;
+  }
+
   public boolean isActive(Scope scope) {
     return true;
   }
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package inject.lifecycle.concurrent;
+
+import juzu.SessionScoped;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** @author Julien Viet */
+@SessionScoped
+public class Bean {
+
+  /** . */
+  public static final AtomicInteger construct = new AtomicInteger();
+
+  /** . */
+  public static final AtomicInteger destroy = new AtomicInteger();
+
+  @PostConstruct
+  public void construct() {
+    construct.incrementAndGet();
+    try {
+      // Widen the race window
+      Thread.sleep(5);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @PreDestroy
+  public void destroy() {
+    destroy.incrementAndGet();
+  }
+
+  public void m() {
+    // Here just to force a creation since we can have a proxy
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package inject.lifecycle.concurrent;
+
+import inject.AbstractInjectTestCase;
+import juzu.Scope;
+import juzu.impl.bridge.spi.servlet.ServletScopedContext;
+import juzu.impl.common.JUL;
+import juzu.impl.inject.Scoped;
+import juzu.impl.inject.ScopingContext;
+import juzu.impl.inject.spi.InjectorProvider;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/** @author Julien Viet */
+public class ConcurrentSessionScopedTestCase<B, I> extends AbstractInjectTestCase<B, I> {
+
+  /** . */
+  private static final int THREADS = 16;
+
+  /** . */
+  private static final int ROUNDS = 20;
+
+  public ConcurrentSessionScopedTestCase(InjectorProvider di) {
+    super(di);
+  }
+
+  @Test
+  public void testCreateOnce() throws Exception {
+    init();
+    bootstrap.declareBean(Bean.class, null, null, null);
+    boot(Scope.SESSION);
+
+    //
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      for (int round = 0;round < ROUNDS;round++) {
+        Bean.construct.set(0);
+        Bean.destroy.set(0);
+
+        // All the threads share the same session
+        final ServletScopedContext session = new ServletScopedContext(JUL.getLogger(ServletScopedContext.class.getName()));
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Future<Object>> futures = new ArrayList<Future<Object>>();
+        for (int i = 0;i < THREADS;i++) {
+          futures.add(executor.submit(new Callable<Object>() {
+            public Object call() throws Exception {
+              start.await();
+              mgr.getScopeController().begin(new ScopingContext() {
+                public Scoped getContextualValue(Scope scope, Object key) {
+                  return session.get(key);
+                }
+                public void setContextualValue(Scope scope, Object key, Scoped value) {
+                  session.set(key, value);
+                }
+                public Object getContextualMonitor(Scope scope, Object key) {
+                  return session.getMonitor(key);
+                }
+                public boolean isActive(Scope scope) {
+                  return true;
+                }
+              });
+              try {
+                B bean = mgr.resolveBean(Bean.class);
+                I instance = mgr.createContext(bean);
+                Bean o = (Bean)mgr.getInstance(bean, instance);
+                o.m();
+                return session.iterator().next().get();
+              }
+              finally {
+                mgr.getScopeController().end();
+              }
+            }
+          }));
+        }
+        start.countDown();
+
+        //
+        Object expected = null;
+        for (Future<Object> future : futures) {
+          Object o = future.get(10, TimeUnit.SECONDS);
+          assertNotNull(o);
+          if (expected == null) {
+            expected = o;
+          } else {
+            assertSame(expected, o);
+          }
+        }
+        assertEquals(1, Bean.construct.get());
+        assertEquals(1, session.size());
+
+        //
+        session.close();
+        assertEquals(1, Bean.destroy.get());
+        assertEquals(0, session.size());
+      }
+    }
+    finally {
+      executor.shutdownNow();
+    }
+  }
+}
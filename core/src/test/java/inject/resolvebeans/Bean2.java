@@ -17,5 +17,5 @@
 package inject.resolvebeans;
 
 /** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
-public class Bean2 extends AbstractBean {
+public class Bean2 extends AbstractBean implements Marker {
 }
@@ -49,4 +49,18 @@ public class ResolvableBeansTestCase<B, I> extends AbstractInjectTestCase<B, I>
     }
     assertEquals(Tools.<Class<?>>set(Bean1.class, Bean2.class), classes);
   }
+
+  @Test
+  public void testInterface() throws Exception {
+    init();
+    bootstrap.declareBean(Bean1.class, null, null, null);
+    bootstrap.declareBean(Bean2.class, null, null, null);
+    boot();
+
+    //
+    ArrayList<B> beans = Tools.list(mgr.resolveBeans(Marker.class));
+    assertEquals(1, beans.size());
+    I instance = mgr.createContext(beans.get(0));
+    assertEquals(Bean2.class, mgr.getInstance(beans.get(0), instance).getClass());
+  }
 }
@@ -38,4 +38,16 @@ public class DefaultScopeTestCase<B, I> extends AbstractInjectTestCase<B, I> {
     Bean bean2 = getBean(Bean.class);
     assertTrue(bean1.count != bean2.count);
   }
+
+  @Test
+  public void testResolveInstance() throws Exception {
+    init();
+    bootstrap.declareBean(Bean.class, null, null, null);
+    boot();
+
+    //
+    Bean bean1 = mgr.resolveInstance(Bean.class);
+    Bean bean2 = mgr.resolveInstance(Bean.class);
+    assertTrue(bean1.count != bean2.count);
+  }
 }
@@ -38,4 +38,17 @@ public class ScopeSingletonTestCase<B, I> extends AbstractInjectTestCase<B, I> {
     Bean singleton2 = getBean(Bean.class);
     assertSame(singleton1, singleton2);
   }
+
+  @Test
+  public void testResolveInstance() throws Exception {
+    init();
+    bootstrap.declareBean(Bean.class, null, null, null);
+    boot();
+
+    //
+    Bean singleton1 = mgr.resolveInstance(Bean.class);
+    Bean singleton2 = mgr.resolveInstance(Bean.class);
+    assertSame(singleton1, singleton2);
+    assertSame(singleton1, getBean(Bean.class));
+  }
 }
@@ -22,6 +22,7 @@ import juzu.test.AbstractTestCase;
 import org.junit.Test;
 
 import java.net.URL;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -69,4 +70,22 @@ public class AssetManagerTestCase extends AbstractTestCase {
     catch (IllegalArgumentException expected) {
     }
   }
+
+  @Test
+  public void testResolutionCache() {
+    AssetManager mgr = new AssetManager("", ResourceResolver.NULL_RESOLVER);
+    AssetDeployment fooDepl = mgr.createDeployment();
+    fooDepl.addAsset("foo", "script", AssetLocation.APPLICATION, "foo.js", null, null, null, DUMMY_URL, "bar");
+    fooDepl.addAsset("bar", "script", AssetLocation.APPLICATION, "bar.js", null, null, null, DUMMY_URL);
+    fooDepl.deploy();
+    Iterable<Asset> resolved = mgr.resolveAssets(Arrays.asList("foo", "bar"));
+    assertSame(resolved, mgr.resolveAssets(Arrays.asList("foo", "bar", "foo")));
+    assertNotSame(resolved, mgr.resolveAssets(Arrays.asList("bar", "foo")));
+    AssetDeployment juuDepl = mgr.createDeployment();
+    juuDepl.addAsset("juu", "script", AssetLocation.APPLICATION, "juu.js", null, null, null, DUMMY_URL, "foo");
+    juuDepl.deploy();
+    Iterable<Asset> redeployed = mgr.resolveAssets(Arrays.asList("foo", "bar"));
+    assertNotSame(resolved, redeployed);
+    assertEquals(Tools.list(resolved), Tools.list(redeployed));
+  }
 }
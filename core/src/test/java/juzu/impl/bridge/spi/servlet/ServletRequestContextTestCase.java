@@ -0,0 +1,99 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.bridge.spi.servlet;
+
+import juzu.impl.bridge.BridgeConfig;
+import juzu.impl.common.JUL;
+import juzu.impl.common.RunMode;
+import juzu.impl.common.Tools;
+import juzu.test.AbstractTestCase;
+import org.junit.Test;
+
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+
+/** @author Julien Viet */
+public class ServletRequestContextTestCase extends AbstractTestCase {
+
+  @Test
+  public void testForm() throws Exception {
+    ServletRequestContext ctx = post(config("-1", "-1"), "a=b&c=d");
+    assertEquals(0, ctx.formStatus);
+    assertEquals("b", ctx.getParameters().get("a").getValue());
+    assertEquals("d", ctx.getParameters().get("c").getValue());
+  }
+
+  @Test
+  public void testMaxSize() throws Exception {
+    ServletRequestContext ctx = post(config("4", "-1"), "a=bcd");
+    assertEquals(413, ctx.formStatus);
+    assertEquals(0, ctx.getParameters().size());
+  }
+
+  @Test
+  public void testMaxFields() throws Exception {
+    ServletRequestContext ctx = post(config("-1", "2"), "a=b&c=d&e=f");
+    assertEquals(400, ctx.formStatus);
+    assertEquals(0, ctx.getParameters().size());
+  }
+
+  private static BridgeConfig config(String maxSize, String maxFields) throws Exception {
+    HashMap<String, String> config = new HashMap<String, String>();
+    config.put(BridgeConfig.APP_NAME, "app");
+    config.put(BridgeConfig.INJECT, "guice");
+    config.put(BridgeConfig.FORM_MAX_SIZE, maxSize);
+    config.put(BridgeConfig.FORM_MAX_FIELDS, maxFields);
+    return new BridgeConfig(JUL.getLogger(ServletRequestContextTestCase.class.getName()), config);
+  }
+
+  private static ServletRequestContext post(BridgeConfig config, String form) {
+    final ByteArrayInputStream body = new ByteArrayInputStream(form.getBytes(Tools.UTF_8));
+    final ServletInputStream in = new ServletInputStream() {
+      @Override
+      public int read() throws IOException {
+        return body.read();
+      }
+    };
+    HttpServletRequest req = (HttpServletRequest)Proxy.newProxyInstance(ServletRequestContextTestCase.class.getClassLoader(), new Class[]{HttpServletRequest.class}, new InvocationHandler() {
+      public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if (name.equals("getMethod")) {
+          return "POST";
+        } else if (name.equals("getContentType")) {
+          return "application/x-www-form-urlencoded";
+        } else if (name.equals("getInputStream")) {
+          return in;
+        } else if (name.equals("getRequestURI")) {
+          return "/app/";
+        } else if (name.equals("getContextPath")) {
+          return "/app";
+        } else if (name.equals("getQueryString")) {
+          return null;
+        } else {
+          throw new UnsupportedOperationException(name);
+        }
+      }
+    });
+    return new ServletRequestContext(config, req, null, "/", RunMode.PROD);
+  }
+}
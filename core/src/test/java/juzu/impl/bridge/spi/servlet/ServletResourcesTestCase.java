@@ -0,0 +1,119 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.bridge.spi.servlet;
+
+import juzu.test.AbstractTestCase;
+import org.junit.Test;
+
+import javax.servlet.ServletContext;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** @author Julien Viet */
+public class ServletResourcesTestCase extends AbstractTestCase {
+
+  @Test
+  public void testFound() throws Exception {
+    ServletResources resources = new ServletResources(context(new AtomicInteger(), "/index.html", "/css/", "/css/main.css"));
+    assertTrue(resources.exists("/index.html"));
+    assertTrue(resources.exists("/css"));
+    assertTrue(resources.exists("/css/"));
+    assertTrue(resources.exists("/css/main.css"));
+  }
+
+  @Test
+  public void testMissing() throws Exception {
+    AtomicInteger lookups = new AtomicInteger();
+    ServletResources resources = new ServletResources(context(lookups, "/index.html", "/WEB-INF/", "/WEB-INF/web.xml"));
+    assertFalse(resources.exists("/missing.html"));
+    assertFalse(resources.exists("/WEB-INF/web.xml"));
+    assertFalse(resources.exists("/WEB-INF"));
+    assertEquals(0, lookups.get());
+  }
+
+  @Test
+  public void testNormalization() throws Exception {
+    ServletResources resources = new ServletResources(context(new AtomicInteger(), "/index.html", "/css/", "/css/main.css", "/WEB-INF/", "/WEB-INF/web.xml"));
+    assertTrue(resources.exists("//index.html"));
+    assertTrue(resources.exists("/./index.html"));
+    assertTrue(resources.exists("/css/../index.html"));
+    assertTrue(resources.exists("/css//./main.css"));
+    assertFalse(resources.exists("/../index.html"));
+    assertFalse(resources.exists("/css/../../index.html"));
+    assertFalse(resources.exists("/css/../WEB-INF/web.xml"));
+    assertEquals("/", ServletResources.normalize("/css/.."));
+    assertEquals("/css/", ServletResources.normalize("/css/./"));
+    assertNull(ServletResources.normalize("/.."));
+  }
+
+  @Test
+  public void testLookup() throws Exception {
+    String[] paths = new String[ServletResources.MAX_LISTING + 1];
+    for (int i = 0;i < paths.length;i++) {
+      paths[i] = "/" + i + ".html";
+    }
+    AtomicInteger lookups = new AtomicInteger();
+    ServletResources resources = new ServletResources(context(lookups, paths));
+    assertTrue(resources.exists("/0.html"));
+    assertTrue(resources.exists("/0.html"));
+    assertTrue(resources.exists("/./0.html"));
+    assertEquals(1, lookups.get());
+    assertFalse(resources.exists("/missing.html"));
+    assertFalse(resources.exists("/missing.html"));
+    assertEquals(2, lookups.get());
+    assertFalse(resources.exists("/../0.html"));
+    assertEquals(2, lookups.get());
+  }
+
+  /**
+   * Creates a servlet context serving the specified resources, the directories end with a <code>/</code>.
+   */
+  private static ServletContext context(final AtomicInteger lookups, String... resources) {
+    final Set<String> paths = new HashSet<String>(Arrays.asList(resources));
+    return (ServletContext)Proxy.newProxyInstance(ServletResourcesTestCase.class.getClassLoader(), new Class[]{ServletContext.class}, new InvocationHandler() {
+      public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if (name.equals("getResourcePaths")) {
+          String dir = (String)args[0];
+          HashSet<String> children = new HashSet<String>();
+          for (String path : paths) {
+            if (path.startsWith(dir) && path.length() > dir.length()) {
+              String child = path.substring(dir.length());
+              int pos = child.indexOf('/');
+              if (pos == -1 || pos == child.length() - 1) {
+                children.add(path);
+              }
+            }
+          }
+          return children.isEmpty() ? null : children;
+        } else if (name.equals("getResource")) {
+          lookups.incrementAndGet();
+          String path = (String)args[0];
+          return paths.contains(path) ? new URL("file:" + path) : null;
+        } else {
+          throw new UnsupportedOperationException(name);
+        }
+      }
+    });
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.bridge.spi.session;
+
+import juzu.test.AbstractTestCase;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/** @author Julien Viet */
+public class FlashCookieCodecTestCase extends AbstractTestCase {
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    FlashCookieCodec codec = new FlashCookieCodec("secret", 4096);
+    HashMap<String, byte[]> entries = new HashMap<String, byte[]>();
+    entries.put("foo", new byte[]{0, 1, 2, (byte)255});
+    entries.put("bar", new byte[0]);
+    String value = codec.encode(entries);
+    assertNotNull(value);
+    for (int i = 0;i < value.length();i++) {
+      char c = value.charAt(i);
+      assertTrue("Invalid cookie char " + c, Character.isLetterOrDigit(c) || c == '-' || c == '_' || c == '.');
+    }
+    Map<String, byte[]> decoded = new FlashCookieCodec("secret", 4096).decode(value);
+    assertNotNull(decoded);
+    assertEquals(2, decoded.size());
+    assertTrue(Arrays.equals(new byte[]{0, 1, 2, (byte)255}, decoded.get("foo")));
+    assertEquals(0, decoded.get("bar").length);
+  }
+
+  @Test
+  public void testSignature() throws Exception {
+    HashMap<String, byte[]> entries = new HashMap<String, byte[]>();
+    entries.put("foo", new byte[]{0, 1, 2, 3});
+    String value = new FlashCookieCodec("secret", 4096).encode(entries);
+    assertNull(new FlashCookieCodec("other", 4096).decode(value));
+    assertNull(new FlashCookieCodec(null, 4096).decode(value));
+    char c = value.charAt(2);
+    String tampered = value.substring(0, 2) + (c == 'A' ? 'B' : 'A') + value.substring(3);
+    assertNull(new FlashCookieCodec("secret", 4096).decode(tampered));
+    assertNull(new FlashCookieCodec("secret", 4096).decode("garbage"));
+  }
+
+  @Test
+  public void testMaxSize() throws Exception {
+    FlashCookieCodec codec = new FlashCookieCodec("secret", 256);
+    HashMap<String, byte[]> entries = new HashMap<String, byte[]>();
+    entries.put("foo", new byte[64]);
+    String value = codec.encode(entries);
+    assertNotNull(value);
+    assertTrue(value.length() <= 256);
+    entries.put("bar", new byte[256]);
+    assertNull(codec.encode(entries));
+  }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.bridge.spi.session;
+
+import juzu.impl.common.JUL;
+import juzu.impl.common.Logger;
+import juzu.impl.common.Tools;
+import juzu.impl.inject.Scoped;
+import juzu.test.AbstractTestCase;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/** @author Julien Viet */
+public class SessionStoreTestCase extends AbstractTestCase {
+
+  /** . */
+  private static final Logger log = JUL.getLogger(SessionStoreTestCase.class.getName());
+
+  public static class Counter implements Serializable {
+    int value;
+  }
+
+  private static class Value implements Scoped {
+
+    /** . */
+    final Object o;
+
+    /** . */
+    int destroyed;
+
+    Value(Object o) {
+      this.o = o;
+    }
+
+    public Object get() {
+      return o;
+    }
+
+    public void destroy() {
+      destroyed++;
+    }
+  }
+
+  /**
+   * Records the updates.
+   */
+  private static class Recorder implements SessionStore {
+
+    /** . */
+    final SessionStore delegate;
+
+    /** . */
+    final List<Set<String>> updates = new ArrayList<Set<String>>();
+
+    Recorder(SessionStore delegate) {
+      this.delegate = delegate;
+    }
+
+    public Map<String, byte[]> load(String sessionId) throws IOException {
+      return delegate.load(sessionId);
+    }
+
+    public void update(String sessionId, Map<String, byte[]> updated, Set<String> removed) throws IOException {
+      updates.add(updated.keySet());
+      delegate.update(sessionId, updated, removed);
+    }
+
+    public void remove(String sessionId) throws IOException {
+      delegate.remove(sessionId);
+    }
+
+    public long getSize(String sessionId) {
+      return delegate.getSize(sessionId);
+    }
+  }
+
+  private StoredScopedContext open(SessionStore store) {
+    return new StoredScopedContext("session", store, getClass().getClassLoader(), log);
+  }
+
+  @Test
+  public void testMemory() throws Exception {
+    assertStore(new MemorySessionStore());
+  }
+
+  @Test
+  public void testFile() throws Exception {
+    File root = File.createTempFile("juzu", "");
+    assertTrue(root.delete());
+    try {
+      assertStore(new FileSessionStore(root));
+
+      // The state survives a new store instance
+      FileSessionStore store = new FileSessionStore(root);
+      store.update("other", Collections.singletonMap("key", new byte[]{1, 2, 3}), Collections.<String>emptySet());
+      assertEquals(1, new FileSessionStore(root).load("other").size());
+      assertEquals(3, new FileSessionStore(root).load("other").get("key").length);
+    }
+    finally {
+      delete(root);
+    }
+  }
+
+  @Test
+  public void testShared() throws Exception {
+    Recorder store = new Recorder(new MemorySessionStore());
+    StoredSessions sessions = new StoredSessions(store, log);
+    ClassLoader loader = getClass().getClassLoader();
+
+    // Concurrent requests share the context
+    StoredScopedContext first = sessions.acquire("session", loader);
+    StoredScopedContext second = sessions.acquire("session", loader);
+    assertSame(first, second);
+    Value value = new Value(new Counter());
+    first.set("counter", value);
+    assertSame(value, second.get("counter"));
+    ((Counter)value.get()).value = 1;
+    sessions.release(first);
+    assertEquals(1, store.updates.size());
+    assertEquals(1, sessions.size());
+    ((Counter)value.get()).value = 2;
+    sessions.release(second);
+    assertEquals(2, store.updates.size());
+    assertEquals(0, sessions.size());
+
+    // A later request loads the session again
+    StoredScopedContext third = sessions.acquire("session", loader);
+    assertNotSame(first, third);
+    assertEquals(2, ((Counter)third.get("counter").get()).value);
+    assertNotSame(third, sessions.acquire("session", new ClassLoader(loader) {}));
+    sessions.release(third);
+
+    // Ending the session closes the context in use
+    StoredScopedContext fourth = sessions.acquire("session", loader);
+    value = new Value(new Counter());
+    fourth.set("counter", value);
+    sessions.remove("session");
+    assertEquals(1, value.destroyed);
+    assertNull(store.load("session"));
+    assertEquals(0, sessions.size());
+    sessions.release(fourth);
+    assertNull(store.load("session"));
+  }
+
+  private static void delete(File f) {
+    File[] children = f.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        delete(child);
+      }
+    }
+    f.delete();
+  }
+
+  private void assertStore(SessionStore delegate) throws Exception {
+    Recorder store = new Recorder(delegate);
+
+    // Create an entry
+    StoredScopedContext context = open(store);
+    assertNull(context.get("counter"));
+    Counter counter = new Counter();
+    context.set("counter", new Value(counter));
+    context.set("transient", new Value(new Object()));
+    context.flush();
+    assertEquals(1, store.updates.size());
+    assertEquals(Tools.set("counter"), store.updates.get(0));
+    assertTrue(store.getSize("session") > 0);
+
+    // Read it without change: nothing is written
+    context = open(store);
+    Scoped scoped = context.get("counter");
+    assertNotNull(scoped);
+    assertNotSame(counter, scoped.get());
+    assertEquals(0, ((Counter)scoped.get()).value);
+    assertNull(context.get("transient"));
+    context.flush();
+    assertEquals(1, store.updates.size());
+
+    // Modify it: it is written back
+    context = open(store);
+    ((Counter)context.get("counter").get()).value = 3;
+    context.flush();
+    assertEquals(2, store.updates.size());
+    context = open(store);
+    assertEquals(3, ((Counter)context.get("counter").get()).value);
+    assertEquals(1, context.size());
+
+    // Remove it
+    context.set("counter", null);
+    context.flush();
+    assertEquals(3, store.updates.size());
+    context = open(store);
+    assertNull(context.get("counter"));
+    assertEquals(0, context.size());
+
+    // Close removes the state
+    Value value = new Value(new Counter());
+    context.set("counter", value);
+    context.flush();
+    assertNotNull(store.load("session"));
+    context.close();
+    assertEquals(1, value.destroyed);
+    assertNull(store.load("session"));
+    assertEquals(0, store.getSize("session"));
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.bridge.spi.web;
+
+import juzu.HttpMethod;
+import juzu.impl.bridge.spi.ScopedContext;
+import juzu.impl.bridge.spi.servlet.ServletScopedContext;
+import juzu.impl.bridge.spi.session.FlashCookieCodec;
+import juzu.impl.common.JUL;
+import juzu.impl.common.Logger;
+import juzu.impl.inject.Scoped;
+import juzu.request.ApplicationContext;
+import juzu.request.ClientContext;
+import juzu.request.HttpContext;
+import juzu.request.SecurityContext;
+import juzu.request.UserContext;
+import juzu.test.AbstractTestCase;
+import org.junit.Test;
+
+import javax.servlet.http.Cookie;
+import java.util.ArrayList;
+import java.util.List;
+
+/** @author Julien Viet */
+public class CookieFlashContextTestCase extends AbstractTestCase {
+
+  /** A bridge holding the request cookies, the response cookies and the flash scope of the http session. */
+  static class Bridge extends WebBridge implements HttpContext {
+
+    /** . */
+    final Cookie[] cookies;
+
+    /** . */
+    final List<Cookie> added = new ArrayList<Cookie>();
+
+    /** . */
+    ScopedContext flash;
+
+    Bridge(Cookie... cookies) {
+      this.cookies = cookies;
+    }
+
+    Bridge next() {
+      Bridge next = new Bridge(added.toArray(new Cookie[added.size()]));
+      next.flash = flash;
+      return next;
+    }
+
+    Cookie getAdded() {
+      assertTrue(added.size() <= 1);
+      return added.isEmpty() ? null : added.get(0);
+    }
+
+    public Logger getLogger(String name) {
+      return JUL.getLogger(name);
+    }
+    public ScopedContext getFlashScope(boolean create) {
+      if (flash == null && create) {
+        flash = new ServletScopedContext(getLogger(ServletScopedContext.class.getName()));
+      }
+      return flash;
+    }
+    public void addCookie(Cookie cookie) {
+      added.add(cookie);
+    }
+    public HttpContext getHttpContext() {
+      return this;
+    }
+    public Cookie[] getCookies() {
+      return cookies;
+    }
+    public String getContextPath() {
+      return "/app";
+    }
+    public WebRequestContext getRequestContext() { throw new UnsupportedOperationException(); }
+    public void renderRequestURL(Appendable appendable) { throw new UnsupportedOperationException(); }
+    public void execute(Runnable runnable) { throw new UnsupportedOperationException(); }
+    public ScopedContext getRequestScope(boolean create) { throw new UnsupportedOperationException(); }
+    public ScopedContext getSessionScope(boolean create) { throw new UnsupportedOperationException(); }
+    public void purgeSession() { throw new UnsupportedOperationException(); }
+    public String getSessionId(boolean create) { throw new UnsupportedOperationException(); }
+    public ClientContext getClientContext() { throw new UnsupportedOperationException(); }
+    public UserContext getUserContext() { throw new UnsupportedOperationException(); }
+    public ApplicationContext getApplicationContext() { throw new UnsupportedOperationException(); }
+    public SecurityContext getSecurityContext() { throw new UnsupportedOperationException(); }
+    public HttpMethod getMethod() { throw new UnsupportedOperationException(); }
+    public String getScheme() { throw new UnsupportedOperationException(); }
+    public int getServerPort() { throw new UnsupportedOperationException(); }
+    public String getServerName() { throw new UnsupportedOperationException(); }
+  }
+
+  static Scoped scoped(final Object value) {
+    return new Scoped() {
+      public Object get() {
+        return value;
+      }
+      public void destroy() {
+      }
+    };
+  }
+
+  static CookieFlashContext context(Bridge bridge, FlashCookieCodec codec) {
+    return new CookieFlashContext(bridge, codec, CookieFlashContextTestCase.class.getClassLoader(), CookieFlashContext.getCookieValue(bridge));
+  }
+
+  @Test
+  public void testWriteAndRestore() throws Exception {
+    FlashCookieCodec codec = new FlashCookieCodec("secret", 3072);
+
+    // Write the entry in the cookie
+    Bridge bridge = new Bridge();
+    CookieFlashContext context = context(bridge, codec);
+    context.set("foo", scoped("bar"));
+    context.flush();
+    Cookie cookie = bridge.getAdded();
+    assertNotNull(cookie);
+    assertEquals(CookieFlashContext.COOKIE_NAME, cookie.getName());
+    assertEquals("/app", cookie.getPath());
+    assertEquals(-1, cookie.getMaxAge());
+    assertNull(bridge.flash);
+
+    // Restore the entry on the next request
+    bridge = bridge.next();
+    context = context(bridge, codec);
+    assertEquals(1, context.size());
+    Scoped restored = context.get("foo");
+    assertNotNull(restored);
+    assertEquals("bar", restored.get());
+
+    // Clear the cookie once the flash scope is closed
+    context.close();
+    context.flush();
+    cookie = bridge.getAdded();
+    assertNotNull(cookie);
+    assertEquals("", cookie.getValue());
+    assertEquals(0, cookie.getMaxAge());
+  }
+
+  @Test
+  public void testInvalidCookie() throws Exception {
+    Bridge bridge = new Bridge();
+    CookieFlashContext context = context(bridge, new FlashCookieCodec("secret", 3072));
+    context.set("foo", scoped("bar"));
+    context.flush();
+
+    // Signed by another node
+    context = context(bridge.next(), new FlashCookieCodec("other", 3072));
+    assertNull(context.get("foo"));
+    assertEquals(0, context.size());
+  }
+
+  @Test
+  public void testSessionFallback() throws Exception {
+    FlashCookieCodec codec = new FlashCookieCodec("secret", 128);
+    StringBuilder large = new StringBuilder();
+    for (int i = 0;i < 256;i++) {
+      large.append('a');
+    }
+
+    // Too large for the cookie
+    Bridge bridge = new Bridge();
+    CookieFlashContext context = context(bridge, codec);
+    context.set("foo", scoped(large.toString()));
+    context.set("bar", scoped(new Object()));
+    context.flush();
+    assertNull(bridge.getAdded());
+    assertNotNull(bridge.flash);
+    assertEquals(large.toString(), bridge.flash.get("foo").get());
+
+    // Restored from the session
+    context = context(bridge.next(), codec);
+    Scoped restored = context.get("foo");
+    assertNotNull(restored);
+    assertEquals(large.toString(), restored.get());
+    assertNotNull(context.get("bar"));
+  }
+}
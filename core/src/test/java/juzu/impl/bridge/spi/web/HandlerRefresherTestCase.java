@@ -0,0 +1,239 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.bridge.spi.web;
+
+import juzu.impl.bridge.Bridge;
+import juzu.impl.bridge.BridgeConfig;
+import juzu.impl.common.Completion;
+import juzu.impl.common.JUL;
+import juzu.impl.common.Logger;
+import juzu.impl.common.RunMode;
+import juzu.impl.plugin.application.Application;
+import juzu.test.AbstractTestCase;
+import org.junit.Test;
+
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/** @author Julien Viet */
+public class HandlerRefresherTestCase extends AbstractTestCase {
+
+  /** . */
+  private static final Logger log = JUL.getLogger(HandlerRefresherTestCase.class.getName());
+
+  static class Snapshot implements Closeable {
+
+    /** . */
+    final AtomicInteger closed = new AtomicInteger();
+
+    public void close() {
+      closed.incrementAndGet();
+    }
+  }
+
+  static class Refresher extends HandlerRefresher<Snapshot> {
+
+    /** . */
+    final RunMode runMode;
+
+    /** True when the next refresh detects a change. */
+    volatile boolean changed;
+
+    /** . */
+    final AtomicInteger refreshes = new AtomicInteger();
+
+    /** . */
+    final AtomicInteger concurrentRefreshes = new AtomicInteger();
+
+    /** . */
+    final AtomicBoolean overlapped = new AtomicBoolean();
+
+    /** . */
+    final List<Snapshot> snapshots = new CopyOnWriteArrayList<Snapshot>();
+
+    Refresher(RunMode runMode, long refreshInterval) throws Exception {
+      super(log, config(refreshInterval));
+      this.runMode = runMode;
+    }
+
+    @Override
+    protected Bridge createBridge() throws Exception {
+      return new Bridge(null, null, null, null) {
+        public RunMode getRunMode() {
+          return runMode;
+        }
+        public Completion<Boolean> refresh(boolean recompile) {
+          if (concurrentRefreshes.incrementAndGet() > 1) {
+            overlapped.set(true);
+          }
+          try {
+            refreshes.incrementAndGet();
+            Thread.yield();
+            return Completion.completed(changed);
+          }
+          finally {
+            concurrentRefreshes.decrementAndGet();
+          }
+        }
+        public Application getApplication() {
+          throw new UnsupportedOperationException();
+        }
+        public void close() {
+        }
+      };
+    }
+
+    @Override
+    protected Handler createHandler(Bridge bridge) {
+      return null;
+    }
+
+    @Override
+    protected Snapshot createSnapshot(Handler handler) {
+      Snapshot snapshot = new Snapshot();
+      snapshots.add(snapshot);
+      return snapshot;
+    }
+  }
+
+  private static BridgeConfig config(long refreshInterval) throws Exception {
+    HashMap<String, String> config = new HashMap<String, String>();
+    config.put(BridgeConfig.APP_NAME, "app");
+    config.put(BridgeConfig.INJECT, "guice");
+    config.put(BridgeConfig.REFRESH_INTERVAL, Long.toString(refreshInterval));
+    return new BridgeConfig(log, config);
+  }
+
+  @Test
+  public void testInFlight() throws Exception {
+    Refresher refresher = new Refresher(RunMode.LIVE, 0);
+    HandlerRefresher.Lease<Snapshot> first = refresher.refresh();
+    Snapshot a = first.get();
+    refresher.changed = true;
+    HandlerRefresher.Lease<Snapshot> second = refresher.refresh();
+    Snapshot b = second.get();
+    assertNotSame(a, b);
+    assertSame(b, refresher.getSnapshot());
+
+    // The replaced snapshot is closed after its last request
+    assertEquals(0, a.closed.get());
+    first.release();
+    assertEquals(1, a.closed.get());
+    first.release();
+    assertEquals(1, a.closed.get());
+
+    // The published snapshot is closed after the refresher
+    refresher.changed = false;
+    second.release();
+    assertEquals(0, b.closed.get());
+    HandlerRefresher.Lease<Snapshot> third = refresher.refresh();
+    assertSame(b, third.get());
+    refresher.close();
+    assertEquals(0, b.closed.get());
+    assertNull(refresher.getSnapshot());
+    third.release();
+    assertEquals(1, b.closed.get());
+  }
+
+  @Test
+  public void testStatic() throws Exception {
+    Refresher refresher = new Refresher(RunMode.PROD, 0);
+    refresher.refresh().release();
+    refresher.changed = true;
+    refresher.refresh().release();
+    refresher.refresh().release();
+    assertEquals(1, refresher.refreshes.get());
+    assertEquals(1, refresher.snapshots.size());
+  }
+
+  @Test
+  public void testRefreshInterval() throws Exception {
+    Refresher refresher = new Refresher(RunMode.LIVE, 60 * 60 * 1000);
+    refresher.refresh().release();
+    refresher.changed = true;
+    refresher.refresh().release();
+    refresher.refresh().release();
+    assertEquals(1, refresher.refreshes.get());
+    assertEquals(1, refresher.snapshots.size());
+
+    //
+    refresher = new Refresher(RunMode.LIVE, 0);
+    refresher.refresh().release();
+    refresher.changed = true;
+    refresher.refresh().release();
+    refresher.refresh().release();
+    assertEquals(3, refresher.refreshes.get());
+    assertEquals(3, refresher.snapshots.size());
+  }
+
+  @Test
+  public void testConcurrentRefresh() throws Exception {
+    final Refresher refresher = new Refresher(RunMode.LIVE, 0);
+    refresher.changed = true;
+    final AtomicReference<String> failure = new AtomicReference<String>();
+    final CountDownLatch start = new CountDownLatch(1);
+    Thread[] threads = new Thread[8];
+    for (int i = 0;i < threads.length;i++) {
+      threads[i] = new Thread() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+            for (int j = 0;j < 1000;j++) {
+              HandlerRefresher.Lease<Snapshot> lease = refresher.refresh();
+              try {
+                if (lease.get().closed.get() > 0) {
+                  failure.compareAndSet(null, "Leased a closed snapshot");
+                }
+                Thread.yield();
+                if (lease.get().closed.get() > 0) {
+                  failure.compareAndSet(null, "Snapshot closed during a request");
+                }
+              }
+              finally {
+                lease.release();
+              }
+            }
+          }
+          catch (Exception e) {
+            failure.compareAndSet(null, e.getMessage());
+          }
+        }
+      };
+      threads[i].start();
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    refresher.close();
+
+    //
+    assertNull(failure.get());
+    assertFalse(refresher.overlapped.get());
+    assertTrue(refresher.snapshots.size() > 1);
+    for (Snapshot snapshot : refresher.snapshots) {
+      assertEquals(1, snapshot.closed.get());
+    }
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.common;
+
+import juzu.request.RequestParameter;
+import juzu.test.AbstractTestCase;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+
+/** @author Julien Viet */
+public class FormURLEncodedStreamParserTestCase extends AbstractTestCase {
+
+  private static List<RequestParameter> parse(String form) throws IOException {
+    return parse(form, -1, -1, -1);
+  }
+
+  private static List<RequestParameter> parse(String form, long maxSize, int maxFields, int maxFieldLength) throws IOException {
+    FormURLEncodedStreamParser parser = new FormURLEncodedStreamParser(Tools.UTF_8, maxSize, maxFields, maxFieldLength);
+    return parser.parse(new ByteArrayInputStream(form.getBytes(Tools.UTF_8)));
+  }
+
+  @Test
+  public void testParse() throws Exception {
+    List<RequestParameter> parameters = parse("a=b&c=d+e&f=%C3%A9%20g&h");
+    assertEquals(4, parameters.size());
+    assertEquals("a", parameters.get(0).getName());
+    assertEquals("b", parameters.get(0).getValue());
+    assertEquals("d e", parameters.get(1).getValue());
+    assertEquals("d+e", parameters.get(1).getRaw(0));
+    assertEquals("é g", parameters.get(2).getValue());
+    assertEquals("%C3%A9%20g", parameters.get(2).getRaw(0));
+    assertEquals("h", parameters.get(3).getName());
+    assertEquals("", parameters.get(3).getValue());
+  }
+
+  @Test
+  public void testEncodedName() throws Exception {
+    List<RequestParameter> parameters = parse("a%3Db=c=d");
+    assertEquals(1, parameters.size());
+    assertEquals("a=b", parameters.get(0).getName());
+    assertEquals("c=d", parameters.get(0).getValue());
+  }
+
+  @Test
+  public void testMalformed() throws Exception {
+    List<RequestParameter> parameters = parse("a=%&b=%zz&c=%4&&=e&f=g");
+    assertEquals(1, parameters.size());
+    assertEquals("f", parameters.get(0).getName());
+    assertEquals("g", parameters.get(0).getValue());
+  }
+
+  @Test
+  public void testEmpty() throws Exception {
+    assertEquals(0, parse("").size());
+  }
+
+  @Test
+  public void testMaxSize() throws Exception {
+    assertEquals(1, parse("a=bc", 4, -1, -1).size());
+    try {
+      parse("a=bcd", 4, -1, -1);
+      fail();
+    }
+    catch (FormURLEncodedStreamParser.LimitException expected) {
+      assertEquals(413, expected.getStatus());
+    }
+  }
+
+  @Test
+  public void testMaxFields() throws Exception {
+    assertEquals(2, parse("a=b&c=d", -1, 2, -1).size());
+    try {
+      parse("a=b&c=d&e=f", -1, 2, -1);
+      fail();
+    }
+    catch (FormURLEncodedStreamParser.LimitException expected) {
+      assertEquals(400, expected.getStatus());
+    }
+  }
+
+  @Test
+  public void testMaxFieldLength() throws Exception {
+    assertEquals(1, parse("abc=def", -1, -1, 3).size());
+    try {
+      parse("abcd=e", -1, -1, 3);
+      fail();
+    }
+    catch (FormURLEncodedStreamParser.LimitException expected) {
+      assertEquals(413, expected.getStatus());
+    }
+    try {
+      parse("a=%41%42", -1, -1, 3);
+      fail();
+    }
+    catch (FormURLEncodedStreamParser.LimitException expected) {
+      assertEquals(413, expected.getStatus());
+    }
+  }
+}
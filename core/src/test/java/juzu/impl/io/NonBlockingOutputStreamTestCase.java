@@ -0,0 +1,157 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.io;
+
+import juzu.impl.common.Tools;
+import juzu.test.AbstractTestCase;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/** @author Julien Viet */
+public class NonBlockingOutputStreamTestCase extends AbstractTestCase {
+
+  private static class Channel extends NonBlockingOutputStream {
+
+    /** . */
+    volatile boolean ready = true;
+
+    /** . */
+    final ByteArrayOutputStream written = new ByteArrayOutputStream();
+
+    /** . */
+    int completions;
+
+    Channel(int capacity) {
+      super(Tools.UTF_8, capacity);
+    }
+
+    @Override
+    protected boolean isReady() {
+      return ready;
+    }
+
+    @Override
+    protected void write(byte[] data) throws IOException {
+      written.write(data);
+    }
+
+    @Override
+    protected void completed() {
+      completions++;
+    }
+
+    String getWritten() {
+      return new String(written.toByteArray(), Tools.UTF_8);
+    }
+  }
+
+  @Test
+  public void testWriteThrough() throws Exception {
+    Channel channel = new Channel(16);
+    channel.append("foo");
+    assertEquals("foo", channel.getWritten());
+    assertEquals(0, channel.getQueued());
+    channel.close();
+    assertEquals(1, channel.completions);
+  }
+
+  @Test
+  public void testQueue() throws Exception {
+    Channel channel = new Channel(16);
+    channel.ready = false;
+    channel.append("foo");
+    channel.append("bar");
+    assertEquals("", channel.getWritten());
+    assertEquals(6, channel.getQueued());
+    channel.close();
+    assertEquals(0, channel.completions);
+    channel.ready = true;
+    channel.writePossible();
+    assertEquals("foobar", channel.getWritten());
+    assertEquals(0, channel.getQueued());
+    assertEquals(1, channel.completions);
+  }
+
+  @Test
+  public void testBackpressure() throws Exception {
+    final Channel channel = new Channel(4);
+    channel.ready = false;
+    channel.append("abcd");
+    final CountDownLatch done = new CountDownLatch(1);
+    Thread producer = new Thread() {
+      @Override
+      public void run() {
+        try {
+          channel.append("ef");
+          done.countDown();
+        }
+        catch (IOException ignore) {
+        }
+      }
+    };
+    producer.start();
+    assertFalse(done.await(100, TimeUnit.MILLISECONDS));
+    assertEquals(4, channel.getQueued());
+    channel.ready = true;
+    channel.writePossible();
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    producer.join();
+    assertEquals("abcdef", channel.getWritten());
+  }
+
+  @Test
+  public void testLargeChunk() throws Exception {
+    Channel channel = new Channel(2);
+    channel.ready = false;
+    channel.append("abcdef");
+    assertEquals(6, channel.getQueued());
+  }
+
+  @Test
+  public void testFailureReleasesProducer() throws Exception {
+    final Channel channel = new Channel(4);
+    channel.ready = false;
+    channel.append("abcd");
+    final AtomicReference<IOException> failure = new AtomicReference<IOException>();
+    final CountDownLatch done = new CountDownLatch(1);
+    Thread producer = new Thread() {
+      @Override
+      public void run() {
+        try {
+          channel.append("ef");
+        }
+        catch (IOException e) {
+          failure.set(e);
+        }
+        done.countDown();
+      }
+    };
+    producer.start();
+    assertFalse(done.await(100, TimeUnit.MILLISECONDS));
+    channel.failed(new Exception("broken pipe"));
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    assertNotNull(failure.get());
+    assertEquals(1, channel.completions);
+    channel.close();
+    assertEquals(1, channel.completions);
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.plugin.application;
+
+import juzu.impl.common.Resource;
+import juzu.impl.fs.spi.ram.RAMFileSystem;
+import juzu.test.AbstractTestCase;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/** @author Julien Viet */
+public class ApplicationClassFilterTestCase extends AbstractTestCase {
+
+  @Test
+  public void testModuleIndex() throws Exception {
+    RAMFileSystem classes = new RAMFileSystem();
+    classes.createDir(classes.makePath(Arrays.asList("app1")));
+    classes.createDir(classes.makePath(Arrays.asList("app2")));
+    classes.createDir(classes.makePath(Arrays.asList("other", "beans")));
+    classes.updateResource(classes.makePath(Arrays.asList("juzu", "config.json")), new Resource("{\"application\":{\"app1\":{},\"app2\":{}}}"));
+
+    // A class loader that cannot load anything, the module packages must be resolved without loading classes
+    ClassLoader loader = new ClassLoader(null) {
+      @Override
+      protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        if (name.startsWith("app") || name.startsWith("other")) {
+          throw new AssertionError("Should not load " + name);
+        }
+        throw new ClassNotFoundException(name);
+      }
+    };
+
+    //
+    ApplicationClassFilter filter = new ApplicationClassFilter("app1", loader, classes);
+    assertTrue(filter.accept("app1.Controller"));
+    assertTrue(filter.accept("app1.Controller$Inner"));
+    assertFalse(filter.accept("app2.Controller"));
+    assertTrue(filter.accept("other.beans.Bean"));
+    assertTrue(filter.accept("unknown.Bean"));
+    assertFalse(filter.accept("juzu.impl.Foo"));
+  }
+
+  @Test
+  public void testNoModuleIndex() throws Exception {
+    ApplicationClassFilter filter = new ApplicationClassFilter("app1", getClass().getClassLoader(), null);
+    assertTrue(filter.accept("app1.Controller"));
+    assertTrue(filter.accept("unknown.Bean"));
+    assertFalse(filter.accept("juzu.impl.Foo"));
+  }
+}
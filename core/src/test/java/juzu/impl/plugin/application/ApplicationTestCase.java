@@ -17,7 +17,10 @@
 package juzu.impl.plugin.application;
 
 import juzu.impl.compiler.CompilationError;
+import juzu.impl.inject.spi.InjectorProvider;
+import juzu.impl.inject.spi.Injector;
 import juzu.impl.plugin.application.descriptor.ApplicationDescriptor;
+import juzu.impl.plugin.controller.ControllerService;
 import juzu.impl.plugin.controller.descriptor.ControllersDescriptor;
 import juzu.impl.request.ControllerHandler;
 import juzu.test.AbstractTestCase;
@@ -25,6 +28,7 @@ import juzu.test.CompilerAssert;
 import org.junit.Test;
 
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
 public class ApplicationTestCase extends AbstractTestCase {
@@ -42,6 +46,33 @@ public class ApplicationTestCase extends AbstractTestCase {
     assertSame(aClass, controller.getDefaultController());
   }
 
+  @Test
+  public void testParallelStart() throws Exception {
+    CompilerAssert<?, ?> compiler = compiler("plugin.application.default_controller");
+    compiler.assertCompile();
+    Class<?> appClass = compiler.assertClass("plugin.application.default_controller.Application");
+    Class<?> aClass = compiler.assertClass("plugin.application.default_controller.A");
+
+    //
+    Injector injector = InjectorProvider.GUICE.get();
+    injector.addFileSystem(compiler.getClassOutput());
+    injector.setClassLoader(compiler.getClassLoader());
+    Application application = new Application(injector, ApplicationDescriptor.create(appClass), null, compiler.getClassOutput());
+    ForkJoinPool pool = new ForkJoinPool();
+    try {
+      application.start(pool);
+    }
+    finally {
+      pool.shutdown();
+    }
+
+    //
+    ControllerService controller = application.resolveBean(ControllerService.class);
+    assertSame(aClass, controller.getDescriptor().getDefaultController());
+    assertTrue(application.getStartTimeline().containsKey("controller"));
+    assertTrue(application.getStartTimeline().containsKey("injector"));
+  }
+
   public void _testMethodId() throws Exception {
     CompilerAssert<?, ?> compiler = compiler("plugin.application.method.id");
     compiler.assertCompile();
@@ -40,12 +40,8 @@ public abstract class AbstractAssetTestCase extends AbstractWebTestCase {
 
   protected abstract String getExpectedAsset();
 
-  protected int getExpectedMaxAge() {
-    return 3600;
-  }
-
   protected String getExpectedCacheControl() {
-    return "max-age=" + getExpectedMaxAge();
+    return "public, max-age=31536000, immutable";
   }
 
   protected String getExpectedContent() {
@@ -67,7 +63,8 @@ public abstract class AbstractAssetTestCase extends AbstractWebTestCase {
         throw failure("Was expecting scripts to match the single asset " + expected + " instead of being " + scripts);
       } else {
         String src  = scripts.get(0).getAttribute("src");
-        assertTrue("Was expecting " + src + " to end with " + expected, src.endsWith(expected));
+        String unfingerprinted = src.replaceFirst("\\.[0-9a-f]+(\\.[^./]+)$", "$1");
+        assertTrue("Was expecting " + src + " to end with " + expected, unfingerprinted.endsWith(expected));
         url = new URL(url, src);
         HttpGet get = new HttpGet(url.toURI());
         HttpResponse response = HttpClientBuilder.create().build().execute(get);
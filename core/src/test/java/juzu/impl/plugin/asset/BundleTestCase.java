@@ -0,0 +1,85 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.plugin.asset;
+
+import juzu.impl.asset.Asset;
+import juzu.impl.asset.AssetBundle;
+import juzu.impl.asset.AssetManager;
+import juzu.impl.common.Tools;
+import juzu.impl.compiler.CompilationError;
+import juzu.impl.inject.spi.InjectorProvider;
+import juzu.test.AbstractInjectTestCase;
+import juzu.test.CompilerAssert;
+import juzu.test.protocol.mock.MockApplication;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/** @author Julien Viet */
+public class BundleTestCase extends AbstractInjectTestCase {
+
+  public BundleTestCase(InjectorProvider di) {
+    super(di);
+  }
+
+  @Test
+  public void testCompile() throws Exception {
+    CompilerAssert<File, File> compiler = compiler("plugin.asset.bundle.declared");
+    compiler.assertCompile();
+    File bundle = compiler.getClassOutput().getPath("plugin", "asset", "bundle", "declared", "assets", "bundles", "main.js");
+    assertNotNull(bundle);
+    assertEquals("var a = 0;\n;\nvar b = a;", Tools.read(bundle));
+  }
+
+  @Test
+  public void testInvalid() throws Exception {
+    CompilerAssert<?, ?> compiler = compiler("plugin.asset.bundle.invalid");
+    compiler.formalErrorReporting();
+    List<CompilationError> errors = compiler.failCompile();
+    assertEquals(1, errors.size());
+    CompilationError error = errors.get(0);
+    assertEquals(AssetMetaModelPlugin.INVALID_ASSET_BUNDLE, error.getCode());
+  }
+
+  @Test
+  public void testRuntime() throws Exception {
+    MockApplication<?> app = application("plugin.asset.bundle.declared").init();
+    AssetService service = app.getContext().resolveBean(AssetService.class);
+    assertTrue(service.getBundleAssets());
+    AssetManager manager = service.getAssetManager();
+
+    // Declared bundle
+    List<Asset> scripts = Tools.list(manager.bundleAssets(manager.resolveAssets(Collections.singletonList("b")), false));
+    assertEquals(1, scripts.size());
+    AssetBundle bundle = manager.getBundle(scripts.get(0).getURI());
+    assertNotNull(bundle);
+    assertEquals("var a = 0;\n;\nvar b = a;", new String(bundle.getContent(), Tools.UTF_8));
+
+    // Ad-hoc bundle
+    List<Asset> stylesheets = Tools.list(manager.bundleAssets(manager.resolveAssets(Arrays.asList("d")), false));
+    assertEquals(1, stylesheets.size());
+    Asset stylesheet = stylesheets.get(0);
+    assertTrue(stylesheet.isStylesheet());
+    assertTrue(stylesheet.getURI().startsWith("/plugin/asset/bundle/declared/assets/bundle-"));
+    assertTrue(stylesheet.getURI().endsWith(".css"));
+    assertEquals(".c {}\n.d {}", new String(manager.getBundle(stylesheet.getURI()).getContent(), Tools.UTF_8));
+    assertSame(stylesheets.get(0), Tools.list(manager.bundleAssets(manager.resolveAssets(Arrays.asList("d")), false)).get(0));
+  }
+}
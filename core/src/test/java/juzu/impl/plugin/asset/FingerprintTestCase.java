@@ -0,0 +1,67 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.plugin.asset;
+
+import juzu.impl.asset.Asset;
+import juzu.impl.asset.AssetManager;
+import juzu.impl.asset.AssetResource;
+import juzu.impl.common.JSON;
+import juzu.impl.common.Tools;
+import juzu.impl.inject.spi.InjectorProvider;
+import juzu.test.AbstractInjectTestCase;
+import juzu.test.CompilerAssert;
+import juzu.test.protocol.mock.MockApplication;
+import org.junit.Test;
+
+import java.io.File;
+
+/** @author Julien Viet */
+public class FingerprintTestCase extends AbstractInjectTestCase {
+
+  public FingerprintTestCase(InjectorProvider di) {
+    super(di);
+  }
+
+  @Test
+  public void testCompile() throws Exception {
+    CompilerAssert<File, File> compiler = compiler("plugin.asset.fingerprint");
+    compiler.assertCompile();
+    File config = compiler.getClassOutput().getPath("plugin", "asset", "fingerprint", "config.json");
+    JSON asset = ((JSON)JSON.parse(Tools.read(config))).getJSON("asset").getJSON("assets").getJSON("a");
+    assertEquals(Long.toHexString(Tools.md5("var a = 0;".getBytes(Tools.UTF_8))), asset.getString("hash"));
+    assertEquals(Long.toHexString(Tools.md5("var a=0;".getBytes(Tools.UTF_8))), asset.getString("minified-hash"));
+  }
+
+  @Test
+  public void testRuntime() throws Exception {
+    MockApplication<?> app = application("plugin.asset.fingerprint").init();
+    AssetManager manager = app.getContext().resolveBean(AssetService.class).getAssetManager();
+    Asset asset = manager.getAsset("a");
+    String hash = Long.toHexString(Tools.md5("var a = 0;".getBytes(Tools.UTF_8)));
+    String minifiedHash = Long.toHexString(Tools.md5("var a=0;".getBytes(Tools.UTF_8)));
+    assertEquals("/plugin/asset/fingerprint/assets/a.js", asset.resolveURI(false, false));
+    assertEquals("/plugin/asset/fingerprint/assets/a." + hash + ".js", asset.resolveURI(false, true));
+    assertEquals("/plugin/asset/fingerprint/assets/a-min." + minifiedHash + ".js", asset.resolveURI(true, true));
+
+    // Fingerprinted urls are served as immutable resources
+    AssetResource resource = manager.resolveApplicationAssetResource(asset.resolveURI(false, true));
+    assertNotNull(resource);
+    assertTrue(resource.immutable);
+    assertEquals("var a = 0;", Tools.read(resource.url));
+    assertFalse(manager.resolveApplicationAssetResource(asset.resolveURI(false, false)).immutable);
+  }
+}
@@ -33,7 +33,7 @@ public class MaxAgeTestCase extends AbstractAssetTestCase {
   }
 
   @Override
-  protected int getExpectedMaxAge() {
-    return 1000;
+  protected String getExpectedCacheControl() {
+    return "max-age=1000";
   }
 }
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.plugin.asset;
+
+import juzu.test.AbstractWebTestCase;
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.Test;
+
+/** @author Julien Viet */
+public class PreloadTestCase extends AbstractWebTestCase {
+
+  @Deployment(testable = false)
+  public static WebArchive createDeployment() {
+    return createServletDeployment(true, "plugin.asset.preload");
+  }
+
+  @Test
+  public void testPreload() throws Exception {
+    HttpGet get = new HttpGet(applicationURL().toURI());
+    HttpResponse response = HttpClientBuilder.create().build().execute(get);
+    assertEquals(200, response.getStatusLine().getStatusCode());
+    Header[] headers = response.getHeaders("Link");
+    assertEquals(1, headers.length);
+    String link = headers[0].getValue();
+    assertTrue("Was expecting " + link + " to preload the script", link.matches(".*<[^>]*/test\\.[0-9a-f]+\\.js>; rel=preload; as=script.*"));
+    assertTrue("Was expecting " + link + " to preload the stylesheet", link.matches(".*<[^>]*/main\\.[0-9a-f]+\\.css>; rel=preload; as=style.*"));
+  }
+}
@@ -245,6 +245,18 @@ public class TagTestCase extends AbstractInjectTestCase {
     assertEquals("foothe_tagbar", out);
   }
 
+  @Test
+  public void testSimpleWarmUp() throws Exception {
+    MockApplication<?> app = application("plugin.template.tag.simple.render").init();
+    TemplateService templates = app.getLifeCycle().resolveBean(TemplateService.class);
+    assertEquals(Arrays.asList("plugin.template.tag.simple.render.tags.foo"), templates.getDescriptor().getTags());
+    templates.warmUp(null);
+    MockClient client = app.client();
+    MockViewBridge render = client.render();
+    String out = render.assertStringResponse();
+    assertEquals("foothe_tagbar", out);
+  }
+
   @Test
   public void testSimpleParameters() throws Exception {
     MockApplication<?> app = application("plugin.template.tag.simple.parameters").init();
@@ -22,6 +22,8 @@ import juzu.impl.compiler.Compiler;
 import juzu.impl.fs.spi.ReadFileSystem;
 import juzu.impl.inject.spi.InjectorProvider;
 import juzu.impl.plugin.template.metamodel.TemplateMetaModel;
+import juzu.impl.template.spi.juzu.dialect.gtmpl.GroovyTemplateProvider;
+import juzu.impl.template.spi.juzu.dialect.gtmpl.GroovyTemplateStub;
 import juzu.test.AbstractInjectTestCase;
 import juzu.test.CompilerAssert;
 import juzu.test.protocol.mock.MockApplication;
@@ -131,6 +133,43 @@ public class TemplateTestCase extends AbstractInjectTestCase {
     assertEquals("(the_key_en,)", client.render().assertStringResponse());
   }
 
+  @Test
+  public void testCompileStatic() throws Exception {
+    MockApplication<?> app = application("plugin.template.compilestatic").init();
+    MockClient client = app.client();
+    assertEquals("WORLDWORLD5", client.render().assertStringResponse());
+    assertEquals("5", client.render("untyped").assertStringResponse());
+
+    //
+    TemplateService templates = app.getLifeCycle().resolveBean(TemplateService.class);
+    assertTrue(((GroovyTemplateStub)templates.resolveTemplateStub("index.gtmpl")).getCompileStatic());
+    assertFalse(((GroovyTemplateStub)templates.resolveTemplateStub("untyped.gtmpl")).getCompileStatic());
+  }
+
+  @Test
+  public void testPrecompileCompileStatic() throws Exception {
+    MockApplication<File> app = application("plugin.template.compilestatic").init();
+    ReadFileSystem<File> fs = app.getClasses();
+    assertNull(fs.getPath("plugin", "template", "compilestatic", "templates", "index_static.groovy"));
+    assertNotNull(fs.getPath("plugin", "template", "compilestatic", "templates", "index_static." + GroovyTemplateProvider.STATIC_EXTENSION));
+
+    // Precompile the groovy files like a build would do
+    File groovy = fs.getPath("plugin", "template", "compilestatic", "templates", "index_.groovy");
+    assertNotNull(groovy);
+    CompilerConfiguration config = new CompilerConfiguration();
+    config.setTargetDirectory(fs.getRoot());
+    CompilationUnit cu = new CompilationUnit(config);
+    cu.addSource(groovy);
+    cu.compile();
+    assertTrue(groovy.delete());
+
+    // The static script is still compiled when the template is loaded
+    MockClient client = app.client();
+    assertEquals("WORLDWORLD5", client.render().assertStringResponse());
+    TemplateService templates = app.getLifeCycle().resolveBean(TemplateService.class);
+    assertTrue(((GroovyTemplateStub)templates.resolveTemplateStub("index.gtmpl")).getCompileStatic());
+  }
+
   @Test
   public void testPrecompileGroovy() throws Exception {
     MockApplication<File> app = application("plugin.template.simple").init();
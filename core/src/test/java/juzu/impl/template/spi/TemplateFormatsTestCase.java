@@ -0,0 +1,65 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.template.spi;
+
+import juzu.test.AbstractTestCase;
+import org.junit.Test;
+
+import java.text.DateFormat;
+import java.text.NumberFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/** @author Julien Viet */
+public class TemplateFormatsTestCase extends AbstractTestCase {
+
+  @Test
+  public void testCache() throws Exception {
+    assertSame(TemplateFormats.get(Locale.FRANCE), TemplateFormats.get(Locale.FRANCE));
+    assertNotSame(TemplateFormats.get(Locale.FRANCE), TemplateFormats.get(Locale.ENGLISH));
+    try {
+      TemplateFormats.get(null);
+      fail();
+    }
+    catch (NullPointerException expected) {
+    }
+  }
+
+  @Test
+  public void testNormalize() throws Exception {
+    TemplateFormats formats = TemplateFormats.get(new Locale("fr", "FR", "RANDOM"));
+    assertSame(TemplateFormats.get(Locale.FRANCE), formats);
+    assertEquals(Locale.FRANCE, formats.getLocale());
+
+    // Not cached
+    Locale unknown = new Locale("xx", "YY");
+    assertNotSame(TemplateFormats.get(unknown), TemplateFormats.get(unknown));
+    assertEquals(unknown, TemplateFormats.get(unknown).getLocale());
+  }
+
+  @Test
+  public void testFormat() throws Exception {
+    TemplateFormats formats = TemplateFormats.get(Locale.FRANCE);
+    Date date = new Date(0);
+    assertEquals(DateFormat.getDateInstance(DateFormat.MEDIUM, Locale.FRANCE).format(date), formats.formatDate(date));
+    assertEquals(formats.formatDate(date), formats.format(date));
+    assertEquals(NumberFormat.getInstance(Locale.FRANCE).format(1234.5), formats.formatNumber(1234.5));
+    assertEquals(5, formats.format(5));
+    assertEquals("a 1 b", formats.formatMessage("a {0} b", 1));
+    assertEquals("a 2 b", formats.formatMessage("a {0} b", 2));
+  }
+}
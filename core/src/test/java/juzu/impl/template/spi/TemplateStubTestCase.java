@@ -0,0 +1,125 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.template.spi;
+
+import juzu.template.TemplateRenderContext;
+import juzu.test.AbstractTestCase;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/** @author Julien Viet */
+public class TemplateStubTestCase extends AbstractTestCase {
+
+  static class Stub extends TemplateStub {
+
+    /** . */
+    final CountDownLatch started = new CountDownLatch(1);
+
+    /** . */
+    final CountDownLatch proceed = new CountDownLatch(1);
+
+    /** . */
+    final AtomicInteger inits = new AtomicInteger();
+
+    Stub() {
+      super(Stub.class.getClassLoader(), "stub");
+    }
+
+    @Override
+    protected void doInit(ClassLoader loader) {
+      int count = inits.incrementAndGet();
+      started.countDown();
+      try {
+        proceed.await();
+      }
+      catch (InterruptedException e) {
+        throw new AssertionError(e);
+      }
+      if (count == 1) {
+        throw new IllegalStateException("failed");
+      }
+    }
+
+    @Override
+    protected void doRender(TemplateRenderContext renderContext) {
+    }
+  }
+
+  @Test
+  public void testFailureIsPropagatedToWaiters() throws Exception {
+    final Stub stub = new Stub();
+    final AtomicReference<Throwable> initializer = new AtomicReference<Throwable>();
+    final AtomicReference<Throwable> waiter = new AtomicReference<Throwable>();
+    Thread t1 = new Thread() {
+      @Override
+      public void run() {
+        try {
+          stub.init();
+        }
+        catch (Throwable t) {
+          initializer.set(t);
+        }
+      }
+    };
+    t1.start();
+    assertTrue(stub.started.await(10, TimeUnit.SECONDS));
+    Thread t2 = new Thread() {
+      @Override
+      public void run() {
+        try {
+          stub.init();
+        }
+        catch (Throwable t) {
+          waiter.set(t);
+        }
+      }
+    };
+    t2.start();
+    while (t2.getState() != Thread.State.WAITING) {
+      Thread.sleep(1);
+    }
+    stub.proceed.countDown();
+    t1.join();
+    t2.join();
+    assertEquals("failed", initializer.get().getMessage());
+    assertSame(initializer.get(), waiter.get());
+    assertEquals(1, stub.inits.get());
+    assertEquals(-1, stub.getInitializationTime());
+
+    // Retry
+    stub.init();
+    assertEquals(2, stub.inits.get());
+    assertTrue(stub.getInitializationTime() >= 0);
+    stub.init();
+    assertEquals(2, stub.inits.get());
+  }
+
+  @Test
+  public void testRenderNotInitialized() throws Exception {
+    Stub stub = new Stub();
+    try {
+      stub.render(null);
+      fail();
+    }
+    catch (IllegalStateException expected) {
+    }
+  }
+}
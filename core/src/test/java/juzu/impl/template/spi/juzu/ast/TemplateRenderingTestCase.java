@@ -16,6 +16,7 @@
 
 package juzu.impl.template.spi.juzu.ast;
 
+import groovy.lang.Closure;
 import juzu.impl.common.Tools;
 import juzu.impl.template.spi.TemplateException;
 import juzu.impl.template.spi.juzu.dialect.gtmpl.GroovyTemplateStub;
@@ -34,6 +35,7 @@ import java.util.EmptyStackException;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 /** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
 public class TemplateRenderingTestCase extends AbstractTemplateTestCase {
@@ -89,6 +91,13 @@ public class TemplateRenderingTestCase extends AbstractTemplateTestCase {
     assertEquals(dateToTest.toString(), render(template));
   }
 
+  @Test
+  public void testDate4() throws Exception {
+    Date dateToTest = new Date(0);
+    String template = "<% def s = \"${new Date(0)}\"; out.print(s); %>-<% print(s.toString()); %>";
+    assertEquals(dateFormatFR.format(dateToTest) + "-" + dateToTest.toString(), render(template, Locale.FRENCH));
+  }
+
   @Test
   public void testFoo() throws Exception {
     String template = "a";
@@ -368,6 +377,62 @@ public class TemplateRenderingTestCase extends AbstractTemplateTestCase {
     assertNotNull(out);
   }
 
+  @Test
+  public void testConcurrentRender() throws Exception {
+    final GroovyTemplateStub template = template("<% a = foo %>${a}");
+    final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+    Thread[] threads = new Thread[4];
+    for (int i = 0;i < threads.length;i++) {
+      final String value = "" + i;
+      threads[i] = new Thread() {
+        @Override
+        public void run() {
+          try {
+            for (int j = 0;j < 100;j++) {
+              Map<String, Object> attributes = new HashMap<String, Object>();
+              attributes.put("foo", value);
+              StringWriter writer = new StringWriter();
+              new TemplateRenderContext(template, attributes).render(OutputStream.create(Tools.UTF_8, writer));
+              assertEquals(value, writer.toString());
+            }
+          }
+          catch (Throwable t) {
+            failure.compareAndSet(null, t);
+          }
+        }
+      };
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    if (failure.get() != null) {
+      throw new AssertionError(failure.get());
+    }
+  }
+
+  @Test
+  public void testClosureAfterRender() throws Exception {
+    Map<String, Object> attributes = new HashMap<String, Object>();
+    attributes.put("foo", "bar");
+    assertEquals("", render("<% closure = { -> foo } %>", attributes));
+    Closure<?> closure = (Closure<?>)attributes.get("closure");
+    assertEquals("bar", closure.call());
+  }
+
+  @Test
+  public void testCallClosureAttribute() throws Exception {
+    Map<String, Object> attributes = new HashMap<String, Object>();
+    attributes.put("foo", new Closure<String>(null) {
+      public String doCall(Object arg) {
+        return "<" + arg + ">";
+      }
+    });
+    assertEquals("<bar>", render("${foo('bar')}", attributes));
+  }
+
   private void assertLineNumber(int expectedLineNumber, String expectedText, String script) throws IOException, TemplateException {
     GroovyTemplateStub template = template(script);
     try {
@@ -379,7 +444,7 @@ public class TemplateRenderingTestCase extends AbstractTemplateTestCase {
       assertEquals(expectedLineNumber, (Object)t.getLineNumber());
       StackTraceElement scriptElt = null;
       for (StackTraceElement elt : t.getCause().getStackTrace()) {
-        if (elt.getClassName().equals(template.getClassName())) {
+        if (elt.getClassName().startsWith(template.getClassName() + "$")) {
           scriptElt = elt;
           break;
         }
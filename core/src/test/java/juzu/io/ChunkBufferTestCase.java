@@ -20,6 +20,14 @@ import org.junit.Test;
 
 import java.util.Arrays;
 import java.util.LinkedList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /** @author Julien Viet */
 public class ChunkBufferTestCase extends AbstractTestCase {
@@ -78,4 +86,222 @@ public class ChunkBufferTestCase extends AbstractTestCase {
     assertTrue(consumer.closed);
     assertEquals(Arrays.asList(chunk1, chunk2), consumer);
   }
+
+  @Test
+  public void testAlreadyConsumed() {
+    ChunkBuffer buffer = new ChunkBuffer();
+    buffer.send(new Consumer());
+    try {
+      buffer.send(new Consumer());
+      fail();
+    }
+    catch (IllegalStateException ignore) {
+    }
+  }
+
+  @Test
+  public void testAppendClosed() {
+    ChunkBuffer buffer = new ChunkBuffer();
+    buffer.close();
+    try {
+      buffer.append(chunk1);
+      fail();
+    }
+    catch (IllegalArgumentException ignore) {
+    }
+  }
+
+  @Test
+  public void testConcurrentProducers() throws Exception {
+    final ChunkBuffer buffer = new ChunkBuffer();
+    final AtomicInteger received = new AtomicInteger();
+    final CountDownLatch closed = new CountDownLatch(1);
+    buffer.send(new Stream() {
+      public void provide(Chunk chunk) {
+        received.incrementAndGet();
+      }
+      public void close(Thread.UncaughtExceptionHandler errorHandler) {
+        closed.countDown();
+      }
+    });
+    Thread[] producers = new Thread[4];
+    for (int i = 0;i < producers.length;i++) {
+      producers[i] = new Thread() {
+        @Override
+        public void run() {
+          for (int j = 0;j < 1000;j++) {
+            buffer.append(chunk1);
+          }
+        }
+      };
+      producers[i].start();
+    }
+    for (Thread producer : producers) {
+      producer.join();
+    }
+    buffer.close();
+    assertTrue(closed.await(10, TimeUnit.SECONDS));
+    assertEquals(4000, received.get());
+  }
+
+  @Test
+  public void testConcurrentAppendAndClose() throws Exception {
+    for (int k = 0;k < 100;k++) {
+      final ChunkBuffer buffer = new ChunkBuffer();
+      final AtomicInteger received = new AtomicInteger();
+      final AtomicInteger appended = new AtomicInteger();
+      final CountDownLatch closed = new CountDownLatch(1);
+      buffer.send(new Stream() {
+        public void provide(Chunk chunk) {
+          received.incrementAndGet();
+        }
+        public void close(Thread.UncaughtExceptionHandler errorHandler) {
+          closed.countDown();
+        }
+      });
+      Thread[] producers = new Thread[4];
+      for (int i = 0;i < producers.length;i++) {
+        producers[i] = new Thread() {
+          @Override
+          public void run() {
+            try {
+              for (int j = 0;j < 1000;j++) {
+                buffer.append(chunk1);
+                appended.incrementAndGet();
+              }
+            }
+            catch (IllegalArgumentException closed) {
+              // Appended after close
+            }
+          }
+        };
+        producers[i].start();
+      }
+      Thread.yield();
+      buffer.close();
+      for (Thread producer : producers) {
+        producer.join();
+      }
+      assertTrue(closed.await(10, TimeUnit.SECONDS));
+      assertEquals(appended.get(), received.get());
+    }
+  }
+
+  @Test
+  public void testBackpressure() throws Exception {
+    final ChunkBuffer buffer = new ChunkBuffer(null, 1);
+    final CountDownLatch blocked = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final Consumer consumer = new Consumer() {
+      @Override
+      public void provide(Chunk chunk) {
+        if (chunk == chunk1) {
+          blocked.countDown();
+          try {
+            release.await();
+          }
+          catch (InterruptedException ignore) {
+          }
+        }
+        super.provide(chunk);
+      }
+    };
+    buffer.send(consumer);
+    Thread drainer = new Thread() {
+      @Override
+      public void run() {
+        buffer.append(chunk1);
+      }
+    };
+    drainer.start();
+    assertTrue(blocked.await(10, TimeUnit.SECONDS));
+    final CountDownLatch appended = new CountDownLatch(2);
+    Thread producer = new Thread() {
+      @Override
+      public void run() {
+        buffer.append(chunk2);
+        appended.countDown();
+        buffer.append(chunk2);
+        appended.countDown();
+      }
+    };
+    producer.start();
+    assertFalse(appended.await(100, TimeUnit.MILLISECONDS));
+    assertEquals(1, appended.getCount());
+    release.countDown();
+    assertTrue(appended.await(10, TimeUnit.SECONDS));
+    drainer.join();
+    producer.join();
+    buffer.close();
+    assertEquals(Arrays.asList(chunk1, chunk2, chunk2), consumer);
+    assertTrue(consumer.closed);
+  }
+
+  @Test
+  public void testOutputExecutor() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      final ChunkBuffer buffer = new ChunkBuffer();
+      final Thread producer = Thread.currentThread();
+      final AtomicBoolean drainedByProducer = new AtomicBoolean();
+      final CountDownLatch blocked = new CountDownLatch(1);
+      final CountDownLatch release = new CountDownLatch(1);
+      final Consumer consumer = new Consumer() {
+        @Override
+        public void provide(Chunk chunk) {
+          if (chunk == chunk1) {
+            if (Thread.currentThread() == producer) {
+              drainedByProducer.set(true);
+            }
+            blocked.countDown();
+            try {
+              release.await();
+            }
+            catch (InterruptedException ignore) {
+            }
+          }
+          super.provide(chunk);
+        }
+      };
+      final CountDownLatch closed = new CountDownLatch(1);
+      buffer.send(new Stream() {
+        public void provide(Chunk chunk) {
+          consumer.provide(chunk);
+        }
+        public void close(Thread.UncaughtExceptionHandler errorHandler) {
+          consumer.close(errorHandler);
+          closed.countDown();
+        }
+      }, executor);
+
+      // The producer only enqueues while the consumer is blocked
+      buffer.append(chunk1);
+      assertTrue(blocked.await(10, TimeUnit.SECONDS));
+      buffer.append(chunk2);
+      buffer.close();
+      assertFalse(drainedByProducer.get());
+      assertEquals(1, closed.getCount());
+      release.countDown();
+      assertTrue(closed.await(10, TimeUnit.SECONDS));
+      assertEquals(Arrays.asList(chunk1, chunk2), consumer);
+    }
+    finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testRejectedOutputExecutor() {
+    ChunkBuffer buffer = new ChunkBuffer();
+    Consumer consumer = new Consumer();
+    buffer.send(consumer, new Executor() {
+      public void execute(Runnable command) {
+        throw new RejectedExecutionException();
+      }
+    });
+    buffer.append(chunk1);
+    buffer.close();
+    assertTrue(consumer.closed);
+    assertEquals(Arrays.asList(chunk1), consumer);
+  }
 }
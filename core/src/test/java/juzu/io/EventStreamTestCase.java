@@ -0,0 +1,168 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.io;
+
+import juzu.test.AbstractTestCase;
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+import java.util.LinkedList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+/** @author Julien Viet */
+public class EventStreamTestCase extends AbstractTestCase {
+
+  static class ManualExecutor extends LinkedList<Runnable> implements Executor {
+    public void execute(Runnable command) {
+      add(command);
+    }
+    void runAll() {
+      while (size() > 0) {
+        removeFirst().run();
+      }
+    }
+  }
+
+  static class Client implements Stream {
+
+    /** . */
+    final StringBuilder received = new StringBuilder();
+
+    /** . */
+    boolean closed;
+
+    public void provide(Chunk chunk) {
+      received.append(new String(((Chunk.Data.Bytes)chunk).data, Charset.forName("UTF-8")));
+    }
+
+    public void close(Thread.UncaughtExceptionHandler errorHandler) {
+      closed = true;
+    }
+  }
+
+  @Test
+  public void testFormat() {
+    assertEquals("data: foo\n\n", EventStream.format(null, null, "foo"));
+    assertEquals("data: \n\n", EventStream.format(null, null, ""));
+    assertEquals("id: 1\nevent: update\ndata: foo\n\n", EventStream.format("1", "update", "foo"));
+    assertEquals("data: a\ndata: b\ndata: c\ndata: \n\n", EventStream.format(null, null, "a\nb\r\nc\r"));
+  }
+
+  @Test
+  public void testInvalidField() {
+    try {
+      EventStream.format("1\n", null, "foo");
+      fail();
+    }
+    catch (IllegalArgumentException ignore) {
+    }
+    try {
+      EventStream.format(null, null, null);
+      fail();
+    }
+    catch (NullPointerException ignore) {
+    }
+  }
+
+  @Test
+  public void testPublish() {
+    ManualExecutor executor = new ManualExecutor();
+    EventStream stream = new EventStream(executor, 10);
+    assertTrue(stream.publish("foo"));
+    Client client = new Client();
+    stream.send(client);
+    assertEquals(":\n\n", client.received.toString());
+    executor.runAll();
+    assertEquals(":\n\ndata: foo\n\n", client.received.toString());
+    assertTrue(stream.publish("update", "bar"));
+    executor.runAll();
+    assertEquals(":\n\ndata: foo\n\nevent: update\ndata: bar\n\n", client.received.toString());
+    assertFalse(client.closed);
+    stream.close();
+    assertFalse(stream.publish("juu"));
+    executor.runAll();
+    assertTrue(client.closed);
+  }
+
+  @Test
+  public void testHeartbeat() {
+    ManualExecutor executor = new ManualExecutor();
+    EventStream stream = new EventStream(executor, 10);
+    Client client = new Client();
+    stream.send(client);
+    assertTrue(stream.heartbeat());
+    executor.runAll();
+    assertEquals(":\n\n:\n\n", client.received.toString());
+  }
+
+  @Test
+  public void testSlowConsumerEviction() {
+    ManualExecutor executor = new ManualExecutor();
+    EventStream stream = new EventStream(executor, 2);
+    Client client = new Client();
+    stream.send(client);
+    assertTrue(stream.publish("a"));
+    assertTrue(stream.publish("b"));
+    assertFalse(stream.publish("c"));
+    assertTrue(stream.isClosed());
+    executor.runAll();
+    assertEquals(":\n\n", client.received.toString());
+    assertTrue(client.closed);
+  }
+
+  @Test
+  public void testBroadcast() {
+    ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+    try {
+      EventBroadcaster broadcaster = new EventBroadcaster(executor, 2, 0, 0);
+      EventStream fast = broadcaster.connect();
+      EventStream slow = broadcaster.connect();
+      assertEquals(2, broadcaster.getSize());
+      broadcaster.publish("a");
+      broadcaster.publish("b");
+      broadcaster.publish("c");
+      // Neither stream is consumed yet, both are evicted
+      assertEquals(0, broadcaster.getSize());
+      assertTrue(fast.isClosed());
+      assertTrue(slow.isClosed());
+      EventStream other = broadcaster.connect();
+      other.close();
+      broadcaster.heartbeat();
+      assertEquals(0, broadcaster.getSize());
+    }
+    finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testLifetime() throws Exception {
+    ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+    try {
+      EventBroadcaster broadcaster = new EventBroadcaster(executor, 10, 0, 1);
+      EventStream stream = broadcaster.connect();
+      Thread.sleep(10);
+      broadcaster.heartbeat();
+      assertTrue(stream.isClosed());
+      assertEquals(0, broadcaster.getSize());
+    }
+    finally {
+      executor.shutdownNow();
+    }
+  }
+}
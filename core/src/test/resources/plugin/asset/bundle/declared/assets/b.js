@@ -0,0 +1 @@
+var b = a;
\ No newline at end of file
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+@Application
+@Scripts({
+    @Script(id = "a", value = "a.js"),
+    @Script(id = "b", value = "b.js", depends = "a")
+})
+@Stylesheets({
+    @Stylesheet(id = "c", value = "c.css"),
+    @Stylesheet(id = "d", value = "d.css", depends = "c")
+})
+@Bundles(@Bundle(id = "main", value = {"a", "b"}))
+package plugin.asset.bundle.declared;
+
+import juzu.Application;
+import juzu.plugin.asset.Bundle;
+import juzu.plugin.asset.Bundles;
+import juzu.plugin.asset.Script;
+import juzu.plugin.asset.Scripts;
+import juzu.plugin.asset.Stylesheet;
+import juzu.plugin.asset.Stylesheets;
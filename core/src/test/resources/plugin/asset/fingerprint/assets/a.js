@@ -0,0 +1 @@
+var a = 0;
\ No newline at end of file
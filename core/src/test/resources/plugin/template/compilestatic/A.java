@@ -0,0 +1,44 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package plugin.template.compilestatic;
+
+import juzu.Path;
+import juzu.Response;
+import juzu.View;
+
+import javax.inject.Inject;
+
+public class A {
+
+  @Inject
+  @Path("index.gtmpl")
+  plugin.template.compilestatic.templates.index index;
+
+  @Inject
+  @Path("untyped.gtmpl")
+  plugin.template.compilestatic.templates.untyped untyped;
+
+  @View
+  public Response.Content index() {
+    return index.with().name("world").count(2).ok();
+  }
+
+  @View(id = "untyped")
+  public Response.Content untyped() {
+    return untyped.with().name("world").ok();
+  }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.bridge.nio;
+
+import juzu.impl.bridge.spi.nio.NioBridge;
+import juzu.impl.bridge.spi.nio.NioServer;
+import juzu.impl.common.JUL;
+import juzu.impl.common.Logger;
+
+import java.io.Closeable;
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a Juzu application on an embedded HTTP server without a servlet container. The configuration uses the
+ * same parameters than the servlet bridge, for instance <code>juzu.app_name</code>, they are provided as
+ * <code>name=value</code> arguments or as system properties.
+ *
+ * @author Julien Viet
+ */
+public class JuzuServer implements Closeable {
+
+  /** The server port, <code>8080</code> by default. */
+  public static final String PORT = "juzu.port";
+
+  /** The server host, all interfaces by default. */
+  public static final String HOST = "juzu.host";
+
+  /** The number of worker threads. */
+  public static final String WORKERS = "juzu.workers";
+
+  /** The maximum size of a request in bytes, <code>2MB</code> by default. */
+  public static final String MAX_REQUEST_SIZE = "juzu.max_request_size";
+
+  /** The idle timeout of a connection in seconds, <code>30</code> by default. */
+  public static final String IDLE_TIMEOUT = "juzu.idle_timeout";
+
+  public static void main(String[] args) throws Exception {
+    Map<String, String> config = new HashMap<String, String>();
+    for (String arg : args) {
+      int pos = arg.indexOf('=');
+      if (pos == -1) {
+        System.err.println("Invalid argument " + arg + " should be name=value");
+        System.exit(1);
+      }
+      config.put(arg.substring(0, pos), arg.substring(pos + 1));
+    }
+    final JuzuServer server = new JuzuServer(config);
+    server.start();
+    Runtime.getRuntime().addShutdownHook(new Thread() {
+      @Override
+      public void run() {
+        server.close();
+      }
+    });
+  }
+
+  /** . */
+  private final Logger log = JUL.getLogger(JuzuServer.class.getName());
+
+  /** . */
+  private final Map<String, String> config;
+
+  /** . */
+  private ExecutorService workers;
+
+  /** . */
+  private ScheduledExecutorService scheduler;
+
+  /** Volatile for {@link #isReady()}. */
+  private volatile NioBridge bridge;
+
+  /** . */
+  private NioServer server;
+
+  /**
+   * Create a server, the configuration defaults to the system properties.
+   *
+   * @param config the configuration
+   */
+  public JuzuServer(Map<String, String> config) {
+    HashMap<String, String> copy = new HashMap<String, String>();
+    for (String name : System.getProperties().stringPropertyNames()) {
+      if (name.startsWith("juzu.")) {
+        copy.put(name, System.getProperty(name));
+      }
+    }
+    copy.putAll(config);
+    this.config = copy;
+  }
+
+  public synchronized void start() throws Exception {
+    if (server != null) {
+      throw new IllegalStateException("Already started");
+    }
+    int port = getInt(PORT, 8080);
+    String host = config.get(HOST);
+    InetSocketAddress address = host != null ? new InetSocketAddress(host, port) : new InetSocketAddress(port);
+    int size = getInt(WORKERS, Math.max(8, Runtime.getRuntime().availableProcessors() * 4));
+    workers = Executors.newFixedThreadPool(size, new Factory("juzu-nio-worker"));
+    scheduler = Executors.newSingleThreadScheduledExecutor(new Factory("juzu-nio-scheduler"));
+    try {
+      ClassLoader loader = Thread.currentThread().getContextClassLoader();
+      if (loader == null) {
+        loader = JuzuServer.class.getClassLoader();
+      }
+      bridge = new NioBridge(log, config, workers, loader);
+      server = new NioServer(log, address, workers, bridge, getInt(MAX_REQUEST_SIZE, 2 * 1024 * 1024), getInt(IDLE_TIMEOUT, 30) * 1000L);
+      server.start();
+    }
+    catch (Exception e) {
+      close();
+      throw e;
+    }
+    scheduler.scheduleWithFixedDelay(new Runnable() {
+      public void run() {
+        bridge.purgeSessions();
+      }
+    }, 1, 1, TimeUnit.MINUTES);
+  }
+
+  /**
+   * Returns true when the application is ready to serve requests, this method does not block and can be used
+   * by a health check.
+   *
+   * @return the readiness
+   */
+  public boolean isReady() {
+    NioBridge current = bridge;
+    return current != null && current.isReady();
+  }
+
+  /**
+   * @return the port the server is bound to
+   */
+  public synchronized int getPort() {
+    if (server == null) {
+      throw new IllegalStateException("Not started");
+    }
+    return server.getPort();
+  }
+
+  public synchronized void close() {
+    if (server != null) {
+      server.close();
+      server = null;
+    }
+    if (bridge != null) {
+      bridge.close();
+      bridge = null;
+    }
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+      scheduler = null;
+    }
+    if (workers != null) {
+      workers.shutdown();
+      workers = null;
+    }
+  }
+
+  private int getInt(String name, int defaultValue) {
+    String value = config.get(name);
+    return value != null ? Integer.parseInt(value.trim()) : defaultValue;
+  }
+
+  private static class Factory implements ThreadFactory {
+
+    /** . */
+    private final String prefix;
+
+    /** . */
+    private final AtomicInteger count = new AtomicInteger();
+
+    private Factory(String prefix) {
+      this.prefix = prefix;
+    }
+
+    public Thread newThread(Runnable r) {
+      Thread thread = new Thread(r, prefix + "-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
@@ -0,0 +1,447 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.bridge.spi.nio;
+
+import juzu.impl.asset.AssetServer;
+import juzu.impl.bridge.Bridge;
+import juzu.impl.bridge.BridgeConfig;
+import juzu.impl.bridge.BridgeContext;
+import juzu.impl.bridge.module.ApplicationBridge;
+import juzu.impl.bridge.module.ModuleContextImpl;
+import juzu.impl.bridge.provided.ProvidedBridge;
+import juzu.impl.bridge.spi.servlet.AbstractBridgeContext;
+import juzu.impl.bridge.spi.servlet.ServletApplicationContext;
+import juzu.impl.bridge.spi.web.Handler;
+import juzu.impl.bridge.spi.web.HandlerRefresher;
+import juzu.impl.common.Logger;
+import juzu.impl.common.Tools;
+import juzu.impl.compiler.CompilationException;
+import juzu.impl.fs.spi.ReadFileSystem;
+import juzu.impl.fs.spi.disk.DiskFileSystem;
+import juzu.impl.fs.spi.ram.RAMFileSystem;
+import juzu.impl.fs.spi.url.URLFileSystem;
+import juzu.impl.inject.spi.Injector;
+import juzu.impl.resource.ResourceResolver;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLDecoder;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Serves a Juzu application from the {@link NioServer}: the assets are served by the asset server, the files
+ * of the optional document root are served as is and the other requests are handled by the application.
+ *
+ * @author Julien Viet
+ */
+public class NioBridge implements NioServer.Handler, Closeable {
+
+  /** The document root serving the server resources. */
+  public static final String DOC_ROOT = "juzu.doc_root";
+
+  /** The resource bundle name. */
+  public static final String BUNDLE_NAME = "juzu.resource_bundle";
+
+  /** The session inactivity period in seconds. */
+  public static final String SESSION_TIMEOUT = "juzu.session_timeout";
+
+  /** The mime types of the common web resources. */
+  private static final Map<String, String> MIME_TYPES = new HashMap<String, String>();
+
+  static {
+    MIME_TYPES.put("html", "text/html");
+    MIME_TYPES.put("htm", "text/html");
+    MIME_TYPES.put("css", "text/css");
+    MIME_TYPES.put("js", "application/javascript");
+    MIME_TYPES.put("json", "application/json");
+    MIME_TYPES.put("txt", "text/plain");
+    MIME_TYPES.put("xml", "application/xml");
+    MIME_TYPES.put("png", "image/png");
+    MIME_TYPES.put("gif", "image/gif");
+    MIME_TYPES.put("jpg", "image/jpeg");
+    MIME_TYPES.put("jpeg", "image/jpeg");
+    MIME_TYPES.put("svg", "image/svg+xml");
+    MIME_TYPES.put("ico", "image/x-icon");
+    MIME_TYPES.put("woff", "application/font-woff");
+    MIME_TYPES.put("ttf", "application/x-font-ttf");
+    MIME_TYPES.put("eot", "application/vnd.ms-fontobject");
+  }
+
+  static String getMimeType(String name) {
+    String mimeType = null;
+    int pos = name.lastIndexOf('.');
+    if (pos != -1) {
+      mimeType = MIME_TYPES.get(name.substring(pos + 1).toLowerCase());
+    }
+    if (mimeType == null) {
+      mimeType = URLConnection.guessContentTypeFromName(name);
+    }
+    return mimeType;
+  }
+
+  /** . */
+  private final Logger log;
+
+  /** . */
+  private final Map<String, String> config;
+
+  /** . */
+  private final Executor workers;
+
+  /** . */
+  private final ClassLoader classLoader;
+
+  /** . */
+  private final File docRoot;
+
+  /** . */
+  private final BridgeConfig bridgeConfig;
+
+  /** . */
+  private final BridgeContext bridgeContext;
+
+  /** . */
+  private final ResourceResolver resolver;
+
+  /** . */
+  private final AssetServer assetServer;
+
+  /** . */
+  private final NioSessions sessions;
+
+  /** . */
+  private final ServletApplicationContext applicationContext;
+
+  /** Publishes the handler, replaced as a whole when the application is refreshed. */
+  private final HandlerRefresher<Handler> refresher;
+
+  public NioBridge(Logger log, Map<String, String> config, Executor workers, ClassLoader classLoader) throws Exception {
+
+    //
+    String docRootParam = config.get(DOC_ROOT);
+    File docRoot = docRootParam != null ? new File(docRootParam).getCanonicalFile() : null;
+    String sessionTimeout = config.get(SESSION_TIMEOUT);
+
+    //
+    final Map<String, Object> attributes = new ConcurrentHashMap<String, Object>();
+    this.resolver = new ResourceResolver() {
+      public URL resolve(String uri) {
+        return getServerResource(uri);
+      }
+    };
+    this.bridgeContext = new AbstractBridgeContext() {
+      ReadFileSystem<?> classPath;
+      public ReadFileSystem<?> getResourcePath() {
+        return NioBridge.this.docRoot != null ? new DiskFileSystem(NioBridge.this.docRoot) : new RAMFileSystem();
+      }
+      public synchronized ReadFileSystem<?> getClassPath() {
+        if (classPath == null) {
+          try {
+            classPath = new URLFileSystem().add(NioBridge.this.classLoader);
+          }
+          catch (Exception e) {
+            throw new UnsupportedOperationException("Cannot create the classpath of " + NioBridge.this.classLoader, e);
+          }
+        }
+        return classPath;
+      }
+      public ClassLoader getClassLoader() {
+        return NioBridge.this.classLoader;
+      }
+      public String getInitParameter(String name) {
+        return NioBridge.this.config.get(name);
+      }
+      public ResourceResolver getResolver() {
+        return resolver;
+      }
+      public Object getAttribute(String key) {
+        return attributes.get(key);
+      }
+      public void setAttribute(String key, Object value) {
+        if (value != null) {
+          attributes.put(key, value);
+        } else {
+          attributes.remove(key);
+        }
+      }
+    };
+
+    //
+    BridgeConfig bridgeConfig = new BridgeConfig(log, config);
+    if (bridgeConfig.name == null) {
+      throw new IllegalArgumentException("No application configured, the " + BridgeConfig.APP_NAME + " parameter must be set");
+    }
+    if (bridgeConfig.injectorProvider == null) {
+      throw new IllegalArgumentException("No inject implementation selected");
+    }
+
+    //
+    this.log = log;
+    this.config = config;
+    this.workers = workers;
+    this.classLoader = classLoader;
+    this.docRoot = docRoot;
+    this.bridgeConfig = bridgeConfig;
+    this.assetServer = new AssetServer();
+    this.sessions = new NioSessions(log, (sessionTimeout != null ? Long.parseLong(sessionTimeout) : 30 * 60) * 1000, bridgeConfig.storedSessions);
+    this.applicationContext = new ServletApplicationContext(classLoader, config.get(BUNDLE_NAME));
+    this.refresher = new HandlerRefresher<Handler>(log, bridgeConfig) {
+      @Override
+      protected Bridge createBridge() throws Exception {
+        return NioBridge.this.createBridge();
+      }
+      @Override
+      protected Handler createSnapshot(Handler handler) {
+        return handler;
+      }
+    };
+
+    // Start and warm up the application before the first request
+    if (bridgeConfig.warmUp) {
+      Thread thread = Thread.currentThread();
+      ClassLoader previous = thread.getContextClassLoader();
+      thread.setContextClassLoader(classLoader);
+      try {
+        refresher.refresh().release();
+      }
+      catch (Exception e) {
+        log.error("Could not warm up the application " + bridgeConfig.name, e);
+      }
+      finally {
+        thread.setContextClassLoader(previous);
+      }
+    }
+  }
+
+  /**
+   * Returns true when the application is started, and warmed up when the warm up is configured.
+   *
+   * @return the readiness
+   */
+  public boolean isReady() {
+    return refresher.getSnapshot() != null;
+  }
+
+  private Bridge createBridge() throws Exception {
+    Bridge bridge;
+    Injector injector = bridgeConfig.injectorProvider.get();
+    if (injector.isProvided()) {
+      bridge = new ProvidedBridge(bridgeContext, bridgeConfig, assetServer, resolver, injector);
+    } else {
+      ModuleContextImpl module = new ModuleContextImpl(log, bridgeContext, resolver);
+      bridge = new ApplicationBridge(module, bridgeContext, bridgeConfig, assetServer, resolver, injector);
+    }
+    log.info("Using inject implementation " + bridgeConfig.injectorProvider.getValue());
+    return bridge;
+  }
+
+  public void handle(final NioExchange exchange) throws Exception {
+    Thread thread = Thread.currentThread();
+    ClassLoader previous = thread.getContextClassLoader();
+    thread.setContextClassLoader(classLoader);
+    try {
+      NioRequestContext ctx = new NioRequestContext(bridgeConfig, exchange, workers, bridgeContext.getRunMode());
+
+      // A form post exceeding a limit is rejected without invoking the application
+      if (ctx.formStatus != 0) {
+        exchange.setStatus(ctx.formStatus);
+        exchange.end();
+        return;
+      }
+
+      //
+      HandlerRefresher.Lease<Handler> lease;
+      try {
+        lease = refresher.refresh();
+      }
+      catch (CompilationException e) {
+        ctx.send(e);
+        ctx.end();
+        return;
+      }
+
+      //
+      try {
+        String path = exchange.getPath();
+        if (isTraversal(path)) {
+          exchange.setStatus(404);
+          exchange.end();
+        } else if (path.startsWith("/assets/")) {
+          if (!sendAsset(path.substring("/assets".length()), exchange)) {
+            exchange.setStatus(404);
+            exchange.end();
+          }
+        } else if (sendServerResource(path, exchange)) {
+          // Done
+        } else {
+          try {
+            lease.get().handle(new NioWebBridge(ctx, workers, sessions, applicationContext));
+          }
+          catch (Throwable t) {
+            if (t instanceof Exception) {
+              throw (Exception)t;
+            } else if (t instanceof Error) {
+              throw (Error)t;
+            } else {
+              throw new UndeclaredThrowableException(t);
+            }
+          }
+          ctx.end();
+        }
+      }
+      finally {
+        lease.release();
+      }
+    }
+    finally {
+      thread.setContextClassLoader(previous);
+    }
+  }
+
+  private boolean sendAsset(String path, final NioExchange exchange) throws IOException {
+    final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    boolean found = assetServer.doGet(path, new AssetServer.Exchange() {
+      public String getRequestHeader(String name) {
+        return exchange.getHeader(name);
+      }
+      public String getMimeType(String name) {
+        return NioBridge.getMimeType(name);
+      }
+      public URL getResource(String path) throws IOException {
+        return getServerResource(path);
+      }
+      public void setStatus(int status) {
+        exchange.setStatus(status);
+      }
+      public void setHeader(String name, String value) {
+        exchange.setHeader(name, value);
+      }
+      public void setContentType(String contentType) {
+        exchange.setHeader("Content-Type", contentType);
+      }
+      public void setContentLength(int length) {
+        // Computed from the buffer
+      }
+      public OutputStream getOutputStream() {
+        return buffer;
+      }
+    });
+    if (found) {
+      exchange.end(buffer.toByteArray());
+    }
+    return found;
+  }
+
+  private boolean sendServerResource(String path, NioExchange exchange) throws IOException {
+    File file = getServerFile(path);
+    if (file != null && file.isFile()) {
+      String mimeType = getMimeType(file.getName());
+      if (mimeType != null) {
+        exchange.setHeader("Content-Type", mimeType);
+      }
+      InputStream in = new FileInputStream(file);
+      try {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream((int)file.length());
+        Tools.copy(in, buffer);
+        exchange.end(buffer.toByteArray());
+      }
+      finally {
+        Tools.safeClose(in);
+      }
+      return true;
+    }
+    return false;
+  }
+
+  private URL getServerResource(String path) {
+    File file = getServerFile(path);
+    if (file != null && file.exists()) {
+      try {
+        return file.toURI().toURL();
+      }
+      catch (MalformedURLException e) {
+        return null;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns true when the path has a <code>..</code> segment, plain or percent encoded, such path is rejected
+   * rather than being handed to the application.
+   *
+   * @param path the path
+   * @return true when the path navigates to a parent
+   */
+  private static boolean isTraversal(String path) {
+    for (String segment : Tools.split(path, '/')) {
+      try {
+        if (URLDecoder.decode(segment, "UTF-8").equals("..")) {
+          return true;
+        }
+      }
+      catch (Exception e) {
+        // Malformed encoding
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Resolve a path against the document root, the path cannot escape the document root.
+   *
+   * @param path the path
+   * @return the file or null
+   */
+  private File getServerFile(String path) {
+    if (docRoot != null && path.length() > 1) {
+      try {
+        File file = new File(docRoot, path).getCanonicalFile();
+        if (file.getPath().startsWith(docRoot.getPath() + File.separatorChar)) {
+          return file;
+        }
+      }
+      catch (IOException ignore) {
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Removes the expired sessions.
+   */
+  public void purgeSessions() {
+    sessions.purge();
+  }
+
+  public void close() {
+    refresher.close();
+  }
+}
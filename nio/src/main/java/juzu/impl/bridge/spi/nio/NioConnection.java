@@ -0,0 +1,398 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.bridge.spi.nio;
+
+import juzu.impl.common.Tools;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An HTTP/1.1 connection. The socket is only read and written by the event loop thread, the responses are produced
+ * by worker threads that queue the response bytes on the connection. Pipelined requests are parsed as they arrive
+ * and handled one at a time so the responses are sent in the request order.
+ *
+ * @author Julien Viet
+ */
+class NioConnection {
+
+  /** The pending output size above which the connection is not writable. */
+  static final int HIGH_WATERMARK = 64 * 1024;
+
+  /** The pending output size below which the write listener is notified. */
+  static final int LOW_WATERMARK = 32 * 1024;
+
+  /** The maximum size of the request line and headers. */
+  static final int MAX_HEADER_SIZE = 8 * 1024;
+
+  /** The maximum number of pipelined requests buffered before reading is suspended. */
+  static final int MAX_PIPELINED = 16;
+
+  /** . */
+  private static final byte[] CONTINUE = "HTTP/1.1 100 Continue\r\n\r\n".getBytes(Tools.ISO_8859_1);
+
+  /** . */
+  final NioServer server;
+
+  /** . */
+  final SocketChannel channel;
+
+  /** . */
+  SelectionKey key;
+
+  /** The bytes read and not yet parsed. */
+  private byte[] in = new byte[1024];
+
+  /** . */
+  private int inLength = 0;
+
+  /** The request being parsed when its body is awaited. */
+  private String[] requestLine;
+
+  /** . */
+  private Map<String, List<String>> requestHeaders;
+
+  /** . */
+  private int contentLength = -1;
+
+  /** The exchanges in request order, the head is the one being handled. */
+  private final ArrayDeque<NioExchange> exchanges = new ArrayDeque<NioExchange>();
+
+  /** . */
+  private final ConcurrentLinkedQueue<ByteBuffer> out = new ConcurrentLinkedQueue<ByteBuffer>();
+
+  /** . */
+  private final AtomicLong outSize = new AtomicLong();
+
+  /** . */
+  private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+  /** . */
+  private final Runnable flush = new Runnable() {
+    public void run() {
+      flushScheduled.set(false);
+      flush();
+    }
+  };
+
+  /** No more request are read. */
+  private boolean reading = true;
+
+  /** Close the connection once the pending exchanges are done. */
+  private boolean closing = false;
+
+  /** . */
+  private volatile boolean closed = false;
+
+  /** . */
+  long lastActivity;
+
+  NioConnection(NioServer server, SocketChannel channel) {
+    this.server = server;
+    this.channel = channel;
+    this.lastActivity = System.currentTimeMillis();
+  }
+
+  boolean isIdle() {
+    return exchanges.isEmpty() && out.isEmpty();
+  }
+
+  boolean isWritable() {
+    return closed || outSize.get() < HIGH_WATERMARK;
+  }
+
+  /**
+   * Queue bytes to write, this can be called by any thread.
+   *
+   * @param buffer the bytes
+   */
+  void send(ByteBuffer buffer) {
+    if (!closed) {
+      out.add(buffer);
+      outSize.addAndGet(buffer.remaining());
+      if (flushScheduled.compareAndSet(false, true)) {
+        server.execute(flush);
+      }
+    }
+  }
+
+  /**
+   * Signals an exchange is done, this can be called by any thread.
+   *
+   * @param exchange the exchange
+   */
+  void completed(final NioExchange exchange) {
+    server.execute(new Runnable() {
+      public void run() {
+        if (exchanges.peekFirst() == exchange) {
+          exchanges.removeFirst();
+          if (!exchange.keepAlive) {
+            closing = true;
+            reading = false;
+            exchanges.clear();
+          } else {
+            NioExchange next = exchanges.peekFirst();
+            if (next != null) {
+              server.dispatch(next);
+            }
+            if (reading && exchanges.size() < MAX_PIPELINED) {
+              interest(SelectionKey.OP_READ, true);
+              parse();
+            }
+          }
+          flush();
+        }
+      }
+    });
+  }
+
+  // Event loop methods
+
+  void read(ByteBuffer buffer) {
+    lastActivity = System.currentTimeMillis();
+    int count;
+    try {
+      buffer.clear();
+      count = channel.read(buffer);
+    }
+    catch (IOException e) {
+      close();
+      return;
+    }
+    if (count == -1) {
+      if (exchanges.isEmpty()) {
+        close();
+      } else {
+        // Half closed, send the pending responses
+        reading = false;
+        closing = true;
+        interest(SelectionKey.OP_READ, false);
+      }
+      return;
+    }
+    if (!reading) {
+      return;
+    }
+    if (inLength + count > in.length) {
+      byte[] tmp = new byte[Math.max(in.length * 2, inLength + count)];
+      System.arraycopy(in, 0, tmp, 0, inLength);
+      in = tmp;
+    }
+    buffer.flip();
+    buffer.get(in, inLength, count);
+    inLength += count;
+    parse();
+  }
+
+  private void parse() {
+    while (reading) {
+      if (requestLine == null) {
+        int end = indexOfHeadersEnd();
+        if (end == -1) {
+          if (inLength > MAX_HEADER_SIZE) {
+            fail(431);
+          }
+          return;
+        }
+        if (!parseHead(new String(in, 0, end, Tools.ISO_8859_1))) {
+          fail(400);
+          return;
+        }
+        consume(end + 4);
+        if (first("transfer-encoding") != null) {
+          fail(501);
+          return;
+        }
+        String length = first("content-length");
+        if (length != null) {
+          try {
+            contentLength = Integer.parseInt(length.trim());
+          }
+          catch (NumberFormatException e) {
+            fail(400);
+            return;
+          }
+          if (contentLength < 0) {
+            fail(400);
+            return;
+          } else if (server.maxRequestSize >= 0 && contentLength > server.maxRequestSize) {
+            fail(413);
+            return;
+          }
+        } else {
+          contentLength = 0;
+        }
+        if (contentLength > inLength && "100-continue".equalsIgnoreCase(first("expect"))) {
+          send(ByteBuffer.wrap(CONTINUE));
+        }
+      }
+      if (inLength < contentLength) {
+        return;
+      }
+      byte[] body = new byte[contentLength];
+      System.arraycopy(in, 0, body, 0, contentLength);
+      consume(contentLength);
+      NioExchange exchange = new NioExchange(this, requestLine[0], requestLine[1], requestLine[2], requestHeaders, body);
+      requestLine = null;
+      requestHeaders = null;
+      contentLength = -1;
+      exchanges.addLast(exchange);
+      if (exchanges.size() == 1) {
+        server.dispatch(exchange);
+      }
+      if (!exchange.keepAlive) {
+        reading = false;
+        inLength = 0;
+      } else if (exchanges.size() >= MAX_PIPELINED) {
+        interest(SelectionKey.OP_READ, false);
+        return;
+      }
+    }
+  }
+
+  private String first(String name) {
+    List<String> values = requestHeaders.get(name);
+    return values != null ? values.get(0) : null;
+  }
+
+  private int indexOfHeadersEnd() {
+    for (int i = 0;i + 3 < inLength;i++) {
+      if (in[i] == '\r' && in[i + 1] == '\n' && in[i + 2] == '\r' && in[i + 3] == '\n') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private boolean parseHead(String head) {
+    String[] lines = head.split("\r\n");
+    String[] requestLine = lines[0].split(" ");
+    if (requestLine.length != 3 || !requestLine[2].startsWith("HTTP/1.")) {
+      return false;
+    }
+    Map<String, List<String>> headers = new HashMap<String, List<String>>();
+    for (int i = 1;i < lines.length;i++) {
+      String line = lines[i];
+      int pos = line.indexOf(':');
+      if (pos <= 0) {
+        return false;
+      }
+      String name = line.substring(0, pos).trim().toLowerCase();
+      List<String> values = headers.get(name);
+      if (values == null) {
+        headers.put(name, values = new ArrayList<String>(1));
+      }
+      values.add(line.substring(pos + 1).trim());
+    }
+    this.requestLine = requestLine;
+    this.requestHeaders = headers;
+    return true;
+  }
+
+  private void consume(int length) {
+    System.arraycopy(in, length, in, 0, inLength - length);
+    inLength -= length;
+  }
+
+  /**
+   * Reply to a malformed request and close the connection, when exchanges are pending the connection is closed
+   * once they are done instead.
+   *
+   * @param status the error status
+   */
+  private void fail(int status) {
+    reading = false;
+    closing = true;
+    inLength = 0;
+    if (exchanges.isEmpty()) {
+      NioExchange exchange = new NioExchange(this, "GET", "/", "HTTP/1.1", new HashMap<String, List<String>>(), new byte[0]);
+      exchange.keepAlive = false;
+      exchange.setStatus(status);
+      exchanges.addLast(exchange);
+      exchange.end();
+    }
+  }
+
+  void flush() {
+    if (closed) {
+      return;
+    }
+    try {
+      for (ByteBuffer buffer = out.peek();buffer != null;buffer = out.peek()) {
+        int written = channel.write(buffer);
+        outSize.addAndGet(-written);
+        if (buffer.hasRemaining()) {
+          interest(SelectionKey.OP_WRITE, true);
+          return;
+        }
+        out.poll();
+      }
+    }
+    catch (IOException e) {
+      close();
+      return;
+    }
+    interest(SelectionKey.OP_WRITE, false);
+    lastActivity = System.currentTimeMillis();
+    if (outSize.get() < LOW_WATERMARK) {
+      NioExchange current = exchanges.peekFirst();
+      if (current != null) {
+        NioExchange.WriteListener listener = current.writeListener;
+        if (listener != null) {
+          listener.onWritePossible();
+        }
+      }
+    }
+    if (closing && exchanges.isEmpty() && out.isEmpty()) {
+      close();
+    }
+  }
+
+  private void interest(int op, boolean on) {
+    if (key != null && key.isValid()) {
+      int ops = key.interestOps();
+      key.interestOps(on ? ops | op : ops & ~op);
+    }
+  }
+
+  void close() {
+    if (!closed) {
+      closed = true;
+      server.remove(this);
+      Tools.safeClose(channel);
+      out.clear();
+      outSize.set(0);
+      for (NioExchange exchange : exchanges) {
+        NioExchange.WriteListener listener = exchange.writeListener;
+        if (listener != null) {
+          listener.onError(new IOException("Connection closed"));
+        }
+      }
+      exchanges.clear();
+    }
+  }
+}
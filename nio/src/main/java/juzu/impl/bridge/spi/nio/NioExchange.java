@@ -0,0 +1,328 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.bridge.spi.nio;
+
+import juzu.impl.common.Tools;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A request and its response on a connection. The request is fully read when the exchange is created, the response
+ * is written with a content length when the response is ended without streaming, otherwise with the chunked encoding.
+ *
+ * @author Julien Viet
+ */
+public class NioExchange {
+
+  /**
+   * Notified when the connection can accept more data or fails, it mirrors the servlet write listener.
+   */
+  public interface WriteListener {
+
+    void onWritePossible();
+
+    void onError(Throwable t);
+
+  }
+
+  /** . */
+  private static final byte[] CRLF = {'\r', '\n'};
+
+  /** . */
+  private static final byte[] LAST_CHUNK = {'0', '\r', '\n', '\r', '\n'};
+
+  /** . */
+  private static final Map<Integer, String> REASONS = new HashMap<Integer, String>();
+
+  static {
+    REASONS.put(100, "Continue");
+    REASONS.put(200, "OK");
+    REASONS.put(201, "Created");
+    REASONS.put(204, "No Content");
+    REASONS.put(301, "Moved Permanently");
+    REASONS.put(302, "Found");
+    REASONS.put(303, "See Other");
+    REASONS.put(304, "Not Modified");
+    REASONS.put(307, "Temporary Redirect");
+    REASONS.put(400, "Bad Request");
+    REASONS.put(401, "Unauthorized");
+    REASONS.put(403, "Forbidden");
+    REASONS.put(404, "Not Found");
+    REASONS.put(405, "Method Not Allowed");
+    REASONS.put(413, "Request Entity Too Large");
+    REASONS.put(431, "Request Header Fields Too Large");
+    REASONS.put(500, "Internal Server Error");
+    REASONS.put(501, "Not Implemented");
+    REASONS.put(503, "Service Unavailable");
+  }
+
+  /** . */
+  final NioConnection connection;
+
+  /** . */
+  private final String method;
+
+  /** . */
+  private final String target;
+
+  /** . */
+  private final String version;
+
+  /** The headers keyed by lower case name. */
+  private final Map<String, List<String>> headers;
+
+  /** . */
+  private final byte[] body;
+
+  /** . */
+  boolean keepAlive;
+
+  /** . */
+  private int status;
+
+  /** The response headers keyed by lower case name, the value first element is the header name. */
+  private final LinkedHashMap<String, List<String>> responseHeaders;
+
+  /** . */
+  private boolean committed;
+
+  /** . */
+  private boolean chunked;
+
+  /** . */
+  private boolean ended;
+
+  /** . */
+  volatile WriteListener writeListener;
+
+  NioExchange(NioConnection connection, String method, String target, String version, Map<String, List<String>> headers, byte[] body) {
+
+    //
+    String connectionHeader = first(headers, "connection");
+    boolean keepAlive;
+    if ("HTTP/1.1".equals(version)) {
+      keepAlive = !"close".equalsIgnoreCase(connectionHeader);
+    } else {
+      keepAlive = "keep-alive".equalsIgnoreCase(connectionHeader);
+    }
+
+    //
+    this.connection = connection;
+    this.method = method;
+    this.target = target;
+    this.version = version;
+    this.headers = headers;
+    this.body = body;
+    this.keepAlive = keepAlive;
+    this.status = 200;
+    this.responseHeaders = new LinkedHashMap<String, List<String>>();
+  }
+
+  private static String first(Map<String, List<String>> headers, String name) {
+    List<String> values = headers.get(name);
+    return values != null && values.size() > 0 ? values.get(0) : null;
+  }
+
+  public String getMethod() {
+    return method;
+  }
+
+  /**
+   * @return the request target: the path and the optional query
+   */
+  public String getTarget() {
+    return target;
+  }
+
+  public String getPath() {
+    int pos = target.indexOf('?');
+    return pos == -1 ? target : target.substring(0, pos);
+  }
+
+  public String getQuery() {
+    int pos = target.indexOf('?');
+    return pos == -1 ? null : target.substring(pos + 1);
+  }
+
+  public String getVersion() {
+    return version;
+  }
+
+  public String getHeader(String name) {
+    return first(headers, name.toLowerCase());
+  }
+
+  public List<String> getHeaders(String name) {
+    List<String> values = headers.get(name.toLowerCase());
+    return values != null ? values : Collections.<String>emptyList();
+  }
+
+  public byte[] getBody() {
+    return body;
+  }
+
+  public int getLocalPort() {
+    return connection.server.getPort();
+  }
+
+  public synchronized int getStatus() {
+    return status;
+  }
+
+  public synchronized void setStatus(int status) {
+    this.status = status;
+  }
+
+  public synchronized void setHeader(String name, String value) {
+    ArrayList<String> values = new ArrayList<String>(2);
+    values.add(name);
+    values.add(value);
+    responseHeaders.put(name.toLowerCase(), values);
+  }
+
+  public synchronized void addHeader(String name, String value) {
+    List<String> values = responseHeaders.get(name.toLowerCase());
+    if (values == null) {
+      setHeader(name, value);
+    } else {
+      values.add(value);
+    }
+  }
+
+  public synchronized String getResponseHeader(String name) {
+    List<String> values = responseHeaders.get(name.toLowerCase());
+    return values != null ? values.get(1) : null;
+  }
+
+  public synchronized boolean isCommitted() {
+    return committed;
+  }
+
+  public synchronized boolean isEnded() {
+    return ended;
+  }
+
+  /**
+   * @return true when the connection accepts more data without exceeding its buffer
+   */
+  public boolean isWritable() {
+    return connection.isWritable();
+  }
+
+  public void setWriteListener(WriteListener writeListener) {
+    this.writeListener = writeListener;
+  }
+
+  public void write(byte[] data) {
+    write(data, 0, data.length);
+  }
+
+  public synchronized void write(byte[] data, int off, int len) {
+    if (ended) {
+      throw new IllegalStateException("Response ended");
+    }
+    if (!committed) {
+      commit(-1);
+    }
+    if (len > 0 && !"HEAD".equals(method)) {
+      if (chunked) {
+        byte[] size = (Integer.toHexString(len) + "\r\n").getBytes(Tools.ISO_8859_1);
+        ByteBuffer chunk = ByteBuffer.allocate(size.length + len + 2);
+        chunk.put(size).put(data, off, len).put(CRLF).flip();
+        connection.send(chunk);
+      } else {
+        ByteBuffer chunk = ByteBuffer.allocate(len);
+        chunk.put(data, off, len).flip();
+        connection.send(chunk);
+      }
+    }
+  }
+
+  /**
+   * End the response, when the response was not committed it is sent with an empty body.
+   */
+  public void end() {
+    synchronized (this) {
+      if (ended) {
+        return;
+      }
+      if (!committed) {
+        commit(0);
+      } else if (chunked && !"HEAD".equals(method)) {
+        connection.send(ByteBuffer.wrap(LAST_CHUNK));
+      }
+      ended = true;
+    }
+    connection.completed(this);
+  }
+
+  /**
+   * Send a complete response with the specified body.
+   *
+   * @param body the body
+   */
+  public void end(byte[] body) {
+    synchronized (this) {
+      if (!committed) {
+        setHeader("Content-Length", Integer.toString(body.length));
+      }
+      write(body);
+    }
+    end();
+  }
+
+  private void commit(long contentLength) {
+    committed = true;
+    boolean bodyless = status == 204 || status == 304 || status / 100 == 1;
+    if (bodyless) {
+      responseHeaders.remove("content-length");
+      responseHeaders.remove("transfer-encoding");
+    } else if (responseHeaders.get("content-length") == null) {
+      if (contentLength >= 0) {
+        setHeader("Content-Length", Long.toString(contentLength));
+      } else if ("HTTP/1.1".equals(version)) {
+        setHeader("Transfer-Encoding", "chunked");
+        chunked = true;
+      } else {
+        // The end of the body is signaled by closing the connection
+        keepAlive = false;
+      }
+    }
+    if (!keepAlive) {
+      setHeader("Connection", "close");
+    } else if (!"HTTP/1.1".equals(version)) {
+      setHeader("Connection", "keep-alive");
+    }
+    StringBuilder sb = new StringBuilder(256);
+    String reason = REASONS.get(status);
+    sb.append("HTTP/1.1 ").append(status).append(' ').append(reason != null ? reason : "Unknown").append("\r\n");
+    for (List<String> values : responseHeaders.values()) {
+      String name = values.get(0);
+      for (int i = 1;i < values.size();i++) {
+        sb.append(name).append(": ").append(values.get(i)).append("\r\n");
+      }
+    }
+    sb.append("\r\n");
+    connection.send(ByteBuffer.wrap(sb.toString().getBytes(Tools.ISO_8859_1)));
+  }
+}
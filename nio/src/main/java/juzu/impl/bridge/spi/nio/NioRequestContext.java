@@ -0,0 +1,291 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.bridge.spi.nio;
+
+import juzu.asset.AssetLocation;
+import juzu.impl.bridge.BridgeConfig;
+import juzu.impl.bridge.spi.web.HttpStream;
+import juzu.impl.bridge.spi.web.WebRequestContext;
+import juzu.impl.common.FormURLEncodedStreamParser;
+import juzu.impl.common.JUL;
+import juzu.impl.common.Lexers;
+import juzu.impl.common.Logger;
+import juzu.impl.common.Name;
+import juzu.impl.common.RunMode;
+import juzu.impl.common.Spliterator;
+import juzu.impl.io.NonBlockingOutputStream;
+import juzu.io.Stream;
+import juzu.request.RequestParameter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/** @author Julien Viet */
+public class NioRequestContext extends WebRequestContext {
+
+  /** The request logger. */
+  static final Logger log = JUL.getLogger(NioRequestContext.class.getName());
+
+  /** . */
+  final NioExchange exchange;
+
+  /** . */
+  final String requestPath;
+
+  /** . */
+  final Map<String, RequestParameter> requestParameters;
+
+  /** . */
+  final Charset defaultEncoding;
+
+  /** . */
+  private final String prefix;
+
+  /** The status rejecting a form post exceeding a limit or 0. */
+  final int formStatus;
+
+  /** . */
+  private final RunMode runMode;
+
+  /** . */
+  private final int asyncWriteQueue;
+
+  /** The workers writing the chunks produced asynchronously. */
+  private final Executor workers;
+
+  /** . */
+  private NioStream stream;
+
+  public NioRequestContext(BridgeConfig config, NioExchange exchange, Executor workers, RunMode runMode) {
+
+    //
+    Charset defaultEncoding = config.requestEncoding;
+
+    //
+    Map<String, RequestParameter> requestParameters = Collections.emptyMap();
+    int formStatus = 0;
+    String query = exchange.getQuery();
+    if (query != null) {
+      for (Iterator<RequestParameter> i = Lexers.queryParser(query);i.hasNext();) {
+        if (requestParameters.isEmpty()) {
+          requestParameters = new HashMap<String, RequestParameter>();
+        }
+        RequestParameter parameter = i.next();
+        parameter.appendTo(requestParameters);
+      }
+    }
+
+    //
+    if ("POST".equals(exchange.getMethod())) {
+      String contentType = exchange.getHeader("Content-Type");
+      if (contentType != null && contentType.length() > 0) {
+        Spliterator i = new Spliterator(contentType, ';');
+        if ("application/x-www-form-urlencoded".equals(i.next().trim())) {
+          Charset charset = defaultEncoding;
+          while (i.hasNext()) {
+            String v = i.next().trim();
+            if (v.startsWith("charset=")) {
+              charset = Charset.forName(v.substring("charset=".length()));
+            }
+          }
+          try {
+            FormURLEncodedStreamParser parser = new FormURLEncodedStreamParser(charset, config.formMaxSize, config.formMaxFields, config.formMaxFieldLength);
+            for (RequestParameter parameter : parser.parse(new ByteArrayInputStream(exchange.getBody()))) {
+              if (requestParameters.isEmpty()) {
+                requestParameters = new HashMap<String, RequestParameter>();
+              }
+              parameter.appendTo(requestParameters);
+            }
+          }
+          catch (FormURLEncodedStreamParser.LimitException e) {
+            log.info("Rejecting form post: " + e.getMessage());
+            formStatus = e.getStatus();
+          }
+          catch (IOException e) {
+            log.error("Cannot parse form post", e);
+          }
+        }
+      }
+    }
+
+    //
+    StringBuilder prefix = new StringBuilder();
+    for (String atom : config.name) {
+      prefix.append('/').append(atom);
+    }
+    prefix.append("/assets/");
+
+    //
+    this.exchange = exchange;
+    this.workers = workers;
+    this.defaultEncoding = defaultEncoding;
+    this.requestPath = exchange.getPath();
+    this.requestParameters = requestParameters;
+    this.formStatus = formStatus;
+    this.prefix = prefix.toString();
+    this.runMode = runMode;
+    this.asyncWriteQueue = config.asyncWriteQueue;
+  }
+
+  /**
+   * End the exchange when the request was handled without sending a response stream.
+   */
+  void end() {
+    if (stream == null) {
+      exchange.end();
+    }
+  }
+
+  @Override
+  protected Executor getOutputExecutor() {
+    return workers;
+  }
+
+  @Override
+  public RunMode getRunMode() {
+    return runMode;
+  }
+
+  public Map<String, RequestParameter> getParameters() {
+    return requestParameters;
+  }
+
+  public String getRequestPath() {
+    return requestPath;
+  }
+
+  public String getPath() {
+    return "";
+  }
+
+  public String getRequestURI() {
+    return requestPath;
+  }
+
+  @Override
+  public HttpStream getStream(int status) {
+    return stream = new NioStream(status, defaultEncoding);
+  }
+
+  public class NioStream extends HttpStream {
+
+    /** . */
+    private NonBlockingOutputStream dataStream;
+
+    NioStream(int status, Charset encoding) {
+      super(NioRequestContext.this, status, encoding);
+    }
+
+    @Override
+    public void setStatusCode(int status) {
+      exchange.setStatus(status);
+    }
+
+    @Override
+    protected synchronized Stream getDataStream(boolean create) {
+      if (dataStream == null && create) {
+        final NonBlockingOutputStream stream = new NonBlockingOutputStream(encoding, Math.max(asyncWriteQueue, NioConnection.LOW_WATERMARK)) {
+          @Override
+          protected boolean isReady() {
+            return exchange.isWritable();
+          }
+          @Override
+          protected void write(byte[] data) throws IOException {
+            exchange.write(data);
+          }
+          @Override
+          protected void completed() {
+            exchange.end();
+          }
+        };
+        exchange.setWriteListener(new NioExchange.WriteListener() {
+          public void onWritePossible() {
+            stream.writePossible();
+          }
+          public void onError(Throwable t) {
+            stream.failed(t);
+          }
+        });
+        dataStream = stream;
+      }
+      return dataStream;
+    }
+
+    @Override
+    protected void beginAsync() {
+      // The exchange stays open until the stream is closed
+    }
+
+    @Override
+    protected synchronized void endAsync() {
+      if (dataStream == null) {
+        exchange.end();
+      }
+      // Otherwise the data stream ends the exchange once its queue is written
+    }
+  }
+
+  @Override
+  public void setHeaders(Iterable<Map.Entry<String, String[]>> headers) {
+    for (Map.Entry<String, String[]> header : headers) {
+      exchange.setHeader(header.getKey(), header.getValue()[0]);
+    }
+  }
+
+  public void sendRedirect(String location) throws IOException {
+    exchange.setStatus(302);
+    exchange.setHeader("Location", location);
+    exchange.end();
+  }
+
+  public void setContentType(String mimeType, Charset charset) {
+    exchange.setHeader("Content-Type", mimeType + "; charset=" + charset.name());
+  }
+
+  public void setStatus(int status) {
+    exchange.setStatus(status);
+  }
+
+  public void renderAssetURL(AssetLocation location, String uri, Appendable appendable) throws IOException {
+    switch (location) {
+      case SERVER:
+        if (!uri.startsWith("/")) {
+          appendable.append('/');
+        }
+        appendable.append(uri);
+        break;
+      case APPLICATION:
+        appendable.append("/assets");
+        if (!uri.startsWith("/")) {
+          appendable.append(prefix);
+        }
+        appendable.append(uri);
+        break;
+      case URL:
+        appendable.append(uri);
+        break;
+      default:
+        throw new AssertionError();
+    }
+  }
+}
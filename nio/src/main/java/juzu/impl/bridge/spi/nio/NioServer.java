@@ -0,0 +1,315 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.bridge.spi.nio;
+
+import juzu.impl.common.Logger;
+import juzu.impl.common.Tools;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * An HTTP/1.1 server running a single event loop thread: the event loop accepts the connections, reads and parses
+ * the requests and writes the responses. The requests are handled by a worker executor so the event loop never
+ * blocks on application code.
+ *
+ * @author Julien Viet
+ */
+public class NioServer implements Closeable {
+
+  /**
+   * Handles an exchange, the handler is invoked by a worker thread and the exchange must be ended eventually.
+   */
+  public interface Handler {
+
+    void handle(NioExchange exchange) throws Exception;
+
+  }
+
+  /** The time in milliseconds during which accepting is paused after an accept failure. */
+  private static final long ACCEPT_BACK_OFF = 1000;
+
+  /** . */
+  private final Logger log;
+
+  /** . */
+  private final InetSocketAddress address;
+
+  /** . */
+  private final Executor workers;
+
+  /** . */
+  private final Handler handler;
+
+  /** The maximum size of a request body, a negative value means no limit. */
+  final int maxRequestSize;
+
+  /** The idle time in milliseconds after which a connection without pending exchange is closed. */
+  private final long idleTimeout;
+
+  /** The tasks to execute on the event loop. */
+  private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+
+  /** Only accessed by the event loop. */
+  private final HashSet<NioConnection> connections = new HashSet<NioConnection>();
+
+  /** . */
+  private Selector selector;
+
+  /** . */
+  private ServerSocketChannel serverChannel;
+
+  /** . */
+  private SelectionKey acceptKey;
+
+  /** The time at which accepting resumes after an accept failure or zero, only accessed by the event loop. */
+  private long acceptResume;
+
+  /** . */
+  private Thread loop;
+
+  /** . */
+  private volatile boolean running;
+
+  public NioServer(Logger log, InetSocketAddress address, Executor workers, Handler handler, int maxRequestSize, long idleTimeout) {
+    this.log = log;
+    this.address = address;
+    this.workers = workers;
+    this.handler = handler;
+    this.maxRequestSize = maxRequestSize;
+    this.idleTimeout = idleTimeout;
+  }
+
+  /**
+   * @return the port the server is bound to
+   */
+  public int getPort() {
+    ServerSocketChannel channel = serverChannel;
+    return channel != null ? channel.socket().getLocalPort() : address.getPort();
+  }
+
+  public synchronized void start() throws IOException {
+    if (running) {
+      throw new IllegalStateException("Already started");
+    }
+    selector = Selector.open();
+    serverChannel = ServerSocketChannel.open();
+    serverChannel.socket().setReuseAddress(true);
+    serverChannel.socket().bind(address, 1024);
+    serverChannel.configureBlocking(false);
+    acceptKey = serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    acceptResume = 0;
+    running = true;
+    loop = new Thread("juzu-nio-loop") {
+      @Override
+      public void run() {
+        NioServer.this.run();
+      }
+    };
+    loop.start();
+    log.info("Listening on " + serverChannel.socket().getLocalSocketAddress());
+  }
+
+  public void close() {
+    Thread current;
+    synchronized (this) {
+      if (!running) {
+        return;
+      }
+      running = false;
+      current = loop;
+      loop = null;
+    }
+    selector.wakeup();
+    try {
+      current.join();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Execute a task on the event loop, this can be called by any thread.
+   *
+   * @param task the task
+   */
+  void execute(Runnable task) {
+    tasks.add(task);
+    if (Thread.currentThread() != loop) {
+      Selector current = selector;
+      if (current != null) {
+        current.wakeup();
+      }
+    }
+  }
+
+  void dispatch(final NioExchange exchange) {
+    try {
+      workers.execute(new Runnable() {
+        public void run() {
+          try {
+            handler.handle(exchange);
+          }
+          catch (Throwable t) {
+            log.error("Could not handle request " + exchange.getMethod() + " " + exchange.getTarget(), t);
+            if (!exchange.isCommitted()) {
+              exchange.setStatus(500);
+            }
+            exchange.keepAlive = false;
+            exchange.end();
+          }
+        }
+      });
+    }
+    catch (RejectedExecutionException e) {
+      exchange.setStatus(503);
+      exchange.keepAlive = false;
+      exchange.end();
+    }
+  }
+
+  void remove(NioConnection connection) {
+    connections.remove(connection);
+  }
+
+  private void run() {
+    ByteBuffer buffer = ByteBuffer.allocateDirect(16 * 1024);
+    long lastCheck = System.currentTimeMillis();
+    try {
+      while (running) {
+        selector.select(1000);
+
+        // Resume accepting after the back off
+        if (acceptResume != 0 && System.currentTimeMillis() >= acceptResume) {
+          acceptResume = 0;
+          acceptKey.interestOps(SelectionKey.OP_ACCEPT);
+        }
+
+        //
+        for (Iterator<SelectionKey> i = selector.selectedKeys().iterator();i.hasNext();) {
+          SelectionKey key = i.next();
+          i.remove();
+          if (!key.isValid()) {
+            continue;
+          }
+          if (key.isAcceptable()) {
+            accept();
+          } else {
+            // A failure is confined to the connection of the key
+            NioConnection connection = (NioConnection)key.attachment();
+            try {
+              if (key.isWritable()) {
+                connection.flush();
+              }
+              if (key.isValid() && key.isReadable()) {
+                connection.read(buffer);
+              }
+            }
+            catch (Exception e) {
+              log.error("Connection failure", e);
+              close(connection);
+            }
+          }
+        }
+
+        //
+        for (Runnable task = tasks.poll();task != null;task = tasks.poll()) {
+          try {
+            task.run();
+          }
+          catch (Exception e) {
+            log.error("Event loop task failure", e);
+          }
+        }
+
+        //
+        long now = System.currentTimeMillis();
+        if (now - lastCheck >= 1000) {
+          lastCheck = now;
+          for (NioConnection connection : new ArrayList<NioConnection>(connections)) {
+            if (connection.isIdle() && now - connection.lastActivity > idleTimeout) {
+              connection.close();
+            }
+          }
+        }
+      }
+    }
+    catch (IOException e) {
+      log.error("Event loop failure", e);
+    }
+    finally {
+      for (NioConnection connection : new ArrayList<NioConnection>(connections)) {
+        connection.close();
+      }
+      Tools.safeClose(serverChannel);
+      Tools.safeClose(selector);
+    }
+  }
+
+  private void close(NioConnection connection) {
+    try {
+      connection.close();
+    }
+    catch (Exception e) {
+      log.error("Could not close connection", e);
+    }
+  }
+
+  private void accept() {
+    while (true) {
+      SocketChannel channel;
+      try {
+        channel = serverChannel.accept();
+      }
+      catch (IOException e) {
+        // For instance when the process runs out of file descriptors: the pending connection keeps the key
+        // acceptable, so we stop accepting for a while instead of spinning
+        log.error("Could not accept connection, pausing accept for " + ACCEPT_BACK_OFF + "ms", e);
+        acceptKey.interestOps(0);
+        acceptResume = System.currentTimeMillis() + ACCEPT_BACK_OFF;
+        return;
+      }
+      if (channel == null) {
+        return;
+      }
+      try {
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        NioConnection connection = new NioConnection(this, channel);
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        connections.add(connection);
+      }
+      catch (IOException e) {
+        log.error("Could not configure accepted connection", e);
+        Tools.safeClose(channel);
+      }
+    }
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.bridge.spi.nio;
+
+import juzu.impl.bridge.spi.ScopedContext;
+import juzu.impl.bridge.spi.servlet.ServletScopedContext;
+import juzu.impl.bridge.spi.session.StoredSessions;
+import juzu.impl.common.Logger;
+
+import java.security.SecureRandom;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The in memory sessions of the nio bridge, a session is identified by a cookie and expires after a period
+ * of inactivity.
+ *
+ * @author Julien Viet
+ */
+class NioSessions {
+
+  /** The session cookie name. */
+  static final String COOKIE_NAME = "JUZUSESSIONID";
+
+  /** . */
+  private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<String, Session>();
+
+  /** . */
+  private final SecureRandom random = new SecureRandom();
+
+  /** . */
+  private final Logger log;
+
+  /** . */
+  private final long maxInactiveInterval;
+
+  /** The optional stored sessions. */
+  private final StoredSessions stored;
+
+  NioSessions(Logger log, long maxInactiveInterval, StoredSessions stored) {
+    this.log = log;
+    this.maxInactiveInterval = maxInactiveInterval;
+    this.stored = stored;
+  }
+
+  /**
+   * Returns an existing session and updates its last access time.
+   *
+   * @param id the session id
+   * @return the session or null
+   */
+  Session get(String id) {
+    if (id != null) {
+      Session session = sessions.get(id);
+      if (session != null) {
+        long now = System.currentTimeMillis();
+        if (now - session.lastAccess < maxInactiveInterval) {
+          session.lastAccess = now;
+          return session;
+        } else if (sessions.remove(id, session)) {
+          session.close();
+        }
+      }
+    }
+    return null;
+  }
+
+  Session create() {
+    while (true) {
+      byte[] bytes = new byte[16];
+      random.nextBytes(bytes);
+      StringBuilder id = new StringBuilder(32);
+      for (byte b : bytes) {
+        id.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      Session session = new Session(id.toString());
+      if (sessions.putIfAbsent(session.id, session) == null) {
+        return session;
+      }
+    }
+  }
+
+  void remove(Session session) {
+    if (sessions.remove(session.id, session)) {
+      session.close();
+    }
+  }
+
+  /**
+   * Removes the expired sessions.
+   */
+  void purge() {
+    long now = System.currentTimeMillis();
+    for (Iterator<Session> i = sessions.values().iterator();i.hasNext();) {
+      Session session = i.next();
+      if (now - session.lastAccess >= maxInactiveInterval) {
+        i.remove();
+        session.close();
+      }
+    }
+  }
+
+  int size() {
+    return sessions.size();
+  }
+
+  class Session {
+
+    /** . */
+    final String id;
+
+    /** . */
+    volatile long lastAccess;
+
+    /** . */
+    private ServletScopedContext flashScope;
+
+    /** . */
+    private ServletScopedContext sessionScope;
+
+    Session(String id) {
+      this.id = id;
+      this.lastAccess = System.currentTimeMillis();
+    }
+
+    synchronized ScopedContext getFlashScope(boolean create) {
+      if (flashScope == null && create) {
+        flashScope = new ServletScopedContext(log);
+      }
+      return flashScope;
+    }
+
+    synchronized ScopedContext getSessionScope(boolean create) {
+      if (sessionScope == null && create) {
+        sessionScope = new ServletScopedContext(log);
+      }
+      return sessionScope;
+    }
+
+    synchronized void close() {
+      if (flashScope != null) {
+        flashScope.close();
+        flashScope = null;
+      }
+      if (sessionScope != null) {
+        sessionScope.close();
+        sessionScope = null;
+      }
+      if (stored != null) {
+        stored.remove(id);
+      }
+    }
+  }
+}
@@ -0,0 +1,349 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.bridge.spi.nio;
+
+import juzu.HttpMethod;
+import juzu.impl.bridge.spi.ScopedContext;
+import juzu.impl.bridge.spi.servlet.ServletScopedContext;
+import juzu.impl.bridge.spi.web.WebBridge;
+import juzu.impl.common.JUL;
+import juzu.impl.common.Logger;
+import juzu.impl.common.Spliterator;
+import juzu.request.ApplicationContext;
+import juzu.request.ClientContext;
+import juzu.request.HttpContext;
+import juzu.request.SecurityContext;
+import juzu.request.UserContext;
+
+import javax.servlet.http.Cookie;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/** @author Julien Viet */
+public class NioWebBridge extends WebBridge implements HttpContext, ClientContext, UserContext, SecurityContext {
+
+  /** . */
+  private final NioRequestContext ctx;
+
+  /** . */
+  private final HttpMethod method;
+
+  /** . */
+  private final Executor workers;
+
+  /** . */
+  private final NioSessions sessions;
+
+  /** . */
+  private final ApplicationContext applicationContext;
+
+  /** . */
+  private ScopedContext requestScope;
+
+  /** . */
+  private NioSessions.Session session;
+
+  /** . */
+  private Cookie[] cookies;
+
+  /** . */
+  private List<Locale> locales;
+
+  NioWebBridge(NioRequestContext ctx, Executor workers, NioSessions sessions, ApplicationContext applicationContext) {
+    this.ctx = ctx;
+    this.method = HttpMethod.valueOf(ctx.exchange.getMethod());
+    this.workers = workers;
+    this.sessions = sessions;
+    this.applicationContext = applicationContext;
+  }
+
+  @Override
+  public Logger getLogger(String name) {
+    return JUL.getLogger(name);
+  }
+
+  @Override
+  public NioRequestContext getRequestContext() {
+    return ctx;
+  }
+
+  @Override
+  public void execute(Runnable runnable) throws RejectedExecutionException {
+    workers.execute(runnable);
+  }
+
+  public void renderRequestURL(Appendable appendable) throws IOException {
+    appendable.append(getScheme()).append("://").append(getServerName());
+    int port = getServerPort();
+    if (port != 80) {
+      appendable.append(':').append(Integer.toString(port));
+    }
+    appendable.append(ctx.requestPath);
+  }
+
+  public ClientContext getClientContext() {
+    return this;
+  }
+
+  public HttpContext getHttpContext() {
+    return this;
+  }
+
+  public UserContext getUserContext() {
+    return this;
+  }
+
+  public SecurityContext getSecurityContext() {
+    return this;
+  }
+
+  @Override
+  public ApplicationContext getApplicationContext() {
+    return applicationContext;
+  }
+
+  public ScopedContext getRequestScope(boolean create) {
+    if (requestScope == null && create) {
+      requestScope = new ServletScopedContext(getLogger(ServletScopedContext.class.getName()));
+    }
+    return requestScope;
+  }
+
+  public ScopedContext getFlashScope(boolean create) {
+    NioSessions.Session session = getSession(create);
+    return session != null ? session.getFlashScope(create) : null;
+  }
+
+  public ScopedContext getSessionScope(boolean create) {
+    NioSessions.Session session = getSession(create);
+    return session != null ? session.getSessionScope(create) : null;
+  }
+
+  public void purgeSession() {
+    NioSessions.Session session = getSession(false);
+    if (session != null) {
+      // Invalidate the id before closing so the client cookie cannot retrieve the closed session
+      this.session = null;
+      sessions.remove(session);
+    }
+  }
+
+  public String getSessionId(boolean create) {
+    NioSessions.Session session = getSession(create);
+    return session != null ? session.id : null;
+  }
+
+  public void addCookie(Cookie cookie) {
+    StringBuilder header = new StringBuilder(cookie.getName()).append('=').append(cookie.getValue());
+    header.append("; Path=").append(cookie.getPath() != null ? cookie.getPath() : "/");
+    if (cookie.getMaxAge() >= 0) {
+      header.append("; Max-Age=").append(cookie.getMaxAge());
+    }
+    if (cookie.getSecure()) {
+      header.append("; Secure");
+    }
+    if (cookie.isHttpOnly()) {
+      header.append("; HttpOnly");
+    }
+    ctx.exchange.addHeader("Set-Cookie", header.toString());
+  }
+
+  private NioSessions.Session getSession(boolean create) {
+    if (session == null) {
+      for (Cookie cookie : getCookies()) {
+        if (NioSessions.COOKIE_NAME.equals(cookie.getName())) {
+          session = sessions.get(cookie.getValue());
+          if (session != null) {
+            break;
+          }
+        }
+      }
+      if (session == null && create) {
+        session = sessions.create();
+        ctx.exchange.addHeader("Set-Cookie", NioSessions.COOKIE_NAME + "=" + session.id + "; Path=/; HttpOnly");
+      }
+    }
+    return session;
+  }
+
+  // ClientContext implementation
+
+  public String getContentType() {
+    return ctx.exchange.getHeader("Content-Type");
+  }
+
+  public String getCharacterEncoding() {
+    String contentType = getContentType();
+    if (contentType != null) {
+      for (String s : Spliterator.split(contentType, ';')) {
+        s = s.trim();
+        if (s.startsWith("charset=")) {
+          return s.substring("charset=".length());
+        }
+      }
+    }
+    return null;
+  }
+
+  public int getContentLenth() {
+    return ctx.exchange.getBody().length;
+  }
+
+  public InputStream getInputStream() throws IOException {
+    return new ByteArrayInputStream(ctx.exchange.getBody());
+  }
+
+  // HttpContext implementation
+
+  public HttpMethod getMethod() {
+    return method;
+  }
+
+  public Cookie[] getCookies() {
+    if (cookies == null) {
+      List<Cookie> list = new ArrayList<Cookie>();
+      for (String header : ctx.exchange.getHeaders("Cookie")) {
+        for (String s : Spliterator.split(header, ';')) {
+          int pos = s.indexOf('=');
+          if (pos > 0) {
+            String name = s.substring(0, pos).trim();
+            String value = s.substring(pos + 1).trim();
+            if (value.length() > 1 && value.charAt(0) == '"' && value.charAt(value.length() - 1) == '"') {
+              value = value.substring(1, value.length() - 1);
+            }
+            try {
+              list.add(new Cookie(name, value));
+            }
+            catch (IllegalArgumentException ignore) {
+              // Invalid cookie name
+            }
+          }
+        }
+      }
+      cookies = list.toArray(new Cookie[list.size()]);
+    }
+    return cookies;
+  }
+
+  public String getScheme() {
+    return "http";
+  }
+
+  public int getServerPort() {
+    String host = ctx.exchange.getHeader("Host");
+    if (host != null) {
+      int pos = host.lastIndexOf(':');
+      if (pos != -1 && host.indexOf(']', pos) == -1) {
+        try {
+          return Integer.parseInt(host.substring(pos + 1));
+        }
+        catch (NumberFormatException ignore) {
+        }
+      } else {
+        return 80;
+      }
+    }
+    return ctx.exchange.getLocalPort();
+  }
+
+  public String getServerName() {
+    String host = ctx.exchange.getHeader("Host");
+    if (host != null) {
+      int pos = host.lastIndexOf(':');
+      return pos != -1 && host.indexOf(']', pos) == -1 ? host.substring(0, pos) : host;
+    }
+    return "localhost";
+  }
+
+  public String getContextPath() {
+    return "";
+  }
+
+  // UserContext implementation
+
+  public Locale getLocale() {
+    List<Locale> locales = getLocaleList();
+    return locales.isEmpty() ? Locale.getDefault() : locales.get(0);
+  }
+
+  public Iterable<Locale> getLocales() {
+    List<Locale> locales = getLocaleList();
+    return locales.isEmpty() ? Collections.singletonList(Locale.getDefault()) : locales;
+  }
+
+  private List<Locale> getLocaleList() {
+    if (locales == null) {
+      List<Locale> list = new ArrayList<Locale>();
+      List<Float> weights = new ArrayList<Float>();
+      for (String header : ctx.exchange.getHeaders("Accept-Language")) {
+        for (String range : Spliterator.split(header, ',')) {
+          float weight = 1;
+          int pos = range.indexOf(';');
+          if (pos != -1) {
+            String q = range.substring(pos + 1).trim();
+            range = range.substring(0, pos);
+            if (q.startsWith("q=")) {
+              try {
+                weight = Float.parseFloat(q.substring(2));
+              }
+              catch (NumberFormatException ignore) {
+                weight = 0;
+              }
+            }
+          }
+          range = range.trim();
+          if (range.length() > 0 && !"*".equals(range) && weight > 0) {
+            int sep = range.indexOf('-');
+            Locale locale = sep == -1 ? new Locale(range) : new Locale(range.substring(0, sep), range.substring(sep + 1));
+
+            // Keep the list sorted by decreasing weight, preserving the header order
+            int index = 0;
+            while (index < weights.size() && weights.get(index) >= weight) {
+              index++;
+            }
+            list.add(index, locale);
+            weights.add(index, weight);
+          }
+        }
+      }
+      locales = list;
+    }
+    return locales;
+  }
+
+  // Security context implementation
+
+  public String getRemoteUser() {
+    return null;
+  }
+
+  public Principal getUserPrincipal() {
+    return null;
+  }
+
+  public boolean isUserInRole(String role) {
+    return false;
+  }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.bridge.spi.nio;
+
+import juzu.impl.common.JUL;
+import juzu.impl.common.Logger;
+import juzu.impl.common.Tools;
+import juzu.test.AbstractTestCase;
+import juzu.test.CompilerAssert;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/** @author Julien Viet */
+public class NioBridgeTestCase extends AbstractTestCase {
+
+  /** . */
+  private ExecutorService workers;
+
+  /** . */
+  private NioBridge bridge;
+
+  /** . */
+  private NioServer server;
+
+  /** . */
+  private ClassLoader classLoader;
+
+  /** . */
+  private File docRoot;
+
+  /** . */
+  private File secret;
+
+  @Before
+  public void start() throws Exception {
+    CompilerAssert<File, File> compiler = compiler("bridge.nio.app");
+    compiler.assertCompile();
+    classLoader = compiler.getClassLoader();
+
+    // The document root and a file outside of it
+    File dir = File.createTempFile("juzu", "");
+    assertTrue(dir.delete());
+    docRoot = new File(dir, "root");
+    assertTrue(docRoot.mkdirs());
+    write(new File(docRoot, "hello.txt"), "hello");
+    secret = new File(dir, "secret.txt");
+    write(secret, "secret");
+
+    //
+    HashMap<String, String> config = new HashMap<String, String>();
+    config.put("juzu.app_name", "bridge.nio.app");
+    config.put("juzu.inject", "guice");
+    config.put(NioBridge.DOC_ROOT, docRoot.getAbsolutePath());
+    config.put("juzu.form_max_size", "64");
+    config.put("juzu.form_max_fields", "2");
+    Logger log = JUL.getLogger(NioBridgeTestCase.class.getName());
+    workers = Executors.newFixedThreadPool(4);
+    bridge = new NioBridge(log, config, workers, classLoader);
+    server = new NioServer(log, new InetSocketAddress("localhost", 0), workers, bridge, 1024 * 1024, 30000);
+    server.start();
+  }
+
+  @After
+  public void stop() {
+    if (server != null) {
+      server.close();
+    }
+    if (bridge != null) {
+      bridge.close();
+    }
+    if (workers != null) {
+      workers.shutdownNow();
+    }
+    if (docRoot != null) {
+      delete(docRoot.getParentFile());
+    }
+  }
+
+  @Test
+  public void testSession() throws Exception {
+    HttpURLConnection conn = open("/", null);
+    assertEquals(200, conn.getResponseCode());
+    assertTrue(read(conn).contains("count=1"));
+    String session = getCookie(conn, NioSessions.COOKIE_NAME);
+    assertNotNull(session);
+
+    // The session is retrieved with the cookie
+    conn = open("/", NioSessions.COOKIE_NAME + "=" + session);
+    assertEquals(200, conn.getResponseCode());
+    assertTrue(read(conn).contains("count=2"));
+    assertNull(getCookie(conn, NioSessions.COOKIE_NAME));
+
+    // A new session without the cookie
+    conn = open("/", null);
+    assertEquals(200, conn.getResponseCode());
+    assertTrue(read(conn).contains("count=1"));
+    assertNotSame(session, getCookie(conn, NioSessions.COOKIE_NAME));
+  }
+
+  @Test
+  public void testCookie() throws Exception {
+    HttpURLConnection conn = open("/cookie", "foo=bar");
+    assertEquals(200, conn.getResponseCode());
+    assertTrue(read(conn).contains("cookie=bar"));
+    conn = open("/cookie", null);
+    assertEquals(200, conn.getResponseCode());
+    assertTrue(read(conn).contains("cookie=none"));
+  }
+
+  @Test
+  public void testAsset() throws Exception {
+    HttpURLConnection conn = open("/", null);
+    assertEquals(200, conn.getResponseCode());
+    Matcher matcher = Pattern.compile("<script[^>]* src=\"([^\"]+)\"").matcher(read(conn));
+    assertTrue(matcher.find());
+    conn = open(matcher.group(1), null);
+    assertEquals(200, conn.getResponseCode());
+    assertEquals("application/javascript", conn.getContentType());
+    assertEquals("var nio = true;", read(conn).trim());
+    assertNotNull(conn.getHeaderField("ETag"));
+  }
+
+  @Test
+  public void testFormLimits() throws Exception {
+    AtomicInteger posts = (AtomicInteger)classLoader.loadClass("bridge.nio.app.A").getField("posts").get(null);
+    assertEquals(302, post("a=b&c=d").getResponseCode());
+    assertEquals(1, posts.get());
+    assertEquals(400, post("a=b&c=d&e=f").getResponseCode());
+    assertEquals(413, post("a=" + new String(new char[64]).replace((char)0, 'b')).getResponseCode());
+    assertEquals(1, posts.get());
+  }
+
+  @Test
+  public void testServerResource() throws Exception {
+    HttpURLConnection conn = open("/hello.txt", null);
+    assertEquals(200, conn.getResponseCode());
+    assertEquals("hello", read(conn));
+  }
+
+  @Test
+  public void testDocRootTraversal() throws Exception {
+    String[] paths = {"/../secret.txt", "/../root/../secret.txt", "/%2e%2e/secret.txt"};
+    for (String path : paths) {
+      Socket socket = new Socket("localhost", server.getPort());
+      try {
+        OutputStream out = socket.getOutputStream();
+        out.write(("GET " + path + " HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n").getBytes(Tools.ISO_8859_1));
+        String response = new String(readAll(socket.getInputStream()), Tools.ISO_8859_1);
+        String status = response.substring(0, response.indexOf("\r\n"));
+        assertTrue("Unexpected status " + status + " for " + path, status.contains(" 404 ") || status.contains(" 403 "));
+        assertFalse("Served " + secret + " for " + path, response.contains("secret"));
+      }
+      finally {
+        Tools.safeClose(socket);
+      }
+    }
+  }
+
+  private HttpURLConnection open(String path, String cookie) throws IOException {
+    HttpURLConnection conn = (HttpURLConnection)new URL("http://localhost:" + server.getPort() + path).openConnection();
+    conn.setInstanceFollowRedirects(false);
+    if (cookie != null) {
+      conn.setRequestProperty("Cookie", cookie);
+    }
+    return conn;
+  }
+
+  private HttpURLConnection post(String form) throws IOException {
+    HttpURLConnection conn = open("/post", null);
+    conn.setRequestMethod("POST");
+    conn.setDoOutput(true);
+    conn.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+    OutputStream out = conn.getOutputStream();
+    try {
+      out.write(form.getBytes(Tools.UTF_8));
+    }
+    finally {
+      Tools.safeClose(out);
+    }
+    return conn;
+  }
+
+  private static String getCookie(HttpURLConnection conn, String name) {
+    for (int i = 1;conn.getHeaderFieldKey(i) != null;i++) {
+      if ("Set-Cookie".equalsIgnoreCase(conn.getHeaderFieldKey(i))) {
+        String value = conn.getHeaderField(i);
+        if (value.startsWith(name + "=")) {
+          int end = value.indexOf(';');
+          return value.substring(name.length() + 1, end == -1 ? value.length() : end);
+        }
+      }
+    }
+    return null;
+  }
+
+  private static String read(HttpURLConnection conn) throws IOException {
+    return new String(readAll(conn.getInputStream()), Tools.UTF_8);
+  }
+
+  private static byte[] readAll(InputStream in) throws IOException {
+    try {
+      ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+      Tools.copy(in, buffer);
+      return buffer.toByteArray();
+    }
+    finally {
+      Tools.safeClose(in);
+    }
+  }
+
+  private static void delete(File file) {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        delete(child);
+      }
+    }
+    file.delete();
+  }
+
+  private static void write(File file, String content) throws IOException {
+    FileOutputStream out = new FileOutputStream(file);
+    try {
+      out.write(content.getBytes(Tools.UTF_8));
+    }
+    finally {
+      Tools.safeClose(out);
+    }
+  }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.bridge.spi.nio;
+
+import juzu.impl.common.JUL;
+import juzu.impl.common.Tools;
+import juzu.test.AbstractTestCase;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/** @author Julien Viet */
+public class NioServerTestCase extends AbstractTestCase {
+
+  /** . */
+  private ExecutorService workers;
+
+  /** . */
+  private NioServer server;
+
+  private void start(NioServer.Handler handler, int maxRequestSize) throws IOException {
+    workers = Executors.newFixedThreadPool(4);
+    server = new NioServer(JUL.getLogger(NioServerTestCase.class.getName()), new InetSocketAddress("localhost", 0), workers, handler, maxRequestSize, 30000);
+    server.start();
+  }
+
+  @After
+  public void stop() {
+    if (server != null) {
+      server.close();
+    }
+    if (workers != null) {
+      workers.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testKeepAlive() throws Exception {
+    start(new NioServer.Handler() {
+      public void handle(NioExchange exchange) {
+        exchange.end(exchange.getPath().getBytes(Tools.UTF_8));
+      }
+    }, 1024);
+    Socket socket = new Socket("localhost", server.getPort());
+    try {
+      OutputStream out = socket.getOutputStream();
+      InputStream in = socket.getInputStream();
+      out.write("GET /foo HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(Tools.ISO_8859_1));
+      Response first = new Response(in);
+      assertEquals(200, first.status);
+      assertEquals("/foo", first.body);
+      out.write("GET /bar HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(Tools.ISO_8859_1));
+      Response second = new Response(in);
+      assertEquals(200, second.status);
+      assertEquals("/bar", second.body);
+    }
+    finally {
+      Tools.safeClose(socket);
+    }
+  }
+
+  @Test
+  public void testPipelining() throws Exception {
+    start(new NioServer.Handler() {
+      public void handle(NioExchange exchange) throws Exception {
+        if (exchange.getPath().equals("/slow")) {
+          Thread.sleep(200);
+        }
+        exchange.end(exchange.getPath().getBytes(Tools.UTF_8));
+      }
+    }, 1024);
+    Socket socket = new Socket("localhost", server.getPort());
+    try {
+      OutputStream out = socket.getOutputStream();
+      InputStream in = socket.getInputStream();
+      out.write((
+          "GET /slow HTTP/1.1\r\nHost: localhost\r\n\r\n" +
+          "GET /fast HTTP/1.1\r\nHost: localhost\r\n\r\n" +
+          "GET /last HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n").getBytes(Tools.ISO_8859_1));
+      assertEquals("/slow", new Response(in).body);
+      assertEquals("/fast", new Response(in).body);
+      Response last = new Response(in);
+      assertEquals("/last", last.body);
+      assertEquals("close", last.headers.get("connection"));
+      assertEquals(-1, in.read());
+    }
+    finally {
+      Tools.safeClose(socket);
+    }
+  }
+
+  @Test
+  public void testStreaming() throws Exception {
+    start(new NioServer.Handler() {
+      public void handle(NioExchange exchange) {
+        exchange.setHeader("Content-Type", "text/plain");
+        exchange.write("hello ".getBytes(Tools.UTF_8));
+        exchange.write("world".getBytes(Tools.UTF_8));
+        exchange.end();
+      }
+    }, 1024);
+    Socket socket = new Socket("localhost", server.getPort());
+    try {
+      socket.getOutputStream().write("GET / HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(Tools.ISO_8859_1));
+      Response response = new Response(socket.getInputStream());
+      assertEquals(200, response.status);
+      assertEquals("chunked", response.headers.get("transfer-encoding"));
+      assertEquals("hello world", response.body);
+    }
+    finally {
+      Tools.safeClose(socket);
+    }
+  }
+
+  @Test
+  public void testRequestBody() throws Exception {
+    start(new NioServer.Handler() {
+      public void handle(NioExchange exchange) {
+        exchange.end(exchange.getBody());
+      }
+    }, 16);
+    Socket socket = new Socket("localhost", server.getPort());
+    try {
+      OutputStream out = socket.getOutputStream();
+      InputStream in = socket.getInputStream();
+      out.write("POST / HTTP/1.1\r\nHost: localhost\r\nContent-Length: 5\r\n\r\nabcde".getBytes(Tools.ISO_8859_1));
+      assertEquals("abcde", new Response(in).body);
+      out.write("POST / HTTP/1.1\r\nHost: localhost\r\nContent-Length: 17\r\n\r\n".getBytes(Tools.ISO_8859_1));
+      Response response = new Response(in);
+      assertEquals(413, response.status);
+      assertEquals("close", response.headers.get("connection"));
+    }
+    finally {
+      Tools.safeClose(socket);
+    }
+  }
+
+  @Test
+  public void testHandlerFailure() throws Exception {
+    start(new NioServer.Handler() {
+      public void handle(NioExchange exchange) {
+        throw new RuntimeException();
+      }
+    }, 1024);
+    Socket socket = new Socket("localhost", server.getPort());
+    try {
+      socket.getOutputStream().write("GET / HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(Tools.ISO_8859_1));
+      assertEquals(500, new Response(socket.getInputStream()).status);
+    }
+    finally {
+      Tools.safeClose(socket);
+    }
+  }
+
+  /**
+   * A minimal response parser.
+   */
+  private static class Response {
+
+    /** . */
+    final int status;
+
+    /** . */
+    final Map<String, String> headers = new HashMap<String, String>();
+
+    /** . */
+    final String body;
+
+    Response(InputStream in) throws IOException {
+      String statusLine = readLine(in);
+      status = Integer.parseInt(statusLine.split(" ")[1]);
+      for (String line = readLine(in);line.length() > 0;line = readLine(in)) {
+        int pos = line.indexOf(':');
+        headers.put(line.substring(0, pos).trim().toLowerCase(), line.substring(pos + 1).trim());
+      }
+      ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+      if ("chunked".equals(headers.get("transfer-encoding"))) {
+        for (int size = Integer.parseInt(readLine(in), 16);size > 0;size = Integer.parseInt(readLine(in), 16)) {
+          read(in, size, buffer);
+          readLine(in);
+        }
+        readLine(in);
+      } else if (headers.containsKey("content-length")) {
+        read(in, Integer.parseInt(headers.get("content-length")), buffer);
+      }
+      body = new String(buffer.toByteArray(), Tools.UTF_8);
+    }
+
+    private static void read(InputStream in, int size, ByteArrayOutputStream buffer) throws IOException {
+      while (size-- > 0) {
+        int b = in.read();
+        if (b == -1) {
+          throw new IOException("Unexpected end of stream");
+        }
+        buffer.write(b);
+      }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+      StringBuilder sb = new StringBuilder();
+      for (int b = in.read();b != '\n';b = in.read()) {
+        if (b == -1) {
+          throw new IOException("Unexpected end of stream");
+        }
+        if (b != '\r') {
+          sb.append((char)b);
+        }
+      }
+      return sb.toString();
+    }
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package bridge.nio.app;
+
+import juzu.Action;
+import juzu.Response;
+import juzu.Route;
+import juzu.View;
+import juzu.request.HttpContext;
+
+import javax.inject.Inject;
+import javax.servlet.http.Cookie;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** @author Julien Viet */
+public class A {
+
+  /** . */
+  public static final AtomicInteger posts = new AtomicInteger();
+
+  @Inject
+  Counter counter;
+
+  @View
+  @Route("/")
+  public Response.Status index() {
+    return Response.ok("count=" + counter.increment()).withAssets("test.js");
+  }
+
+  @View
+  @Route("/cookie")
+  public Response.Content cookie(HttpContext context) {
+    String value = "none";
+    Cookie[] cookies = context.getCookies();
+    if (cookies != null) {
+      for (Cookie cookie : cookies) {
+        if ("foo".equals(cookie.getName())) {
+          value = cookie.getValue();
+        }
+      }
+    }
+    return Response.ok("cookie=" + value);
+  }
+
+  @Action
+  @Route("/post")
+  public Response.View post(String a) {
+    posts.incrementAndGet();
+    return A_.index();
+  }
+}
@@ -0,0 +1 @@
+var nio = true;
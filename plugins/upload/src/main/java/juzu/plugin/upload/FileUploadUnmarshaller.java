@@ -20,12 +20,15 @@ import juzu.impl.request.EntityUnmarshaller;
 import juzu.request.ClientContext;
 import juzu.request.RequestParameter;
 import org.apache.commons.fileupload.FileItem;
+import org.apache.commons.fileupload.FileItemIterator;
 import org.apache.commons.fileupload.FileUpload;
 import org.apache.commons.fileupload.FileUploadException;
 import org.apache.commons.fileupload.disk.DiskFileItemFactory;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.reflect.AnnotatedElement;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -43,6 +46,16 @@ public class FileUploadUnmarshaller extends EntityUnmarshaller {
   @Override
   public void unmarshall(
       String mediaType,
+      ClientContext context,
+      Iterable<Map.Entry<ContextualParameter, Object>> contextualArguments,
+      Map<String, RequestParameter> parameterArguments) throws IOException {
+    unmarshall(mediaType, null, context, contextualArguments, parameterArguments);
+  }
+
+  @Override
+  public void unmarshall(
+      String mediaType,
+      AnnotatedElement handler,
       final ClientContext context,
       Iterable<Map.Entry<ContextualParameter, Object>> contextualArguments,
       Map<String, RequestParameter> parameterArguments) throws IOException {
@@ -63,7 +76,32 @@ public class FileUploadUnmarshaller extends EntityUnmarshaller {
     };
 
     //
-    FileUpload upload = new FileUpload(new DiskFileItemFactory());
+    Upload config = handler != null ? handler.getAnnotation(Upload.class) : null;
+    DiskFileItemFactory factory = new DiskFileItemFactory();
+    FileUpload upload = new FileUpload(factory);
+    if (config != null) {
+      factory.setSizeThreshold(config.sizeThreshold());
+      if (config.repository().length() > 0) {
+        factory.setRepository(new File(config.repository()));
+      }
+      upload.setSizeMax(config.maxSize());
+      upload.setFileSizeMax(config.maxPartSize());
+    }
+
+    // Streaming mode : the parts are provided to the handler as they arrive
+    for (Map.Entry<ContextualParameter, Object> argument : contextualArguments) {
+      if (argument.getKey().getType() == FileItemIterator.class) {
+        try {
+          argument.setValue(upload.getItemIterator(ctx));
+        }
+        catch (FileUploadException e) {
+          throw new IOException(e);
+        }
+        return;
+      }
+    }
+
+    //
     try {
       List<FileItem> list = (List<FileItem>)upload.parseRequest(ctx);
       HashMap<String, FileItem> files = new HashMap<String, FileItem>();
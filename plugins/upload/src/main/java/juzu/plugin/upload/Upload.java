@@ -0,0 +1,63 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.plugin.upload;
+
+import org.apache.commons.fileupload.disk.DiskFileItemFactory;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Configures the file upload of a controller handler.
+ *
+ * @author Julien Viet
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Upload {
+
+  /**
+   * The size in bytes above which an uploaded file is stored in a temporary file instead of memory.
+   *
+   * @return the in memory threshold
+   */
+  int sizeThreshold() default DiskFileItemFactory.DEFAULT_SIZE_THRESHOLD;
+
+  /**
+   * The maximum size in bytes of the request, a negative value means no limit.
+   *
+   * @return the maximum request size
+   */
+  long maxSize() default -1;
+
+  /**
+   * The maximum size in bytes of a single part, a negative value means no limit.
+   *
+   * @return the maximum part size
+   */
+  long maxPartSize() default -1;
+
+  /**
+   * The directory of the temporary files, the system temporary directory is used by default.
+   *
+   * @return the temporary directory
+   */
+  String repository() default "";
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package plugin.upload.streaming;
+
+import juzu.Action;
+import juzu.Response;
+import juzu.Route;
+import juzu.View;
+import juzu.plugin.upload.AbstractUploadTestCase;
+import juzu.plugin.upload.Upload;
+import org.apache.commons.fileupload.FileItemIterator;
+import org.apache.commons.fileupload.FileItemStream;
+import org.apache.commons.fileupload.FileUploadException;
+import org.apache.commons.fileupload.util.Streams;
+
+import java.io.IOException;
+
+/** @author Julien Viet */
+public class A {
+
+  @Action
+  @Route("/action")
+  @Upload(maxPartSize = 1024)
+  public Response.View action(FileItemIterator parts) throws IOException, FileUploadException {
+    if (parts != null) {
+      while (parts.hasNext()) {
+        FileItemStream part = parts.next();
+        String value = Streams.asString(part.openStream());
+        if (!part.isFormField()) {
+          AbstractUploadTestCase.contentType = part.getContentType();
+          AbstractUploadTestCase.content = value;
+        } else if (part.getFieldName().equals("text")) {
+          AbstractUploadTestCase.text = value;
+        } else if (part.getFieldName().equals("field")) {
+          AbstractUploadTestCase.field = value;
+        }
+      }
+    }
+    return A_.index();
+  }
+
+  @View
+  @Route("/index")
+  public Response.Content index() {
+    return Response.ok(
+        "<form action='" + A_.action() + "' method='post' enctype='multipart/form-data'>" +
+        "<input type='text' id='text' name='text'>" +
+        "<input type='text' id='field' name='field'>" +
+        "<input type='file' id='file' name='file'>" +
+        "<input type='submit' id='submit'>" +
+        "</form>");
+  }
+}
@@ -16,12 +16,14 @@
 
 package juzu.templating.mustache;
 
+import juzu.impl.template.spi.TemplateFormats;
 import juzu.template.TemplateRenderContext;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.UndeclaredThrowableException;
 import java.util.AbstractMap;
 import java.util.Collections;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 
@@ -31,8 +33,15 @@ class ContextMap extends AbstractMap<String, Object> {
   /** . */
   final TemplateRenderContext renderContext;
 
+  /** . */
+  private final TemplateFormats formats;
+
   ContextMap(TemplateRenderContext renderContext) {
+    Locale locale = renderContext.getLocale();
+
+    //
     this.renderContext = renderContext;
+    this.formats = locale != null ? TemplateFormats.get(locale) : null;
   }
 
   @Override
@@ -60,6 +69,16 @@ class ContextMap extends AbstractMap<String, Object> {
     return value;
   }
 
+  /**
+   * Format a value printed by the template with the formats of the render locale.
+   *
+   * @param value the value
+   * @return the formatted value
+   */
+  Object format(Object value) {
+    return formats != null ? formats.format(value) : value;
+  }
+
   @Override
   public Set<Entry<String, Object>> entrySet() {
     // We don't care about listing and actually it would not be really possible with bean resolution
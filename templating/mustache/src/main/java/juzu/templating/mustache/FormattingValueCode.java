@@ -0,0 +1,47 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.templating.mustache;
+
+import com.github.mustachejava.DefaultMustacheFactory;
+import com.github.mustachejava.TemplateContext;
+import com.github.mustachejava.codes.ValueCode;
+
+/**
+ * A value code formatting the printed value with the formats of the render locale. The formatting happens only
+ * when the value is printed, so templates can still navigate into the value, for instance <code>{{date.time}}</code>.
+ *
+ * @author Julien Viet
+ */
+class FormattingValueCode extends ValueCode {
+
+  FormattingValueCode(TemplateContext tc, DefaultMustacheFactory cf, String variable, boolean encoded) {
+    super(tc, cf, variable, encoded);
+  }
+
+  @Override
+  public Object get(Object[] scopes) {
+    Object value = super.get(scopes);
+    if (value != null) {
+      for (Object scope : scopes) {
+        if (scope instanceof ContextMap) {
+          return ((ContextMap)scope).format(value);
+        }
+      }
+    }
+    return value;
+  }
+}
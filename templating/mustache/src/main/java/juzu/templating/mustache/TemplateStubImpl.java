@@ -64,6 +64,10 @@ public class TemplateStubImpl extends TemplateStub {
         @Override
         public MustacheVisitor createMustacheVisitor() {
           return new DefaultMustacheVisitor(this) {
+            @Override
+            public void value(TemplateContext templateContext, String variable, boolean encoded) {
+              list.add(new FormattingValueCode(templateContext, cf, variable, encoded));
+            }
             @Override
             public void pragma(TemplateContext templateContext, String pragma, String args) {
               if ("param".equals(pragma)) {
@@ -23,6 +23,10 @@ import juzu.test.protocol.mock.MockClient;
 import juzu.test.protocol.mock.MockViewBridge;
 import org.junit.Test;
 
+import java.text.DateFormat;
+import java.util.Date;
+import java.util.Locale;
+
 /** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
 public class MustacheTestCase extends AbstractInjectTestCase {
 
@@ -54,6 +58,15 @@ public class MustacheTestCase extends AbstractInjectTestCase {
     assertEquals("bar", render.assertStringResponse());
   }
 
+  @Test
+  public void testFormatDate() throws Exception {
+    MockApplication<?> app = application("formatdate").init();
+    MockClient client = app.client();
+    MockViewBridge render = client.render();
+    String expected = DateFormat.getDateInstance(DateFormat.MEDIUM, Locale.FRANCE).format(new Date(0));
+    assertEquals(expected + "|0|0", render.assertStringResponse());
+  }
+
   @Test
   public void testPartial() throws Exception {
     MockApplication<?> app = application("partial").init();